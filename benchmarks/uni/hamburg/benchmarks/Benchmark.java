@@ -0,0 +1,78 @@
+package uni.hamburg.benchmarks;
+
+import uni.hamburg.yamms.math.Topology;
+
+/**
+ * Base class of the benchmarks run by the <code>BenchmarkRunner</code>. A
+ * benchmark is set up once per mesh, <code>run</code> is then called
+ * repeatedly and measured. The result of <code>run</code> is consumed by the
+ * runner, so the computation cannot be eliminated by the JIT compiler.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public abstract class Benchmark {
+	/** the name of the benchmark */
+	private String _name;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param name
+	 *            the name of the benchmark, e.g.
+	 *            <code>RealVectorField.add</code>
+	 */
+	protected Benchmark(String name) {
+		_name = name;
+	}
+
+	/**
+	 * Returns the name of the benchmark
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return _name;
+	}
+
+	/**
+	 * Returns whether the benchmark can be run on this machine (e.g. native
+	 * libraries)
+	 * 
+	 * @return <code>true</code> if available
+	 */
+	public boolean isAvailable() {
+		return true;
+	}
+
+	/**
+	 * Returns the number of operations executed by a single call of
+	 * <code>run</code>. The results are reported per operation.
+	 * 
+	 * @return the number of operations
+	 */
+	public int getOperations() {
+		return 1;
+	}
+
+	/**
+	 * Prepares the benchmark for a mesh. The preparation is not measured.
+	 * 
+	 * @param topology
+	 *            the mesh
+	 */
+	public abstract void setUp(Topology topology);
+
+	/**
+	 * Executes the measured code
+	 * 
+	 * @return the result of the computation
+	 */
+	public abstract Object run();
+
+	/**
+	 * Releases the resources of the benchmark after the measurement
+	 */
+	public void tearDown() {
+	}
+}
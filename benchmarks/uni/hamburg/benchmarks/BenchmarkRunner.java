@@ -0,0 +1,255 @@
+package uni.hamburg.benchmarks;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.apache.commons.math.MathException;
+import org.apache.commons.math.distribution.TDistributionImpl;
+
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.profiling.Profiler;
+
+/**
+ * Runs the benchmarks for a list of meshes and writes the results in the JSON
+ * format of JMH, so they can be compared with the usual tools (e.g. JMH
+ * Visualizer). Usage:
+ * 
+ * <pre>
+ * java uni.hamburg.benchmarks.BenchmarkRunner [-mesh 32x32x1,64x64x1] [-warmup 5]
+ *     [-iterations 10] [-time 500] [-filter Demag.*] [-out results.json]
+ * </pre>
+ * 
+ * Every benchmark is run in warmup iterations followed by measured iterations
+ * of at least <code>-time</code> ms each. The score is the average time per
+ * operation, the error the half width of the 99.9% confidence interval over
+ * the iterations.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class BenchmarkRunner {
+	/** the cell size of the meshes */
+	private static final double[] CELL_SIZE = { 5e-9, 5e-9, 3e-9 };
+
+	/** the meshes */
+	private List<int[]> _meshes;
+	/** the number of warmup iterations */
+	private int _warmup;
+	/** the number of measured iterations */
+	private int _iterations;
+	/** the minimum duration of an iteration in ns */
+	private long _time;
+	/** the benchmarks to run */
+	private Pattern _filter;
+	/** the results as JSON objects */
+	private List<String> _results;
+	/** consumes the results of the benchmarks */
+	private volatile int _sink;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param meshes
+	 *            the cell counts of the meshes
+	 * @param warmup
+	 *            the number of warmup iterations
+	 * @param iterations
+	 *            the number of measured iterations (at least 2)
+	 * @param time
+	 *            the minimum duration of an iteration in ms
+	 * @param filter
+	 *            regular expression for the names of the benchmarks
+	 */
+	public BenchmarkRunner(List<int[]> meshes, int warmup, int iterations, long time,
+			String filter) {
+		_meshes = meshes;
+		_warmup = warmup;
+		_iterations = Math.max(2, iterations);
+		_time = time * 1000000L;
+		_filter = Pattern.compile(filter);
+		_results = new ArrayList<String>();
+	}
+
+	/**
+	 * Returns all benchmarks
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> result = new ArrayList<Benchmark>();
+		result.addAll(VectorFieldBenchmarks.create());
+		result.addAll(FFTBenchmarks.create());
+		result.addAll(DemagBenchmarks.create());
+		result.addAll(SolverBenchmarks.create());
+		return result;
+	}
+
+	/**
+	 * Runs the benchmarks matching the filter for all meshes
+	 * 
+	 * @param benchmarks
+	 *            the benchmarks
+	 */
+	public void run(List<Benchmark> benchmarks) {
+		for (Benchmark benchmark : benchmarks) {
+			if (!_filter.matcher(benchmark.getName()).matches()) continue;
+			if (!benchmark.isAvailable()) {
+				System.out.println(String.format("%-36s not available, skipped", benchmark
+						.getName()));
+				continue;
+			}
+			for (int[] mesh : _meshes) {
+				run(benchmark, mesh);
+			}
+		}
+	}
+
+	/**
+	 * Runs a benchmark for a mesh
+	 * 
+	 * @param benchmark
+	 *            the benchmark
+	 * @param mesh
+	 *            the cell counts of the mesh
+	 */
+	private void run(Benchmark benchmark, int[] mesh) {
+		benchmark.setUp(new Topology(mesh, CELL_SIZE));
+		for (int i = 0; i < _warmup; i++) {
+			iteration(benchmark);
+		}
+		double[] scores = new double[_iterations];
+		for (int i = 0; i < _iterations; i++) {
+			scores[i] = iteration(benchmark);
+		}
+		benchmark.tearDown();
+
+		double mean = 0;
+		for (int i = 0; i < scores.length; i++) {
+			mean += scores[i];
+		}
+		mean /= scores.length;
+		double variance = 0;
+		for (int i = 0; i < scores.length; i++) {
+			variance += (scores[i] - mean) * (scores[i] - mean);
+		}
+		variance /= scores.length - 1;
+		double error;
+		try {
+			error = new TDistributionImpl(scores.length - 1).inverseCumulativeProbability(0.9995)
+					* Math.sqrt(variance / scores.length);
+		} catch (MathException e) {
+			error = Double.NaN;
+		}
+
+		String size = mesh[0] + "x" + mesh[1] + "x" + mesh[2];
+		System.out.println(String.format(Locale.US, "%-36s %12s %14.3f +- %10.3f us/op",
+				benchmark.getName(), size, mean, error));
+
+		StringBuilder raw = new StringBuilder();
+		for (int i = 0; i < scores.length; i++) {
+			if (i > 0) raw.append(", ");
+			raw.append(scores[i]);
+		}
+		_results.add(String.format(Locale.US, "{\n" + "    \"benchmark\": \"%s\",\n"
+				+ "    \"mode\": \"avgt\",\n" + "    \"threads\": 1,\n"
+				+ "    \"forks\": 1,\n" + "    \"warmupIterations\": %d,\n"
+				+ "    \"measurementIterations\": %d,\n"
+				+ "    \"params\": { \"mesh\": \"%s\" },\n" + "    \"primaryMetric\": {\n"
+				+ "      \"score\": %s,\n" + "      \"scoreError\": %s,\n"
+				+ "      \"scoreUnit\": \"us/op\",\n" + "      \"rawData\": [ [ %s ] ]\n"
+				+ "    }\n" + "  }", benchmark.getName(), _warmup, _iterations, size,
+				mean, Double.isNaN(error) ? "\"NaN\"" : Double.toString(error), raw));
+	}
+
+	/**
+	 * Executes an iteration of a benchmark
+	 * 
+	 * @param benchmark
+	 *            the benchmark
+	 * @return the average time per operation in us
+	 */
+	private double iteration(Benchmark benchmark) {
+		int sink = 0;
+		long calls = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			sink += System.identityHashCode(benchmark.run());
+			calls++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < _time);
+		_sink = sink;
+		return 1e-3 * elapsed / ((double) calls * benchmark.getOperations());
+	}
+
+	/**
+	 * Writes the results as JSON array
+	 * 
+	 * @param path
+	 *            the path of the file
+	 */
+	public void write(String path) {
+		try {
+			FileWriter out = new FileWriter(path);
+			out.write("[\n  ");
+			for (int i = 0; i < _results.size(); i++) {
+				if (i > 0) out.write(",\n  ");
+				out.write(_results.get(i));
+			}
+			out.write("\n]\n");
+			out.close();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Runs the benchmarks
+	 * 
+	 * @param args
+	 *            the options (see class description)
+	 */
+	public static void main(String[] args) {
+		String meshes = "32x32x1,64x64x1,128x128x1";
+		int warmup = 5;
+		int iterations = 10;
+		long time = 500;
+		String filter = ".*";
+		String out = "benchmarks.json";
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (args[i].equals("-mesh")) {
+				meshes = args[i + 1];
+			} else if (args[i].equals("-warmup")) {
+				warmup = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("-iterations")) {
+				iterations = Integer.parseInt(args[i + 1]);
+			} else if (args[i].equals("-time")) {
+				time = Long.parseLong(args[i + 1]);
+			} else if (args[i].equals("-filter")) {
+				filter = args[i + 1];
+			} else if (args[i].equals("-out")) {
+				out = args[i + 1];
+			} else {
+				throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+			}
+		}
+
+		List<int[]> sizes = new ArrayList<int[]>();
+		for (String mesh : meshes.split(",")) {
+			String[] n = mesh.trim().split("x");
+			sizes.add(new int[] { Integer.parseInt(n[0]), Integer.parseInt(n[1]),
+					Integer.parseInt(n[2]) });
+		}
+
+		// the profiler would add to the measured times
+		Profiler.getInstance().setEnabled(false);
+
+		BenchmarkRunner runner = new BenchmarkRunner(sizes, warmup, iterations, time, filter);
+		runner.run(getBenchmarks());
+		runner.write(out);
+	}
+}
@@ -0,0 +1,140 @@
+package uni.hamburg.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.hamburg.yamms.fieldTerms.BetterDemagField;
+import uni.hamburg.yamms.fieldTerms.CuteDemagField;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.DemagTensorField;
+import uni.hamburg.yamms.fieldTerms.FieldTerm;
+import uni.hamburg.yamms.math.ComplexTensorField;
+import uni.hamburg.yamms.math.ComplexVectorField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * Benchmarks of the demagnetization field: the setup of the tensor, the
+ * multiplication in Fourier space and the field calculation of the different
+ * implementations.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class DemagBenchmarks {
+	/**
+	 * Benchmark of the field calculation of a demag implementation
+	 */
+	private static abstract class FieldTermBenchmark extends Benchmark {
+		/** the field term */
+		private FieldTerm _field;
+		/** the state */
+		private State _state;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the benchmark
+		 */
+		FieldTermBenchmark(String name) {
+			super(name);
+		}
+
+		/**
+		 * Creates the field term
+		 * 
+		 * @param topology
+		 *            the topology
+		 * @return the field term
+		 */
+		protected abstract FieldTerm create(Topology topology);
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * uni.hamburg.benchmarks.Benchmark#setUp(uni.hamburg.yamms.math.Topology)
+		 */
+		public void setUp(Topology topology) {
+			_field = create(topology);
+			_state = State.getStub(VectorFieldBenchmarks.random(topology, 1).normTo(
+					new RealConstantScalarField(topology, 8e5)));
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see uni.hamburg.benchmarks.Benchmark#run()
+		 */
+		public Object run() {
+			return _field.calculateField(_state);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see uni.hamburg.benchmarks.Benchmark#tearDown()
+		 */
+		public void tearDown() {
+			_field = null;
+			_state = null;
+		}
+	}
+
+	/**
+	 * Creates the benchmarks
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> create() {
+		List<Benchmark> result = new ArrayList<Benchmark>();
+		result.add(new Benchmark("DemagTensorField.fromTopology") {
+			private Topology _topology;
+
+			public void setUp(Topology topology) {
+				_topology = topology;
+			}
+
+			public Object run() {
+				return DemagTensorField.fromTopology(_topology);
+			}
+		});
+		result.add(new Benchmark("ComplexTensorField.times") {
+			private ComplexTensorField _tensor;
+			private ComplexVectorField _vector;
+
+			public void setUp(Topology topology) {
+				_tensor = DemagTensorField.fromTopology(topology).fftForward();
+				_vector = VectorFieldBenchmarks.random(topology, 1).applyTopology(
+						_tensor.topology).toComplexVectorField().fftForward();
+			}
+
+			public Object run() {
+				return _tensor.times(_vector);
+			}
+
+			public void tearDown() {
+				_tensor = null;
+				_vector = null;
+			}
+		});
+		result.add(new FieldTermBenchmark("DemagField.calculateField") {
+			protected FieldTerm create(Topology topology) {
+				return new DemagField(topology);
+			}
+		});
+		result.add(new FieldTermBenchmark("BetterDemagField.calculateField") {
+			protected FieldTerm create(Topology topology) {
+				return new BetterDemagField(topology);
+			}
+		});
+		result.add(new FieldTermBenchmark("CuteDemagField.calculateField") {
+			protected FieldTerm create(Topology topology) {
+				return new CuteDemagField(topology);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,108 @@
+package uni.hamburg.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.math.fft.Dimension;
+import uni.hamburg.yamms.math.fft.FFT;
+import uni.hamburg.yamms.math.fft.FFT_fftw3Impl;
+import uni.hamburg.yamms.math.fft.FFT_jtransforms;
+import uni.hamburg.yamms.math.fft.Spec;
+import uni.hamburg.yamms.math.fft.Type;
+
+/**
+ * Benchmarks of the FFT implementations. Both implementations compute the
+ * batched transform along the x axis of the zero padded mesh, as used by
+ * <code>DemagField</code>. The native implementation is skipped if the FFTW3
+ * library is not available.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class FFTBenchmarks {
+	/**
+	 * Base class of the FFT benchmarks
+	 */
+	private static abstract class FFTBenchmark extends Benchmark {
+		/** the transform */
+		private FFT _fft;
+		/** the data (complex, interleaved) */
+		private double[] _data;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the benchmark
+		 */
+		FFTBenchmark(String name) {
+			super(name);
+		}
+
+		/**
+		 * Creates the transform
+		 * 
+		 * @param spec
+		 *            the specification
+		 * @return the transform
+		 */
+		protected abstract FFT create(Spec spec);
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * uni.hamburg.benchmarks.Benchmark#setUp(uni.hamburg.yamms.math.Topology)
+		 */
+		public void setUp(Topology topology) {
+			// padded mesh as in DemagField
+			int[] n = new int[3];
+			for (int i = 0; i < 3; i++) {
+				n[i] = (topology.getCellCount(i) == 1) ? 1 : 2 * topology.getCellCount(i);
+			}
+			Dimension[] transform = { new Dimension(n[0], 1, 1) };
+			Dimension[] loop = { new Dimension(n[1], n[0], n[0]),
+					new Dimension(n[2], n[0] * n[1], n[0] * n[1]) };
+			_fft = create(new Spec(Type.FORW_C2C, transform, loop));
+			_data = new double[2 * n[0] * n[1] * n[2]];
+			for (int i = 0; i < _data.length; i++) {
+				_data[i] = Math.sin(i);
+			}
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see uni.hamburg.benchmarks.Benchmark#run()
+		 */
+		public Object run() {
+			_fft.transform(_data, _data);
+			return _data;
+		}
+	}
+
+	/**
+	 * Creates the benchmarks
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> create() {
+		List<Benchmark> result = new ArrayList<Benchmark>();
+		result.add(new FFTBenchmark("FFT_jtransforms.transform") {
+			protected FFT create(Spec spec) {
+				return new FFT_jtransforms(spec);
+			}
+		});
+		result.add(new FFTBenchmark("FFT_fftw3Impl.transform") {
+			public boolean isAvailable() {
+				return FFT_fftw3Impl.isAvailable();
+			}
+
+			protected FFT create(Spec spec) {
+				return new FFT_fftw3Impl(spec);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,116 @@
+package uni.hamburg.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.physics.Constants;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.GeometricSolver;
+import uni.hamburg.yamms.solver.GeometricSolver.Scheme;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * Benchmarks of complete integration steps of the <code>HeunSolver</code> and
+ * the norm preserving <code>GeometricSolver</code> for the model of the muMag
+ * standard problem 4 (exchange, demag and Zeeman field). Every call integrates
+ * <code>STEPS</code> steps, the result is reported per step.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class SolverBenchmarks {
+	/** the number of steps per call */
+	private static final int STEPS = 10;
+
+	/**
+	 * Benchmark of the steps of a solver
+	 */
+	private static abstract class SolverBenchmark extends Benchmark {
+		private Model _model;
+		private RealVectorField _m0;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the benchmark
+		 */
+		SolverBenchmark(String name) {
+			super(name);
+		}
+
+		/**
+		 * Creates the solver for a call
+		 * 
+		 * @return the solver
+		 */
+		protected abstract Solver createSolver();
+
+		public int getOperations() {
+			return STEPS;
+		}
+
+		public void setUp(Topology topology) {
+			RealScalarField ms = new RealConstantScalarField(topology, 8e5);
+			CompositeFieldTerm field = new CompositeFieldTerm();
+			field.addFieldTerm(new ExchangeField(13e-12, ms));
+			field.addFieldTerm(new DemagField(topology));
+			field.addFieldTerm(new StaticZeemanField(new double[] { -24.6e-3 / Constants.MU0,
+					4.3e-3 / Constants.MU0, 0 }));
+			_model = new BasicModel(2.211e5, 0.02, ms, field);
+			_m0 = RealVectorField.getUniformField(topology, new double[] { 1, 0.1, 0 }).normTo(ms);
+		}
+
+		public Object run() {
+			Solver solver = createSolver();
+			solver.stopWhen(new Condition() {
+				public boolean execute(State state) {
+					return state.getStep() >= STEPS;
+				}
+			});
+			return solver.integrate(_model, _m0);
+		}
+
+		public void tearDown() {
+			_model = null;
+			_m0 = null;
+		}
+	}
+
+	/**
+	 * Creates the benchmarks
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> create() {
+		List<Benchmark> result = new ArrayList<Benchmark>();
+		result.add(new SolverBenchmark("HeunSolver.step") {
+			protected Solver createSolver() {
+				return new HeunSolver(5e-14, 0, 0);
+			}
+		});
+		result.add(new SolverBenchmark("GeometricSolver.step") {
+			protected Solver createSolver() {
+				return new GeometricSolver(5e-14, 0, 0, Scheme.CAYLEY_HEUN);
+			}
+		});
+		result.add(new SolverBenchmark("GeometricSolver.midpoint") {
+			protected Solver createSolver() {
+				return new GeometricSolver(5e-14, 0, 0, Scheme.MIDPOINT);
+			}
+		});
+		return result;
+	}
+}
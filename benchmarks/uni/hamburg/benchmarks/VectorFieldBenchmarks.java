@@ -0,0 +1,120 @@
+package uni.hamburg.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import uni.hamburg.yamms.math.BooleanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+/**
+ * Benchmarks of the basic operations of <code>RealVectorField</code>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class VectorFieldBenchmarks {
+	/**
+	 * Base class of the benchmarks on two random vector fields
+	 */
+	private static abstract class FieldBenchmark extends Benchmark {
+		/** the first field */
+		protected RealVectorField _a;
+		/** the second field */
+		protected RealVectorField _b;
+		/** the saturation magnetization */
+		protected RealScalarField _ms;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the benchmark
+		 */
+		FieldBenchmark(String name) {
+			super(name);
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * uni.hamburg.benchmarks.Benchmark#setUp(uni.hamburg.yamms.math.Topology)
+		 */
+		public void setUp(Topology topology) {
+			_ms = new RealConstantScalarField(topology, 8e5);
+			_a = random(topology, 1).normTo(_ms);
+			_b = random(topology, 2).normTo(_ms);
+		}
+	}
+
+	/**
+	 * Returns a field with random vectors
+	 * 
+	 * @param topology
+	 *            the topology
+	 * @param seed
+	 *            the seed
+	 * @return the field
+	 */
+	static RealVectorField random(Topology topology, long seed) {
+		Random random = new Random(seed);
+		double[][] values = new double[3][topology.totalCellCount];
+		for (int c = 0; c < 3; c++) {
+			for (int i = 0; i < topology.totalCellCount; i++) {
+				values[c][i] = random.nextDouble() - 0.5;
+			}
+		}
+		return new RealVectorField(topology, values);
+	}
+
+	/**
+	 * Creates the benchmarks
+	 * 
+	 * @return the benchmarks
+	 */
+	public static List<Benchmark> create() {
+		List<Benchmark> result = new ArrayList<Benchmark>();
+		result.add(new FieldBenchmark("RealVectorField.add") {
+			public Object run() {
+				return _a.add(_b);
+			}
+		});
+		result.add(new FieldBenchmark("RealVectorField.cross") {
+			public Object run() {
+				return _a.cross(_b);
+			}
+		});
+		result.add(new FieldBenchmark("RealVectorField.times") {
+			public Object run() {
+				return _a.times(_ms);
+			}
+		});
+		result.add(new FieldBenchmark("RealVectorField.normTo") {
+			public Object run() {
+				return _a.normTo(_ms);
+			}
+		});
+		result.add(new FieldBenchmark("RealVectorField.innerProduct") {
+			public Object run() {
+				return _a.innerProduct(_b);
+			}
+		});
+		result.add(new FieldBenchmark("RealVectorField.laplaceWithBounds") {
+			private BooleanField _bounds;
+
+			public void setUp(Topology topology) {
+				super.setUp(topology);
+				_bounds = BooleanField.boundsFromField(_ms);
+			}
+
+			public Object run() {
+				return _a.laplaceWithBounds(_bounds);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,27 @@
+package uni.hamburg.yamms.fieldTerms;
+
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * A local field term that can add its field to an existing field. This way
+ * <code>CompositeFieldTerm</code> accumulates the effective field without
+ * allocating a field per term. The field of a local term must only depend on
+ * the state, so it can be calculated concurrently to other field terms.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public interface AccumulatingFieldTerm extends FieldTerm {
+	/**
+	 * Adds the effective field for a given state to a field. The values of
+	 * the target are modified in place.
+	 * 
+	 * @param state
+	 *            the current state
+	 * @param target
+	 *            the field the effective field is added to (same topology
+	 *            and dimension as the magnetization)
+	 */
+	public void addFieldTo(State state, RealVectorField target);
+}
@@ -1,27 +1,59 @@
 package uni.hamburg.yamms.fieldTerms;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 
 import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.profiling.Profiler;
 import uni.hamburg.yamms.solver.State;
 
 /**
- * Field term for combining multiple 'real' field terms by addition
+ * Field term for combining multiple 'real' field terms by addition.
+ * <p>
+ * Local field terms (terms implementing <code>AccumulatingFieldTerm</code>,
+ * e.g. exchange, anisotropy and zeeman) add their field directly to a single
+ * effective field buffer. The remaining field terms (e.g. the demagnetization
+ * field) are added afterwards in the order they were added.
+ * <p>
+ * With <code>setConcurrent(true)</code> every non-local field term is
+ * calculated as a separate task on an executor shared by all composite field
+ * terms, while the calling thread accumulates the local terms. This way the
+ * FFT of the demagnetization field overlaps with the stencils of the local
+ * terms on multi-core machines. Tasks that have not been started by the
+ * executor when the local terms are done are run by the calling thread, so
+ * nested composite field terms cannot deadlock. The summation order, and thus
+ * the result, is the same in both modes. The profiler records the tasks below
+ * the running measurements of the calling thread, as in the sequential mode.
  * 
  * @author Claas Abert
  * 
  */
 public class CompositeFieldTerm implements FieldTerm {
+	/** the executor shared by all composite field terms (created on demand) */
+	private static ExecutorService sharedExecutor;
+
 	/** List of field terms that make up the combined field **/
 	private ArrayList<FieldTerm> fieldTerms;
+	/** the profiler probes of the field terms */
+	private int[] probes;
+	/** calculate the non-local terms concurrently */
+	private boolean concurrent;
+	/** the executor for the non-local terms (<code>null</code>: shared executor) */
+	private Executor executor;
 
 	/**
 	 * Standard constructor
 	 */
 	public CompositeFieldTerm() {
 		fieldTerms = new ArrayList<FieldTerm>();
+		probes = new int[0];
 	}
 
 	/**
@@ -32,6 +64,99 @@ public class CompositeFieldTerm implements FieldTerm {
 	 */
 	public void addFieldTerm(FieldTerm fieldTerm) {
 		fieldTerms.add(fieldTerm);
+		addProbe(fieldTerm);
+	}
+
+	/**
+	 * Registers the profiler probe of a field term
+	 * 
+	 * @param fieldTerm
+	 *            the field term
+	 */
+	private void addProbe(FieldTerm fieldTerm) {
+		int[] result = new int[probes.length + 1];
+		System.arraycopy(probes, 0, result, 0, probes.length);
+		result[probes.length] = Profiler.getInstance().register(
+				Profiler.getSimpleClassName(fieldTerm));
+		probes = result;
+	}
+
+	/**
+	 * Add an expensive, slowly varying field term (e.g. the demagnetization
+	 * field) to the list. The field term is not evaluated at every call, but
+	 * extrapolated in time (see {@link MultiRateFieldTerm}).
+	 * 
+	 * @param fieldTerm
+	 *            the field term
+	 * @param maxInterval
+	 *            the maximum number of calls between two evaluations of the
+	 *            field term
+	 * @param tolerance
+	 *            the tolerated error of the extrapolated field relative to the
+	 *            maximum norm of the field
+	 * @return the wrapped field term
+	 */
+	public MultiRateFieldTerm addSlowFieldTerm(FieldTerm fieldTerm, int maxInterval,
+			double tolerance) {
+		MultiRateFieldTerm slow = new MultiRateFieldTerm(fieldTerm, maxInterval, tolerance);
+		fieldTerms.add(slow);
+		addProbe(slow);
+		return slow;
+	}
+
+	/**
+	 * Enables or disables the concurrent calculation of the non-local field
+	 * terms
+	 * 
+	 * @param concurrent
+	 *            <code>true</code> to enable the concurrent calculation
+	 */
+	public void setConcurrent(boolean concurrent) {
+		this.concurrent = concurrent;
+	}
+
+	/**
+	 * Returns whether the non-local field terms are calculated concurrently
+	 * 
+	 * @return <code>true</code> if the concurrent calculation is enabled
+	 */
+	public boolean isConcurrent() {
+		return concurrent;
+	}
+
+	/**
+	 * Sets the executor for the concurrent calculation of the non-local field
+	 * terms
+	 * 
+	 * @param executor
+	 *            the executor (<code>null</code> for the executor shared by
+	 *            all composite field terms)
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Returns the executor shared by all composite field terms. The executor
+	 * uses one daemon thread less than the number of available processors
+	 * (at least one), since the calling thread takes part in the calculation.
+	 * 
+	 * @return the executor
+	 */
+	public static synchronized ExecutorService getSharedExecutor() {
+		if (sharedExecutor == null) {
+			int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+			sharedExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+				private int count;
+
+				public synchronized Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "CompositeFieldTerm-" + count++);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sharedExecutor;
 	}
 
 	/*
@@ -39,23 +164,162 @@ public class CompositeFieldTerm implements FieldTerm {
 	 * 
 	 * @see
 	 * uni.hamburg.m3sc.fieldTerms.FieldTerm#calculateField(uni.hamburg.m3sc
-	 * .math.RealVectorField, double, int)
+	 * .math.RealVectorField, double)
 	 */
 	public RealVectorField calculateField(State state) {
-		Iterator<FieldTerm> it = fieldTerms.iterator();
 		RealVectorField result = RealVectorField.getEmptyField(state.getTopology(),
 				state.getM().dimension);
 
-		while (it.hasNext()) {
-			FieldTerm field = it.next();
-			String profileKey = "Model." + Profiler.getSimpleClassName(field);
-			Profiler.getInstance().tic(profileKey);
+		int nonLocal = 0;
+		for (int i = 0; i < fieldTerms.size(); i++) {
+			if (!(fieldTerms.get(i) instanceof AccumulatingFieldTerm)) nonLocal++;
+		}
 
-			result = result.add(field.calculateField(state));
+		RealVectorField[] fields;
+		if (concurrent && nonLocal > 0) {
+			fields = calculateNonLocalFieldsConcurrently(state, result);
+		} else {
+			accumulateLocalFields(state, result);
+			fields = calculateNonLocalFields(state);
+		}
 
-			Profiler.getInstance().toc(profileKey);
+		// the result is owned by this method and can be modified in place
+		double[][] values = result.getValues();
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i] == null) continue;
+			for (int c = 0; c < values.length; c++) {
+				double[] component = values[c];
+				for (int j = 0; j < component.length; j++) {
+					component[j] += fields[i].getValue(c, j);
+				}
+			}
 		}
 
 		return result;
 	}
+
+	/**
+	 * Adds the fields of the local field terms to a field
+	 * 
+	 * @param state
+	 *            the current state
+	 * @param result
+	 *            the field
+	 */
+	private void accumulateLocalFields(State state, RealVectorField result) {
+		for (int i = 0; i < fieldTerms.size(); i++) {
+			FieldTerm field = fieldTerms.get(i);
+			if (!(field instanceof AccumulatingFieldTerm)) continue;
+
+			Profiler.getInstance().tic(probes[i]);
+			((AccumulatingFieldTerm) field).addFieldTo(state, result);
+			Profiler.getInstance().toc(probes[i]);
+		}
+	}
+
+	/**
+	 * Calculates the fields of the non-local field terms
+	 * 
+	 * @param state
+	 *            the current state
+	 * @return the fields in the order of the field terms (<code>null</code>
+	 *         for local field terms)
+	 */
+	private RealVectorField[] calculateNonLocalFields(State state) {
+		RealVectorField[] result = new RealVectorField[fieldTerms.size()];
+		for (int i = 0; i < fieldTerms.size(); i++) {
+			if (fieldTerms.get(i) instanceof AccumulatingFieldTerm) continue;
+			result[i] = calculateTerm(i, state);
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates the fields of the non-local field terms as separate tasks,
+	 * while the local field terms are accumulated by the calling thread
+	 * 
+	 * @param state
+	 *            the current state
+	 * @param result
+	 *            the field the local field terms are added to
+	 * @return the fields in the order of the field terms (<code>null</code>
+	 *         for local field terms)
+	 */
+	private RealVectorField[] calculateNonLocalFieldsConcurrently(final State state,
+			RealVectorField result) {
+		Executor executor = (this.executor == null) ? getSharedExecutor() : this.executor;
+		// the tasks are recorded below the running measurements of this thread
+		final int[] path = Profiler.getInstance().getCurrentPath();
+
+		List<FutureTask<RealVectorField>> tasks = new ArrayList<FutureTask<RealVectorField>>();
+		for (int i = 0; i < fieldTerms.size(); i++) {
+			if (fieldTerms.get(i) instanceof AccumulatingFieldTerm) {
+				tasks.add(null);
+				continue;
+			}
+			final int idx = i;
+			FutureTask<RealVectorField> task = new FutureTask<RealVectorField>(
+					new Callable<RealVectorField>() {
+						public RealVectorField call() {
+							int[] previous = Profiler.getInstance().setCurrentPath(path);
+							try {
+								return calculateTerm(idx, state);
+							} finally {
+								Profiler.getInstance().setCurrentPath(previous);
+							}
+						}
+					});
+			tasks.add(task);
+			executor.execute(task);
+		}
+
+		accumulateLocalFields(state, result);
+
+		RealVectorField[] fields = new RealVectorField[fieldTerms.size()];
+		try {
+			for (int i = 0; i < tasks.size(); i++) {
+				FutureTask<RealVectorField> task = tasks.get(i);
+				if (task == null) continue;
+				// runs the task if it was not started yet, no effect otherwise
+				task.run();
+				fields[i] = task.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel(tasks);
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			cancel(tasks);
+			throw new RuntimeException(e.getCause());
+		}
+		return fields;
+	}
+
+	/**
+	 * Cancels the tasks that are not done yet
+	 * 
+	 * @param tasks
+	 *            the tasks (<code>null</code> for local field terms)
+	 */
+	private static void cancel(List<FutureTask<RealVectorField>> tasks) {
+		for (int i = 0; i < tasks.size(); i++) {
+			if (tasks.get(i) != null) tasks.get(i).cancel(true);
+		}
+	}
+
+	/**
+	 * Calculates the field of a single field term
+	 * 
+	 * @param i
+	 *            the index of the field term
+	 * @param state
+	 *            the current state
+	 * @return the field
+	 */
+	private RealVectorField calculateTerm(int i, State state) {
+		Profiler.getInstance().tic(probes[i]);
+		RealVectorField result = fieldTerms.get(i).calculateField(state);
+		Profiler.getInstance().toc(probes[i]);
+		return result;
+	}
 }
@@ -21,6 +21,14 @@ import uni.hamburg.yamms.solver.State;
  * 
  */
 public class DemagField implements FieldTerm {
+	/** the profiler probe of the FFT */
+	private static final int PROBE_FFT = Profiler.getInstance().register("FFT");
+	/** the profiler probe of the multiplication */
+	private static final int PROBE_MULTIPLICATION = Profiler.getInstance().register(
+			"Multiplication");
+	/** the profiler probe of the inverse FFT */
+	private static final int PROBE_IFFT = Profiler.getInstance().register("iFFT");
+
 	/** The fourier transformed demagnetization tensor N */
 	protected ComplexTensorField _fN;
 
@@ -121,29 +129,29 @@ public class DemagField implements FieldTerm {
 		// FFT
 		ComplexVectorField fM = state.getM().applyTopology(_topology).toComplexVectorField();
 
-		Profiler.getInstance().tic("Model.DemagField.FFT");
+		Profiler.getInstance().tic(PROBE_FFT);
 		double data[][] = fM.getValues();
 		for (int i = 0; i < fM.dimension; ++i) {
 			for (int j = 0; j < fft.length; ++j) {
 				fft[j].transform(data[i], data[i]);
 			}
 		}
-		Profiler.getInstance().toc("Model.DemagField.FFT");
+		Profiler.getInstance().toc(PROBE_FFT);
 
 		// multiplication
-		Profiler.getInstance().tic("Model.DemagField.Multiplication");
+		Profiler.getInstance().tic(PROBE_MULTIPLICATION);
 		ComplexVectorField result = _fN.times(fM);
-		Profiler.getInstance().toc("Model.DemagField.Multiplication");
+		Profiler.getInstance().toc(PROBE_MULTIPLICATION);
 
 		// inverse FFT
-		Profiler.getInstance().tic("Model.DemagField.iFFT");
+		Profiler.getInstance().tic(PROBE_IFFT);
 		data = result.getValues();
 		for (int i = 0; i < result.dimension; ++i) {
 			for (int j = 0; j < ifft.length; ++j) {
 				ifft[j].transform(data[i], data[i]);
 			}
 		}
-		Profiler.getInstance().toc("Model.DemagField.iFFT");
+		Profiler.getInstance().toc(PROBE_IFFT);
 
 		return result.toRealVectorField().applyTopology(state.getTopology());
 	}
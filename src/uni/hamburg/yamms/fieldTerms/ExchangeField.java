@@ -3,6 +3,7 @@ package uni.hamburg.yamms.fieldTerms;
 import uni.hamburg.yamms.math.BooleanField;
 import uni.hamburg.yamms.math.RealScalarField;
 import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
 import uni.hamburg.yamms.physics.Constants;
 import uni.hamburg.yamms.solver.State;
 
@@ -13,7 +14,7 @@ import uni.hamburg.yamms.solver.State;
  * @author Claas Abert
  * 
  */
-public class ExchangeField implements FieldTerm {
+public class ExchangeField implements AccumulatingFieldTerm {
 	/** constant factor of the exchange field term */
 	protected RealScalarField _factor;
 	/** The bounds of the sample used as an integer field (1 = material, 0 = vaccum) */
@@ -36,7 +37,42 @@ public class ExchangeField implements FieldTerm {
 	 * @see uni.hamburg.m3sc.fieldTerms.FieldTerm#calculateField(uni.hamburg.m3sc.math.RealVectorField, double)
 	 */
 	public RealVectorField calculateField(State state) {
-		return state.getM().laplaceWithBounds(_bounds).times(_factor);
+		RealVectorField m = state.getM();
+		RealVectorField result = RealVectorField.getEmptyField(m.topology, m.dimension);
+		addFieldTo(state, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.AccumulatingFieldTerm#addFieldTo(uni.hamburg
+	 * .yamms.solver.State, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	public void addFieldTo(State state, RealVectorField target) {
+		RealVectorField m = state.getM();
+		Topology topology = m.topology;
+		assert _bounds.topology.equals(topology);
+
+		// laplace with bounds (see RealVectorField) times factor in one pass
+		double[][] values = m.getValues();
+		double[][] result = target.getValues();
+		int[][] neighborStrides = topology.getNeighborStrides();
+		for (int dim = 0; dim < m.dimension; dim++) {
+			double[] v = values[dim];
+			double[] r = result[dim];
+			for (int lidx = 0; lidx < topology.totalCellCount; lidx++) {
+				if (!_bounds.getValue(lidx)) continue;
+				double laplace = 0;
+				for (int i = 0; i < neighborStrides[lidx].length; i++) {
+					int stride = neighborStrides[lidx][i];
+					if (stride == 0 || !_bounds.getValue(lidx + stride)) continue;
+					laplace += (v[lidx + stride] - v[lidx]) / topology.getSquaredCellSize(i / 2);
+				}
+				r[lidx] += laplace * _factor.getValue(lidx);
+			}
+		}
 	}
 
 }
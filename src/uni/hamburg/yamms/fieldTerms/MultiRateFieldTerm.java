@@ -0,0 +1,159 @@
+package uni.hamburg.yamms.fieldTerms;
+
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * Wrapper for expensive, slowly varying field terms (e.g. the demagnetization
+ * field). The wrapped field term is only evaluated every k-th call. In between
+ * the field is extrapolated linearly in time from the last two evaluations.
+ * <p>
+ * The interval k is controlled by the error of the extrapolation. At every
+ * evaluation the extrapolated field is compared to the calculated one. If the
+ * relative error exceeds the tolerance, the field term is evaluated at every
+ * call again and the interval is increased step by step as long as the error
+ * stays below the tolerance.
+ * <p>
+ * Calls at the time of the last evaluation return the evaluated field only
+ * for the same magnetization. A different magnetization at this time (e.g. the
+ * Heun step following a predictor at the same time, or the fixed-point
+ * iteration of the midpoint rule of the <code>GeometricSolver</code>) forces
+ * an evaluation, so implicit iterations see the slow field of the current
+ * iterate. These iterations gain nothing from the wrapper.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class MultiRateFieldTerm implements FieldTerm {
+	/** the wrapped field term */
+	private FieldTerm _fieldTerm;
+	/** the maximum number of calls between two evaluations */
+	private int _maxInterval;
+	/** the tolerated error of the extrapolation relative to the field */
+	private double _tolerance;
+
+	/** the current number of calls between two evaluations */
+	private int _interval;
+	/** the number of calls since the last evaluation */
+	private int _calls;
+	/** the number of evaluations of the wrapped field term */
+	private int _evaluations;
+
+	/** the field of the second last evaluation */
+	private RealVectorField _field0;
+	/** the time of the second last evaluation */
+	private double _t0;
+	/** the field of the last evaluation */
+	private RealVectorField _field1;
+	/** the time of the last evaluation */
+	private double _t1;
+	/** the magnetization of the last evaluation */
+	private RealVectorField _m1;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param fieldTerm
+	 *            the slow field term
+	 * @param maxInterval
+	 *            the maximum number of calls between two evaluations of the
+	 *            field term
+	 * @param tolerance
+	 *            the tolerated error of the extrapolated field relative to the
+	 *            maximum norm of the field
+	 */
+	public MultiRateFieldTerm(FieldTerm fieldTerm, int maxInterval, double tolerance) {
+		assert maxInterval >= 1;
+		_fieldTerm = fieldTerm;
+		_maxInterval = maxInterval;
+		_tolerance = tolerance;
+		_interval = 1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.FieldTerm#calculateField(uni.hamburg.yamms
+	 * .solver.State)
+	 */
+	public RealVectorField calculateField(State state) {
+		double t = state.getTime();
+
+		// start over for new integrations
+		double oldest = (_field0 == null) ? _t1 : _t0;
+		if (_field1 != null && (t < oldest || !_field1.topology.equals(state.getTopology()))) {
+			_field0 = null;
+			_field1 = null;
+			_interval = 1;
+		}
+
+		// the field at the time of the last evaluation depends on m as well
+		RealVectorField m = state.getM();
+		boolean changed = _field1 != null && t == _t1 && m != _m1 && !m.equals(_m1);
+
+		RealVectorField extrapolated = extrapolate(t);
+		if (extrapolated != null && !changed && _calls < _interval - 1) {
+			_calls++;
+			return extrapolated;
+		}
+
+		RealVectorField field = _fieldTerm.calculateField(state);
+		_evaluations++;
+		_calls = 0;
+
+		// adapt the interval to the error of the extrapolation
+		if (extrapolated != null) {
+			double norm = field.getMaxNorm();
+			double error = (norm == 0) ? 0 : field.add(extrapolated.times(-1)).getMaxNorm() / norm;
+			if (error > _tolerance) {
+				_interval = 1;
+			} else if (error < _tolerance / 2) {
+				_interval = Math.min(_maxInterval, _interval + 1);
+			}
+		}
+
+		// update history, evaluations at the same time replace each other
+		if (_field1 == null || t != _t1) {
+			_field0 = _field1;
+			_t0 = _t1;
+		}
+		_field1 = field;
+		_t1 = t;
+		_m1 = m;
+
+		return field;
+	}
+
+	/**
+	 * Extrapolates the field linearly from the last two evaluations
+	 * 
+	 * @param t
+	 *            the time
+	 * @return the extrapolated field, <code>null</code> if there is no
+	 *         history
+	 */
+	private RealVectorField extrapolate(double t) {
+		if (_field1 == null) return null;
+		if (_field0 == null || t == _t1) return _field1;
+		return _field1.add(_field1.add(_field0.times(-1)).times((t - _t1) / (_t1 - _t0)));
+	}
+
+	/**
+	 * Returns the wrapped field term
+	 * 
+	 * @return the field term
+	 */
+	public FieldTerm getFieldTerm() {
+		return _fieldTerm;
+	}
+
+	/**
+	 * Returns the number of evaluations of the wrapped field term
+	 * 
+	 * @return the number of evaluations
+	 */
+	public int getEvaluationCount() {
+		return _evaluations;
+	}
+}
@@ -1,5 +1,6 @@
 package uni.hamburg.yamms.fieldTerms;
 
+import uni.hamburg.yamms.math.RealUniformVectorField;
 import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.solver.State;
 
@@ -9,7 +10,7 @@ import uni.hamburg.yamms.solver.State;
  * @author Claas Abert
  * 
  */
-public class StaticZeemanField implements FieldTerm {
+public class StaticZeemanField implements AccumulatingFieldTerm {
 	/** the magnetization vector of the uniform field */
 	private double[] _fieldVector;
 
@@ -26,13 +27,38 @@ public class StaticZeemanField implements FieldTerm {
 		_fieldVector = fieldVector;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.FieldTerm#calculateField(uni.hamburg.yamms
+	 * .solver.State)
+	 */
 	public RealVectorField calculateField(State state) {
 		// initialize field
 		if (_field == null || !_field.topology.equals(state.getTopology())) {
 			assert state.getM().dimension == _fieldVector.length;
-			_field = RealVectorField.getUniformField(state.getTopology(), _fieldVector);
+			_field = new RealUniformVectorField(state.getTopology(), _fieldVector);
 		}
 		return _field;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.AccumulatingFieldTerm#addFieldTo(uni.hamburg
+	 * .yamms.solver.State, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	public void addFieldTo(State state, RealVectorField target) {
+		assert target.dimension == _fieldVector.length;
+		double[][] values = target.getValues();
+		for (int c = 0; c < values.length; c++) {
+			if (_fieldVector[c] == 0) continue;
+			double[] component = values[c];
+			for (int i = 0; i < component.length; i++) {
+				component[i] += _fieldVector[c];
+			}
+		}
+	}
 }
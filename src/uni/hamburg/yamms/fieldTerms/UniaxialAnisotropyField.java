@@ -13,11 +13,11 @@ import uni.hamburg.yamms.solver.State;
  * @author Theo Gerhardt
  * 
  */
-public class UniaxialAnisotropyField implements FieldTerm {
+public class UniaxialAnisotropyField implements AccumulatingFieldTerm {
 	/** Cached factor for the 1st order term */
-	private RealVectorField _k1Prime;
+	private RealScalarField _k1Prime;
 	/** Cached factor for the 4th order term */
-	private RealVectorField _k2Prime;
+	private RealScalarField _k2Prime;
 	/** the normed anisotropy direction */
 	private double[] _axis;
 
@@ -35,8 +35,8 @@ public class UniaxialAnisotropyField implements FieldTerm {
 	 */
 	public UniaxialAnisotropyField(double k1, double k2, RealScalarField ms, double[] axis) {
 		_axis = new RealVector(axis).norm().getValues();
-		_k1Prime = ms.pow(-2).times(2 * k1 / Constants.MU0).times(_axis);
-		_k2Prime = ms.pow(-4).times(4 * k2 / Constants.MU0).times(_axis);
+		_k1Prime = ms.pow(-2).times(2 * k1 / Constants.MU0);
+		_k2Prime = ms.pow(-4).times(4 * k2 / Constants.MU0);
 	}
 
 	/**
@@ -61,7 +61,35 @@ public class UniaxialAnisotropyField implements FieldTerm {
 	 * .math.RealVectorField, double)
 	 */
 	public RealVectorField calculateField(State state) {
-		RealScalarField msDotAxis = state.getM().dot(_axis);
-		return _k1Prime.times(msDotAxis).add(_k2Prime.times(msDotAxis.pow(3)));
+		RealVectorField m = state.getM();
+		RealVectorField result = RealVectorField.getEmptyField(m.topology, m.dimension);
+		addFieldTo(state, result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.AccumulatingFieldTerm#addFieldTo(uni.hamburg
+	 * .yamms.solver.State, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	public void addFieldTo(State state, RealVectorField target) {
+		RealVectorField m = state.getM();
+		assert m.dimension == _axis.length;
+
+		double[][] values = m.getValues();
+		double[][] result = target.getValues();
+		for (int i = 0; i < m.topology.totalCellCount; i++) {
+			double mDotAxis = 0;
+			for (int dim = 0; dim < _axis.length; dim++) {
+				mDotAxis += _axis[dim] * values[dim][i];
+			}
+			double factor = _k1Prime.getValue(i) * mDotAxis + _k2Prime.getValue(i) * mDotAxis
+					* mDotAxis * mDotAxis;
+			for (int dim = 0; dim < _axis.length; dim++) {
+				result[dim][i] += factor * _axis[dim];
+			}
+		}
 	}
 }
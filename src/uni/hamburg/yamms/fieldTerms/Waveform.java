@@ -0,0 +1,224 @@
+package uni.hamburg.yamms.fieldTerms;
+
+import java.util.Arrays;
+
+/**
+ * A scalar function of the simulation time, used to scale time-dependent
+ * field terms (see <code>ZeemanField</code>). Waveforms are immutable and can
+ * be combined, e.g. a sinc pulse modulated with a carrier frequency:
+ * 
+ * <pre>
+ * Waveform.sinc(0.5e-9, 20e9).times(Waveform.sine(10e9, 0))
+ * </pre>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public abstract class Waveform {
+	/**
+	 * Returns the value of the waveform at a given time
+	 * 
+	 * @param t
+	 *            the time
+	 * @return the value
+	 */
+	public abstract double getValue(double t);
+
+	/**
+	 * Returns the product with another waveform
+	 * 
+	 * @param waveform
+	 *            the other waveform
+	 * @return the product
+	 */
+	public Waveform times(final Waveform waveform) {
+		final Waveform self = this;
+		return new Waveform() {
+			public double getValue(double t) {
+				return self.getValue(t) * waveform.getValue(t);
+			}
+		};
+	}
+
+	/**
+	 * Returns the waveform scaled by a constant factor
+	 * 
+	 * @param factor
+	 *            the factor
+	 * @return the scaled waveform
+	 */
+	public Waveform times(final double factor) {
+		final Waveform self = this;
+		return new Waveform() {
+			public double getValue(double t) {
+				return factor * self.getValue(t);
+			}
+		};
+	}
+
+	/**
+	 * Returns the sum with another waveform
+	 * 
+	 * @param waveform
+	 *            the other waveform
+	 * @return the sum
+	 */
+	public Waveform plus(final Waveform waveform) {
+		final Waveform self = this;
+		return new Waveform() {
+			public double getValue(double t) {
+				return self.getValue(t) + waveform.getValue(t);
+			}
+		};
+	}
+
+	/**
+	 * Returns a constant waveform
+	 * 
+	 * @param value
+	 *            the value
+	 * @return the waveform
+	 */
+	public static Waveform constant(final double value) {
+		return new Waveform() {
+			public double getValue(double t) {
+				return value;
+			}
+		};
+	}
+
+	/**
+	 * Returns a harmonic waveform sin(2 pi f t + phase)
+	 * 
+	 * @param frequency
+	 *            the frequency f
+	 * @param phase
+	 *            the phase
+	 * @return the waveform
+	 */
+	public static Waveform sine(final double frequency, final double phase) {
+		final double omega = 2 * Math.PI * frequency;
+		return new Waveform() {
+			public double getValue(double t) {
+				return Math.sin(omega * t + phase);
+			}
+		};
+	}
+
+	/**
+	 * Returns a trapezoidal pulse of height 1. The pulse rises linearly from
+	 * <code>start</code>, stays at 1 and falls linearly, so it ends at
+	 * <code>start + duration</code>.
+	 * 
+	 * @param start
+	 *            the start of the pulse
+	 * @param duration
+	 *            the duration of the pulse including rise and fall
+	 * @param riseTime
+	 *            the rise and fall time (0 for a rectangular pulse)
+	 * @return the waveform
+	 */
+	public static Waveform pulse(final double start, final double duration,
+			final double riseTime) {
+		assert 2 * riseTime <= duration;
+		return new Waveform() {
+			public double getValue(double t) {
+				double s = t - start;
+				if (s < 0 || s > duration) return 0;
+				if (s < riseTime) return s / riseTime;
+				if (s > duration - riseTime) return (duration - s) / riseTime;
+				return 1;
+			}
+		};
+	}
+
+	/**
+	 * Returns a gaussian pulse exp(-(t - center)^2 / (2 width^2))
+	 * 
+	 * @param center
+	 *            the center of the pulse
+	 * @param width
+	 *            the standard deviation
+	 * @return the waveform
+	 */
+	public static Waveform gaussian(final double center, final double width) {
+		final double factor = -0.5 / (width * width);
+		return new Waveform() {
+			public double getValue(double t) {
+				double s = t - center;
+				return Math.exp(factor * s * s);
+			}
+		};
+	}
+
+	/**
+	 * Returns a sinc pulse sin(x) / x with x = 2 pi f_c (t - center). The
+	 * spectrum of the pulse is flat up to the cutoff frequency f_c, which makes
+	 * it the usual excitation for FMR simulations.
+	 * 
+	 * @param center
+	 *            the center of the pulse
+	 * @param cutoff
+	 *            the cutoff frequency f_c
+	 * @return the waveform
+	 */
+	public static Waveform sinc(final double center, final double cutoff) {
+		final double omega = 2 * Math.PI * cutoff;
+		return new Waveform() {
+			public double getValue(double t) {
+				double x = omega * (t - center);
+				return (Math.abs(x) < 1e-8) ? 1 - x * x / 6 : Math.sin(x) / x;
+			}
+		};
+	}
+
+	/**
+	 * Returns a linear chirp, i.e. a harmonic waveform whose frequency
+	 * increases linearly from <code>f0</code> at t = 0 to <code>f1</code> at
+	 * t = <code>duration</code>. The waveform vanishes after the chirp.
+	 * 
+	 * @param f0
+	 *            the start frequency
+	 * @param f1
+	 *            the end frequency
+	 * @param duration
+	 *            the duration of the chirp
+	 * @return the waveform
+	 */
+	public static Waveform chirp(final double f0, final double f1, final double duration) {
+		final double rate = (f1 - f0) / duration;
+		return new Waveform() {
+			public double getValue(double t) {
+				if (t < 0 || t > duration) return 0;
+				return Math.sin(2 * Math.PI * (f0 * t + 0.5 * rate * t * t));
+			}
+		};
+	}
+
+	/**
+	 * Returns a tabulated waveform. Values between the sampling points are
+	 * interpolated linearly, outside the sampling range the first and the last
+	 * value are continued.
+	 * 
+	 * @param times
+	 *            the sampling times in ascending order
+	 * @param values
+	 *            the values at the sampling times
+	 * @return the waveform
+	 */
+	public static Waveform tabulated(double[] times, double[] values) {
+		assert times.length == values.length && times.length > 0;
+		final double[] x = times.clone();
+		final double[] y = values.clone();
+		return new Waveform() {
+			public double getValue(double t) {
+				if (t <= x[0]) return y[0];
+				if (t >= x[x.length - 1]) return y[y.length - 1];
+				int i = Arrays.binarySearch(x, t);
+				if (i >= 0) return y[i];
+				i = -i - 2;
+				return y[i] + (y[i + 1] - y[i]) * (t - x[i]) / (x[i + 1] - x[i]);
+			}
+		};
+	}
+}
@@ -0,0 +1,122 @@
+package uni.hamburg.yamms.fieldTerms;
+
+import uni.hamburg.yamms.math.RealUniformVectorField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * Implementation of a time-dependent zeeman field. The field is the product of
+ * a spatial profile and a scalar waveform evaluated at the simulation time,
+ * e.g. for a sinc excitation of an FMR simulation
+ * 
+ * <pre>
+ * field.addFieldTerm(new ZeemanField(new double[] { 0, 1e3, 0 }, Waveform.sinc(0.5e-9, 20e9)));
+ * </pre>
+ * 
+ * The profile is stored once. A uniform profile is stored as a single vector
+ * and added to the effective field directly (see
+ * <code>AccumulatingFieldTerm</code>), so no field of the size of the mesh is
+ * created per evaluation.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class ZeemanField implements AccumulatingFieldTerm {
+	/** the field vector of a uniform profile (<code>null</code> otherwise) */
+	private double[] _vector;
+	/** the spatial profile (<code>null</code> for a uniform profile) */
+	private RealVectorField _profile;
+	/** the values of the spatial profile */
+	private double[][] _profileValues;
+	/** the waveform */
+	private Waveform _waveform;
+
+	/**
+	 * Standard constructor. Creates a field with a uniform profile.
+	 * 
+	 * @param vector
+	 *            the field vector for a waveform value of 1
+	 * @param waveform
+	 *            the waveform
+	 */
+	public ZeemanField(double[] vector, Waveform waveform) {
+		_vector = vector.clone();
+		_waveform = waveform;
+	}
+
+	/**
+	 * Alternative constructor. Creates a field with a spatial profile.
+	 * 
+	 * @param profile
+	 *            the field for a waveform value of 1
+	 * @param waveform
+	 *            the waveform
+	 */
+	public ZeemanField(RealVectorField profile, Waveform waveform) {
+		_profile = profile;
+		_profileValues = new double[profile.dimension][profile.topology.totalCellCount];
+		profile.copyValuesTo(_profileValues);
+		_waveform = waveform;
+	}
+
+	/**
+	 * Returns the waveform
+	 * 
+	 * @return the waveform
+	 */
+	public Waveform getWaveform() {
+		return _waveform;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.FieldTerm#calculateField(uni.hamburg.yamms
+	 * .solver.State)
+	 */
+	public RealVectorField calculateField(State state) {
+		double scale = _waveform.getValue(state.getTime());
+		if (_profile != null) return _profile.times(scale);
+
+		double[] vector = new double[_vector.length];
+		for (int c = 0; c < vector.length; c++) {
+			vector[c] = scale * _vector[c];
+		}
+		return new RealUniformVectorField(state.getTopology(), vector);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.fieldTerms.AccumulatingFieldTerm#addFieldTo(uni.hamburg
+	 * .yamms.solver.State, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	public void addFieldTo(State state, RealVectorField target) {
+		double scale = _waveform.getValue(state.getTime());
+		if (scale == 0) return;
+
+		double[][] values = target.getValues();
+		int n = target.topology.totalCellCount;
+		if (_profile == null) {
+			for (int c = 0; c < values.length; c++) {
+				double value = scale * _vector[c];
+				if (value == 0) continue;
+				double[] component = values[c];
+				for (int i = 0; i < n; i++) {
+					component[i] += value;
+				}
+			}
+		} else {
+			assert _profile.topology.totalCellCount == n;
+			for (int c = 0; c < values.length; c++) {
+				double[] component = values[c];
+				double[] profile = _profileValues[c];
+				for (int i = 0; i < n; i++) {
+					component[i] += scale * profile[i];
+				}
+			}
+		}
+	}
+}
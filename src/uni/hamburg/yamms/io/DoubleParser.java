@@ -0,0 +1,358 @@
+package uni.hamburg.yamms.io;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Parser for white space separated floating point numbers in an ASCII buffer.
+ * Numbers with a decimal significand of at most 18 digits are parsed without
+ * creating objects:
+ * <ul>
+ * <li>If the significand fits in 53 bits and the decimal exponent is between
+ * -22 and 22, the result is exact since the conversion only involves a single
+ * rounding.</li>
+ * <li>Otherwise the significand is multiplied with a 128 bit approximation of
+ * the power of ten (Eisel-Lemire algorithm, see D. Lemire, "Number Parsing at
+ * a Gigabyte per Second", Software: Practice and Experience 51(8), 2021). The
+ * result is correctly rounded unless the approximation is too close to a
+ * rounding boundary, which is detected.</li>
+ * </ul>
+ * All other numbers (more digits, rounding boundaries, special values) are
+ * passed to <code>Double.parseDouble</code>.
+ * <p>
+ * The parser does not change the position of the buffer, so several parsers
+ * can work on the same buffer concurrently.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class DoubleParser {
+	/** the powers of ten that are exactly representable as double */
+	private static final double[] POWERS = new double[23];
+
+	static {
+		POWERS[0] = 1;
+		for (int i = 1; i < POWERS.length; i++) {
+			POWERS[i] = POWERS[i - 1] * 10;
+		}
+	}
+
+	/** the largest significand that can be converted exactly */
+	private static final long MAX_EXACT = 1L << 53;
+
+	/** the smallest decimal exponent of the table of powers */
+	private static final int MIN_POWER = -342;
+	/** the largest decimal exponent of the table of powers */
+	private static final int MAX_POWER = 308;
+	/**
+	 * the upper 64 bits of the normalized 128 bit approximations of the powers
+	 * of ten (truncated for positive, rounded up for negative exponents)
+	 */
+	private static final long[] POWERS_HIGH = new long[MAX_POWER - MIN_POWER + 1];
+	/** the lower 64 bits of the approximations of the powers of ten */
+	private static final long[] POWERS_LOW = new long[MAX_POWER - MIN_POWER + 1];
+
+	static {
+		BigInteger five = BigInteger.valueOf(5);
+		BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+		for (int q = MIN_POWER; q <= MAX_POWER; q++) {
+			BigInteger value;
+			if (q >= 0) {
+				value = five.pow(q);
+				int shift = value.bitLength() - 128;
+				value = (shift > 0) ? value.shiftRight(shift) : value.shiftLeft(-shift);
+			} else {
+				BigInteger divisor = five.pow(-q);
+				int shift = divisor.bitLength() + 127;
+				value = BigInteger.ONE.shiftLeft(shift).divide(divisor);
+				if (value.bitLength() < 128) {
+					value = BigInteger.ONE.shiftLeft(shift + 1).divide(divisor);
+				}
+				value = value.add(BigInteger.ONE);
+			}
+			POWERS_HIGH[q - MIN_POWER] = value.shiftRight(64).longValue();
+			POWERS_LOW[q - MIN_POWER] = value.and(mask).longValue();
+		}
+	}
+
+	/** the buffer */
+	private ByteBuffer _buffer;
+	/** the current position */
+	private int _position;
+	/** the end of the range to be parsed */
+	private int _end;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param start
+	 *            the start of the range to be parsed
+	 * @param end
+	 *            the end of the range to be parsed (exclusive)
+	 */
+	public DoubleParser(ByteBuffer buffer, int start, int end) {
+		_buffer = buffer;
+		_position = start;
+		_end = end;
+	}
+
+	/**
+	 * Returns the current position
+	 * 
+	 * @return the position
+	 */
+	public int getPosition() {
+		return _position;
+	}
+
+	/**
+	 * Skips spaces and tabs, but not line breaks
+	 * 
+	 * @return <code>true</code> if there are characters left in the current
+	 *         line
+	 */
+	public boolean skipSpaces() {
+		while (_position < _end) {
+			byte c = _buffer.get(_position);
+			if (c != ' ' && c != '\t' && c != '\r') return c != '\n';
+			_position++;
+		}
+		return false;
+	}
+
+	/**
+	 * Moves the position to the beginning of the next line
+	 * 
+	 * @return <code>false</code> if the end of the range is reached
+	 */
+	public boolean nextLine() {
+		while (_position < _end && _buffer.get(_position) != '\n') {
+			_position++;
+		}
+		if (_position < _end) _position++;
+		return _position < _end;
+	}
+
+	/**
+	 * Parses the next number of the current line
+	 * 
+	 * @return the number
+	 * @throws NumberFormatException
+	 *             if there is no valid number
+	 */
+	public double nextDouble() throws NumberFormatException {
+		if (!skipSpaces()) throw new NumberFormatException("Missing value.");
+		int start = _position;
+
+		boolean negative = false;
+		byte c = _buffer.get(_position);
+		if (c == '-' || c == '+') {
+			negative = (c == '-');
+			_position++;
+		}
+
+		// significand, digits beyond the range of long only shift the exponent
+		long significand = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean valid = false;
+		boolean exact = true;
+		while (_position < _end && isDigit(c = _buffer.get(_position))) {
+			valid = true;
+			if (digits < 18) {
+				significand = 10 * significand + (c - '0');
+				if (significand != 0) digits++;
+			} else {
+				exponent++;
+				exact &= (c == '0');
+			}
+			_position++;
+		}
+		if (_position < _end && _buffer.get(_position) == '.') {
+			_position++;
+			while (_position < _end && isDigit(c = _buffer.get(_position))) {
+				valid = true;
+				if (digits < 18) {
+					significand = 10 * significand + (c - '0');
+					if (significand != 0) digits++;
+					exponent--;
+				} else {
+					exact &= (c == '0');
+				}
+				_position++;
+			}
+		}
+		if (!valid) return fallback(start);
+
+		// exponent
+		if (_position < _end && ((c = _buffer.get(_position)) == 'e' || c == 'E')) {
+			_position++;
+			boolean negativeExponent = false;
+			if (_position < _end && ((c = _buffer.get(_position)) == '-' || c == '+')) {
+				negativeExponent = (c == '-');
+				_position++;
+			}
+			int value = 0;
+			boolean hasDigits = false;
+			while (_position < _end && isDigit(c = _buffer.get(_position))) {
+				hasDigits = true;
+				if (value < 100000) value = 10 * value + (c - '0');
+				_position++;
+			}
+			if (!hasDigits) return fallback(start);
+			exponent += negativeExponent ? -value : value;
+		}
+
+		// the number has to end with white space
+		if (_position < _end && !isSpace(_buffer.get(_position))) return fallback(start);
+
+		if (!exact) return fallback(start);
+
+		double result;
+		if (significand <= MAX_EXACT && exponent >= -22 && exponent <= 22) {
+			result = significand;
+			if (exponent < 0) {
+				result /= POWERS[-exponent];
+			} else {
+				result *= POWERS[exponent];
+			}
+		} else {
+			long bits = eiselLemire(significand, exponent);
+			if (bits < 0) return fallback(start);
+			result = Double.longBitsToDouble(bits);
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * Converts <code>significand * 10^exponent</code> to the bits of the
+	 * nearest double with the Eisel-Lemire algorithm
+	 * 
+	 * @param significand
+	 *            the decimal significand (less than 10^18)
+	 * @param exponent
+	 *            the decimal exponent
+	 * @return the bits of the double, -1 if the result cannot be determined
+	 */
+	private static long eiselLemire(long significand, int exponent) {
+		if (significand == 0) return 0;
+		if (exponent < MIN_POWER || exponent > MAX_POWER) return -1;
+
+		long factor = POWERS_HIGH[exponent - MIN_POWER];
+		long binaryExponent = (((152170L + 65536L) * exponent) >> 16) + 1024 + 63;
+		int lz = Long.numberOfLeadingZeros(significand);
+		long w = significand << lz;
+
+		long lower = w * factor;
+		long upper = multiplyHigh(w, factor);
+		if ((upper & 0x1FF) == 0x1FF && lessUnsigned(lower + w, lower)) {
+			// refine with the lower bits of the power
+			long factorLow = POWERS_LOW[exponent - MIN_POWER];
+			long productLow = w * factorLow;
+			long middle = lower + multiplyHigh(w, factorLow);
+			if (lessUnsigned(middle, lower)) upper++;
+			if (middle + 1 == 0 && (upper & 0x1FF) == 0x1FF
+					&& lessUnsigned(productLow + w, productLow)) {
+				return -1;
+			}
+			lower = middle;
+		}
+
+		long upperBit = upper >>> 63;
+		long mantissa = upper >>> (upperBit + 9);
+		lz += (int) (1 ^ upperBit);
+
+		// exactly between two doubles
+		if (lower == 0 && (upper & 0x1FF) == 0 && (mantissa & 3) == 1) return -1;
+
+		mantissa += mantissa & 1;
+		mantissa >>>= 1;
+		if (mantissa >= (1L << 53)) {
+			mantissa = 1L << 52;
+			lz--;
+		}
+		mantissa &= ~(1L << 52);
+
+		long realExponent = binaryExponent - lz;
+		if (realExponent < 1 || realExponent > 2046) return -1;
+		return mantissa | (realExponent << 52);
+	}
+
+	/**
+	 * Returns the upper 64 bits of the unsigned 128 bit product of two
+	 * unsigned 64 bit numbers
+	 * 
+	 * @param x
+	 *            the first factor
+	 * @param y
+	 *            the second factor
+	 * @return the upper 64 bits of the product
+	 */
+	private static long multiplyHigh(long x, long y) {
+		long x0 = x & 0xFFFFFFFFL, x1 = x >>> 32;
+		long y0 = y & 0xFFFFFFFFL, y1 = y >>> 32;
+		long p01 = x0 * y1;
+		long p10 = x1 * y0;
+		long middle = ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL) + (p10 & 0xFFFFFFFFL);
+		return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+	}
+
+	/**
+	 * Unsigned comparison of two 64 bit numbers
+	 * 
+	 * @param a
+	 *            the first number
+	 * @param b
+	 *            the second number
+	 * @return <code>true</code> if <code>a &lt; b</code> (unsigned)
+	 */
+	private static boolean lessUnsigned(long a, long b) {
+		return (a ^ Long.MIN_VALUE) < (b ^ Long.MIN_VALUE);
+	}
+
+	/**
+	 * Parses the number starting at a given position with
+	 * <code>Double.parseDouble</code>
+	 * 
+	 * @param start
+	 *            the start of the number
+	 * @return the number
+	 * @throws NumberFormatException
+	 *             if the number is invalid
+	 */
+	private double fallback(int start) throws NumberFormatException {
+		_position = start;
+		while (_position < _end && !isSpace(_buffer.get(_position))) {
+			_position++;
+		}
+		char[] chars = new char[_position - start];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) (_buffer.get(start + i) & 0xff);
+		}
+		return Double.parseDouble(new String(chars));
+	}
+
+	/**
+	 * Checks whether a character is a decimal digit
+	 * 
+	 * @param c
+	 *            the character
+	 * @return <code>true</code> for digits
+	 */
+	private static boolean isDigit(byte c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Checks whether a character is white space
+	 * 
+	 * @param c
+	 *            the character
+	 * @return <code>true</code> for white space
+	 */
+	private static boolean isSpace(byte c) {
+		return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+	}
+}
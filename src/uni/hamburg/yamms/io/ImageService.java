@@ -2,13 +2,16 @@ package uni.hamburg.yamms.io;
 
 import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
 import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.math.parfor;
 
 /**
  * Service for image file related tasks
@@ -17,6 +20,27 @@ import uni.hamburg.yamms.math.Topology;
  * 
  */
 public class ImageService {
+	/** the number of hues of the color wheel */
+	private static final int HUE_STEPS = 1536;
+	/** the number of lightness steps of the color wheel */
+	private static final int LIGHTNESS_STEPS = 256;
+	/** the colors of the color wheel indexed by hue and lightness */
+	private static final int[] WHEEL = new int[HUE_STEPS * (LIGHTNESS_STEPS + 1)];
+
+	static {
+		for (int h = 0; h < HUE_STEPS; h++) {
+			double hue = (double) h / HUE_STEPS;
+			for (int l = 0; l <= LIGHTNESS_STEPS; l++) {
+				// hsl to rgb with full saturation
+				double lightness = (double) l / LIGHTNESS_STEPS;
+				double a = Math.min(lightness, 1 - lightness);
+				WHEEL[h * (LIGHTNESS_STEPS + 1) + l] = 0xFF000000
+						| (getChannel(0, hue, lightness, a) << 16)
+						| (getChannel(8, hue, lightness, a) << 8) | getChannel(4, hue, lightness, a);
+			}
+		}
+	}
+
 	/**
 	 * Reads the red channel of an image and converts it to a
 	 * <code>RealScalarField</code>, whereas a black pixel will result in 0 as a
@@ -63,4 +87,129 @@ public class ImageService {
 		return new RealScalarField(topology, values);
 	}
 
+	/**
+	 * Renders a slice of a vector field with the color wheel scheme: the hue
+	 * is given by the in-plane angle of the vector, the lightness by the
+	 * out-of-plane component (white for vectors pointing out of the image,
+	 * black for vectors pointing into it). Cells with zero vectors are
+	 * transparent. The image shows the first in-plane axis horizontally and
+	 * the second one vertically (upwards).
+	 * <p>
+	 * For large meshes the slice can be decimated: every pixel shows the
+	 * average of <code>decimation x decimation</code> cells. The rows of the
+	 * image are computed in parallel.
+	 * 
+	 * @param field
+	 *            the vector field (3 dimensional vectors)
+	 * @param normal
+	 *            the axis normal to the slice (0, 1 or 2). The in-plane axes
+	 *            are (y, z), (x, z) and (x, y) respectively.
+	 * @param slice
+	 *            the index of the slice along the normal axis (starting with
+	 *            0, independent of the origin of the topology)
+	 * @param decimation
+	 *            the number of cells per pixel in each direction
+	 * @return the image
+	 */
+	static public BufferedImage renderSlice(RealVectorField field, final int normal,
+			final int slice, final int decimation) {
+		assert field.dimension == 3 && decimation >= 1;
+		final Topology topology = field.topology;
+		final int u = (normal == 0) ? 1 : 0;
+		final int v = (normal == 2) ? 1 : 2;
+		final int nu = topology.getCellCount(u);
+		final int nv = topology.getCellCount(v);
+		assert slice >= 0 && slice < topology.getCellCount(normal);
+		final int w = (nu + decimation - 1) / decimation;
+		final int h = (nv + decimation - 1) / decimation;
+		final double[][] values = field.getValues();
+		BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		final int[] rgbs = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+
+		final int su = topology.getStride(u);
+		final int sv = topology.getStride(v);
+		final int offset = slice * topology.getStride(normal);
+
+		new parfor() {
+			public void iter(int thread_idx, int y) {
+				int v0 = (h - 1 - y) * decimation;
+				int v1 = Math.min(v0 + decimation, nv);
+				for (int x = 0; x < w; x++) {
+					// average of the cells of the pixel
+					int u0 = x * decimation;
+					int u1 = Math.min(u0 + decimation, nu);
+					double mu = 0, mv = 0, mn = 0;
+					for (int j = v0; j < v1; j++) {
+						for (int i = u0; i < u1; i++) {
+							int lidx = offset + i * su + j * sv;
+							mu += values[u][lidx];
+							mv += values[v][lidx];
+							mn += values[normal][lidx];
+						}
+					}
+					rgbs[y * w + x] = getWheelColor(mu, mv, mn);
+				}
+			}
+		}.execute(0, h);
+
+		return img;
+	}
+
+	/**
+	 * Returns the color wheel color of a vector as ARGB value. The color is
+	 * taken from a table with 1536 hues and 257 lightness steps.
+	 * 
+	 * @param mu
+	 *            the first in-plane component
+	 * @param mv
+	 *            the second in-plane component
+	 * @param mn
+	 *            the out-of-plane component
+	 * @return the color (transparent for zero vectors)
+	 */
+	static int getWheelColor(double mu, double mv, double mn) {
+		double norm = Math.sqrt(mu * mu + mv * mv + mn * mn);
+		if (norm == 0) return 0;
+
+		double hue = Math.atan2(mv, mu) / (2 * Math.PI);
+		if (hue < 0) hue += 1;
+		int h = (int) Math.round(hue * HUE_STEPS) % HUE_STEPS;
+		int l = (int) Math.round((0.5 + 0.5 * mn / norm) * LIGHTNESS_STEPS);
+		return WHEEL[h * (LIGHTNESS_STEPS + 1) + l];
+	}
+
+	/**
+	 * Computes a channel of an HSL color with full saturation
+	 * 
+	 * @param n
+	 *            the offset of the channel (0 for red, 8 for green, 4 for
+	 *            blue)
+	 * @param hue
+	 *            the hue in [0, 1)
+	 * @param lightness
+	 *            the lightness in [0, 1]
+	 * @param a
+	 *            the chroma divided by two
+	 * @return the channel in [0, 255]
+	 */
+	static private int getChannel(int n, double hue, double lightness, double a) {
+		double k = (n + hue * 12) % 12;
+		double value = lightness - a * Math.max(-1, Math.min(Math.min(k - 3, 9 - k), 1));
+		return Math.max(0, Math.min(255, (int) Math.round(value * 255)));
+	}
+
+	/**
+	 * Writes an image as PNG file
+	 * 
+	 * @param img
+	 *            the image
+	 * @param path
+	 *            the path of the file
+	 * @throws IOException
+	 */
+	static public void writePng(BufferedImage img, String path) throws IOException {
+		if (!ImageIO.write(img, "png", new File(IOConfig.getInstance().getPathFor(path)))) {
+			throw new IOException("No PNG writer available.");
+		}
+	}
 }
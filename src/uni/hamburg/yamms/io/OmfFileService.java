@@ -1,15 +1,20 @@
 package uni.hamburg.yamms.io;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
-import java.io.DataInputStream;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Stack;
 
 import uni.hamburg.yamms.math.RealVectorField;
@@ -17,99 +22,112 @@ import uni.hamburg.yamms.math.Topology;
 
 /**
  * Service for reading and writing vector fields from/to a file The file format
- * used is the ASCII OMF format defined by the OOMMF simulation framework.
+ * used is the OMF format defined by the OOMMF simulation framework. Text files
+ * are written in the OMF 1.0 format, binary files in the OVF 2.0 format
+ * (little endian). Text and binary data of both versions can be read.
  * 
  * @author Claas Abert
  * 
  */
 public class OmfFileService {
+	/**
+	 * The data formats for writing OMF files
+	 */
+	public static enum Format {
+		/** ASCII text (OMF 1.0) */
+		TEXT,
+		/** binary with 4 byte floating point numbers (OVF 2.0) */
+		BINARY_4,
+		/** binary with 8 byte floating point numbers (OVF 2.0) */
+		BINARY_8
+	};
+
 	/**
 	 * The mode of the file parser, can be one of:
-	 * <code>NONE, SEGMENT, HEADER, DATA</code>
+	 * <code>NONE, SEGMENT, HEADER, DATA, BINARY_4, BINARY_8</code>
 	 */
 	private static enum Mode {
-		NONE, SEGMENT, HEADER, DATA
+		NONE, SEGMENT, HEADER, DATA, BINARY_4, BINARY_8
 	};
 
+	/** the number of cells written with a single bulk transfer */
+	private static final int CHUNK_SIZE = 4096;
+
 	/**
-	 * Reads a file and returns a <code>RealVectorField</code> Object
+	 * Reads a file and returns a <code>RealVectorField</code> Object. Files
+	 * with several segments are rejected, use <code>readSegments</code> for
+	 * these.
 	 * 
 	 * @param path
 	 *            the path to the OMF file
 	 * @return the vector field
 	 */
 	static public RealVectorField readFile(String path) {
-		FileInputStream fstream;
+		return singleSegment(readSegments(path));
+	}
+
+	/**
+	 * Reads all segments of a file. The file is mapped into memory and the
+	 * text data is parsed in parallel.
+	 * 
+	 * @param path
+	 *            the path to the OMF file
+	 * @return the vector fields of the segments
+	 */
+	static public RealVectorField[] readSegments(String path) {
 		try {
-			fstream = new FileInputStream(IOConfig.getInstance().getPathFor(path));
-			return readFile(fstream);
+			FileChannel channel = new FileInputStream(IOConfig.getInstance().getPathFor(path))
+					.getChannel();
+			try {
+				if (channel.size() > Integer.MAX_VALUE) throw new IOException("File too large.");
+				return readBuffer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+			} finally {
+				channel.close();
+			}
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
 		}
 		return null;
 	}
 
 	/**
-	 * Reads a file and returns a <code>RealVectorField</code> Object
+	 * Reads a file and returns a <code>RealVectorField</code> Object. Files
+	 * with several segments are rejected, use <code>readSegments</code> for
+	 * these.
 	 * 
 	 * @param fstream
 	 *            the input stream of the OMF file
 	 * @return the vector field
 	 */
 	static public RealVectorField readFile(InputStream fstream) {
-		// TODO add support for multiple segments
-		// TODO add format validations
-		try {
-			DataInputStream in = new DataInputStream(fstream);
-			BufferedReader br = new BufferedReader(new InputStreamReader(in));
-
-			// values
-			String line = null;
-			String key = null;
-			String value = null;
-
-			// initialize segment
-			OmfSegment segment = null;
-
-			// initialize mode stack
-			Stack<Mode> modeStack = new Stack<Mode>();
-			modeStack.push(Mode.NONE);
-
-			while ((line = br.readLine()) != null) {
-				if (line.charAt(0) == '#') {
-					// parse key value pair
-					int sep = line.indexOf(':');
-					key = line.substring(1, sep).trim();
-					value = line.substring(sep + 1).trim();
-
-					// handle begin statements
-					if (key.equals("Begin")) {
-						modeStack.push(getModes().get(value));
-						if (modeStack.peek() == Mode.SEGMENT) segment = new OmfSegment();
-						continue;
-
-						// handle end statements
-					} else if (key.equals("End")) {
-						modeStack.pop();
-						continue;
-					}
-				}
+		return singleSegment(readSegments(fstream));
+	}
 
-				switch (modeStack.peek()) {
-				case HEADER:
-					segment.addHeader(key, value);
-					break;
-				case DATA:
-					segment.addData(line);
-					break;
-				default:
-					// nothing
+	/**
+	 * Reads all segments of a file
+	 * 
+	 * @param fstream
+	 *            the input stream of the OMF file
+	 * @return the vector fields of the segments
+	 */
+	static public RealVectorField[] readSegments(InputStream fstream) {
+		try {
+			ReadableByteChannel channel = Channels.newChannel(fstream);
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			while (channel.read(buffer) >= 0) {
+				if (!buffer.hasRemaining()) {
+					ByteBuffer larger = ByteBuffer.allocate(2 * buffer.capacity());
+					buffer.flip();
+					larger.put(buffer);
+					buffer = larger;
 				}
 			}
+			channel.close();
+			buffer.flip();
 
-			in.close();
-
-			return segment.getVectorField();
+			return readBuffer(buffer);
 		} catch (IOException e) {
 			System.err.println("Error: " + e.getMessage());
 		}
@@ -117,17 +135,172 @@ public class OmfFileService {
 		return null;
 	}
 
+	/**
+	 * Helper function for <code>readFile</code>. Returns the only segment of
+	 * a file.
+	 * 
+	 * @param segments
+	 *            the segments of the file (<code>null</code> if the file could
+	 *            not be read)
+	 * @return the vector field or <code>null</code> if the file does not
+	 *         contain exactly one segment
+	 */
+	static private RealVectorField singleSegment(RealVectorField[] segments) {
+		if (segments == null) return null;
+		if (segments.length != 1) {
+			System.err.println("Error: The file contains " + segments.length
+					+ " segments, use readSegments to read all of them.");
+			return null;
+		}
+		return segments[0];
+	}
+
+	/**
+	 * Parses the content of an OMF file
+	 * 
+	 * @param buffer
+	 *            the content of the file
+	 * @return the vector fields of all segments
+	 * @throws IOException
+	 *             if the data is invalid
+	 */
+	static private RealVectorField[] readBuffer(ByteBuffer buffer) throws IOException {
+		// TODO add format validations
+
+		// values
+		String line = null;
+		String key = null;
+		String value = null;
+
+		// binary data of OVF 1.0 is big endian, of OVF 2.0 little endian
+		ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+		// initialize segments
+		List<OmfSegment> segments = new ArrayList<OmfSegment>();
+		OmfSegment segment = null;
+
+		// initialize mode stack
+		Stack<Mode> modeStack = new Stack<Mode>();
+		modeStack.push(Mode.NONE);
+
+		while ((line = readLine(buffer)) != null) {
+			if (line.length() == 0) continue;
+			if (line.charAt(0) == '#') {
+				if (line.startsWith("# OOMMF OVF 2")) order = ByteOrder.LITTLE_ENDIAN;
+
+				// skip comments
+				int sep = line.indexOf(':');
+				if (sep < 0 || line.startsWith("##")) continue;
+
+				// parse key value pair
+				key = line.substring(1, sep).trim();
+				value = line.substring(sep + 1).trim();
+
+				// handle begin statements
+				if (key.equals("Begin")) {
+					modeStack.push(getModes().get(value.toLowerCase()));
+					switch (modeStack.peek()) {
+					case SEGMENT:
+						segment = new OmfSegment();
+						segments.add(segment);
+						break;
+					case DATA:
+						int end = findDataEnd(buffer);
+						segment.addTextData(buffer, buffer.position(), end);
+						buffer.position(end);
+						break;
+					case BINARY_4:
+						segment.addBinaryData(buffer, 4, order);
+						break;
+					case BINARY_8:
+						segment.addBinaryData(buffer, 8, order);
+						break;
+					default:
+						// nothing
+					}
+					continue;
+
+					// handle end statements
+				} else if (key.equals("End")) {
+					modeStack.pop();
+					continue;
+				}
+			}
+
+			if (modeStack.peek() == Mode.HEADER) segment.addHeader(key, value);
+		}
+
+		if (segments.isEmpty()) throw new IOException("No segment found.");
+		RealVectorField[] result = new RealVectorField[segments.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = segments.get(i).getVectorField();
+		}
+		return result;
+	}
+
+	/**
+	 * Finds the end of a text data section, i.e. the beginning of the next
+	 * line starting with <code>#</code>
+	 * 
+	 * @param buffer
+	 *            the buffer, positioned at the beginning of the data
+	 * @return the end of the data
+	 */
+	static private int findDataEnd(ByteBuffer buffer) {
+		int position = buffer.position();
+		int limit = buffer.limit();
+		while (position < limit) {
+			if (buffer.get(position) == '#') return position;
+			while (position < limit && buffer.get(position) != '\n') {
+				position++;
+			}
+			position++;
+		}
+		return limit;
+	}
+
+	/**
+	 * Reads an ASCII line from the buffer
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @return the line without line break, <code>null</code> at the end of the
+	 *         buffer
+	 */
+	static private String readLine(ByteBuffer buffer) {
+		if (!buffer.hasRemaining()) return null;
+
+		int start = buffer.position();
+		int end = start;
+		while (end < buffer.limit() && buffer.get(end) != '\n') {
+			end++;
+		}
+		buffer.position(Math.min(end + 1, buffer.limit()));
+
+		// strip carriage return
+		if (end > start && buffer.get(end - 1) == '\r') end--;
+
+		char[] chars = new char[end - start];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) (buffer.get(start + i) & 0xff);
+		}
+		return new String(chars);
+	}
+
 	/**
 	 * Helper function for <code>readFile</code>. Maps the String
-	 * representations of the parse mode to the enum representation.
+	 * representations (lower case) of the parse mode to the enum
+	 * representation.
 	 * 
 	 * @return the hash map with the mapping
 	 */
 	static private HashMap<String, Mode> getModes() {
 		HashMap<String, Mode> sections = new HashMap<String, Mode>();
-		sections.put("Segment", Mode.SEGMENT);
-		sections.put("Header", Mode.HEADER);
-		sections.put("Data Text", Mode.DATA);
+		sections.put("segment", Mode.SEGMENT);
+		sections.put("header", Mode.HEADER);
+		sections.put("data text", Mode.DATA);
+		sections.put("data binary 4", Mode.BINARY_4);
+		sections.put("data binary 8", Mode.BINARY_8);
 
 		return sections;
 	}
@@ -143,72 +316,46 @@ public class OmfFileService {
 	 *            the title to be written in the header of the file
 	 * @param descriptions
 	 *            array of description to be written in the header
+	 * @param format
+	 *            the data format
 	 */
-	static public void writeFile(RealVectorField field, String path, String title, String[] descriptions) {
-		Topology t = field.topology;
-
-		// write
+	static public void writeFile(RealVectorField field, String path, String title,
+			String[] descriptions, Format format) {
 		try {
-			BufferedWriter out = new BufferedWriter(new FileWriter(IOConfig.getInstance()
-					.getPathFor(path)));
-
-			out.write(buildHeaderRow("OOMMF", "rectangular mesh v1.0"));
-			out.write(buildHeaderRow("Segment count", 1));
-
-			out.write(buildHeaderRow("Begin", "Segment"));
-			out.write(buildHeaderRow("Begin", "Header"));
-
-			out.write(buildHeaderRow("Title", title));
-			for (String description : descriptions) {
-				out.write(buildHeaderRow("Desc", description));
-			}
-			out.write(buildHeaderRow("meshunit", "m"));
-			out.write(buildHeaderRow("valueunit", "A/m"));
-			out.write(buildHeaderRow("valuemultiplier", "1.0"));
-			out.write(buildHeaderRow("xmin", t.getOrigin(0) * t.getCellSize(0)));
-			out.write(buildHeaderRow("ymin", t.getOrigin(1) * t.getCellSize(1)));
-			out.write(buildHeaderRow("zmin", t.getOrigin(2) * t.getCellSize(2)));
-			out
-					.write(buildHeaderRow("xmax", t.getOrigin(0) + t.getCellCount(0)
-							* t.getCellSize(0)));
-			out
-					.write(buildHeaderRow("ymax", t.getOrigin(1) + t.getCellCount(1)
-							* t.getCellSize(1)));
-			out
-					.write(buildHeaderRow("zmax", t.getOrigin(2) + t.getCellCount(2)
-							* t.getCellSize(2)));
-			out.write(buildHeaderRow("ValueRangeMaxMag", ""));
-			out.write(buildHeaderRow("ValueRangeMinMag", ""));
-			out.write(buildHeaderRow("meshtype", "rectangular"));
-			out.write(buildHeaderRow("xbase", t.getCellSize(0) / 2));
-			out.write(buildHeaderRow("ybase", t.getCellSize(1) / 2));
-			out.write(buildHeaderRow("zbase", t.getCellSize(2) / 2));
-			out.write(buildHeaderRow("xstepsize", t.getCellSize(0)));
-			out.write(buildHeaderRow("ystepsize", t.getCellSize(1)));
-			out.write(buildHeaderRow("zstepsize", t.getCellSize(2)));
-			out.write(buildHeaderRow("xnodes", t.getCellCount(0)));
-			out.write(buildHeaderRow("ynodes", t.getCellCount(1)));
-			out.write(buildHeaderRow("znodes", t.getCellCount(2)));
-
-			out.write(buildHeaderRow("End", "Header"));
-			out.write(buildHeaderRow("Begin", "Data Text"));
-
-			for (int i = 0; i < field.topology.totalCellCount; i++) {
-				out.write(field.getValue(0, i) + " " + field.getValue(1, i) + " "
-						+ field.getValue(2, i) + "\n");
+			FileOutputStream stream = new FileOutputStream(IOConfig.getInstance().getPathFor(path));
+			try {
+				if (format == Format.TEXT) {
+					writeText(field, stream, title, descriptions);
+				} else {
+					writeBinary(field, stream.getChannel(), title, descriptions,
+							(format == Format.BINARY_4) ? 4 : 8);
+				}
+			} finally {
+				stream.close();
 			}
-
-			out.write(buildHeaderRow("End", "Data Text"));
-			out.write(buildHeaderRow("End", "Segment"));
-
-			out.close();
 		} catch (IOException e) {
 			System.err.println("Error: " + e.getMessage());
 		}
 	}
+
+	/**
+	 * Writes a <code>RealVectorField</code> in an OMF file (text format)
+	 * 
+	 * @param field
+	 *            the vector field to be written
+	 * @param path
+	 *            the path of the target file
+	 * @param title
+	 *            the title to be written in the header of the file
+	 * @param descriptions
+	 *            array of description to be written in the header
+	 */
+	static public void writeFile(RealVectorField field, String path, String title, String[] descriptions) {
+		writeFile(field, path, title, descriptions, Format.TEXT);
+	}
 	
 	/**
-	 * Writes a <code>RealVectorField</code> in an OMF file.
+	 * Writes a <code>RealVectorField</code> in an OMF file (text format).
 	 * 
 	 * @param field
 	 *            the vector field to be written
@@ -219,6 +366,226 @@ public class OmfFileService {
 		writeFile(field, path, "Yamms Omf Storage Service", new String[]{});
 	}
 
+	/**
+	 * Writes a <code>RealVectorField</code> in an OMF file.
+	 * 
+	 * @param field
+	 *            the vector field to be written
+	 * @param path
+	 *            the path of the target file
+	 * @param format
+	 *            the data format
+	 */
+	static public void writeFile(RealVectorField field, String path, Format format) {
+		writeFile(field, path, "Yamms Omf Storage Service", new String[]{}, format);
+	}
+
+	/**
+	 * Writes a field in the OMF 1.0 text format
+	 * 
+	 * @param field
+	 *            the vector field to be written
+	 * @param stream
+	 *            the target stream
+	 * @param title
+	 *            the title to be written in the header of the file
+	 * @param descriptions
+	 *            array of description to be written in the header
+	 * @throws IOException
+	 */
+	static private void writeText(RealVectorField field, FileOutputStream stream, String title,
+			String[] descriptions) throws IOException {
+		Topology t = field.topology;
+		BufferedWriter out = new BufferedWriter(new OutputStreamWriter(stream));
+
+		out.write(buildHeaderRow("OOMMF", "rectangular mesh v1.0"));
+		out.write(buildHeaderRow("Segment count", 1));
+
+		out.write(buildHeaderRow("Begin", "Segment"));
+		out.write(buildHeaderRow("Begin", "Header"));
+
+		out.write(buildHeaderRow("Title", title));
+		for (String description : descriptions) {
+			out.write(buildHeaderRow("Desc", description));
+		}
+		out.write(buildHeaderRow("meshunit", "m"));
+		out.write(buildHeaderRow("valueunit", "A/m"));
+		out.write(buildHeaderRow("valuemultiplier", "1.0"));
+		out.write(buildMeshBounds(t));
+		out.write(buildHeaderRow("ValueRangeMaxMag", ""));
+		out.write(buildHeaderRow("ValueRangeMinMag", ""));
+		out.write(buildHeaderRow("meshtype", "rectangular"));
+		out.write(buildMeshGrid(t));
+
+		out.write(buildHeaderRow("End", "Header"));
+		out.write(buildHeaderRow("Begin", "Data Text"));
+
+		for (int i = 0; i < field.topology.totalCellCount; i++) {
+			out.write(field.getValue(0, i) + " " + field.getValue(1, i) + " "
+					+ field.getValue(2, i) + "\n");
+		}
+
+		out.write(buildHeaderRow("End", "Data Text"));
+		out.write(buildHeaderRow("End", "Segment"));
+
+		out.flush();
+	}
+
+	/**
+	 * Writes a field in the OVF 2.0 binary format. The data is preceded by the
+	 * check value of the format and written in little endian byte order.
+	 * 
+	 * @param field
+	 *            the vector field to be written
+	 * @param channel
+	 *            the target channel
+	 * @param title
+	 *            the title to be written in the header of the file
+	 * @param descriptions
+	 *            array of description to be written in the header
+	 * @param size
+	 *            the size of the floating point numbers in bytes (4 or 8)
+	 * @throws IOException
+	 */
+	static private void writeBinary(RealVectorField field, FileChannel channel, String title,
+			String[] descriptions, int size) throws IOException {
+		Topology t = field.topology;
+		String data = "Data Binary " + size;
+
+		StringBuilder header = new StringBuilder();
+		header.append("# OOMMF OVF 2.0\n");
+		header.append(buildHeaderRow("Segment count", 1));
+
+		header.append(buildHeaderRow("Begin", "Segment"));
+		header.append(buildHeaderRow("Begin", "Header"));
+
+		header.append(buildHeaderRow("Title", title));
+		for (String description : descriptions) {
+			header.append(buildHeaderRow("Desc", description));
+		}
+		header.append(buildHeaderRow("meshunit", "m"));
+		header.append(buildMeshBounds(t));
+		header.append(buildHeaderRow("meshtype", "rectangular"));
+		header.append(buildMeshGrid(t));
+		header.append(buildHeaderRow("valuedim", 3));
+		header.append(buildHeaderRow("valuelabels", "m_x m_y m_z"));
+		header.append(buildHeaderRow("valueunits", "A/m A/m A/m"));
+
+		header.append(buildHeaderRow("End", "Header"));
+		header.append(buildHeaderRow("Begin", data));
+		writeAscii(channel, header.toString());
+
+		// check value and data in chunks of interleaved components
+		double[][] values = field.getValues();
+		int n = t.totalCellCount;
+		ByteBuffer bytes = ByteBuffer.allocateDirect(3 * size * CHUNK_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		if (size == 4) {
+			bytes.putFloat(OmfSegment.CHECK_VALUE_4);
+		} else {
+			bytes.putDouble(OmfSegment.CHECK_VALUE_8);
+		}
+		bytes.flip();
+		writeFully(channel, bytes);
+
+		float[] floats = (size == 4) ? new float[3 * CHUNK_SIZE] : null;
+		double[] doubles = (size == 8) ? new double[3 * CHUNK_SIZE] : null;
+		for (int start = 0; start < n; start += CHUNK_SIZE) {
+			int count = Math.min(CHUNK_SIZE, n - start);
+			bytes.clear();
+			if (size == 4) {
+				for (int i = 0; i < count; i++) {
+					floats[3 * i] = (float) values[0][start + i];
+					floats[3 * i + 1] = (float) values[1][start + i];
+					floats[3 * i + 2] = (float) values[2][start + i];
+				}
+				bytes.asFloatBuffer().put(floats, 0, 3 * count);
+			} else {
+				for (int i = 0; i < count; i++) {
+					doubles[3 * i] = values[0][start + i];
+					doubles[3 * i + 1] = values[1][start + i];
+					doubles[3 * i + 2] = values[2][start + i];
+				}
+				bytes.asDoubleBuffer().put(doubles, 0, 3 * count);
+			}
+			bytes.limit(3 * size * count);
+			writeFully(channel, bytes);
+		}
+
+		writeAscii(channel, "\n" + buildHeaderRow("End", data) + buildHeaderRow("End", "Segment"));
+	}
+
+	/**
+	 * Writes an ASCII string to a channel
+	 * 
+	 * @param channel
+	 *            the channel
+	 * @param text
+	 *            the string
+	 * @throws IOException
+	 */
+	static private void writeAscii(FileChannel channel, String text) throws IOException {
+		writeFully(channel, ByteBuffer.wrap(text.getBytes("US-ASCII")));
+	}
+
+	/**
+	 * Writes the remaining bytes of a buffer to a channel
+	 * 
+	 * @param channel
+	 *            the channel
+	 * @param buffer
+	 *            the buffer
+	 * @throws IOException
+	 */
+	static private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Helper, builds the header rows with the bounds of the mesh
+	 * 
+	 * @param t
+	 *            the topology
+	 * @return the rows as string
+	 */
+	static private String buildMeshBounds(Topology t) {
+		String[] names = new String[] { "x", "y", "z" };
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < 3; i++) {
+			result.append(buildHeaderRow(names[i] + "min", t.getOrigin(i) * t.getCellSize(i)));
+		}
+		for (int i = 0; i < 3; i++) {
+			result.append(buildHeaderRow(names[i] + "max", (t.getOrigin(i) + t.getCellCount(i))
+					* t.getCellSize(i)));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Helper, builds the header rows with base, step size and number of nodes
+	 * of the mesh
+	 * 
+	 * @param t
+	 *            the topology
+	 * @return the rows as string
+	 */
+	static private String buildMeshGrid(Topology t) {
+		String[] names = new String[] { "x", "y", "z" };
+		StringBuilder result = new StringBuilder();
+		for (int i = 0; i < 3; i++) {
+			result.append(buildHeaderRow(names[i] + "base", t.getCellSize(i) / 2));
+		}
+		for (int i = 0; i < 3; i++) {
+			result.append(buildHeaderRow(names[i] + "stepsize", t.getCellSize(i)));
+		}
+		for (int i = 0; i < 3; i++) {
+			result.append(buildHeaderRow(names[i] + "nodes", t.getCellCount(i)));
+		}
+		return result.toString();
+	}
+
 	/**
 	 * Helper, builds an OMF header row from a key value pair, the value being a
 	 * <code>String</code>
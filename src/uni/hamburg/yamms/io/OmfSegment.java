@@ -1,9 +1,16 @@
 package uni.hamburg.yamms.io;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
 import java.util.HashMap;
 
 import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.math.parfor;
 
 /**
  * Represents a Segment of an OMF file
@@ -12,6 +19,15 @@ import uni.hamburg.yamms.math.Topology;
  * 
  */
 public class OmfSegment {
+	/** the check value preceding 4 byte binary data */
+	public static final float CHECK_VALUE_4 = 1234567.0f;
+	/** the check value preceding 8 byte binary data */
+	public static final double CHECK_VALUE_8 = 123456789012345.0;
+	/** the number of cells read with a single bulk transfer */
+	private static final int CHUNK_SIZE = 4096;
+	/** the minimum number of bytes of text data parsed by one thread */
+	private static final int MIN_TEXT_CHUNK = 1 << 20;
+
 	/** The header entries as <code>HashMap</code> */
 	private HashMap<String, String> _headers;
 	/** The field data */
@@ -44,21 +60,176 @@ public class OmfSegment {
 	}
 
 	/**
-	 * Parses a data row in OMF format and writes it to the data array
+	 * Parses text data (one cell per row) from a range of a buffer and writes
+	 * it to the data array. Large ranges are split into chunks at row
+	 * boundaries which are parsed in parallel. The rows of every chunk are
+	 * counted first to determine the index of the first cell of the chunk.
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param start
+	 *            the start of the data
+	 * @param end
+	 *            the end of the data (exclusive)
+	 * @throws IOException
+	 *             if the number of rows does not match the header or a value
+	 *             is invalid
+	 */
+	public void addTextData(final ByteBuffer buffer, int start, int end) throws IOException {
+		initDataContainer();
+
+		// split into chunks at row boundaries
+		int threads = Runtime.getRuntime().availableProcessors();
+		final int chunks = Math.max(1, Math.min(4 * threads, (end - start) / MIN_TEXT_CHUNK));
+		final int[] bounds = new int[chunks + 1];
+		bounds[0] = start;
+		bounds[chunks] = end;
+		for (int i = 1; i < chunks; i++) {
+			int position = start + (int) ((long) (end - start) * i / chunks);
+			DoubleParser parser = new DoubleParser(buffer, position, end);
+			parser.nextLine();
+			bounds[i] = Math.max(bounds[i - 1], parser.getPosition());
+		}
+
+		// count the rows and determine the first cell of every chunk
+		final int[] offsets = new int[chunks + 1];
+		final String[] errors = new String[chunks];
+		new parfor(Math.min(threads, chunks)) {
+			public void iter(int thread_idx, int i) {
+				offsets[i + 1] = countRows(buffer, bounds[i], bounds[i + 1]);
+			}
+		}.execute(0, chunks);
+		for (int i = 0; i < chunks; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		if (offsets[chunks] != _data[0].length) {
+			throw new IOException("Expected " + _data[0].length + " data rows, found "
+					+ offsets[chunks] + ".");
+		}
+
+		// parse
+		new parfor(Math.min(threads, chunks)) {
+			public void iter(int thread_idx, int i) {
+				try {
+					parseRows(buffer, bounds[i], bounds[i + 1], offsets[i]);
+				} catch (NumberFormatException e) {
+					errors[i] = e.getMessage();
+				}
+			}
+		}.execute(0, chunks);
+		for (String error : errors) {
+			if (error != null) throw new IOException("Invalid value: " + error);
+		}
+		_dataPointer = _data[0].length;
+	}
+
+	/**
+	 * Counts the rows with data in a range of a buffer
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param start
+	 *            the start of the range (beginning of a row)
+	 * @param end
+	 *            the end of the range
+	 * @return the number of non-empty rows
+	 */
+	private static int countRows(ByteBuffer buffer, int start, int end) {
+		if (start >= end) return 0;
+		DoubleParser parser = new DoubleParser(buffer, start, end);
+		int rows = 0;
+		do {
+			if (parser.skipSpaces()) rows++;
+		} while (parser.nextLine());
+		return rows;
+	}
+
+	/**
+	 * Parses the rows in a range of a buffer
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @param start
+	 *            the start of the range (beginning of a row)
+	 * @param end
+	 *            the end of the range
+	 * @param cell
+	 *            the index of the cell of the first row
+	 * @throws NumberFormatException
+	 *             if a value is invalid
+	 */
+	private void parseRows(ByteBuffer buffer, int start, int end, int cell)
+			throws NumberFormatException {
+		if (start >= end) return;
+		DoubleParser parser = new DoubleParser(buffer, start, end);
+		do {
+			if (!parser.skipSpaces()) continue;
+			for (int i = 0; i < _data.length; i++) {
+				_data[i][cell] = parser.nextDouble();
+			}
+			cell++;
+		} while (parser.nextLine());
+	}
+
+	/**
+	 * Reads binary data (including the leading check value) from a buffer and
+	 * writes it to the data array. The position of the buffer is moved behind
+	 * the data.
 	 * 
-	 * @param line
-	 *            the row
+	 * @param buffer
+	 *            the buffer, positioned at the check value
+	 * @param size
+	 *            the size of the floating point numbers in bytes (4 or 8)
+	 * @param order
+	 *            the byte order of the data
+	 * @throws IOException
+	 *             if the check value does not match or the data is incomplete
 	 */
-	public void addData(String line) {
-		// TODO check dimensions
-		if (_dataPointer == 0)
-			initDataContainer();
-
-		String[] values = line.split(" ");
-		for (int i = 0; i < values.length; i++) {
-			_data[i][_dataPointer] = Double.parseDouble(values[i]);
+	public void addBinaryData(ByteBuffer buffer, int size, ByteOrder order) throws IOException {
+		String dim = _headers.get("valuedim");
+		if (dim != null && Integer.parseInt(dim) != 3) {
+			throw new IOException("Only vector fields (valuedim 3) are supported.");
 		}
-		_dataPointer++;
+		initDataContainer();
+		int n = _data[0].length;
+
+		ByteBuffer data = buffer.slice().order(order);
+		try {
+			if (size == 4) {
+				FloatBuffer values = data.asFloatBuffer();
+				if (values.get() != CHECK_VALUE_4) throw new IOException("Invalid check value.");
+
+				float[] chunk = new float[3 * CHUNK_SIZE];
+				for (int start = 0; start < n; start += CHUNK_SIZE) {
+					int count = Math.min(CHUNK_SIZE, n - start);
+					values.get(chunk, 0, 3 * count);
+					for (int i = 0; i < count; i++) {
+						_data[0][start + i] = chunk[3 * i];
+						_data[1][start + i] = chunk[3 * i + 1];
+						_data[2][start + i] = chunk[3 * i + 2];
+					}
+				}
+			} else {
+				DoubleBuffer values = data.asDoubleBuffer();
+				if (values.get() != CHECK_VALUE_8) throw new IOException("Invalid check value.");
+
+				double[] chunk = new double[3 * CHUNK_SIZE];
+				for (int start = 0; start < n; start += CHUNK_SIZE) {
+					int count = Math.min(CHUNK_SIZE, n - start);
+					values.get(chunk, 0, 3 * count);
+					for (int i = 0; i < count; i++) {
+						_data[0][start + i] = chunk[3 * i];
+						_data[1][start + i] = chunk[3 * i + 1];
+						_data[2][start + i] = chunk[3 * i + 2];
+					}
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of binary data.");
+		}
+
+		buffer.position(buffer.position() + size * (3 * n + 1));
+		_dataPointer = n;
 	}
 
 	/**
@@ -0,0 +1,241 @@
+package uni.hamburg.yamms.io;
+
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Encoding helpers and constants of the time series format shared by
+ * <code>TimeSeriesWriter</code> and <code>TimeSeriesReader</code>.
+ * <p>
+ * A time series file consists of a header, the frames and an index. All
+ * numbers are little endian.
+ * 
+ * <pre>
+ * header: int magic, int version, byte encoding, int keyframe interval,
+ *         int[3] cell count, double[3] cell size, int[3] origin,
+ *         int length, byte[length] compressed saturation magnetization
+ * frame:  byte keyframe, int step, double time, int length, byte[length] data
+ * index:  int frame count, (long offset, int step, double time)[frame count],
+ *         long index offset, int index magic
+ * </pre>
+ * 
+ * The data of a frame is compressed with <code>Deflater</code>. Quantized
+ * frames contain two 16 bit octahedral coordinates per cell, lossless frames
+ * the bits of the three doubles per cell. Frames between keyframes contain the
+ * difference (quantized) or the XOR (lossless) to the previous frame. Before
+ * compression the bytes are reordered into planes (first bytes of all values,
+ * second bytes of all values, ...), which groups the zero bytes of small
+ * differences.
+ * 
+ * @author Claas Abert
+ * 
+ */
+class TimeSeriesCodec {
+	/** the magic number at the beginning of the file ("YTS1") */
+	static final int MAGIC = 0x31535459;
+	/** the magic number at the end of the index ("YTSI") */
+	static final int INDEX_MAGIC = 0x49535459;
+	/** the version of the format */
+	static final int VERSION = 1;
+	/** the size of the header of a frame in bytes */
+	static final int FRAME_HEADER_SIZE = 17;
+	/** the size of an index entry in bytes */
+	static final int INDEX_ENTRY_SIZE = 20;
+	/** the largest quantized coordinate */
+	private static final double QUANTIZATION = 65535;
+
+	/**
+	 * Encodes a vector with octahedral mapping into two 16 bit coordinates
+	 * 
+	 * @param x
+	 *            the x component
+	 * @param y
+	 *            the y component
+	 * @param z
+	 *            the z component
+	 * @param result
+	 *            the array the coordinates are written to
+	 * @param i
+	 *            the index of the cell (the coordinates are written to
+	 *            <code>2i</code> and <code>2i + 1</code>)
+	 */
+	static void encodeOctahedral(double x, double y, double z, short[] result, int i) {
+		double l1 = Math.abs(x) + Math.abs(y) + Math.abs(z);
+		double u = (l1 == 0) ? 0 : x / l1;
+		double v = (l1 == 0) ? 0 : y / l1;
+		if (z < 0) {
+			double fu = (1 - Math.abs(v)) * sign(u);
+			double fv = (1 - Math.abs(u)) * sign(v);
+			u = fu;
+			v = fv;
+		}
+		result[2 * i] = (short) Math.round((u * 0.5 + 0.5) * QUANTIZATION);
+		result[2 * i + 1] = (short) Math.round((v * 0.5 + 0.5) * QUANTIZATION);
+	}
+
+	/**
+	 * Decodes octahedral coordinates into a unit vector
+	 * 
+	 * @param values
+	 *            the coordinates
+	 * @param i
+	 *            the index of the cell
+	 * @param result
+	 *            the vector (x, y, z)
+	 */
+	static void decodeOctahedral(short[] values, int i, double[] result) {
+		double u = (values[2 * i] & 0xFFFF) / QUANTIZATION * 2 - 1;
+		double v = (values[2 * i + 1] & 0xFFFF) / QUANTIZATION * 2 - 1;
+		double z = 1 - Math.abs(u) - Math.abs(v);
+		if (z < 0) {
+			double fu = (1 - Math.abs(v)) * sign(u);
+			double fv = (1 - Math.abs(u)) * sign(v);
+			u = fu;
+			v = fv;
+		}
+		double norm = Math.sqrt(u * u + v * v + z * z);
+		result[0] = u / norm;
+		result[1] = v / norm;
+		result[2] = z / norm;
+	}
+
+	/**
+	 * Sign function with <code>sign(0) = 1</code>
+	 * 
+	 * @param x
+	 *            the argument
+	 * @return the sign
+	 */
+	private static double sign(double x) {
+		return (x < 0) ? -1 : 1;
+	}
+
+	/**
+	 * Writes the bytes of 16 bit values into two planes
+	 * 
+	 * @param values
+	 *            the values
+	 * @param bytes
+	 *            the target array (twice the length of the values)
+	 */
+	static void shuffle(short[] values, byte[] bytes) {
+		int n = values.length;
+		for (int i = 0; i < n; i++) {
+			bytes[i] = (byte) values[i];
+			bytes[n + i] = (byte) (values[i] >>> 8);
+		}
+	}
+
+	/**
+	 * Reads 16 bit values from two byte planes
+	 * 
+	 * @param bytes
+	 *            the planes
+	 * @param values
+	 *            the target array
+	 */
+	static void unshuffle(byte[] bytes, short[] values) {
+		int n = values.length;
+		for (int i = 0; i < n; i++) {
+			values[i] = (short) ((bytes[i] & 0xFF) | (bytes[n + i] << 8));
+		}
+	}
+
+	/**
+	 * Writes the bytes of 64 bit values into eight planes
+	 * 
+	 * @param values
+	 *            the values
+	 * @param bytes
+	 *            the target array (eight times the length of the values)
+	 */
+	static void shuffle(long[] values, byte[] bytes) {
+		int n = values.length;
+		for (int i = 0; i < n; i++) {
+			long value = values[i];
+			for (int b = 0; b < 8; b++) {
+				bytes[b * n + i] = (byte) (value >>> (8 * b));
+			}
+		}
+	}
+
+	/**
+	 * Reads 64 bit values from eight byte planes
+	 * 
+	 * @param bytes
+	 *            the planes
+	 * @param values
+	 *            the target array
+	 */
+	static void unshuffle(byte[] bytes, long[] values) {
+		int n = values.length;
+		for (int i = 0; i < n; i++) {
+			long value = 0;
+			for (int b = 0; b < 8; b++) {
+				value |= (bytes[b * n + i] & 0xFFL) << (8 * b);
+			}
+			values[i] = value;
+		}
+	}
+
+	/**
+	 * Compresses bytes
+	 * 
+	 * @param deflater
+	 *            the deflater (is reset)
+	 * @param bytes
+	 *            the uncompressed bytes
+	 * @param buffer
+	 *            the output buffer, may be replaced by a larger one
+	 * @return the output buffer, the compressed length is returned by
+	 *         <code>deflater.getTotalOut()</code>
+	 */
+	static byte[] compress(Deflater deflater, byte[] bytes, byte[] buffer) {
+		deflater.reset();
+		deflater.setInput(bytes);
+		deflater.finish();
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == buffer.length) {
+				byte[] larger = new byte[2 * buffer.length];
+				System.arraycopy(buffer, 0, larger, 0, length);
+				buffer = larger;
+			}
+			length += deflater.deflate(buffer, length, buffer.length - length);
+		}
+		return buffer;
+	}
+
+	/**
+	 * Decompresses bytes
+	 * 
+	 * @param inflater
+	 *            the inflater (is reset)
+	 * @param data
+	 *            the compressed bytes
+	 * @param length
+	 *            the number of compressed bytes
+	 * @param bytes
+	 *            the target array, has to be filled completely
+	 * @throws IOException
+	 *             if the data is corrupt
+	 */
+	static void decompress(Inflater inflater, byte[] data, int length, byte[] bytes)
+			throws IOException {
+		inflater.reset();
+		inflater.setInput(data, 0, length);
+		try {
+			int offset = 0;
+			while (offset < bytes.length && !inflater.finished()) {
+				int count = inflater.inflate(bytes, offset, bytes.length - offset);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+				offset += count;
+			}
+			if (offset != bytes.length) throw new IOException("Corrupt frame data.");
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt frame data: " + e.getMessage());
+		}
+	}
+}
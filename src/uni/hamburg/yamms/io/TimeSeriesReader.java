@@ -0,0 +1,392 @@
+package uni.hamburg.yamms.io;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.Inflater;
+
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+/**
+ * Reader for time series written by <code>TimeSeriesWriter</code>. The frames
+ * can be read in any order. A frame is decoded starting from the previous
+ * keyframe, the last decoded frame is kept, so reading the frames in order
+ * decodes every frame only once.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class TimeSeriesReader {
+	/** the channel of the file */
+	private FileChannel _channel;
+	/** the encoding */
+	private TimeSeriesWriter.Encoding _encoding;
+	/** the number of frames between two keyframes */
+	private int _keyframeInterval;
+	/** the topology */
+	private Topology _topology;
+	/** the saturation magnetization */
+	private double[] _ms;
+
+	/** the number of frames */
+	private int _frames;
+	/** the offsets of the frames */
+	private long[] _offsets;
+	/** the step numbers of the frames */
+	private int[] _steps;
+	/** the simulation times of the frames */
+	private double[] _times;
+
+	/** the index of the decoded frame (-1 if none) */
+	private int _current;
+	/** the decoded quantized frame */
+	private short[] _quantized;
+	/** the differences of a quantized frame */
+	private short[] _quantizedDelta;
+	/** the decoded lossless frame */
+	private long[] _bits;
+	/** the differences of a lossless frame */
+	private long[] _bitsDelta;
+	/** the uncompressed bytes of a frame */
+	private byte[] _bytes;
+	/** the compressed bytes of a frame */
+	private byte[] _compressed;
+	/** the decompressor */
+	private Inflater _inflater;
+
+	/**
+	 * Standard constructor. Opens the file and reads header and index.
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @throws IOException
+	 *             if the file is no valid time series
+	 */
+	public TimeSeriesReader(String path) throws IOException {
+		_channel = new FileInputStream(IOConfig.getInstance().getPathFor(path)).getChannel();
+		_inflater = new Inflater();
+		_current = -1;
+		try {
+			long position = readHeader();
+			if (!readIndex()) scanFrames(position);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the header
+	 * 
+	 * @return the position of the first frame
+	 * @throws IOException
+	 */
+	private long readHeader() throws IOException {
+		ByteBuffer header = read(0, 65);
+		if (header.getInt() != TimeSeriesCodec.MAGIC) throw new IOException("No time series file.");
+		if (header.getInt() != TimeSeriesCodec.VERSION) throw new IOException("Unsupported version.");
+		byte encoding = header.get();
+		if (encoding < 0 || encoding >= TimeSeriesWriter.Encoding.values().length) {
+			throw new IOException("Unknown encoding.");
+		}
+		_encoding = TimeSeriesWriter.Encoding.values()[encoding];
+		_keyframeInterval = header.getInt();
+		if (_keyframeInterval < 1) throw new IOException("Invalid keyframe interval.");
+
+		int[] cellCount = new int[3];
+		double[] cellSize = new double[3];
+		int[] origin = new int[3];
+		for (int i = 0; i < 3; i++) {
+			cellCount[i] = header.getInt();
+		}
+		for (int i = 0; i < 3; i++) {
+			cellSize[i] = header.getDouble();
+		}
+		for (int i = 0; i < 3; i++) {
+			origin[i] = header.getInt();
+		}
+		_topology = new Topology(cellCount, cellSize, origin);
+		int length = header.getInt();
+
+		int n = _topology.totalCellCount;
+		if (_encoding == TimeSeriesWriter.Encoding.QUANTIZED) {
+			_quantized = new short[2 * n];
+			_quantizedDelta = new short[2 * n];
+			_bytes = new byte[4 * n];
+		} else {
+			_bits = new long[3 * n];
+			_bitsDelta = new long[3 * n];
+			_bytes = new byte[24 * n];
+		}
+
+		// saturation magnetization
+		byte[] msBytes = new byte[8 * n];
+		long[] msBits = new long[n];
+		TimeSeriesCodec.decompress(_inflater, readBytes(65, length), length, msBytes);
+		TimeSeriesCodec.unshuffle(msBytes, msBits);
+		_ms = new double[n];
+		for (int i = 0; i < n; i++) {
+			_ms[i] = Double.longBitsToDouble(msBits[i]);
+		}
+
+		return 65 + length;
+	}
+
+	/**
+	 * Reads the index at the end of the file
+	 * 
+	 * @return <code>false</code> if there is no valid index
+	 * @throws IOException
+	 */
+	private boolean readIndex() throws IOException {
+		long size = _channel.size();
+		if (size < 16) return false;
+		ByteBuffer footer = read(size - 12, 12);
+		long offset = footer.getLong();
+		if (footer.getInt() != TimeSeriesCodec.INDEX_MAGIC || offset < 0 || offset > size - 16) {
+			return false;
+		}
+
+		int frames = read(offset, 4).getInt();
+		if (offset + 4 + (long) frames * TimeSeriesCodec.INDEX_ENTRY_SIZE != size - 12) {
+			return false;
+		}
+		ByteBuffer index = read(offset + 4, frames * TimeSeriesCodec.INDEX_ENTRY_SIZE);
+		allocateIndex(frames);
+		for (int i = 0; i < frames; i++) {
+			_offsets[i] = index.getLong();
+			_steps[i] = index.getInt();
+			_times[i] = index.getDouble();
+		}
+		_frames = frames;
+		return true;
+	}
+
+	/**
+	 * Rebuilds the index by reading the frame headers. Incomplete frames at the
+	 * end of the file are ignored.
+	 * 
+	 * @param position
+	 *            the position of the first frame
+	 * @throws IOException
+	 */
+	private void scanFrames(long position) throws IOException {
+		long size = _channel.size();
+		allocateIndex(64);
+		_frames = 0;
+		while (position + TimeSeriesCodec.FRAME_HEADER_SIZE <= size) {
+			ByteBuffer header = read(position, TimeSeriesCodec.FRAME_HEADER_SIZE);
+			byte keyframe = header.get();
+			int step = header.getInt();
+			double time = header.getDouble();
+			int length = header.getInt();
+			long end = position + TimeSeriesCodec.FRAME_HEADER_SIZE + length;
+			if (keyframe > 1 || length < 0 || end > size) break;
+
+			if (_frames == _offsets.length) {
+				long[] offsets = _offsets;
+				int[] steps = _steps;
+				double[] times = _times;
+				allocateIndex(2 * _frames);
+				System.arraycopy(offsets, 0, _offsets, 0, _frames);
+				System.arraycopy(steps, 0, _steps, 0, _frames);
+				System.arraycopy(times, 0, _times, 0, _frames);
+			}
+			_offsets[_frames] = position;
+			_steps[_frames] = step;
+			_times[_frames] = time;
+			_frames++;
+			position = end;
+		}
+	}
+
+	/**
+	 * Allocates the arrays of the index
+	 * 
+	 * @param frames
+	 *            the number of frames
+	 */
+	private void allocateIndex(int frames) {
+		_offsets = new long[frames];
+		_steps = new int[frames];
+		_times = new double[frames];
+	}
+
+	/**
+	 * Returns the number of frames
+	 * 
+	 * @return the number of frames
+	 */
+	public int getFrameCount() {
+		return _frames;
+	}
+
+	/**
+	 * Returns the simulation time of a frame
+	 * 
+	 * @param frame
+	 *            the index of the frame
+	 * @return the time
+	 */
+	public double getTime(int frame) {
+		return _times[frame];
+	}
+
+	/**
+	 * Returns the step number of a frame
+	 * 
+	 * @param frame
+	 *            the index of the frame
+	 * @return the step number
+	 */
+	public int getStep(int frame) {
+		return _steps[frame];
+	}
+
+	/**
+	 * Returns the topology of the frames
+	 * 
+	 * @return the topology
+	 */
+	public Topology getTopology() {
+		return _topology;
+	}
+
+	/**
+	 * Reads a frame
+	 * 
+	 * @param frame
+	 *            the index of the frame
+	 * @return the magnetization
+	 * @throws IOException
+	 */
+	public RealVectorField readFrame(int frame) throws IOException {
+		if (frame < 0 || frame >= _frames) throw new IndexOutOfBoundsException("Frame " + frame);
+
+		// decode from the last keyframe or from the decoded frame
+		int start = frame - frame % _keyframeInterval;
+		if (_current >= start && _current <= frame) start = _current + 1;
+		for (int i = start; i <= frame; i++) {
+			decode(i);
+		}
+		_current = frame;
+
+		// restore the field
+		int n = _topology.totalCellCount;
+		double[][] values = new double[3][n];
+		if (_encoding == TimeSeriesWriter.Encoding.QUANTIZED) {
+			double[] direction = new double[3];
+			for (int i = 0; i < n; i++) {
+				TimeSeriesCodec.decodeOctahedral(_quantized, i, direction);
+				for (int c = 0; c < 3; c++) {
+					values[c][i] = direction[c] * _ms[i];
+				}
+			}
+		} else {
+			for (int c = 0; c < 3; c++) {
+				for (int i = 0; i < n; i++) {
+					values[c][i] = Double.longBitsToDouble(_bits[3 * i + c]);
+				}
+			}
+		}
+		return new RealVectorField(_topology, values);
+	}
+
+	/**
+	 * Decodes a frame and applies it to the decoded frame. The previous frame
+	 * has to be decoded unless the frame is a keyframe.
+	 * 
+	 * @param frame
+	 *            the index of the frame
+	 * @throws IOException
+	 */
+	private void decode(int frame) throws IOException {
+		ByteBuffer header = read(_offsets[frame], TimeSeriesCodec.FRAME_HEADER_SIZE);
+		boolean keyframe = header.get() == 1;
+		header.getInt(); // step
+		header.getDouble(); // time
+		int length = header.getInt();
+
+		if (_compressed == null || _compressed.length < length) _compressed = new byte[length];
+		ByteBuffer data = ByteBuffer.wrap(_compressed, 0, length);
+		long position = _offsets[frame] + TimeSeriesCodec.FRAME_HEADER_SIZE;
+		while (data.hasRemaining()) {
+			if (_channel.read(data, position + data.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		TimeSeriesCodec.decompress(_inflater, _compressed, length, _bytes);
+
+		if (_encoding == TimeSeriesWriter.Encoding.QUANTIZED) {
+			if (keyframe) {
+				TimeSeriesCodec.unshuffle(_bytes, _quantized);
+			} else {
+				TimeSeriesCodec.unshuffle(_bytes, _quantizedDelta);
+				for (int i = 0; i < _quantized.length; i++) {
+					_quantized[i] += _quantizedDelta[i];
+				}
+			}
+		} else {
+			if (keyframe) {
+				TimeSeriesCodec.unshuffle(_bytes, _bits);
+			} else {
+				TimeSeriesCodec.unshuffle(_bytes, _bitsDelta);
+				for (int i = 0; i < _bits.length; i++) {
+					_bits[i] ^= _bitsDelta[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Closes the file
+	 */
+	public void close() {
+		try {
+			_channel.close();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+		_inflater.end();
+	}
+
+	/**
+	 * Reads bytes from the file
+	 * 
+	 * @param position
+	 *            the position in the file
+	 * @param length
+	 *            the number of bytes
+	 * @return the bytes in a little endian buffer
+	 * @throws IOException
+	 */
+	private ByteBuffer read(long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (_channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of file.");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads bytes from the file into an array
+	 * 
+	 * @param position
+	 *            the position in the file
+	 * @param length
+	 *            the number of bytes
+	 * @return the bytes
+	 * @throws IOException
+	 */
+	private byte[] readBytes(long position, int length) throws IOException {
+		byte[] result = new byte[length];
+		read(position, length).get(result);
+		return result;
+	}
+}
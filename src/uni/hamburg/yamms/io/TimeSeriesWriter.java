@@ -0,0 +1,276 @@
+package uni.hamburg.yamms.io;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.zip.Deflater;
+
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+/**
+ * Writer for compressed time series of the magnetization. All frames are
+ * stored in a single file with an index for random access (see
+ * <code>TimeSeriesReader</code>). The following encodings are available:
+ * <ul>
+ * <li><code>QUANTIZED</code>: the direction of the magnetization is stored
+ * with two 16 bit coordinates per cell (octahedral mapping, angular error
+ * below 5e-5). The norm is restored from the saturation magnetization.</li>
+ * <li><code>LOSSLESS</code>: the magnetization is stored bit-for-bit</li>
+ * </ul>
+ * Every <code>keyframeInterval</code>-th frame is stored completely, the
+ * frames in between as differences to the previous frame. The index is
+ * written by <code>close()</code>. Files without index (e.g. after a crash)
+ * can still be read, the reader rebuilds the index from the frames.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class TimeSeriesWriter {
+	/**
+	 * The encodings of the frames
+	 */
+	public static enum Encoding {
+		/** 32 bit per cell, direction only */
+		QUANTIZED,
+		/** the exact values */
+		LOSSLESS
+	}
+
+	/** the channel of the file */
+	private FileChannel _channel;
+	/** the encoding */
+	private Encoding _encoding;
+	/** the number of frames between two keyframes */
+	private int _keyframeInterval;
+	/** the topology of the frames */
+	private Topology _topology;
+
+	/** the offsets, steps and times of the frames */
+	private ByteBuffer _index;
+	/** the number of written frames */
+	private int _frames;
+
+	/** the previous quantized frame */
+	private short[] _quantized;
+	/** the quantized frame */
+	private short[] _quantizedNext;
+	/** the previous lossless frame */
+	private long[] _bits;
+	/** the lossless frame */
+	private long[] _bitsNext;
+	/** the uncompressed bytes of a frame */
+	private byte[] _bytes;
+	/** the compressed bytes of a frame */
+	private byte[] _compressed;
+	/** the compressor */
+	private Deflater _deflater;
+
+	/**
+	 * Standard constructor. Creates the file and writes the header.
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @param ms
+	 *            the saturation magnetization (defines the topology and the
+	 *            norm of quantized frames)
+	 * @param encoding
+	 *            the encoding of the frames
+	 * @param keyframeInterval
+	 *            the number of frames between two complete frames
+	 * @throws IOException
+	 */
+	public TimeSeriesWriter(String path, RealScalarField ms, Encoding encoding,
+			int keyframeInterval) throws IOException {
+		assert keyframeInterval >= 1;
+		_channel = new FileOutputStream(IOConfig.getInstance().getPathFor(path)).getChannel();
+		_encoding = encoding;
+		_keyframeInterval = keyframeInterval;
+		_topology = ms.topology;
+		_index = ByteBuffer.allocate(64 * TimeSeriesCodec.INDEX_ENTRY_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		_deflater = new Deflater(Deflater.BEST_SPEED);
+
+		int n = _topology.totalCellCount;
+		if (encoding == Encoding.QUANTIZED) {
+			_quantized = new short[2 * n];
+			_quantizedNext = new short[2 * n];
+			_bytes = new byte[4 * n];
+		} else {
+			_bits = new long[3 * n];
+			_bitsNext = new long[3 * n];
+			_bytes = new byte[24 * n];
+		}
+		_compressed = new byte[Math.max(1024, _bytes.length / 4)];
+
+		// header
+		long[] msBits = new long[n];
+		for (int i = 0; i < n; i++) {
+			msBits[i] = Double.doubleToRawLongBits(ms.getValue(i));
+		}
+		byte[] msBytes = new byte[8 * n];
+		TimeSeriesCodec.shuffle(msBits, msBytes);
+		_compressed = TimeSeriesCodec.compress(_deflater, msBytes, _compressed);
+		int length = _deflater.getTotalOut();
+
+		ByteBuffer header = ByteBuffer.allocate(65 + length).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(TimeSeriesCodec.MAGIC);
+		header.putInt(TimeSeriesCodec.VERSION);
+		header.put((byte) encoding.ordinal());
+		header.putInt(keyframeInterval);
+		for (int i = 0; i < 3; i++) {
+			header.putInt(_topology.getCellCount(i));
+		}
+		for (int i = 0; i < 3; i++) {
+			header.putDouble(_topology.getCellSize(i));
+		}
+		for (int i = 0; i < 3; i++) {
+			header.putInt(_topology.getOrigin(i));
+		}
+		header.putInt(length);
+		header.put(_compressed, 0, length);
+		header.flip();
+		write(header);
+	}
+
+	/**
+	 * Appends a frame
+	 * 
+	 * @param m
+	 *            the magnetization
+	 * @param time
+	 *            the simulation time
+	 * @param step
+	 *            the step number
+	 * @throws IOException
+	 */
+	public void writeFrame(RealVectorField m, double time, int step) throws IOException {
+		assert m.topology.totalCellCount == _topology.totalCellCount;
+		boolean keyframe = (_frames % _keyframeInterval == 0);
+		double[][] values = m.getValues();
+		int n = _topology.totalCellCount;
+
+		if (_encoding == Encoding.QUANTIZED) {
+			short[] quantized = _quantizedNext;
+			for (int i = 0; i < n; i++) {
+				TimeSeriesCodec.encodeOctahedral(values[0][i], values[1][i], values[2][i],
+						quantized, i);
+			}
+			_quantizedNext = _quantized;
+			_quantized = quantized;
+
+			// the differences are stored in the array of the previous frame
+			short[] data = quantized;
+			if (!keyframe) {
+				data = _quantizedNext;
+				for (int i = 0; i < data.length; i++) {
+					data[i] = (short) (quantized[i] - data[i]);
+				}
+			}
+			TimeSeriesCodec.shuffle(data, _bytes);
+		} else {
+			long[] bits = _bitsNext;
+			for (int c = 0; c < 3; c++) {
+				for (int i = 0; i < n; i++) {
+					bits[3 * i + c] = Double.doubleToRawLongBits(values[c][i]);
+				}
+			}
+			_bitsNext = _bits;
+			_bits = bits;
+
+			long[] data = bits;
+			if (!keyframe) {
+				data = _bitsNext;
+				for (int i = 0; i < data.length; i++) {
+					data[i] ^= bits[i];
+				}
+			}
+			TimeSeriesCodec.shuffle(data, _bytes);
+		}
+
+		_compressed = TimeSeriesCodec.compress(_deflater, _bytes, _compressed);
+		int length = _deflater.getTotalOut();
+
+		// index entry
+		if (_index.remaining() < TimeSeriesCodec.INDEX_ENTRY_SIZE) {
+			ByteBuffer larger = ByteBuffer.allocate(2 * _index.capacity()).order(
+					ByteOrder.LITTLE_ENDIAN);
+			_index.flip();
+			larger.put(_index);
+			_index = larger;
+		}
+		_index.putLong(_channel.position());
+		_index.putInt(step);
+		_index.putDouble(time);
+
+		ByteBuffer header = ByteBuffer.allocate(TimeSeriesCodec.FRAME_HEADER_SIZE).order(
+				ByteOrder.LITTLE_ENDIAN);
+		header.put((byte) (keyframe ? 1 : 0));
+		header.putInt(step);
+		header.putDouble(time);
+		header.putInt(length);
+		header.flip();
+		write(header);
+		write(ByteBuffer.wrap(_compressed, 0, length));
+		_frames++;
+	}
+
+	/**
+	 * Returns the number of written frames
+	 * 
+	 * @return the number of frames
+	 */
+	public int getFrameCount() {
+		return _frames;
+	}
+
+	/**
+	 * Forces the written frames to the storage device
+	 * 
+	 * @throws IOException
+	 */
+	public void sync() throws IOException {
+		_channel.force(false);
+	}
+
+	/**
+	 * Writes the index and closes the file
+	 * 
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		long offset = _channel.position();
+		ByteBuffer count = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+		count.putInt(_frames);
+		count.flip();
+		write(count);
+
+		_index.flip();
+		write(_index);
+
+		ByteBuffer footer = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+		footer.putLong(offset);
+		footer.putInt(TimeSeriesCodec.INDEX_MAGIC);
+		footer.flip();
+		write(footer);
+
+		_channel.close();
+		_deflater.end();
+	}
+
+	/**
+	 * Writes the remaining bytes of a buffer to the file
+	 * 
+	 * @param buffer
+	 *            the buffer
+	 * @throws IOException
+	 */
+	private void write(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			_channel.write(buffer);
+		}
+	}
+}
@@ -38,6 +38,9 @@ public class BooleanField {
 	 */
 	static public BooleanField boundsFromField(RealScalarField field,
 			double tolerance) {
+		if (field instanceof RealConstantScalarField) {
+			return boundsFromField((RealConstantScalarField) field, tolerance);
+		}
 		boolean[] values = new boolean[field.topology.totalCellCount];
 		for (int i = 0; i < field.topology.totalCellCount; ++i) {
 			values[i] = (Math.abs(field.getValue(i)) > tolerance);
@@ -84,10 +87,23 @@ public class BooleanField {
 	 *            the field whose boundaries are determined
 	 * @return the boolean field
 	 */
-	static public BooleanField boundsFromFIeld(RealConstantScalarField field) {
+	static public BooleanField boundsFromField(RealConstantScalarField field) {
 		return boundsFromField(field, 1e-6);
 	}
 
+	/**
+	 * Misspelled variant of <code>boundsFromField</code>
+	 * 
+	 * @param field
+	 *            the field whose boundaries are determined
+	 * @return the boolean field
+	 * @deprecated use {@link #boundsFromField(RealConstantScalarField)}
+	 */
+	@Deprecated
+	static public BooleanField boundsFromFIeld(RealConstantScalarField field) {
+		return boundsFromField(field);
+	}
+
 	/**
 	 * The value at a certain linear index
 	 * 
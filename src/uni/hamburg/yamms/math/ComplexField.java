@@ -7,6 +7,7 @@ package uni.hamburg.yamms.math;
  * 
  */
 abstract public class ComplexField extends Field {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Standard constructor
@@ -7,6 +7,8 @@ package uni.hamburg.yamms.math;
  * 
  */
 public class ComplexTensorField extends ComplexField {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * The mapping of the tensor components. The default mapping is
 	 * <code>[0, 1, 2, 3, 4, 5, 6, 7, 8]</code>, meaning that the values with
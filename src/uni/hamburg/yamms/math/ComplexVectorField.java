@@ -7,6 +7,8 @@ package uni.hamburg.yamms.math;
  * 
  */
 public class ComplexVectorField extends ComplexField {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Standard constructor
 	 * 
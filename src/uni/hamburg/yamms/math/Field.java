@@ -1,5 +1,7 @@
 package uni.hamburg.yamms.math;
 
+import java.io.Serializable;
+
 /**
  * N-dimensional field on a topology. The values are expected to be saved in the
  * two dimensional array <code>_values</code>. The first index addresses the
@@ -8,7 +10,9 @@ package uni.hamburg.yamms.math;
  * 
  * @author Claas Abert
  */
-public abstract class Field {
+public abstract class Field implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	/** the topology the field is defined on */
 	public final Topology topology;
 
@@ -86,7 +90,7 @@ public abstract class Field {
 			return false;
 		for (int i = 0; i < dimension; i++) {
 			for (int j = 0; j < topology.totalCellCount; j++) {
-				if (Math.abs(_values[i][j] - vf.getValue(i, j)) > accuracy)
+				if (Math.abs(getValue(i, j) - vf.getValue(i, j)) > accuracy)
 					return false;
 			}
 		}
@@ -132,7 +136,7 @@ public abstract class Field {
 	 * @return the values
 	 */
 	public double[] getLinearValues() {
-		double[] result = new double[dimension * _values[0].length];
+		double[] result = new double[dimension * topology.totalCellCount];
 		getLinearValues(result);
 		return result;
 	}
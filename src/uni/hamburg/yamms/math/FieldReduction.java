@@ -0,0 +1,229 @@
+package uni.hamburg.yamms.math;
+
+/**
+ * Reductions of a vector field that are computed in a single pass over the
+ * cells: the sum of the vectors, the minimum and maximum norm and the inner
+ * products with further fields of the same topology. This replaces
+ * separate calls of <code>getAverage</code>, <code>getAverageNorm</code>,
+ * <code>getMaxNorm</code> and <code>innerProduct</code>, which read the
+ * field once each.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class FieldReduction {
+	/** the number of cells */
+	private final int _count;
+	/** the sum of the vectors */
+	private final double[] _sum;
+	/** the minimum norm */
+	private double _minNorm;
+	/** the maximum norm */
+	private double _maxNorm;
+	/** the inner products with the further fields */
+	private final double[] _innerProducts;
+
+	/**
+	 * Standard constructor. Computes the reductions of a field and the inner
+	 * products with further fields. Uniform fields are not expanded to the
+	 * cells.
+	 * 
+	 * @param field
+	 *            the field
+	 * @param others
+	 *            the fields for the inner products (may be empty)
+	 */
+	public FieldReduction(RealVectorField field, RealVectorField[] others) {
+		int n = field.topology.totalCellCount;
+		int dim = field.dimension;
+		_count = n;
+		_sum = new double[dim];
+		_innerProducts = new double[others.length];
+		for (int k = 0; k < others.length; k++) {
+			assert others[k].topology.totalCellCount == n && others[k].dimension == dim;
+		}
+
+		if (field instanceof RealUniformVectorField) {
+			// the reductions of a single vector
+			double[] vector = field.getVector(0);
+			double norm = field.getNorm(0);
+			for (int c = 0; c < dim; c++) {
+				_sum[c] = n * vector[c];
+			}
+			_minNorm = (n == 0) ? 0 : norm;
+			_maxNorm = norm;
+			for (int k = 0; k < others.length; k++) {
+				_innerProducts[k] = dot(vector, sumOf(others[k]));
+			}
+			return;
+		}
+
+		// the inner products with uniform fields follow from the sum
+		double[][] values = field._values;
+		double[][][] otherValues = new double[others.length][][];
+		for (int k = 0; k < others.length; k++) {
+			if (!(others[k] instanceof RealUniformVectorField)) otherValues[k] = others[k]._values;
+		}
+
+		double minNormSquared = (n == 0) ? 0 : Double.POSITIVE_INFINITY;
+		double maxNormSquared = 0;
+		for (int i = 0; i < n; i++) {
+			double normSquared = 0;
+			for (int c = 0; c < dim; c++) {
+				double value = values[c][i];
+				_sum[c] += value;
+				normSquared += value * value;
+			}
+			if (normSquared < minNormSquared) minNormSquared = normSquared;
+			if (normSquared > maxNormSquared) maxNormSquared = normSquared;
+
+			for (int k = 0; k < otherValues.length; k++) {
+				double[][] other = otherValues[k];
+				if (other == null) continue;
+				double product = 0;
+				for (int c = 0; c < dim; c++) {
+					product += values[c][i] * other[c][i];
+				}
+				_innerProducts[k] += product;
+			}
+		}
+		_minNorm = Math.sqrt(minNormSquared);
+		_maxNorm = Math.sqrt(maxNormSquared);
+
+		for (int k = 0; k < others.length; k++) {
+			if (otherValues[k] == null) _innerProducts[k] = dot(others[k].getVector(0), _sum);
+		}
+	}
+
+	/**
+	 * Returns the sum of the vectors of a field
+	 * 
+	 * @param field
+	 *            the field
+	 * @return the sum
+	 */
+	private static double[] sumOf(RealVectorField field) {
+		int n = field.topology.totalCellCount;
+		if (field instanceof RealUniformVectorField) {
+			double[] result = field.getVector(0);
+			for (int c = 0; c < result.length; c++) {
+				result[c] *= n;
+			}
+			return result;
+		}
+
+		double[] result = new double[field.dimension];
+		for (int c = 0; c < result.length; c++) {
+			double[] values = field._values[c];
+			for (int i = 0; i < n; i++) {
+				result[c] += values[i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the inner product of two vectors
+	 * 
+	 * @param a
+	 *            the first vector
+	 * @param b
+	 *            the second vector
+	 * @return the inner product
+	 */
+	private static double dot(double[] a, double[] b) {
+		double result = 0;
+		for (int c = 0; c < a.length; c++) {
+			result += a[c] * b[c];
+		}
+		return result;
+	}
+
+	/**
+	 * Alternative constructor. Computes the reductions of a field without inner
+	 * products.
+	 * 
+	 * @param field
+	 *            the field
+	 */
+	public FieldReduction(RealVectorField field) {
+		this(field, new RealVectorField[0]);
+	}
+
+	/**
+	 * Returns the sum of the vectors
+	 * 
+	 * @return the sum
+	 */
+	public double[] getSum() {
+		return _sum.clone();
+	}
+
+	/**
+	 * Returns the average vector (see <code>RealVectorField.getAverage</code>)
+	 * 
+	 * @return the average
+	 */
+	public double[] getAverage() {
+		double[] result = new double[_sum.length];
+		for (int c = 0; c < _sum.length; c++) {
+			result[c] = _sum[c] / _count;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns a component of the average vector
+	 * 
+	 * @param component
+	 *            the component
+	 * @return the component of the average
+	 */
+	public double getAverage(int component) {
+		return _sum[component] / _count;
+	}
+
+	/**
+	 * Returns the norm of the average vector (see
+	 * <code>RealVectorField.getAverageNorm</code>)
+	 * 
+	 * @return the norm of the average
+	 */
+	public double getAverageNorm() {
+		double result = 0;
+		for (int c = 0; c < _sum.length; c++) {
+			result += _sum[c] * _sum[c];
+		}
+		return Math.sqrt(result) / _count;
+	}
+
+	/**
+	 * Returns the minimum norm
+	 * 
+	 * @return the minimum norm
+	 */
+	public double getMinNorm() {
+		return _minNorm;
+	}
+
+	/**
+	 * Returns the maximum norm (see <code>RealVectorField.getMaxNorm</code>)
+	 * 
+	 * @return the maximum norm
+	 */
+	public double getMaxNorm() {
+		return _maxNorm;
+	}
+
+	/**
+	 * Returns the inner product with one of the further fields (see
+	 * <code>RealVectorField.innerProduct</code>)
+	 * 
+	 * @param k
+	 *            the index of the further field
+	 * @return the inner product
+	 */
+	public double getInnerProduct(int k) {
+		return _innerProducts[k];
+	}
+}
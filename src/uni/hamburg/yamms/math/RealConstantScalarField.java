@@ -1,12 +1,18 @@
 package uni.hamburg.yamms.math;
 
+import java.util.Arrays;
+
 /**
- * Represents a spatially constant real scalar field.
+ * Represents a spatially constant real scalar field. Only a single value is
+ * stored and the operations with constant or uniform operands return constant
+ * or uniform fields.
  * 
  * @author Claas Abert
  * 
  */
 public class RealConstantScalarField extends RealScalarField {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Standard constructor
 	 * 
@@ -25,4 +31,126 @@ public class RealConstantScalarField extends RealScalarField {
 	public double getValue(int i) {
 		return _values[0][0];
 	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.Field#getValue(int, int)
+	 */
+	public double getValue(int component, int lidx) {
+		return _values[0][0];
+	}
+
+	/**
+	 * Returns the values of all cells. Since the field stores a single value,
+	 * the values are created on every call and changes of the values have no
+	 * effect on the field.
+	 * 
+	 * @return the values
+	 */
+	public double[][] getValues() {
+		return getValuesCopy();
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.Field#getValuesCopy()
+	 */
+	protected double[][] getValuesCopy() {
+		return new double[][] { getComponent(0) };
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.Field#copyValuesTo(double[][])
+	 */
+	public void copyValuesTo(double[][] target) {
+		Arrays.fill(target[0], _values[0][0]);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.Field#getComponent(int)
+	 */
+	public double[] getComponent(int component) {
+		double[] result = new double[topology.totalCellCount];
+		Arrays.fill(result, _values[0][0]);
+		return result;
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.Field#getLinearValues(double[])
+	 */
+	public void getLinearValues(double[] values) {
+		Arrays.fill(values, 0, topology.totalCellCount, _values[0][0]);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#add(uni.hamburg.yamms.math.RealScalarField)
+	 */
+	public RealScalarField add(RealScalarField sf) {
+		assert topology.equals(sf.topology);
+		if (sf instanceof RealConstantScalarField) {
+			return new RealConstantScalarField(topology, _values[0][0] + sf.getValue(0));
+		}
+		return super.add(sf);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#pow(double)
+	 */
+	public RealScalarField pow(double exponent) {
+		double value = _values[0][0];
+		return new RealConstantScalarField(topology, (value == 0) ? 0 : Math.pow(value, exponent));
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#sqrt()
+	 */
+	public RealScalarField sqrt() {
+		return new RealConstantScalarField(topology, Math.sqrt(_values[0][0]));
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#times(double)
+	 */
+	public RealScalarField times(double factor) {
+		return new RealConstantScalarField(topology, factor * _values[0][0]);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#times(double[])
+	 */
+	public RealVectorField times(double[] vec) {
+		double[] result = new double[vec.length];
+		for (int i = 0; i < vec.length; i++) {
+			result[i] = vec[i] * _values[0][0];
+		}
+		return new RealUniformVectorField(topology, result);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#times(uni.hamburg.yamms.math.RealScalarField)
+	 */
+	public RealScalarField times(RealScalarField sf) {
+		if (sf instanceof RealConstantScalarField) return times(sf.getValue(0));
+		return sf.times(_values[0][0]);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#times(uni.hamburg.yamms.math.RealVectorField)
+	 */
+	public RealVectorField times(RealVectorField vf) {
+		assert topology.equals(vf.topology);
+		return vf.times(_values[0][0]);
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#getAverage()
+	 */
+	public double getAverage() {
+		return _values[0][0];
+	}
+
+	/* (non-Javadoc)
+	 * @see uni.hamburg.yamms.math.RealScalarField#getMax()
+	 */
+	public double getMax() {
+		return _values[0][0];
+	}
 }
@@ -7,6 +7,7 @@ package uni.hamburg.yamms.math;
  * 
  */
 public class RealScalarField extends Field {
+	private static final long serialVersionUID = 1L;
 
 	/**
 	 * Static method that creates a uniform (spatially constant) field on a
@@ -218,4 +219,17 @@ public class RealScalarField extends Field {
 		return result / topology.totalCellCount;
 	}
 
+	/**
+	 * Calculates the maximum value of the field
+	 * 
+	 * @return the maximum
+	 */
+	public double getMax() {
+		double result = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < topology.totalCellCount; i++) {
+			if (result < getValue(i)) result = getValue(i);
+		}
+		return result;
+	}
+
 }
@@ -0,0 +1,351 @@
+package uni.hamburg.yamms.math;
+
+import java.util.Arrays;
+
+/**
+ * Represents a spatially constant real vector field. Only a single vector is
+ * stored and the operations with uniform or constant operands return uniform
+ * or constant fields, so no values are stored per cell. Operations with
+ * non-uniform fields return ordinary <code>RealVectorField</code>s.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class RealUniformVectorField extends RealVectorField {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param t
+	 *            the topology the field is defined on
+	 * @param vector
+	 *            the value of the field
+	 */
+	public RealUniformVectorField(Topology t, double[] vector) {
+		super(t, compress(vector), true);
+	}
+
+	/**
+	 * Stores every component of a vector in an array of length 1
+	 * 
+	 * @param vector
+	 *            the vector
+	 * @return the compressed values
+	 */
+	private static double[][] compress(double[] vector) {
+		double[][] result = new double[vector.length][1];
+		for (int i = 0; i < vector.length; i++) {
+			result[i][0] = vector[i];
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.Field#getValue(int, int)
+	 */
+	public double getValue(int component, int lidx) {
+		return _values[component][0];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getVector(int)
+	 */
+	public double[] getVector(int lidx) {
+		double[] result = new double[dimension];
+		for (int i = 0; i < dimension; i++) {
+			result[i] = _values[i][0];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the values of all cells. Since the field stores a single vector,
+	 * the values are created on every call and changes of the values have no
+	 * effect on the field.
+	 * 
+	 * @return the values
+	 */
+	public double[][] getValues() {
+		return getValuesCopy();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.Field#getValuesCopy()
+	 */
+	protected double[][] getValuesCopy() {
+		double[][] result = new double[dimension][topology.totalCellCount];
+		copyValuesTo(result);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.Field#copyValuesTo(double[][])
+	 */
+	public void copyValuesTo(double[][] target) {
+		for (int i = 0; i < dimension; i++) {
+			Arrays.fill(target[i], _values[i][0]);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.Field#getComponent(int)
+	 */
+	public double[] getComponent(int component) {
+		double[] result = new double[topology.totalCellCount];
+		Arrays.fill(result, _values[component][0]);
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.Field#getLinearValues(double[])
+	 */
+	public void getLinearValues(double[] values) {
+		int n = topology.totalCellCount;
+		for (int i = 0; i < dimension; i++) {
+			Arrays.fill(values, i * n, (i + 1) * n, _values[i][0]);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#add(uni.hamburg.yamms.math.
+	 * RealVectorField)
+	 */
+	public RealVectorField add(RealVectorField vf) {
+		assert dimension == vf.dimension;
+		if (vf instanceof RealUniformVectorField) {
+			double[] result = vf.getVector(0);
+			for (int i = 0; i < dimension; i++) {
+				result[i] += _values[i][0];
+			}
+			return new RealUniformVectorField(topology, result);
+		}
+
+		double[][] result = new double[dimension][topology.totalCellCount];
+		for (int i = 0; i < dimension; i++) {
+			double value = _values[i][0];
+			for (int j = 0; j < topology.totalCellCount; j++) {
+				result[i][j] = value + vf.getValue(i, j);
+			}
+		}
+		return new RealVectorField(topology, result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#applyTopology(uni.hamburg.yamms
+	 * .math.Topology)
+	 */
+	public RealVectorField applyTopology(Topology newTopology) {
+		// zero padding breaks the uniformity
+		return new RealVectorField(topology, getValuesCopy()).applyTopology(newTopology);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#clone()
+	 */
+	public RealVectorField clone() {
+		return new RealUniformVectorField(topology, getVector(0));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.math.RealVectorField#cross(uni.hamburg.yamms.math.
+	 * RealVectorField)
+	 */
+	public RealVectorField cross(RealVectorField vf) {
+		assert topology.equals(vf.topology);
+		assert dimension == 3 : "Dimension must be 3";
+		assert vf.dimension == 3 : "Dimension must be 3";
+
+		double[] v = getVector(0);
+		if (vf instanceof RealUniformVectorField) {
+			double[] w = vf.getVector(0);
+			double[] result = new double[3];
+			for (int i = 0; i < 3; i++) {
+				result[i] = v[(i + 1) % 3] * w[(i + 2) % 3] - v[(i + 2) % 3] * w[(i + 1) % 3];
+			}
+			return new RealUniformVectorField(topology, result);
+		}
+
+		double[][] result = new double[3][topology.totalCellCount];
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < topology.totalCellCount; j++) {
+				result[i][j] = v[(i + 1) % 3] * vf.getValue((i + 2) % 3, j) - v[(i + 2) % 3]
+						* vf.getValue((i + 1) % 3, j);
+			}
+		}
+		return new RealVectorField(topology, result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#dot(double[])
+	 */
+	public RealScalarField dot(double[] vec) {
+		assert dimension == vec.length;
+
+		double result = 0;
+		for (int i = 0; i < dimension; i++) {
+			result += vec[i] * _values[i][0];
+		}
+		return new RealConstantScalarField(topology, result);
+	}
+
+	/**
+	 * The derivative of a uniform field vanishes
+	 * 
+	 * @param direction
+	 *            the direction of the derivative
+	 * @return a uniform zero field
+	 */
+	public RealVectorField firstDerivative(int direction) {
+		return new RealUniformVectorField(topology, new double[dimension]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getAverage()
+	 */
+	public double[] getAverage() {
+		return getVector(0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getAverageNorm()
+	 */
+	public double getAverageNorm() {
+		return getNorm(0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getComponentScalarField(int)
+	 */
+	public RealScalarField getComponentScalarField(int dim) {
+		return new RealConstantScalarField(topology, _values[dim][0]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getMaxNorm()
+	 */
+	public double getMaxNorm() {
+		return getNorm(0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getNorm(int)
+	 */
+	public double getNorm(int lidx) {
+		double norm = 0;
+		for (int i = 0; i < dimension; i++) {
+			norm += _values[i][0] * _values[i][0];
+		}
+		return Math.sqrt(norm);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#getNormField()
+	 */
+	public RealScalarField getNormField() {
+		return new RealConstantScalarField(topology, getNorm(0));
+	}
+
+	/**
+	 * The second derivative of a uniform field vanishes
+	 * 
+	 * @param bounds
+	 *            the bounds (ignored)
+	 * @return a uniform zero field
+	 */
+	public RealVectorField laplaceWithBounds(BooleanField bounds) {
+		assert bounds.topology.equals(topology);
+		return new RealUniformVectorField(topology, new double[dimension]);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#normTo(double)
+	 */
+	public RealVectorField normTo(double norm) {
+		return times(norm / getNorm(0));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#normTo(uni.hamburg.yamms.math.
+	 * RealScalarField)
+	 */
+	public RealVectorField normTo(RealScalarField norm) {
+		double current = getNorm(0);
+		if (current == 0) return new RealUniformVectorField(topology, new double[dimension]);
+		if (norm instanceof RealConstantScalarField) return normTo(norm.getValue(0));
+
+		double[][] result = new double[dimension][topology.totalCellCount];
+		for (int i = 0; i < dimension; i++) {
+			double value = _values[i][0] / current;
+			for (int j = 0; j < topology.totalCellCount; j++) {
+				result[i][j] = value * norm.getValue(j);
+			}
+		}
+		return new RealVectorField(topology, result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.math.RealVectorField#times(double)
+	 */
+	public RealVectorField times(double fac) {
+		double[] result = new double[dimension];
+		for (int i = 0; i < dimension; i++) {
+			result[i] = fac * _values[i][0];
+		}
+		return new RealUniformVectorField(topology, result);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.math.RealVectorField#times(uni.hamburg.yamms.math.
+	 * RealScalarField)
+	 */
+	public RealVectorField times(RealScalarField sf) {
+		assert topology.equals(sf.topology);
+		if (sf instanceof RealConstantScalarField) return times(sf.getValue(0));
+		return sf.times(getVector(0));
+	}
+}
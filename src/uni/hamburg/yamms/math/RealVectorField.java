@@ -7,6 +7,8 @@ package uni.hamburg.yamms.math;
  * 
  */
 public class RealVectorField extends Field {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * Static method that returns a real vector field that whose value is 0 at
 	 * every point
@@ -23,7 +25,9 @@ public class RealVectorField extends Field {
 
 	/**
 	 * Static method that creates a uniform (spatially constant) field on a
-	 * certain topology
+	 * certain topology. The values of the field are stored for every cell, so
+	 * they can be modified. Use <code>RealUniformVectorField</code> for
+	 * fields that stay uniform.
 	 * 
 	 * @param t
 	 *            the topology
@@ -71,6 +75,22 @@ public class RealVectorField extends Field {
 		assert topology.totalCellCount == values[0].length;
 	}
 
+	/**
+	 * Constructor for subclasses that store the values in a compressed form
+	 * (see <code>RealUniformVectorField</code>). The length of the value
+	 * arrays is not checked against the topology.
+	 * 
+	 * @param topology
+	 *            the topology
+	 * @param values
+	 *            the compressed values of the vector field
+	 * @param compressed
+	 *            marker to distinguish the constructor (ignored)
+	 */
+	protected RealVectorField(Topology topology, double[][] values, boolean compressed) {
+		super(topology, values);
+	}
+
 	/**
 	 * Adds another real vector field and returns the result
 	 * 
@@ -79,6 +99,8 @@ public class RealVectorField extends Field {
 	 * @return the sum of the vector fields
 	 */
 	public RealVectorField add(RealVectorField vf) {
+		if (vf instanceof RealUniformVectorField) return vf.add(this);
+
 		double[][] result = new double[dimension][topology.totalCellCount];
 		for (int i = 0; i < vf.dimension; i++) {
 			for (int j = 0; j < vf.topology.totalCellCount; j++) {
@@ -174,6 +196,17 @@ public class RealVectorField extends Field {
 		assert vf.dimension == 3 : "Dimension must be 3";
 
 		final double[][] result = new double[dimension][topology.totalCellCount];
+		if (vf instanceof RealUniformVectorField) {
+			double[] v = vf.getVector(0);
+			for (int i = 0; i < 3; i++) {
+				for (int j = 0; j < topology.totalCellCount; j++) {
+					result[i][j] = getValue((i + 1) % 3, j) * v[(i + 2) % 3]
+							- getValue((i + 2) % 3, j) * v[(i + 1) % 3];
+				}
+			}
+			return new RealVectorField(topology, result);
+		}
+
 		for (int i = 0; i < 3; i++) {
 			for (int j = 0; j < topology.totalCellCount; j++) {
 				result[i][j] = getValue((i + 1) % 3, j) * vf.getValue((i + 2) % 3, j)
@@ -226,6 +259,26 @@ public class RealVectorField extends Field {
 		return new RealScalarField(topology, result);
 	}
 
+	/**
+	 * Calculates the inner product with another vector field (the sum of the
+	 * point-wise dot products)
+	 * 
+	 * @param vf
+	 *            the other vector field
+	 * @return the inner product
+	 */
+	public double innerProduct(RealVectorField vf) {
+		assert topology.equals(vf.topology);
+
+		double result = 0;
+		for (int i = 0; i < dimension; i++) {
+			for (int j = 0; j < topology.totalCellCount; j++) {
+				result += getValue(i, j) * vf.getValue(i, j);
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Calculates the directional derivative of the field with a nearest
 	 * neighbor methos and returns the result
@@ -307,12 +360,12 @@ public class RealVectorField extends Field {
 	 * @return the norm
 	 */
 	public double getMaxNorm() {
-		// TODO cache
 		double result = 0;
 		for (int i = 0; i < topology.totalCellCount; i++) {
 			double norm = 0;
 			for (int dim = 0; dim < dimension; dim++) {
-				norm += Math.pow(getValue(dim, i), 2);
+				double value = getValue(dim, i);
+				norm += value * value;
 			}
 			if (result < norm) result = norm;
 		}
@@ -471,6 +524,7 @@ public class RealVectorField extends Field {
 	 */
 	public RealVectorField times(RealScalarField sf) {
 		assert topology.equals(sf.topology);
+		if (sf instanceof RealConstantScalarField) return times(sf.getValue(0));
 
 		double[][] result = new double[dimension][topology.totalCellCount];
 
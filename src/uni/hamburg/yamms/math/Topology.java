@@ -1,5 +1,7 @@
 package uni.hamburg.yamms.math;
 
+import java.io.Serializable;
+
 /**
  * Represents a n-dimensional topology. Topology means a discretized rectangular
  * area in the n-dimensional space. The area is characterized by the edge
@@ -19,7 +21,9 @@ package uni.hamburg.yamms.math;
  * 
  * @author Claas Abert
  */
-public class Topology {
+public class Topology implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	/**
 	 * helper for the alternative constructors to convert the topology size to
 	 * cell sizes
@@ -37,8 +37,11 @@ public class FFT_fftw3Impl extends FFT
 	static final int FFTW_ALLOW_PRUNING = (1 << 20);
 	static final int FFTW_WISDOM_ONLY = (1 << 21);
 	
-	private long _inplace_plan = 0;
-	private long _outofplace_plan = 0;
+	/** the lock for the FFTW planner, which is not thread safe */
+	private static final Object PLANNER = new Object();
+
+	private volatile long _inplace_plan = 0;
+	private volatile long _outofplace_plan = 0;
 	private int _mode = -1;
 	private int _num_threads = 1;
 	
@@ -77,8 +80,10 @@ public class FFT_fftw3Impl extends FFT
 	 */
 	protected void finalize() throws Throwable
 	{
-		if (_inplace_plan != 0) destroyPlan(_inplace_plan);
-		if (_outofplace_plan != 0) destroyPlan(_outofplace_plan);
+		synchronized (PLANNER) {
+			if (_inplace_plan != 0) destroyPlan(_inplace_plan);
+			if (_outofplace_plan != 0) destroyPlan(_outofplace_plan);
+		}
 		super.finalize();
 	}
 
@@ -87,15 +92,37 @@ public class FFT_fftw3Impl extends FFT
 	 */
 	public void transform(double[] in, double[] out)
 	{
+		// executing a plan is thread safe, only the planner is not
 		if (in == out) { // in-place
-			if (_inplace_plan == 0)
-				_inplace_plan = createPlan(true);
-			fftw_execute_dft(_inplace_plan, in, out, _mode);
+			long plan = _inplace_plan;
+			if (plan == 0) plan = getPlan(true);
+			fftw_execute_dft(plan, in, out, _mode);
 			
 		} else { // out-of-place
-			if (_outofplace_plan == 0)
-				_outofplace_plan = createPlan(false);
-			fftw_execute_dft(_outofplace_plan, in, out, _mode);
+			long plan = _outofplace_plan;
+			if (plan == 0) plan = getPlan(false);
+			fftw_execute_dft(plan, in, out, _mode);
+		}
+	}
+	
+	/**
+	 * Creates a plan on the first call. The plans of all instances are
+	 * created under a global lock, since the FFTW planner is not thread safe
+	 * and concurrent first calls (e.g. the replicas of an
+	 * <code>EnsembleSolver</code>) must not create a plan twice.
+	 * @param inplace true for the in-place plan
+	 * @return the plan
+	 */
+	private long getPlan(boolean inplace)
+	{
+		synchronized (PLANNER) {
+			if (inplace) {
+				if (_inplace_plan == 0) _inplace_plan = createPlan(true);
+				return _inplace_plan;
+			} else {
+				if (_outofplace_plan == 0) _outofplace_plan = createPlan(false);
+				return _outofplace_plan;
+			}
 		}
 	}
 	
@@ -11,7 +11,7 @@ import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
  */
 public class FFT_jtransforms extends FFT {
 	/** Scratch buffer for each thread */
-	private double _part[];
+	private ThreadLocal<double[]> _part;
 	/** jJransforms object for each thread */
 	private DoubleFFT_1D _fft;
 
@@ -24,8 +24,12 @@ public class FFT_jtransforms extends FFT {
 	public FFT_jtransforms(Spec spec) {
 		super(spec);
 
-		int n = spec.getTransformDimensions()[0].n;
-		_part = new double[2 * n];
+		final int n = spec.getTransformDimensions()[0].n;
+		_part = new ThreadLocal<double[]>() {
+			protected double[] initialValue() {
+				return new double[2 * n];
+			}
+		};
 		_fft = new DoubleFFT_1D(n);
 	}
 
@@ -69,25 +73,26 @@ public class FFT_jtransforms extends FFT {
 			return;
 		}
 
+		double[] part = _part.get();
 		for (int i = 0; i < n; ++i) {
-			_part[2 * i] = data[2 * (offset + i * stride)];
-			_part[2 * i + 1] = data[2 * (offset + i * stride) + 1];
+			part[2 * i] = data[2 * (offset + i * stride)];
+			part[2 * i + 1] = data[2 * (offset + i * stride) + 1];
 		}
 
 		switch (_spec.getType()) {
 		case FORW_C2C:
-			_fft.complexForward(_part);
+			_fft.complexForward(part);
 			break;
 		case BACK_C2C:
-			_fft.complexInverse(_part, 0, false);
+			_fft.complexInverse(part, 0, false);
 			break;
 		default:
 			assert false;
 		}
 
 		for (int i = 0; i < n; ++i) {
-			data[2 * (offset + i * stride)] = _part[2 * i];
-			data[2 * (offset + i * stride) + 1] = _part[2 * i + 1];
+			data[2 * (offset + i * stride)] = part[2 * i];
+			data[2 * (offset + i * stride) + 1] = part[2 * i + 1];
 		}
 	}
 
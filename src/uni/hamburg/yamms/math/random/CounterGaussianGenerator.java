@@ -0,0 +1,212 @@
+package uni.hamburg.yamms.math.random;
+
+import uni.hamburg.yamms.math.parfor;
+
+/**
+ * Counter based Gaussian generator for parallel noise generation. The arrays
+ * are split into blocks of fixed size. Every block gets its own random stream
+ * that only depends on the seed, the number of previous calls and the
+ * position of the block. The blocks are filled in parallel and the result is
+ * the same for any number of threads.
+ * <p>
+ * The streams are generated with the SplitMix64 scheme (the generator behind
+ * <code>java.util.SplittableRandom</code>), the normal distribution is sampled
+ * with the ziggurat method of Marsaglia and Tsang (in the variant of
+ * Doornik).
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class CounterGaussianGenerator implements GaussianGenerator {
+	private static final long serialVersionUID = 1L;
+
+	/** the number of values per block */
+	public static final int BLOCK_SIZE = 4096;
+
+	/** the golden gamma of SplitMix64 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	/** the number of ziggurat layers */
+	private static final int LAYERS = 128;
+	/** start of the tail of the ziggurat */
+	private static final double R = 3.442619855899;
+	/** the area of a ziggurat layer */
+	private static final double V = 9.91256303526217e-3;
+	/** the right edges of the layers */
+	private static final double[] X = new double[LAYERS + 1];
+	/** the ratios of neighboring edges */
+	private static final double[] RATIO = new double[LAYERS];
+
+	static {
+		double f = Math.exp(-0.5 * R * R);
+		X[0] = V / f;
+		X[1] = R;
+		X[LAYERS] = 0;
+		for (int i = 2; i < LAYERS; i++) {
+			X[i] = Math.sqrt(-2 * Math.log(V / X[i - 1] + f));
+			f = Math.exp(-0.5 * X[i] * X[i]);
+		}
+		for (int i = 0; i < LAYERS; i++) {
+			RATIO[i] = X[i + 1] / X[i];
+		}
+	}
+
+	/** the seed */
+	private final long _seed;
+	/** the number of threads */
+	private final int _threads;
+	/** the number of calls of <code>nextGaussians</code> */
+	private long _counter;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param seed
+	 *            the seed
+	 * @param threads
+	 *            the number of threads
+	 */
+	public CounterGaussianGenerator(long seed, int threads) {
+		_seed = seed;
+		_threads = threads;
+	}
+
+	/**
+	 * Alternative constructor. The number of threads is determined from the
+	 * number of available processors.
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public CounterGaussianGenerator(long seed) {
+		this(seed, Runtime.getRuntime().availableProcessors());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.math.random.GaussianGenerator#nextGaussians(double[][])
+	 */
+	public void nextGaussians(final double[][] values) {
+		final long key = mix(_seed + mix(++_counter));
+		final int blocksPerComponent = (values[0].length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		final int blocks = values.length * blocksPerComponent;
+
+		if (_threads <= 1 || blocks == 1) {
+			for (int i = 0; i < blocks; i++) {
+				fillBlock(values, key, i, blocksPerComponent);
+			}
+		} else {
+			new parfor(Math.min(_threads, blocks)) {
+				public void iter(int thread_idx, int i) {
+					fillBlock(values, key, i, blocksPerComponent);
+				}
+			}.execute(0, blocks);
+		}
+	}
+
+	/**
+	 * Fills a single block with random numbers
+	 * 
+	 * @param values
+	 *            the arrays to be filled
+	 * @param key
+	 *            the key of the current call
+	 * @param block
+	 *            the index of the block
+	 * @param blocksPerComponent
+	 *            the number of blocks per component
+	 */
+	private static void fillBlock(double[][] values, long key, int block, int blocksPerComponent) {
+		double[] component = values[block / blocksPerComponent];
+		int start = (block % blocksPerComponent) * BLOCK_SIZE;
+		int end = Math.min(start + BLOCK_SIZE, component.length);
+
+		// the stream of the block, state[0] is advanced by every draw
+		long[] state = new long[] { mix(key + (block + 1) * GOLDEN_GAMMA) };
+		for (int i = start; i < end; i++) {
+			component[i] = nextGaussian(state);
+		}
+	}
+
+	/**
+	 * Samples a standard normal distributed number with the ziggurat method
+	 * 
+	 * @param state
+	 *            the state of the stream
+	 * @return the random number
+	 */
+	private static double nextGaussian(long[] state) {
+		while (true) {
+			long bits = nextLong(state);
+			int layer = (int) (bits & (LAYERS - 1));
+			double u = 2 * toDouble(bits) - 1;
+
+			// inside the rectangle of the layer
+			if (Math.abs(u) < RATIO[layer]) return u * X[layer];
+
+			// base layer, sample from the tail
+			if (layer == 0) return tail(state, u < 0);
+
+			// wedge, accept or reject
+			double x = u * X[layer];
+			double f0 = Math.exp(-0.5 * (X[layer] * X[layer] - x * x));
+			double f1 = Math.exp(-0.5 * (X[layer + 1] * X[layer + 1] - x * x));
+			if (f1 + toDouble(nextLong(state)) * (f0 - f1) < 1.0) return x;
+		}
+	}
+
+	/**
+	 * Samples from the tail of the normal distribution beyond <code>R</code>
+	 * 
+	 * @param state
+	 *            the state of the stream
+	 * @param negative
+	 *            <code>true</code> for the negative tail
+	 * @return the random number
+	 */
+	private static double tail(long[] state, boolean negative) {
+		double x, y;
+		do {
+			x = Math.log(1 - toDouble(nextLong(state))) / R;
+			y = Math.log(1 - toDouble(nextLong(state)));
+		} while (-2 * y < x * x);
+		return negative ? x - R : R - x;
+	}
+
+	/**
+	 * Returns the next random number of a SplitMix64 stream
+	 * 
+	 * @param state
+	 *            the state of the stream
+	 * @return the random number
+	 */
+	private static long nextLong(long[] state) {
+		state[0] += GOLDEN_GAMMA;
+		return mix(state[0]);
+	}
+
+	/**
+	 * Converts the upper 53 bits to a double in [0, 1)
+	 * 
+	 * @param bits
+	 *            the random bits
+	 * @return the double
+	 */
+	private static double toDouble(long bits) {
+		return (bits >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * The mixing function of SplitMix64
+	 * 
+	 * @param z
+	 *            the input
+	 * @return the mixed bits
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,24 @@
+package uni.hamburg.yamms.math.random;
+
+import java.io.Serializable;
+
+/**
+ * Generator for standard normal distributed random numbers used for the
+ * fluctuating field of thermal simulations. Generators are serializable, a
+ * deserialized generator continues the random sequence at the point where it
+ * was serialized.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public interface GaussianGenerator extends Serializable {
+	/**
+	 * Fills the given arrays with standard normal distributed random numbers.
+	 * Every call continues the random sequence of the generator.
+	 * 
+	 * @param values
+	 *            the arrays to be filled (1st dimension is the component, 2nd
+	 *            dimension the cell)
+	 */
+	public void nextGaussians(double[][] values);
+}
@@ -0,0 +1,42 @@
+package uni.hamburg.yamms.math.random;
+
+import java.util.Random;
+
+/**
+ * Gaussian generator based on <code>java.util.Random</code>. The numbers are
+ * generated serially, component by component. The generator reproduces the
+ * random sequences of older versions for a given seed.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class RandomGaussianGenerator implements GaussianGenerator {
+	private static final long serialVersionUID = 1L;
+
+	/** the random generator */
+	private Random _random;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param seed
+	 *            the seed
+	 */
+	public RandomGaussianGenerator(long seed) {
+		_random = new Random(seed);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.math.random.GaussianGenerator#nextGaussians(double[][])
+	 */
+	public void nextGaussians(double[][] values) {
+		for (int i = 0; i < values.length; i++) {
+			for (int j = 0; j < values[i].length; j++) {
+				values[i][j] = _random.nextGaussian();
+			}
+		}
+	}
+}
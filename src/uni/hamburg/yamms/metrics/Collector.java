@@ -0,0 +1,20 @@
+package uni.hamburg.yamms.metrics;
+
+/**
+ * A source of metrics that is asked to update its metrics before they are
+ * read, e.g. for values that are expensive to keep up to date continuously.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public interface Collector {
+
+	/**
+	 * Updates the metrics of the collector
+	 * 
+	 * @param registry
+	 *            the registry
+	 */
+	void collect(MetricsRegistry registry);
+
+}
@@ -0,0 +1,103 @@
+package uni.hamburg.yamms.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A metric that counts events or accumulates a total, e.g. a time. The value
+ * only increases, except for totals that are reset by their source (see
+ * <code>set</code>).
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class Counter extends Metric {
+	/** the bits of the count (a double) */
+	private final AtomicLong _value;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param labels
+	 *            the labels of the metric (empty if none)
+	 * @param help
+	 *            the description of the metric
+	 */
+	Counter(String name, String labels, String help) {
+		super(name, labels, help);
+		_value = new AtomicLong(Double.doubleToLongBits(0));
+	}
+
+	/**
+	 * Increases the count by one
+	 */
+	public void inc() {
+		inc(1.0);
+	}
+
+	/**
+	 * Increases the count
+	 * 
+	 * @param n
+	 *            the increment (not negative)
+	 */
+	public void inc(long n) {
+		inc((double) n);
+	}
+
+	/**
+	 * Increases the total
+	 * 
+	 * @param amount
+	 *            the increment (not negative)
+	 */
+	public void inc(double amount) {
+		assert amount >= 0;
+		while (true) {
+			long bits = _value.get();
+			long next = Double.doubleToLongBits(Double.longBitsToDouble(bits) + amount);
+			if (_value.compareAndSet(bits, next)) return;
+		}
+	}
+
+	/**
+	 * Sets the total of a counter whose events are counted elsewhere, e.g. by
+	 * a <code>Collector</code>. A smaller value than before is interpreted as
+	 * a reset of the counter by Prometheus.
+	 * 
+	 * @param total
+	 *            the total (not negative)
+	 */
+	public void set(double total) {
+		assert total >= 0;
+		_value.set(Double.doubleToLongBits(total));
+	}
+
+	/**
+	 * Returns the count
+	 * 
+	 * @return the count
+	 */
+	public long get() {
+		return (long) getValue();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#getValue()
+	 */
+	public double getValue() {
+		return Double.longBitsToDouble(_value.get());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#getType()
+	 */
+	public String getType() {
+		return "counter";
+	}
+}
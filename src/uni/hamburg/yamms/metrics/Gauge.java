@@ -0,0 +1,55 @@
+package uni.hamburg.yamms.metrics;
+
+/**
+ * A metric with a value that can be set arbitrarily
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class Gauge extends Metric {
+	/** the value */
+	private volatile double _value;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param labels
+	 *            the labels of the metric (empty if none)
+	 * @param help
+	 *            the description of the metric
+	 */
+	Gauge(String name, String labels, String help) {
+		super(name, labels, help);
+		_value = Double.NaN;
+	}
+
+	/**
+	 * Sets the value
+	 * 
+	 * @param value
+	 *            the value
+	 */
+	public void set(double value) {
+		_value = value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#getValue()
+	 */
+	public double getValue() {
+		return _value;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#getType()
+	 */
+	public String getType() {
+		return "gauge";
+	}
+}
@@ -0,0 +1,104 @@
+package uni.hamburg.yamms.metrics;
+
+/**
+ * A metric that counts observations in buckets. Every bucket counts the
+ * observations less than or equal to its upper bound (cumulative buckets as
+ * in Prometheus).
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class Histogram extends Metric {
+	/** the upper bounds of the buckets (ascending) */
+	private final double[] _bounds;
+	/** the number of observations per bucket (not cumulative, last: +Inf) */
+	private final long[] _counts;
+	/** the number of observations */
+	private long _count;
+	/** the sum of the observations */
+	private double _sum;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param help
+	 *            the description of the metric
+	 * @param bounds
+	 *            the upper bounds of the buckets (ascending)
+	 */
+	Histogram(String name, String help, double[] bounds) {
+		super(name, "", help);
+		_bounds = bounds.clone();
+		_counts = new long[bounds.length + 1];
+	}
+
+	/**
+	 * Adds an observation
+	 * 
+	 * @param value
+	 *            the observed value
+	 */
+	public synchronized void observe(double value) {
+		int i = 0;
+		while (i < _bounds.length && value > _bounds[i]) {
+			i++;
+		}
+		_counts[i]++;
+		_count++;
+		_sum += value;
+	}
+
+	/**
+	 * Returns the number of observations
+	 * 
+	 * @return the number of observations
+	 */
+	public synchronized long getCount() {
+		return _count;
+	}
+
+	/**
+	 * Returns the sum of the observations
+	 * 
+	 * @return the sum
+	 */
+	public synchronized double getSum() {
+		return _sum;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#getValue()
+	 */
+	public double getValue() {
+		return getCount();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#getType()
+	 */
+	public String getType() {
+		return "histogram";
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.metrics.Metric#write(java.lang.StringBuilder)
+	 */
+	synchronized void write(StringBuilder result) {
+		long cumulative = 0;
+		for (int i = 0; i < _bounds.length; i++) {
+			cumulative += _counts[i];
+			writeSample(result, getName() + "_bucket", "le=\"" + _bounds[i] + "\"", cumulative);
+		}
+		writeSample(result, getName() + "_bucket", "le=\"+Inf\"", _count);
+		writeSample(result, getName() + "_sum", "", _sum);
+		writeSample(result, getName() + "_count", "", _count);
+	}
+}
@@ -0,0 +1,134 @@
+package uni.hamburg.yamms.metrics;
+
+/**
+ * Base class of the metrics of the <code>MetricsRegistry</code>. A metric is
+ * identified by its name and an optional set of labels in the Prometheus
+ * notation, e.g. <code>path="Model/DemagField"</code>.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public abstract class Metric {
+	/** the name of the metric */
+	private final String _name;
+	/** the labels of the metric (empty if none) */
+	private final String _labels;
+	/** the description of the metric */
+	private final String _help;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param labels
+	 *            the labels of the metric (empty if none)
+	 * @param help
+	 *            the description of the metric
+	 */
+	protected Metric(String name, String labels, String help) {
+		_name = name;
+		_labels = labels;
+		_help = help;
+	}
+
+	/**
+	 * Returns the name of the metric
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return _name;
+	}
+
+	/**
+	 * Returns the labels of the metric
+	 * 
+	 * @return the labels (empty if none)
+	 */
+	public String getLabels() {
+		return _labels;
+	}
+
+	/**
+	 * Returns the description of the metric
+	 * 
+	 * @return the description
+	 */
+	public String getHelp() {
+		return _help;
+	}
+
+	/**
+	 * Returns the name and the labels of the metric
+	 * 
+	 * @return the key of the metric
+	 */
+	public String getKey() {
+		return getKey(_name, _labels);
+	}
+
+	/**
+	 * Returns the key of a metric with the given name and labels
+	 * 
+	 * @param name
+	 *            the name
+	 * @param labels
+	 *            the labels
+	 * @return the key
+	 */
+	static String getKey(String name, String labels) {
+		return (labels.length() == 0) ? name : name + "{" + labels + "}";
+	}
+
+	/**
+	 * Returns the Prometheus type of the metric
+	 * 
+	 * @return the type
+	 */
+	public abstract String getType();
+
+	/**
+	 * Returns the current value of the metric (the number of observations for
+	 * histograms)
+	 * 
+	 * @return the value
+	 */
+	public abstract double getValue();
+
+	/**
+	 * Appends the samples of the metric in the Prometheus text format
+	 * 
+	 * @param result
+	 *            the text
+	 */
+	void write(StringBuilder result) {
+		writeSample(result, _name, _labels, getValue());
+	}
+
+	/**
+	 * Appends a sample in the Prometheus text format
+	 * 
+	 * @param result
+	 *            the text
+	 * @param name
+	 *            the name of the sample
+	 * @param labels
+	 *            the labels of the sample
+	 * @param value
+	 *            the value
+	 */
+	static void writeSample(StringBuilder result, String name, String labels, double value) {
+		result.append(getKey(name, labels)).append(' ');
+		if (Double.isNaN(value)) {
+			result.append("NaN");
+		} else if (Double.isInfinite(value)) {
+			result.append(value > 0 ? "+Inf" : "-Inf");
+		} else if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			result.append((long) value);
+		} else {
+			result.append(value);
+		}
+		result.append('\n');
+	}
+}
@@ -0,0 +1,146 @@
+package uni.hamburg.yamms.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanException;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+/**
+ * MBean exposing the metrics of a registry as read-only attributes. The
+ * attribute names are the keys of the metrics (name and labels), histograms
+ * are exposed with the attributes <code>name_count</code> and
+ * <code>name_sum</code>. The attributes are determined on every request, so
+ * metrics created later are visible as well.
+ * 
+ * @author Claas Abert
+ * 
+ */
+class MetricsMBean implements DynamicMBean {
+	/** the registry */
+	private MetricsRegistry _registry;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param registry
+	 *            the registry
+	 */
+	MetricsMBean(MetricsRegistry registry) {
+		_registry = registry;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.management.DynamicMBean#getAttribute(java.lang.String)
+	 */
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		List<Metric> metrics = _registry.collect();
+		for (Metric metric : metrics) {
+			if (metric instanceof Histogram) {
+				Histogram histogram = (Histogram) metric;
+				if (attribute.equals(metric.getName() + "_count")) {
+					return Double.valueOf(histogram.getCount());
+				}
+				if (attribute.equals(metric.getName() + "_sum")) {
+					return Double.valueOf(histogram.getSum());
+				}
+			} else if (attribute.equals(metric.getKey())) {
+				return Double.valueOf(metric.getValue());
+			}
+		}
+		throw new AttributeNotFoundException(attribute);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.management.DynamicMBean#getAttributes(java.lang.String[])
+	 */
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList result = new AttributeList();
+		for (String attribute : attributes) {
+			try {
+				result.add(new Attribute(attribute, getAttribute(attribute)));
+			} catch (AttributeNotFoundException e) {
+				// skipped as required by the specification
+			}
+		}
+		return result;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.management.DynamicMBean#getMBeanInfo()
+	 */
+	public MBeanInfo getMBeanInfo() {
+		List<Metric> metrics = _registry.collect();
+		List<MBeanAttributeInfo> attributes = new ArrayList<MBeanAttributeInfo>();
+		for (Metric metric : metrics) {
+			if (metric instanceof Histogram) {
+				attributes.add(getInfo(metric.getName() + "_count", metric.getHelp()
+						+ " (number of observations)"));
+				attributes.add(getInfo(metric.getName() + "_sum", metric.getHelp()
+						+ " (sum of observations)"));
+			} else {
+				attributes.add(getInfo(metric.getKey(), metric.getHelp()));
+			}
+		}
+		return new MBeanInfo(getClass().getName(), "Metrics of the simulation", attributes
+				.toArray(new MBeanAttributeInfo[attributes.size()]), null,
+				new MBeanOperationInfo[0], null);
+	}
+
+	/**
+	 * Creates the info of a read-only double attribute
+	 * 
+	 * @param name
+	 *            the name of the attribute
+	 * @param description
+	 *            the description
+	 * @return the info
+	 */
+	private static MBeanAttributeInfo getInfo(String name, String description) {
+		return new MBeanAttributeInfo(name, "java.lang.Double", description, true, false, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see javax.management.DynamicMBean#invoke(java.lang.String,
+	 * java.lang.Object[], java.lang.String[])
+	 */
+	public Object invoke(String actionName, Object[] params, String[] signature)
+			throws MBeanException, ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * javax.management.DynamicMBean#setAttribute(javax.management.Attribute)
+	 */
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metrics are read-only.");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * javax.management.DynamicMBean#setAttributes(javax.management.AttributeList)
+	 */
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+}
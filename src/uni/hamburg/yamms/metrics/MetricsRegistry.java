@@ -0,0 +1,269 @@
+package uni.hamburg.yamms.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the metrics of a simulation, implemented as a singleton class.
+ * The metrics can be read in the Prometheus text format (see
+ * <code>toPrometheus</code> and <code>MetricsServer</code>) and via JMX (see
+ * <code>registerMBean</code>).
+ * <p>
+ * Metrics are created on the first request and returned by all further
+ * requests with the same name and labels, e.g.
+ * 
+ * <pre>
+ * Counter steps = MetricsRegistry.getInstance().getCounter(&quot;yamms_solver_steps_total&quot;,
+ * 		&quot;Number of integration steps&quot;);
+ * </pre>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class MetricsRegistry {
+	/** The instance of the singleton */
+	private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+	/** the name of the MBean */
+	public static final String MBEAN_NAME = "uni.hamburg.yamms:type=Metrics";
+
+	/** the metrics by key */
+	private LinkedHashMap<String, Metric> _metrics;
+	/** the collectors */
+	private List<Collector> _collectors;
+
+	/**
+	 * Private Standard constructor
+	 */
+	private MetricsRegistry() {
+		_metrics = new LinkedHashMap<String, Metric>();
+		_collectors = new ArrayList<Collector>();
+	}
+
+	/**
+	 * Returns the instance of the registry
+	 * 
+	 * @return the instance
+	 */
+	public static MetricsRegistry getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns a counter, the counter is created if necessary
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param help
+	 *            the description of the metric
+	 * @return the counter
+	 */
+	public Counter getCounter(String name, String help) {
+		return getCounter(name, "", help);
+	}
+
+	/**
+	 * Returns a counter with labels, the counter is created if necessary
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param labels
+	 *            the labels, e.g. <code>solver="HeunSolver"</code>
+	 * @param help
+	 *            the description of the metric
+	 * @return the counter
+	 */
+	public synchronized Counter getCounter(String name, String labels, String help) {
+		Metric metric = get(Metric.getKey(name, labels), "counter");
+		if (metric == null) {
+			metric = new Counter(name, labels, help);
+			add(metric);
+		}
+		return (Counter) metric;
+	}
+
+	/**
+	 * Returns a gauge, the gauge is created if necessary
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param help
+	 *            the description of the metric
+	 * @return the gauge
+	 */
+	public Gauge getGauge(String name, String help) {
+		return getGauge(name, "", help);
+	}
+
+	/**
+	 * Returns a gauge with labels, the gauge is created if necessary
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param labels
+	 *            the labels, e.g. <code>path="Model"</code>
+	 * @param help
+	 *            the description of the metric
+	 * @return the gauge
+	 */
+	public synchronized Gauge getGauge(String name, String labels, String help) {
+		Metric metric = get(Metric.getKey(name, labels), "gauge");
+		if (metric == null) {
+			metric = new Gauge(name, labels, help);
+			add(metric);
+		}
+		return (Gauge) metric;
+	}
+
+	/**
+	 * Returns a histogram, the histogram is created if necessary
+	 * 
+	 * @param name
+	 *            the name of the metric
+	 * @param help
+	 *            the description of the metric
+	 * @param bounds
+	 *            the upper bounds of the buckets (ascending, ignored if the
+	 *            histogram exists)
+	 * @return the histogram
+	 */
+	public synchronized Histogram getHistogram(String name, String help, double[] bounds) {
+		Metric metric = get(Metric.getKey(name, ""), "histogram");
+		if (metric == null) {
+			metric = new Histogram(name, help, bounds);
+			add(metric);
+		}
+		return (Histogram) metric;
+	}
+
+	/**
+	 * Returns an existing metric
+	 * 
+	 * @param key
+	 *            the key of the metric
+	 * @param type
+	 *            the expected type
+	 * @return the metric (<code>null</code> if not existing)
+	 * @throws IllegalArgumentException
+	 *             if the metric is of another type
+	 */
+	private Metric get(String key, String type) throws IllegalArgumentException {
+		Metric metric = _metrics.get(key);
+		if (metric != null && !metric.getType().equals(type)) {
+			throw new IllegalArgumentException("Metric " + metric.getName()
+					+ " is already registered as " + metric.getType() + ".");
+		}
+		return metric;
+	}
+
+	/**
+	 * Adds a metric
+	 * 
+	 * @param metric
+	 *            the metric
+	 * @throws IllegalArgumentException
+	 *             if there is a metric of another type with the same name
+	 */
+	private void add(Metric metric) throws IllegalArgumentException {
+		for (Metric other : _metrics.values()) {
+			if (other.getName().equals(metric.getName())
+					&& !other.getType().equals(metric.getType())) {
+				throw new IllegalArgumentException("Metric " + metric.getName()
+						+ " is already registered as " + other.getType() + ".");
+			}
+		}
+		_metrics.put(metric.getKey(), metric);
+	}
+
+	/**
+	 * Adds a collector that is called before the metrics are read
+	 * 
+	 * @param collector
+	 *            the collector
+	 */
+	public synchronized void addCollector(Collector collector) {
+		if (!_collectors.contains(collector)) _collectors.add(collector);
+	}
+
+	/**
+	 * Removes a collector
+	 * 
+	 * @param collector
+	 *            the collector
+	 */
+	public synchronized void removeCollector(Collector collector) {
+		_collectors.remove(collector);
+	}
+
+	/**
+	 * Updates the metrics of all collectors and returns all metrics
+	 * 
+	 * @return the metrics in the order of their creation
+	 */
+	public List<Metric> collect() {
+		List<Collector> collectors;
+		synchronized (this) {
+			collectors = new ArrayList<Collector>(_collectors);
+		}
+		for (int i = 0; i < collectors.size(); i++) {
+			collectors.get(i).collect(this);
+		}
+		synchronized (this) {
+			return new ArrayList<Metric>(_metrics.values());
+		}
+	}
+
+	/**
+	 * Returns all metrics in the Prometheus text format (version 0.0.4). The
+	 * collectors are called before.
+	 * 
+	 * @return the metrics
+	 */
+	public String toPrometheus() {
+		List<Metric> metrics = collect();
+
+		// the samples of a metric name have to be consecutive
+		LinkedHashMap<String, List<Metric>> families = new LinkedHashMap<String, List<Metric>>();
+		for (Metric metric : metrics) {
+			List<Metric> family = families.get(metric.getName());
+			if (family == null) {
+				family = new ArrayList<Metric>();
+				families.put(metric.getName(), family);
+			}
+			family.add(metric);
+		}
+
+		StringBuilder result = new StringBuilder();
+		for (List<Metric> family : families.values()) {
+			Metric first = family.get(0);
+			result.append("# HELP ").append(first.getName()).append(' ').append(
+					first.getHelp().replace("\\", "\\\\").replace("\n", "\\n")).append('\n');
+			result.append("# TYPE ").append(first.getName()).append(' ').append(first.getType())
+					.append('\n');
+			for (Metric metric : family) {
+				metric.write(result);
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Registers the metrics as MBean in the platform MBean server (see
+	 * <code>MBEAN_NAME</code>). Calling this method more than once has no
+	 * effect.
+	 */
+	public synchronized void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (!server.isRegistered(name)) server.registerMBean(new MetricsMBean(this), name);
+		} catch (JMException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+	}
+}
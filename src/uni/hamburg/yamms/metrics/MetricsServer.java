@@ -0,0 +1,79 @@
+package uni.hamburg.yamms.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Embedded HTTP server that serves the metrics of the registry in the
+ * Prometheus text format at <code>/metrics</code>. The server only listens on
+ * the loopback interface and handles the requests in a single background
+ * thread.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class MetricsServer {
+	/** the content type of the Prometheus text format */
+	private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	/** the HTTP server */
+	private HttpServer _server;
+
+	/**
+	 * Standard constructor. Starts the server.
+	 * 
+	 * @param port
+	 *            the port (0 for any free port)
+	 * @param registry
+	 *            the registry
+	 * @throws IOException
+	 *             if the port is not available
+	 */
+	public MetricsServer(int port, final MetricsRegistry registry) throws IOException {
+		_server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+		_server.createContext("/metrics", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] body = registry.toPrometheus().getBytes("UTF-8");
+				exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body);
+				out.close();
+			}
+		});
+		_server.start();
+	}
+
+	/**
+	 * Alternative constructor. Serves the metrics of the singleton registry.
+	 * 
+	 * @param port
+	 *            the port (0 for any free port)
+	 * @throws IOException
+	 *             if the port is not available
+	 */
+	public MetricsServer(int port) throws IOException {
+		this(port, MetricsRegistry.getInstance());
+	}
+
+	/**
+	 * Returns the port of the server
+	 * 
+	 * @return the port
+	 */
+	public int getPort() {
+		return _server.getAddress().getPort();
+	}
+
+	/**
+	 * Stops the server
+	 */
+	public void stop() {
+		_server.stop(0);
+	}
+}
@@ -0,0 +1,68 @@
+package uni.hamburg.yamms.metrics;
+
+import java.util.Iterator;
+
+import uni.hamburg.yamms.profiling.Profiler;
+
+/**
+ * Collector that exports the call tree of the <code>Profiler</code>. For every
+ * node the total time (<code>yamms_profiler_seconds</code>) and the number of
+ * calls (<code>yamms_profiler_calls</code>) are exported with the path of the
+ * node as label, e.g. <code>path="HeunSolver/Model/DemagField"</code>. With
+ * allocation tracking the allocated bytes are exported as well
+ * (<code>yamms_profiler_allocated_bytes</code>). The values are cumulative
+ * counters (reset by <code>Profiler.reset()</code>), so the share of a field
+ * term is e.g.
+ * 
+ * <pre>
+ * rate(yamms_profiler_seconds{path=&quot;HeunSolver/Model/DemagField&quot;}[1m])
+ * 		/ ignoring(path) rate(yamms_profiler_seconds{path=&quot;HeunSolver/Model&quot;}[1m])
+ * </pre>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class ProfilerCollector implements Collector {
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.metrics.Collector#collect(uni.hamburg.yamms.metrics.
+	 * MetricsRegistry)
+	 */
+	public void collect(MetricsRegistry registry) {
+		collect(registry, Profiler.getInstance().getTree(), "");
+	}
+
+	/**
+	 * Exports the children of a node
+	 * 
+	 * @param registry
+	 *            the registry
+	 * @param node
+	 *            the node
+	 * @param path
+	 *            the path of the node
+	 */
+	private void collect(MetricsRegistry registry, Profiler.Node node, String path) {
+		Iterator<Profiler.Node> it = node.getChildren().iterator();
+		while (it.hasNext()) {
+			Profiler.Node child = it.next();
+			String childPath = (path.length() == 0) ? child.getName() : path + "/"
+					+ child.getName();
+			String labels = "path=\"" + childPath.replace("\\", "\\\\").replace("\"", "\\\"")
+					+ "\"";
+			registry.getCounter("yamms_profiler_seconds", labels,
+					"Total time of the profiler probe").set(1e-3 * child.getTotal());
+			registry.getCounter("yamms_profiler_calls", labels,
+					"Number of calls of the profiler probe").set(child.getCalls());
+			if (Profiler.getInstance().isAllocationTracking()) {
+				registry.getCounter("yamms_profiler_allocated_bytes", labels,
+						"Bytes allocated within the profiler probe").set(
+						child.getAllocatedBytes());
+			}
+			collect(registry, child, childPath);
+		}
+	}
+}
@@ -14,6 +14,9 @@ import uni.hamburg.yamms.solver.State;
  * 
  */
 public class BasicModel extends Model {
+	/** the profiler probe of the derivative */
+	private static final int PROBE = Profiler.getInstance().register("Model");
+
 	/** scalar field for the normalization of the damping */
 	protected RealScalarField _dampingFactor;
 	
@@ -41,7 +44,7 @@ public class BasicModel extends Model {
 	 * uni.hamburg.m3sc.model.Model#calculateDerivative(uni.hamburg.m3sc.math.RealVectorField, double)
 	 */
 	public RealVectorField calculateDerivative(State state) {
-		Profiler.getInstance().tic("Model");
+		Profiler.getInstance().tic(PROBE);
 		RealVectorField m = state.getM();
 		
 		RealVectorField heff = _field.calculateField(state);
@@ -49,7 +52,7 @@ public class BasicModel extends Model {
 		RealVectorField precession = m.cross(heff).times(-_gammaPrime);
 		RealVectorField damping = m.cross(m.cross(heff)).times(_dampingFactor);
 		
-		Profiler.getInstance().toc("Model");
+		Profiler.getInstance().toc(PROBE);
 		return precession.add(damping);
 	}
 }
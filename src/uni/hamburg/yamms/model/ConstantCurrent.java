@@ -1,5 +1,6 @@
 package uni.hamburg.yamms.model;
 
+import uni.hamburg.yamms.math.RealUniformVectorField;
 import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.math.Topology;
 
@@ -35,7 +36,7 @@ public class ConstantCurrent implements Current {
 	 *            the current vector
 	 */
 	public ConstantCurrent(Topology topology, double[] current) {
-		_current = RealVectorField.getUniformField(topology, current);
+		_current = new RealUniformVectorField(topology, current);
 	}
 
 	/* (non-Javadoc)
@@ -65,6 +65,15 @@ public abstract class Model {
 		return _ms;
 	}
 
+	/**
+	 * Returns the effective field of the model
+	 * 
+	 * @return the effective field
+	 */
+	public FieldTerm getField() {
+		return _field;
+	}
+
 	/**
 	 * Returns the damping constant alpha
 	 * 
@@ -1,63 +1,254 @@
 package uni.hamburg.yamms.profiling;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * A simple profiling tool, implemented as a singleton class.
+ * A simple profiling tool, implemented as a singleton class. Measurements are
+ * identified by probes that are registered once, e.g.
+ * 
+ * <pre>
+ * private static final int PROBE_FFT = Profiler.getInstance().register(&quot;FFT&quot;);
+ * ...
+ * Profiler.getInstance().tic(PROBE_FFT);
+ * ...
+ * Profiler.getInstance().toc(PROBE_FFT);
+ * </pre>
+ * 
+ * Every thread records its measurements in a separate call tree without
+ * synchronization: a measurement started while another one is running becomes
+ * a child of the running measurement. The trees of all threads are merged
+ * when the results are read (<code>getTree</code>, <code>getSummary</code>),
+ * results read while measurements are running are approximate. A task handed
+ * to another thread keeps its place in the tree with
+ * <code>getCurrentPath</code> and <code>setCurrentPath</code>.
+ * <p>
+ * For every node of the tree the number of calls and the total, minimum and
+ * maximum time are recorded. Percentiles are estimated from a logarithmic
+ * histogram (relative error below 7%). A disabled profiler only checks a flag
+ * in <code>tic</code> and <code>toc</code>.
+ * <p>
+ * With allocation tracking (see <code>setAllocationTracking</code>) the bytes
+ * allocated by the thread and the garbage collection time are recorded as
+ * well. The collection time is not thread specific, it is attributed to all
+ * measurements running during the collection. <code>getAllocationReport</code>
+ * ranks the probes by the bytes they allocate themselves.
  * 
  * @author Claas Abert
  * 
  */
 public class Profiler {
 	/**
-	 * A inner class representing the collected statistics for a single call
+	 * A node of the call tree with the statistics of a probe called within the
+	 * probe of the parent node
 	 * 
 	 * @author Claas Abert
 	 * 
 	 */
-	private class Stats {
-		/** The number of calls */
-		private int _number;
-		/** The aggregated time */
-		private double _time;
-		/** The start time of a single measurement */
-		private double _start;
+	public static class Node {
+		/** the number of histogram buckets */
+		private static final int BUCKETS = 488;
+
+		/** the probe of the node (-1 for the root) */
+		private final int _probe;
+		/** the name of the probe */
+		private final String _name;
+		/** the parent node */
+		private final Node _parent;
+		/** the child nodes indexed by probe */
+		private Node[] _children;
+
+		/** the number of calls */
+		private long _calls;
+		/** the total time in ns */
+		private long _total;
+		/** the minimum time in ns */
+		private long _min;
+		/** the maximum time in ns */
+		private long _max;
+		/** the histogram of the times */
+		private long[] _histogram;
+		/** the start time of the running measurement */
+		private long _start;
+
+		/** the allocated bytes */
+		private long _allocated;
+		/** the garbage collection time in ms */
+		private long _gcTime;
+		/**
+		 * the allocated bytes of the thread at the start of the running
+		 * measurement (-1 if not tracked)
+		 */
+		private long _startAllocated;
+		/** the garbage collection time at the start of the running measurement */
+		private long _startGcTime;
 
 		/**
 		 * Standard constructor
+		 * 
+		 * @param probe
+		 *            the probe
+		 * @param name
+		 *            the name of the probe
+		 * @param parent
+		 *            the parent node
 		 */
-		public Stats() {
-			_number = 0;
-			_time = 0.0;
+		private Node(int probe, String name, Node parent) {
+			_probe = probe;
+			_name = name;
+			_parent = parent;
+			_children = new Node[0];
+			_min = Long.MAX_VALUE;
 		}
 
 		/**
-		 * Starts time measurement
+		 * Returns the child node of a probe, the node is created if necessary
+		 * 
+		 * @param probe
+		 *            the probe
+		 * @param name
+		 *            the name of the probe
+		 * @return the child node
 		 */
-		public void tic() {
-			_start = System.nanoTime();
+		private Node getChild(int probe, String name) {
+			if (probe >= _children.length) {
+				Node[] children = new Node[Math.max(probe + 1, 2 * _children.length)];
+				System.arraycopy(_children, 0, children, 0, _children.length);
+				_children = children;
+			}
+			Node child = _children[probe];
+			if (child == null) {
+				child = new Node(probe, name, this);
+				_children[probe] = child;
+			}
+			return child;
 		}
 
 		/**
-		 * Stops time measurement, adds the time to the aggregated time a
-		 * increases call counter
+		 * Records a measurement
+		 * 
+		 * @param time
+		 *            the time in ns
+		 * @param allocated
+		 *            the allocated bytes
+		 * @param gcTime
+		 *            the garbage collection time in ms
 		 */
-		public void toc() {
-			_time += System.nanoTime() - _start;
-			_number++;
+		private void record(long time, long allocated, long gcTime) {
+			_allocated += allocated;
+			_gcTime += gcTime;
+			_calls++;
+			_total += time;
+			if (time < _min) _min = time;
+			if (time > _max) _max = time;
+			if (_histogram == null) _histogram = new long[BUCKETS];
+			_histogram[getBucket(time)]++;
 		}
 
 		/**
-		 * Returns the average call time
+		 * Adds the statistics of another node and its children
 		 * 
-		 * @return the average call time
+		 * @param node
+		 *            the node
 		 */
-		public double getAvg() {
-			return 1e-6 * _time / _number;
+		private void merge(Node node) {
+			_calls += node._calls;
+			_total += node._total;
+			_allocated += node._allocated;
+			_gcTime += node._gcTime;
+			_min = Math.min(_min, node._min);
+			_max = Math.max(_max, node._max);
+			if (node._histogram != null) {
+				if (_histogram == null) _histogram = new long[BUCKETS];
+				for (int i = 0; i < BUCKETS; i++) {
+					_histogram[i] += node._histogram[i];
+				}
+			}
+			Node[] children = node._children;
+			for (int i = 0; i < children.length; i++) {
+				if (children[i] != null) getChild(i, children[i]._name).merge(children[i]);
+			}
+		}
+
+		/**
+		 * Returns the histogram bucket of a time. The buckets divide every
+		 * power of two into 8 intervals.
+		 * 
+		 * @param time
+		 *            the time in ns
+		 * @return the bucket
+		 */
+		private static int getBucket(long time) {
+			if (time < 8) return (int) Math.max(0, time);
+			int exponent = 63 - Long.numberOfLeadingZeros(time);
+			return 8 * (exponent - 2) + (int) ((time >>> (exponent - 3)) & 7);
+		}
+
+		/**
+		 * Returns the center of a histogram bucket
+		 * 
+		 * @param bucket
+		 *            the bucket
+		 * @return the time in ns
+		 */
+		private static double getBucketCenter(int bucket) {
+			if (bucket < 8) return bucket;
+			int exponent = bucket / 8 + 2;
+			return (8 + bucket % 8 + 0.5) * Math.pow(2, exponent - 3);
+		}
+
+		/**
+		 * Returns the name of the probe
+		 * 
+		 * @return the name, <code>null</code> for the root
+		 */
+		public String getName() {
+			return _name;
+		}
+
+		/**
+		 * Returns the parent node
+		 * 
+		 * @return the parent, <code>null</code> for the root
+		 */
+		public Node getParent() {
+			return _parent;
+		}
+
+		/**
+		 * Returns the child nodes in the order of the registration of their
+		 * probes
+		 * 
+		 * @return the child nodes
+		 */
+		public List<Node> getChildren() {
+			List<Node> result = new ArrayList<Node>();
+			for (int i = 0; i < _children.length; i++) {
+				if (_children[i] != null) result.add(_children[i]);
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the child node with a given name
+		 * 
+		 * @param name
+		 *            the name of the probe
+		 * @return the child node, <code>null</code> if the probe was not
+		 *         called within this node
+		 */
+		public Node getChild(String name) {
+			for (int i = 0; i < _children.length; i++) {
+				if (_children[i] != null && _children[i]._name.equals(name)) return _children[i];
+			}
+			return null;
 		}
 
 		/**
@@ -65,21 +256,188 @@ public class Profiler {
 		 * 
 		 * @return the number of calls
 		 */
-		public int getCalls() {
-			return _number;
+		public long getCalls() {
+			return _calls;
+		}
+
+		/**
+		 * Returns the total time
+		 * 
+		 * @return the total time in ms
+		 */
+		public double getTotal() {
+			return 1e-6 * _total;
+		}
+
+		/**
+		 * Returns the average call time
+		 * 
+		 * @return the average call time in ms
+		 */
+		public double getAvg() {
+			return (_calls == 0) ? 0 : 1e-6 * _total / _calls;
+		}
+
+		/**
+		 * Returns the minimum call time
+		 * 
+		 * @return the minimum call time in ms
+		 */
+		public double getMin() {
+			return (_calls == 0) ? 0 : 1e-6 * _min;
+		}
+
+		/**
+		 * Returns the maximum call time
+		 * 
+		 * @return the maximum call time in ms
+		 */
+		public double getMax() {
+			return 1e-6 * _max;
+		}
+
+		/**
+		 * Returns an estimate of a percentile of the call times
+		 * 
+		 * @param percentile
+		 *            the percentile (between 0 and 100)
+		 * @return the call time in ms
+		 */
+		public double getPercentile(double percentile) {
+			if (_calls == 0 || _histogram == null) return 0;
+			long rank = (long) Math.ceil(percentile / 100 * _calls);
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				count += _histogram[i];
+				if (count >= rank && count > 0) {
+					double time = Math.max(_min, Math.min(_max, getBucketCenter(i)));
+					return 1e-6 * time;
+				}
+			}
+			return getMax();
+		}
+
+		/**
+		 * Returns the bytes allocated by the thread during the measurements,
+		 * including the child nodes. Only recorded with allocation tracking.
+		 * 
+		 * @return the allocated bytes
+		 */
+		public long getAllocatedBytes() {
+			return _allocated;
+		}
+
+		/**
+		 * Returns the bytes allocated during the measurements, excluding the
+		 * measurements of the child nodes
+		 * 
+		 * @return the allocated bytes
+		 */
+		public long getSelfAllocatedBytes() {
+			long result = _allocated;
+			for (int i = 0; i < _children.length; i++) {
+				if (_children[i] != null) result -= _children[i]._allocated;
+			}
+			return result;
+		}
+
+		/**
+		 * Returns the garbage collection time during the measurements. Only
+		 * recorded with allocation tracking.
+		 * 
+		 * @return the collection time in ms
+		 */
+		public double getGcTime() {
+			return _gcTime;
+		}
+
+		/**
+		 * Returns the path of the node, i.e. the names of the probes from the
+		 * root separated by slashes
+		 * 
+		 * @return the path, empty for the root
+		 */
+		public String getPath() {
+			if (_parent == null) return "";
+			String parent = _parent.getPath();
+			return (parent.length() == 0) ? _name : parent + "/" + _name;
+		}
+	}
+
+	/**
+	 * The call tree of a single thread
+	 */
+	private static class ThreadData {
+		/** the thread */
+		private final Thread _thread;
+		/** the root of the tree */
+		private Node _root;
+		/** the node of the running measurement */
+		private Node _current;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param thread
+		 *            the thread
+		 */
+		private ThreadData(Thread thread) {
+			_thread = thread;
+			_root = new Node(-1, null, null);
+			_current = _root;
 		}
 	}
 
 	/** The instance of the singleton */
 	private static final Profiler INSTANCE = new Profiler();
-	/** The collection of stats for different calls */
-	private HashMap<String, Stats> _data;
+
+	/** <code>true</code> if the measurements are recorded */
+	private volatile boolean _enabled;
+	/** <code>true</code> if allocations and garbage collections are recorded */
+	private volatile boolean _allocationTracking;
+	/**
+	 * the thread bean supporting allocation measurements (<code>null</code>
+	 * if not supported by the JVM)
+	 */
+	private com.sun.management.ThreadMXBean _threadBean;
+	/** the beans of the garbage collectors */
+	private List<GarbageCollectorMXBean> _gcBeans;
+	/** the names of the probes */
+	private List<String> _names;
+	/** the probes by name (read without synchronization) */
+	private ConcurrentHashMap<String, Integer> _probes;
+	/** the names of the probes as array for unsynchronized access */
+	private volatile String[] _probeNames;
+	/** the call trees of the running threads */
+	private List<ThreadData> _threads;
+	/** the merged call trees of terminated threads */
+	private Node _terminated;
+	/** the call tree of the current thread */
+	private ThreadLocal<ThreadData> _data;
 
 	/**
 	 * Private Standard constructor
 	 */
 	private Profiler() {
-		_data = new HashMap<String, Stats>();
+		_enabled = true;
+		_allocationTracking = false;
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if (threadBean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threadBean)
+						.isThreadAllocatedMemorySupported()) {
+			_threadBean = (com.sun.management.ThreadMXBean) threadBean;
+		}
+		_gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+		_names = new ArrayList<String>();
+		_probes = new ConcurrentHashMap<String, Integer>();
+		_probeNames = new String[0];
+		_threads = new ArrayList<ThreadData>();
+		_terminated = new Node(-1, null, null);
+		_data = new ThreadLocal<ThreadData>() {
+			protected ThreadData initialValue() {
+				return addThread();
+			}
+		};
 	};
 
 	/**
@@ -92,20 +450,168 @@ public class Profiler {
 	}
 
 	/**
-	 * Starts single measurement identified by a certain name
+	 * Enables or disables the profiler. The profiler is enabled by default.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> if the measurements are recorded
+	 */
+	public void setEnabled(boolean enabled) {
+		_enabled = enabled;
+	}
+
+	/**
+	 * Returns whether the profiler is enabled
+	 * 
+	 * @return <code>true</code> if the measurements are recorded
+	 */
+	public boolean isEnabled() {
+		return _enabled;
+	}
+
+	/**
+	 * Enables or disables the tracking of allocations and garbage collections.
+	 * The tracking is disabled by default, it adds a few hundred nanoseconds to
+	 * every measurement.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> if allocations are recorded
+	 * @throws UnsupportedOperationException
+	 *             if the JVM does not support the measurement of allocations
+	 */
+	public void setAllocationTracking(boolean enabled) throws UnsupportedOperationException {
+		if (enabled) {
+			if (_threadBean == null) {
+				throw new UnsupportedOperationException(
+						"The JVM does not support allocation measurements.");
+			}
+			_threadBean.setThreadAllocatedMemoryEnabled(true);
+		}
+		_allocationTracking = enabled;
+	}
+
+	/**
+	 * Returns whether allocations and garbage collections are recorded
+	 * 
+	 * @return <code>true</code> if allocations are recorded
+	 */
+	public boolean isAllocationTracking() {
+		return _allocationTracking;
+	}
+
+	/**
+	 * Returns the bytes allocated by the current thread
+	 * 
+	 * @return the allocated bytes
+	 */
+	private long getAllocatedBytes() {
+		return _threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * Returns the accumulated collection time of all garbage collectors
+	 * 
+	 * @return the collection time in ms
+	 */
+	private long getGcTime() {
+		long result = 0;
+		for (int i = 0; i < _gcBeans.size(); i++) {
+			result += Math.max(0, _gcBeans.get(i).getCollectionTime());
+		}
+		return result;
+	}
+
+	/**
+	 * Registers a probe. Registering the same name twice returns the same
+	 * probe.
 	 * 
 	 * @param name
-	 *            the name of the measurement
+	 *            the name of the probe
+	 * @return the probe
 	 */
-	public void tic(String name) {
-		Stats stats;
-		if (!_data.containsKey(name)) {
-			stats = new Stats();
-			_data.put(name, stats);
+	public synchronized int register(String name) {
+		Integer probe = _probes.get(name);
+		if (probe == null) {
+			probe = _names.size();
+			_names.add(name);
+			// publish the name before the probe, see probe(String)
+			_probeNames = _names.toArray(new String[_names.size()]);
+			_probes.put(name, probe);
+		}
+		return probe;
+	}
+
+	/**
+	 * Returns the probe of a name. Registered names are looked up without
+	 * locking, only unknown names are registered.
+	 * 
+	 * @param name
+	 *            the name of the probe
+	 * @return the probe
+	 */
+	private int probe(String name) {
+		Integer probe = _probes.get(name);
+		return (probe != null) ? probe : register(name);
+	}
+
+	/**
+	 * Starts a measurement
+	 * 
+	 * @param probe
+	 *            the probe
+	 */
+	public void tic(int probe) {
+		if (!_enabled) return;
+		ThreadData data = _data.get();
+		Node[] children = data._current._children;
+		Node node = (probe < children.length) ? children[probe] : null;
+		if (node == null) node = data._current.getChild(probe, _probeNames[probe]);
+		data._current = node;
+		if (_allocationTracking) {
+			node._startAllocated = getAllocatedBytes();
+			node._startGcTime = getGcTime();
+		} else {
+			node._startAllocated = -1;
+		}
+		node._start = System.nanoTime();
+	}
+
+	/**
+	 * Stops a measurement. Measurements that were started within the
+	 * measurement and are still running are discarded.
+	 * 
+	 * @param probe
+	 *            the probe
+	 */
+	public void toc(int probe) {
+		if (!_enabled) return;
+		long end = System.nanoTime();
+		ThreadData data = _data.get();
+		Node node = data._current;
+		while (node._probe != probe) {
+			// no running measurement of the probe
+			if (node._parent == null) return;
+			node = node._parent;
+		}
+		if (node._startAllocated >= 0 && _allocationTracking) {
+			node.record(end - node._start, getAllocatedBytes() - node._startAllocated,
+					getGcTime() - node._startGcTime);
 		} else {
-			stats = _data.get(name);
+			node.record(end - node._start, 0, 0);
 		}
-		stats.tic();
+		data._current = node._parent;
+	}
+
+	/**
+	 * Starts a measurement identified by a name. This is slower than
+	 * <code>tic(int)</code> since the probe is looked up by name, but does not
+	 * lock once the name is registered.
+	 * 
+	 * @param name
+	 *            the name of the measurement
+	 */
+	public void tic(String name) {
+		if (!_enabled) return;
+		tic(probe(name));
 	}
 
 	/**
@@ -115,7 +621,119 @@ public class Profiler {
 	 *            the name
 	 */
 	public void toc(String name) {
-		_data.get(name).toc();
+		if (!_enabled) return;
+		toc(probe(name));
+	}
+
+	/**
+	 * Returns the probes of the running measurements of the current thread,
+	 * the outermost first. Together with <code>setCurrentPath</code> this
+	 * records the measurements of a task run by another thread below the
+	 * measurements of the thread that created the task.
+	 * 
+	 * @return the probes (empty if the profiler is disabled)
+	 */
+	public int[] getCurrentPath() {
+		if (!_enabled) return new int[0];
+		return getPath(_data.get()._current);
+	}
+
+	/**
+	 * Continues the measurements of the provided path on the current thread:
+	 * measurements started afterwards become children of the innermost probe
+	 * of the path. The probes of the path are not measured themselves. The
+	 * returned path restores the previous state when the task is done.
+	 * 
+	 * @param path
+	 *            the probes, usually from <code>getCurrentPath</code> of
+	 *            another thread
+	 * @return the previous path of the current thread
+	 */
+	public int[] setCurrentPath(int[] path) {
+		if (!_enabled) return new int[0];
+		ThreadData data = _data.get();
+		int[] previous = getPath(data._current);
+		Node node = data._root;
+		for (int i = 0; i < path.length; i++) {
+			node = node.getChild(path[i], _probeNames[path[i]]);
+		}
+		data._current = node;
+		return previous;
+	}
+
+	/**
+	 * Returns the probes from the root of a tree to a node
+	 * 
+	 * @param node
+	 *            the node
+	 * @return the probes, the outermost first
+	 */
+	private static int[] getPath(Node node) {
+		int depth = 0;
+		for (Node n = node; n._parent != null; n = n._parent) {
+			depth++;
+		}
+		int[] result = new int[depth];
+		for (Node n = node; n._parent != null; n = n._parent) {
+			result[--depth] = n._probe;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the call tree of the current thread. The trees of terminated
+	 * threads are merged.
+	 * 
+	 * @return the call tree
+	 */
+	private synchronized ThreadData addThread() {
+		removeTerminatedThreads();
+		ThreadData data = new ThreadData(Thread.currentThread());
+		_threads.add(data);
+		return data;
+	}
+
+	/**
+	 * Merges the call trees of terminated threads
+	 */
+	private synchronized void removeTerminatedThreads() {
+		Iterator<ThreadData> it = _threads.iterator();
+		while (it.hasNext()) {
+			ThreadData data = it.next();
+			if (!data._thread.isAlive()) {
+				_terminated.merge(data._root);
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Discards all measurements. Should not be called while measurements are
+	 * running.
+	 */
+	public synchronized void reset() {
+		removeTerminatedThreads();
+		_terminated = new Node(-1, null, null);
+		for (int i = 0; i < _threads.size(); i++) {
+			ThreadData data = _threads.get(i);
+			data._root = new Node(-1, null, null);
+			data._current = data._root;
+		}
+	}
+
+	/**
+	 * Returns the merged call tree of all threads
+	 * 
+	 * @return the root of the tree (without statistics)
+	 */
+	public synchronized Node getTree() {
+		removeTerminatedThreads();
+		Node result = new Node(-1, null, null);
+		result.merge(_terminated);
+		for (int i = 0; i < _threads.size(); i++) {
+			result.merge(_threads.get(i)._root);
+		}
+		return result;
 	}
 
 	/**
@@ -125,25 +743,83 @@ public class Profiler {
 	 */
 	public String getSummary() {
 		StringBuffer result = new StringBuffer("\n");
-		result.append("Profiling Results (Average Execution Time and Number of Calls)\n");
-		result.append("==============================================================\n");
+		result.append("Profiling Results (Execution Times in ms and Number of Calls)\n");
+		result.append("=============================================================\n");
+		result.append(String.format("%-30s %10s %10s %10s %10s %10s %10s\n", "", "avg", "min",
+				"p50", "p99", "max", "calls"));
+		appendSummary(result, getTree(), "");
+		return result.toString();
+	}
 
-		// create sorted list of keys
-		List<String> keys = new ArrayList<String>();
-		keys.addAll(_data.keySet());
-		Collections.sort(keys);
+	/**
+	 * Returns a report of the allocations (see
+	 * <code>setAllocationTracking</code>). The probes are ranked by the bytes
+	 * allocated by themselves (excluding the probes called within).
+	 * 
+	 * @return the report
+	 */
+	public String getAllocationReport() {
+		List<Node> nodes = new ArrayList<Node>();
+		addNodes(nodes, getTree());
+		Collections.sort(nodes, new Comparator<Node>() {
+			public int compare(Node a, Node b) {
+				long difference = b.getSelfAllocatedBytes() - a.getSelfAllocatedBytes();
+				return (difference > 0) ? 1 : (difference < 0) ? -1 : 0;
+			}
+		});
 
-		Iterator<String> iter = keys.iterator();
+		StringBuffer result = new StringBuffer("\n");
+		result.append("Allocation Results (Allocated MB, GC Times in ms and Number of Calls)\n");
+		result.append("=====================================================================\n");
+		result.append(String.format("%-40s %10s %10s %10s %10s %10s\n", "", "self", "total",
+				"KB/call", "gc", "calls"));
+		Iterator<Node> iter = nodes.iterator();
 		while (iter.hasNext()) {
-			String name = iter.next();
-			Stats stats = _data.get(name);
-			String printName = name.replaceAll("[^.]*\\.", "  ");
+			Node node = iter.next();
+			result.append(String.format("%-40s %10.3f %10.3f %10.3f %10.0f %10d\n", node
+					.getPath(), 1e-6 * node.getSelfAllocatedBytes(),
+					1e-6 * node.getAllocatedBytes(), 1e-3 * node.getAllocatedBytes()
+							/ Math.max(1, node.getCalls()), node.getGcTime(), node.getCalls()));
+		}
+		return result.toString();
+	}
 
-			result.append(String.format("%-30s: %10f ms (%d calls)\n", printName, stats.getAvg(),
-					stats.getCalls()));
+	/**
+	 * Adds all descendants of a node to a list
+	 * 
+	 * @param nodes
+	 *            the list
+	 * @param node
+	 *            the node
+	 */
+	private void addNodes(List<Node> nodes, Node node) {
+		Iterator<Node> iter = node.getChildren().iterator();
+		while (iter.hasNext()) {
+			Node child = iter.next();
+			nodes.add(child);
+			addNodes(nodes, child);
 		}
+	}
 
-		return result.toString();
+	/**
+	 * Appends the summaries of the children of a node
+	 * 
+	 * @param result
+	 *            the summary
+	 * @param node
+	 *            the node
+	 * @param indent
+	 *            the indentation of the children
+	 */
+	private void appendSummary(StringBuffer result, Node node, String indent) {
+		Iterator<Node> iter = node.getChildren().iterator();
+		while (iter.hasNext()) {
+			Node child = iter.next();
+			result.append(String.format("%-30s %10f %10f %10f %10f %10f %10d\n", indent
+					+ child.getName(), child.getAvg(), child.getMin(), child.getPercentile(50),
+					child.getPercentile(99), child.getMax(), child.getCalls()));
+			appendSummary(result, child, indent + "  ");
+		}
 	}
 
 	/**
@@ -159,4 +835,4 @@ public class Profiler {
 		int i = name.lastIndexOf('.');
 		return name.substring(i + 1);
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,379 @@
+package uni.hamburg.yamms.solver;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.solver.stepHandlers.FlushableHandler;
+
+/**
+ * Base class for storage handlers that write their data in a background
+ * thread. On every call the handler only copies the state into a buffer from
+ * a pool and passes it to the writer thread via a bounded queue. The
+ * formatting and writing of the data is done in <code>write</code> on the
+ * writer thread, so the solver is not stalled by the I/O.
+ * <p>
+ * If all buffers are in use, the behavior depends on the backpressure mode:
+ * <ul>
+ * <li><code>BLOCK</code>: the solver waits for the writer (no data is lost)</li>
+ * <li><code>DROP</code>: the step is not stored (see
+ * <code>getDroppedCount()</code>)</li>
+ * </ul>
+ * The solvers flush the handler at the end of the integration: all data is
+ * written, the writer thread is stopped and the output is closed when
+ * <code>integrate</code> returns. The output is opened again by the first step
+ * of the next integration.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public abstract class AsyncStorageHandler extends StorageHandler implements FlushableHandler {
+	/**
+	 * The behavior of the handler if all buffers are in use
+	 */
+	public enum Backpressure {
+		/** the solver waits for a free buffer */
+		BLOCK,
+		/** the step is dropped */
+		DROP
+	}
+
+	/**
+	 * A copy of the state of a step. The buffers are reused after
+	 * <code>write</code> returns, so they must not be referenced afterwards.
+	 */
+	protected static class Snapshot {
+		/** the step number */
+		protected int step;
+		/** the simulation time */
+		protected double time;
+		/** the topology */
+		protected Topology topology;
+		/** the values of the magnetization */
+		protected double[][] m;
+		/** the values of the derivative of the magnetization */
+		protected double[][] mDot;
+
+		/**
+		 * Copies the state into the buffers of the snapshot
+		 * 
+		 * @param state
+		 *            the state
+		 * @param derivative
+		 *            if <code>true</code> the derivative is copied as well
+		 */
+		void copy(State state, boolean derivative) {
+			step = state.getStep();
+			time = state.getTime();
+			topology = state.getTopology();
+			m = copy(state.getM().getValues(), m);
+			if (derivative) mDot = copy(state.getMDot().getValues(), mDot);
+		}
+
+		/**
+		 * Copies values into a buffer. The buffer is reallocated if its size
+		 * does not fit.
+		 * 
+		 * @param source
+		 *            the values
+		 * @param target
+		 *            the buffer (may be <code>null</code>)
+		 * @return the buffer containing the values
+		 */
+		private static double[][] copy(double[][] source, double[][] target) {
+			if (target == null || target.length != source.length
+					|| target[0].length != source[0].length) {
+				target = new double[source.length][source[0].length];
+			}
+			for (int i = 0; i < source.length; i++) {
+				System.arraycopy(source[i], 0, target[i], 0, source[i].length);
+			}
+			return target;
+		}
+
+		/**
+		 * Returns the step number
+		 * 
+		 * @return the step number
+		 */
+		public int getStep() {
+			return step;
+		}
+
+		/**
+		 * Returns the simulation time
+		 * 
+		 * @return the time
+		 */
+		public double getTime() {
+			return time;
+		}
+
+		/**
+		 * Returns the magnetization (backed by the buffer of the snapshot)
+		 * 
+		 * @return the magnetization
+		 */
+		public RealVectorField getM() {
+			return new RealVectorField(topology, m);
+		}
+
+		/**
+		 * Returns the derivative of the magnetization (backed by the buffer of
+		 * the snapshot). Only available if the handler copies the derivative.
+		 * 
+		 * @return the derivative
+		 */
+		public RealVectorField getMDot() {
+			return new RealVectorField(topology, mDot);
+		}
+	}
+
+	/** the marker that stops the writer thread */
+	private static final Snapshot STOP = new Snapshot();
+
+	/** if <code>true</code> the derivative is copied */
+	private boolean _copyDerivative;
+	/** the number of buffers */
+	private int _capacity;
+	/** the backpressure mode */
+	private Backpressure _backpressure;
+
+	/** the free buffers */
+	private BlockingQueue<Snapshot> _free;
+	/** the snapshots waiting to be written */
+	private BlockingQueue<Snapshot> _queue;
+	/** the writer thread */
+	private Thread _thread;
+	/** the number of snapshots that are queued or being written */
+	private int _pending;
+	/** the number of dropped steps */
+	private int _dropped;
+	/** the first error of the writer thread since the last flush */
+	private Exception _error;
+
+	/**
+	 * Standard constructor. Four buffers are used and the solver is blocked
+	 * if all of them are in use.
+	 * 
+	 * @param copyDerivative
+	 *            if <code>true</code> the derivative of the magnetization is
+	 *            copied as well
+	 */
+	public AsyncStorageHandler(boolean copyDerivative) {
+		_copyDerivative = copyDerivative;
+		_capacity = 4;
+		_backpressure = Backpressure.BLOCK;
+	}
+
+	/**
+	 * Sets the number of buffers. Has to be called before the first step of an
+	 * integration.
+	 * 
+	 * @param capacity
+	 *            the number of buffers
+	 */
+	public void setCapacity(int capacity) {
+		assert _thread == null && capacity >= 1;
+		_capacity = capacity;
+	}
+
+	/**
+	 * Sets the backpressure mode. Has to be called before the first step of an
+	 * integration.
+	 * 
+	 * @param backpressure
+	 *            the backpressure mode
+	 */
+	public void setBackpressure(Backpressure backpressure) {
+		assert _thread == null;
+		_backpressure = backpressure;
+	}
+
+	/**
+	 * Returns the number of steps that were dropped since all buffers were in
+	 * use
+	 * 
+	 * @return the number of dropped steps
+	 */
+	public int getDroppedCount() {
+		return _dropped;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.stepHandlers.StepHandler#handleStep(uni.hamburg
+	 * .yamms.solver.Solver, uni.hamburg.yamms.solver.State)
+	 */
+	public void handleStep(Solver solver, State state) {
+		if (_thread == null) start();
+
+		Snapshot snapshot;
+		if (_backpressure == Backpressure.BLOCK) {
+			try {
+				snapshot = _free.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RuntimeException(e);
+			}
+		} else {
+			snapshot = _free.poll();
+			if (snapshot == null) {
+				_dropped++;
+				return;
+			}
+		}
+
+		snapshot.copy(state, _copyDerivative);
+		synchronized (this) {
+			_pending++;
+		}
+		_queue.add(snapshot);
+	}
+
+	/**
+	 * Blocks until all queued steps are written, stops the writer thread and
+	 * closes the output. Called by the solvers at the end of every
+	 * integration. Errors of the writer thread are rethrown.
+	 * 
+	 * @see uni.hamburg.yamms.solver.stepHandlers.FlushableHandler#flush()
+	 */
+	public void flush() {
+		if (_thread == null) return;
+
+		try {
+			synchronized (this) {
+				while (_pending > 0) {
+					wait();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		stop();
+
+		Exception error;
+		synchronized (this) {
+			error = _error;
+			_error = null;
+		}
+		if (error != null) throw new RuntimeException("Error: " + error.getMessage(), error);
+	}
+
+	/**
+	 * Writes all queued steps, stops the writer thread and closes the output.
+	 * Only needed if the handler is invoked outside of a solver, the solvers
+	 * do the same at the end of every integration.
+	 */
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * Opens the output, creates the buffers and starts the writer thread
+	 */
+	private void start() {
+		try {
+			openOutput();
+		} catch (IOException e) {
+			// the writer fails on every step and reports the error on flush
+			_error = e;
+		}
+
+		_free = new ArrayBlockingQueue<Snapshot>(_capacity);
+		_queue = new ArrayBlockingQueue<Snapshot>(_capacity + 1);
+		for (int i = 0; i < _capacity; i++) {
+			_free.add(new Snapshot());
+		}
+
+		_thread = new Thread(new Runnable() {
+			public void run() {
+				writeLoop();
+			}
+		}, getClass().getSimpleName() + " writer");
+		_thread.setDaemon(true);
+		_thread.start();
+	}
+
+	/**
+	 * Stops the writer thread after the queued steps and closes the output
+	 */
+	private void stop() {
+		_queue.add(STOP);
+		try {
+			_thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		_thread = null;
+
+		try {
+			closeOutput();
+		} catch (IOException e) {
+			synchronized (this) {
+				if (_error == null) _error = e;
+			}
+		}
+	}
+
+	/**
+	 * The loop of the writer thread
+	 */
+	private void writeLoop() {
+		while (true) {
+			Snapshot snapshot;
+			try {
+				snapshot = _queue.take();
+			} catch (InterruptedException e) {
+				return;
+			}
+			if (snapshot == STOP) return;
+
+			try {
+				write(snapshot);
+			} catch (Exception e) {
+				synchronized (this) {
+					if (_error == null) _error = e;
+				}
+			}
+
+			_free.add(snapshot);
+			synchronized (this) {
+				_pending--;
+				if (_pending == 0) notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Writes a step. Called on the writer thread in the order of the steps.
+	 * 
+	 * @param snapshot
+	 *            the copy of the state
+	 * @throws IOException
+	 */
+	protected abstract void write(Snapshot snapshot) throws IOException;
+
+	/**
+	 * Opens the output. Called by the first step of every integration before
+	 * the writer thread is started. The default implementation does nothing.
+	 * 
+	 * @throws IOException
+	 */
+	protected void openOutput() throws IOException {
+	}
+
+	/**
+	 * Closes the output. Called at the end of every integration after all
+	 * queued steps are written. The default implementation does nothing.
+	 * 
+	 * @throws IOException
+	 */
+	protected void closeOutput() throws IOException {
+	}
+}
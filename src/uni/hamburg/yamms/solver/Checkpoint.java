@@ -0,0 +1,246 @@
+package uni.hamburg.yamms.solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+
+import uni.hamburg.yamms.io.IOConfig;
+import uni.hamburg.yamms.math.RealVectorField;
+
+/**
+ * Snapshot of the complete state of an integration. A checkpoint contains the
+ * magnetization, the time, the step number and the additional parameters of
+ * the <code>State</code> as well as the internal data of the solver (e.g. the
+ * state of the random generator or the current step size). An integration can
+ * be resumed from a checkpoint with
+ * <code>Solver.integrate(Model, Checkpoint)</code>.
+ * <p>
+ * Checkpoints are created between two steps by the solver (see
+ * <code>CheckpointHandler</code>) and stored in the Java serialization
+ * format. Files are written to a temporary file first and renamed afterwards,
+ * so an existing checkpoint is never replaced by an incomplete one.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class Checkpoint implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** the class name of the solver that created the checkpoint */
+	private final String _solver;
+	/** the magnetization */
+	private final RealVectorField _m;
+	/** the simulation time */
+	private final double _t;
+	/** the number of the last finished step */
+	private final int _step;
+	/** the additional parameters of the state */
+	private final HashMap<String, Object> _params;
+	/** the internal data of the solver */
+	private final HashMap<String, Object> _data;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param solver
+	 *            the solver that creates the checkpoint
+	 * @param m
+	 *            the magnetization
+	 * @param t
+	 *            the simulation time
+	 * @param state
+	 *            the current state (step number and parameters are stored)
+	 */
+	public Checkpoint(Solver solver, RealVectorField m, double t, State state) {
+		_solver = solver.getClass().getName();
+		_m = m;
+		_t = t;
+		_step = state.getStep();
+		_params = state._params.toMap();
+		_data = new HashMap<String, Object>();
+	}
+
+	/**
+	 * Reads a checkpoint from a file
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @return the checkpoint
+	 * @throws RuntimeException
+	 *             if the file cannot be read
+	 */
+	public static Checkpoint read(String path) throws RuntimeException {
+		try {
+			ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+					new FileInputStream(IOConfig.getInstance().getPathFor(path))));
+			try {
+				return (Checkpoint) in.readObject();
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot read checkpoint " + path + ": " + e.getMessage(), e);
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException("Cannot read checkpoint " + path + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Writes the checkpoint to a file. The checkpoint is written to a
+	 * temporary file that replaces the target file when it is complete.
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @throws RuntimeException
+	 *             if the file cannot be written
+	 */
+	public void write(String path) throws RuntimeException {
+		StorageHandler.createDirectory(path);
+		File file = new File(IOConfig.getInstance().getPathFor(path));
+		File temp = new File(file.getPath() + ".tmp");
+
+		try {
+			FileOutputStream stream = new FileOutputStream(temp);
+			ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(stream));
+			try {
+				out.writeObject(this);
+				out.flush();
+				stream.getFD().sync();
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot write checkpoint " + path + ": " + e.getMessage(), e);
+		}
+
+		// rename fails on some platforms if the target exists
+		if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file))) {
+			throw new RuntimeException("Cannot write checkpoint " + path + ".");
+		}
+	}
+
+	/**
+	 * Creates the state the integration is resumed with
+	 * 
+	 * @return the state
+	 */
+	State createState() {
+		return new State(_m, null, _t, _step, Parameters.fromMap(_params));
+	}
+
+	/**
+	 * Checks whether the checkpoint was created by a solver of the same class
+	 * 
+	 * @param solver
+	 *            the solver
+	 * @throws IllegalArgumentException
+	 *             if the solver classes differ
+	 */
+	void checkSolver(Solver solver) throws IllegalArgumentException {
+		if (!_solver.equals(solver.getClass().getName())) {
+			throw new IllegalArgumentException("Checkpoint was created by " + _solver + ".");
+		}
+	}
+
+	/**
+	 * Returns the magnetization
+	 * 
+	 * @return the magnetization
+	 */
+	public RealVectorField getM() {
+		return _m;
+	}
+
+	/**
+	 * Returns the simulation time
+	 * 
+	 * @return the simulation time
+	 */
+	public double getTime() {
+		return _t;
+	}
+
+	/**
+	 * Returns the number of the last finished step
+	 * 
+	 * @return the step number
+	 */
+	public int getStep() {
+		return _step;
+	}
+
+	/**
+	 * Returns an item of the internal solver data
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the value
+	 */
+	public Object getData(String key) {
+		return _data.get(key);
+	}
+
+	/**
+	 * Returns a copy of an item of the internal solver data that was stored
+	 * with <code>setSnapshot</code>. Every call returns a new copy.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the copy of the value
+	 */
+	public Object getSnapshot(String key) {
+		try {
+			ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+					(byte[]) _data.get(key)));
+			return in.readObject();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} catch (ClassNotFoundException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Stores a copy of a mutable item of the internal solver data (e.g. the
+	 * random generator). Later changes of the object do not affect the
+	 * checkpoint.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 */
+	public void setSnapshot(String key, Serializable value) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bytes);
+			out.writeObject(value);
+			out.close();
+			_data.put(key, bytes.toByteArray());
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Sets an item of the internal solver data. The value has to be
+	 * serializable and must not be changed afterwards.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 */
+	public void setData(String key, Object value) {
+		_data.put(key, value);
+	}
+}
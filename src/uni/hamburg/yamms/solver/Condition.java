@@ -4,12 +4,47 @@ import uni.hamburg.yamms.solver.State;
 
 /**
  * Condition on simulation state for stop and stage handling during the
- * integration
+ * integration.
+ * <p>
+ * The solver evaluates the conditions with <code>evaluate</code>, which
+ * caches the result for the current revision of the state (see
+ * <code>State.getRevision</code>). A condition shared by several handlers (or
+ * used in several compound conditions) is therefore executed only once per
+ * step, unless a handler changes the parameters of the state in between.
+ * Conditions on the magnetization should use the cached reductions of the
+ * state (<code>State.getMReduction</code>,
+ * <code>State.getMDotReduction</code>).
  * 
  * @author Claas Abert
  * 
  */
 public abstract class Condition {
+	/**
+	 * The result of an evaluation
+	 */
+	private static class Result {
+		/** the revision of the state */
+		private final long _revision;
+		/** the result */
+		private final boolean _value;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param revision
+		 *            the revision of the state
+		 * @param value
+		 *            the result
+		 */
+		private Result(long revision, boolean value) {
+			_revision = revision;
+			_value = value;
+		}
+	}
+
+	/** the result of the last evaluation */
+	private volatile Result _last;
+
 	/**
 	 * Checks the condition and returns the boolean result
 	 * 
@@ -19,6 +54,24 @@ public abstract class Condition {
 	 */
 	abstract public boolean execute(State state);
 
+	/**
+	 * Checks the condition. The condition is executed only once per revision
+	 * of the state, further calls return the cached result.
+	 * 
+	 * @param state
+	 *            the state
+	 * @return the result
+	 */
+	public boolean evaluate(State state) {
+		long revision = state.getRevision();
+		Result last = _last;
+		if (last != null && last._revision == revision) return last._value;
+
+		last = new Result(revision, execute(state));
+		_last = last;
+		return last._value;
+	}
+
 	/**
 	 * Returns a compound 'and' condition
 	 * 
@@ -32,7 +85,7 @@ public abstract class Condition {
 
 			@Override
 			public boolean execute(State state) {
-				return self.execute(state) && condition.execute(state);
+				return self.evaluate(state) && condition.evaluate(state);
 			}
 		};
 	}
@@ -50,7 +103,7 @@ public abstract class Condition {
 
 			@Override
 			public boolean execute(State state) {
-				return self.execute(state) || condition.execute(state);
+				return self.evaluate(state) || condition.evaluate(state);
 			}
 		};
 	}
@@ -66,7 +119,7 @@ public abstract class Condition {
 
 			@Override
 			public boolean execute(State state) {
-				return !self.execute(state);
+				return !self.evaluate(state);
 			}
 		};
 	}
@@ -99,7 +152,7 @@ public abstract class Condition {
 		return new Condition() {
 			@Override
 			public boolean execute(State state) {
-				return state.getMDot().getMaxNorm() < norm;
+				return state.getMDotReduction().getMaxNorm() < norm;
 			}
 		};
 	}
@@ -61,8 +61,57 @@ public class DormandPrinceSolver extends AdaptiveStepsizeSolver {
 										// calculated for the first call of the
 										// handlers)
 		initStepHandling();
+		callHandlers(); // first call for t = 0
+		initStopHandling();
+
+		return integrate(model, m0.normTo(model.getMs()), 0);
+	}
+
+	/**
+	 * Resumes the integration from a checkpoint. The integration is continued
+	 * with the last step size before the checkpoint. Since the step size
+	 * control of the integrator is restarted, the result is not bit-for-bit
+	 * identical to an uninterrupted integration, but within the tolerances.
+	 * 
+	 * @see uni.hamburg.yamms.solver.Solver#integrate(uni.hamburg.yamms.model.Model,
+	 *      uni.hamburg.yamms.solver.Checkpoint)
+	 */
+	public RealVectorField integrate(final Model model, final Checkpoint checkpoint) {
+		checkpoint.checkSolver(this);
+		_currentState = checkpoint.createState();
+		_currentState.getTopology(); // initializes the topology
+		initStepHandling();
 		initStopHandling();
 
+		_integrator.setInitialStepSize((Double) checkpoint.getData("stepSize"));
+		try {
+			return integrate(model, checkpoint.getM(), checkpoint.getTime());
+		} finally {
+			_integrator.setInitialStepSize(-1); // automatic initial step size
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.Solver#requestCheckpoint(java.lang.String)
+	 */
+	public void requestCheckpoint(String path) {
+		_checkpointPath = path;
+	}
+
+	/**
+	 * Runs the integrator
+	 * 
+	 * @param model
+	 *            the model
+	 * @param m0
+	 *            the initial magnetization
+	 * @param t0
+	 *            the initial time
+	 * @return the resulting magnetization
+	 */
+	private RealVectorField integrate(final Model model, final RealVectorField m0, double t0) {
 		// initialize ode
 		FirstOrderDifferentialEquations ode = new FirstOrderDifferentialEquations() {
 			public void computeDerivatives(double t, double[] values, double[] result)
@@ -82,8 +131,8 @@ public class DormandPrinceSolver extends AdaptiveStepsizeSolver {
 		// integrate
 		try {
 			double[] result = new double[m0.dimension * m0.topology.totalCellCount];
-			_integrator.integrate(ode, 0, m0.normTo(model.getMs()).getLinearValues(),
-					Double.MAX_VALUE, result);
+			_integrator.integrate(ode, t0, m0.getLinearValues(), Double.MAX_VALUE, result);
+			flushHandlers();
 			return new RealVectorField(m0.topology, result).normTo(model.getMs());
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -115,6 +164,17 @@ public class DormandPrinceSolver extends AdaptiveStepsizeSolver {
 				_currentState.step(s.getInterpolatedState(), s.getInterpolatedDerivatives(), s
 						.getCurrentTime());
 				callHandlers();
+
+				// the end of a step is a consistent state for checkpoints
+				if (_checkpointPath != null) {
+					RealVectorField m = new RealVectorField(_currentState.getTopology(), s
+							.getInterpolatedState());
+					Checkpoint checkpoint = new Checkpoint(DormandPrinceSolver.this, m, s
+							.getCurrentTime(), _currentState);
+					checkpoint.setData("stepSize", s.getCurrentTime() - s.getPreviousTime());
+					checkpoint.write(_checkpointPath);
+					_checkpointPath = null;
+				}
 			}
 
 			public boolean requiresDenseOutput() {
@@ -125,7 +185,6 @@ public class DormandPrinceSolver extends AdaptiveStepsizeSolver {
 			}
 		};
 		_integrator.addStepHandler(stepHandler);
-		callHandlers(); // first call for t = 0
 	}
 
 	/**
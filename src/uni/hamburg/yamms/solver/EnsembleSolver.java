@@ -0,0 +1,311 @@
+package uni.hamburg.yamms.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.random.GaussianGenerator;
+import uni.hamburg.yamms.math.random.RandomGaussianGenerator;
+import uni.hamburg.yamms.model.Model;
+
+/**
+ * Integrates an ensemble of thermal realizations (replicas) of the same
+ * system in a single run with the Heun scheme. All replicas share the model,
+ * i.e. the demagnetization tensor and the FFT plans are only set up once. The
+ * replicas are advanced in lockstep and their field evaluations are
+ * distributed over a pool of threads.
+ * <p>
+ * Every replica has its own <code>State</code> with the additional parameter
+ * <code>"replica"</code> (the index of the replica). The handlers are called
+ * for every replica, one after another. Calling <code>stop()</code> from a
+ * handler (e.g. via <code>stopWhen</code>) only stops the replica the handler
+ * was called for, the integration ends when all replicas are stopped.
+ * <p>
+ * Replica <code>r</code> reproduces the trajectory of a
+ * <code>HeunSolver</code> with the seed <code>seeds[r]</code>. Since all
+ * replicas share the field terms, the field terms must not keep state between
+ * calls. A <code>MultiRateFieldTerm</code>, for example, would extrapolate the
+ * field of one replica from the history of another, so stateful field terms
+ * are never valid in an ensemble, regardless of the number of threads.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class EnsembleSolver extends StochasticSolver {
+	/** the key of the state parameter with the index of the replica */
+	public static final Parameters.IntKey REPLICA = Parameters.intKey("replica");
+
+	/**
+	 * A single realization of the ensemble
+	 */
+	protected static class Replica {
+		/** the index of the replica */
+		final int index;
+		/** the random generator of the replica */
+		final GaussianGenerator generator;
+		/** the state of the replica */
+		State state;
+		/** the current magnetization */
+		RealVectorField m;
+		/** the magnetization after the current step */
+		RealVectorField mNew;
+		/** the derivative of the current step */
+		RealVectorField mDot;
+		/** <code>false</code> if the replica was stopped */
+		boolean active;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param index
+		 *            the index of the replica
+		 * @param generator
+		 *            the random generator of the replica
+		 */
+		Replica(int index, GaussianGenerator generator) {
+			this.index = index;
+			this.generator = generator;
+		}
+	}
+
+	/** the replicas */
+	protected Replica[] _replicas;
+	/** the replica the handlers are currently called for */
+	protected Replica _replica;
+	/** the number of threads */
+	protected int _threads;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param stepSize
+	 *            the step size used for integration
+	 * @param seeds
+	 *            the seeds of the replicas (one replica per seed)
+	 * @param temperature
+	 *            the temperature in K
+	 * @param threads
+	 *            the number of threads used for the field evaluation
+	 */
+	public EnsembleSolver(double stepSize, long[] seeds, double temperature, int threads) {
+		super();
+		_stepSize = stepSize;
+		_temperature = temperature;
+		_threads = threads;
+		_replicas = new Replica[seeds.length];
+		for (int i = 0; i < seeds.length; i++) {
+			_replicas[i] = new Replica(i, new RandomGaussianGenerator(seeds[i]));
+		}
+	}
+
+	/**
+	 * Alternative constructor. The number of threads is determined from the
+	 * number of available processors.
+	 * 
+	 * @param stepSize
+	 *            the step size used for integration
+	 * @param seeds
+	 *            the seeds of the replicas (one replica per seed)
+	 * @param temperature
+	 *            the temperature in K
+	 */
+	public EnsembleSolver(double stepSize, long[] seeds, double temperature) {
+		this(stepSize, seeds, temperature, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Integrates all replicas and returns the magnetization of the first
+	 * replica. The results of all replicas are returned by
+	 * <code>getResults()</code>.
+	 * 
+	 * @see uni.hamburg.yamms.solver.StochasticSolver#integrate(uni.hamburg.yamms
+	 *      .model.Model, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	synchronized public RealVectorField integrate(Model model, RealVectorField m0) {
+		init(model, m0);
+
+		for (int i = 0; i < _replicas.length; i++) {
+			Replica replica = _replicas[i];
+			replica.state = new State(new HashMap<String, Object>(_startParams));
+			replica.state.setInt(REPLICA, i);
+			replica.m = m0;
+			replica.active = true;
+		}
+		_continue = true;
+
+		ExecutorService executor = (_threads > 1) ? Executors.newFixedThreadPool(_threads) : null;
+		try {
+			double t = 0;
+			while (_continue) {
+				final double time = t;
+
+				// calculate the steps of all active replicas
+				if (executor == null) {
+					for (Replica replica : _replicas) {
+						if (replica.active) calculateStep(replica, time);
+					}
+				} else {
+					List<Future<Object>> futures = new ArrayList<Future<Object>>();
+					for (final Replica replica : _replicas) {
+						if (!replica.active) continue;
+						futures.add(executor.submit(new Callable<Object>() {
+							public Object call() {
+								calculateStep(replica, time);
+								return null;
+							}
+						}));
+					}
+					for (Future<Object> future : futures) {
+						future.get();
+					}
+				}
+
+				// call the handlers one after another and accept the steps
+				_continue = false;
+				for (Replica replica : _replicas) {
+					if (!replica.active) continue;
+					acceptStep(replica, time);
+					_continue |= replica.active;
+				}
+
+				t += _stepSize;
+			}
+			flushHandlers();
+		} catch (InterruptedException e) {
+			throw new RuntimeException(e);
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		} finally {
+			if (executor != null) executor.shutdown();
+			_replica = null;
+		}
+
+		return _replicas[0].m;
+	}
+
+	/**
+	 * Checkpoints are not supported by the ensemble solver
+	 * 
+	 * @see uni.hamburg.yamms.solver.StochasticSolver#integrate(uni.hamburg.yamms
+	 *      .model.Model, uni.hamburg.yamms.solver.Checkpoint)
+	 */
+	public RealVectorField integrate(Model model, Checkpoint checkpoint)
+			throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("EnsembleSolver does not support checkpoints.");
+	}
+
+	/**
+	 * Checkpoints are not supported by the ensemble solver
+	 * 
+	 * @see uni.hamburg.yamms.solver.StochasticSolver#requestCheckpoint(java.lang
+	 *      .String)
+	 */
+	public void requestCheckpoint(String path) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("EnsembleSolver does not support checkpoints.");
+	}
+
+	/**
+	 * Returns the resulting magnetizations of all replicas
+	 * 
+	 * @return the magnetizations
+	 */
+	public RealVectorField[] getResults() {
+		RealVectorField[] result = new RealVectorField[_replicas.length];
+		for (int i = 0; i < _replicas.length; i++) {
+			result[i] = _replicas[i].m;
+		}
+		return result;
+	}
+
+	/**
+	 * Calculates a Heun step of a replica without calling the handlers. The
+	 * method is called concurrently for different replicas.
+	 * 
+	 * @param replica
+	 *            the replica
+	 * @param t
+	 *            the current integration time
+	 */
+	protected void calculateStep(Replica replica, double t) {
+		RealVectorField m = replica.m;
+		State state = replica.state;
+
+		// the fluctuating field vanishes at zero temperature
+		RealVectorField dW = (_temperature > 0) ? generateDW(replica.generator, _deviation) : null;
+
+		// predictor
+		RealVectorField dm1 = _model.calculateDerivative(state.derive(m, null, t)).times(_stepSize);
+		if (dW != null) dm1 = dm1.add(wienerIncrement(m, dW));
+
+		// corrector
+		RealVectorField m1 = m.add(dm1);
+		RealVectorField dm2 = _model.calculateDerivative(state.derive(m1, null, t + _stepSize)).times(_stepSize);
+		if (dW != null) dm2 = dm2.add(wienerIncrement(m1, dW));
+
+		RealVectorField dm = dm1.add(dm2).times(0.5);
+		replica.mDot = dm.times(1 / _stepSize);
+		replica.mNew = m.add(dm).normTo(_model.getMs());
+	}
+
+	/**
+	 * Calls the handlers for a calculated step of a replica and moves the
+	 * replica to the new magnetization
+	 * 
+	 * @param replica
+	 *            the replica
+	 * @param t
+	 *            the current integration time
+	 */
+	protected void acceptStep(Replica replica, double t) {
+		_replica = replica;
+		_currentState = replica.state;
+		_currentState.step(replica.m, replica.mDot, t);
+		callHandlers();
+
+		replica.m = replica.mNew;
+		replica.mNew = null;
+		replica.mDot = null;
+	}
+
+	/**
+	 * Single steps are not supported by the ensemble solver, the steps of all
+	 * replicas are calculated by <code>integrate</code>
+	 * 
+	 * @see uni.hamburg.yamms.solver.StochasticSolver#step(uni.hamburg.yamms.math
+	 *      .RealVectorField, double)
+	 */
+	protected RealVectorField step(RealVectorField m, double t)
+			throws UnsupportedOperationException {
+		throw new UnsupportedOperationException("EnsembleSolver does not support single steps.");
+	}
+
+	/**
+	 * Stops the replica the handlers are currently called for. Stops all
+	 * replicas if called outside of a handler.
+	 * 
+	 * @see uni.hamburg.yamms.solver.StochasticSolver#stop()
+	 */
+	public void stop() {
+		if (_replica != null) {
+			_replica.active = false;
+		} else {
+			stopAll();
+		}
+	}
+
+	/**
+	 * Stops all replicas
+	 */
+	public void stopAll() {
+		for (Replica replica : _replicas) {
+			replica.active = false;
+		}
+		_continue = false;
+	}
+}
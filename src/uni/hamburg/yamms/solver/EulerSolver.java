@@ -1,9 +1,8 @@
 package uni.hamburg.yamms.solver;
 
-import java.util.Random;
-
 import uni.hamburg.yamms.math.RealScalarField;
 import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.random.RandomGaussianGenerator;
 import uni.hamburg.yamms.physics.Constants;
 
 /**
@@ -37,7 +36,7 @@ public class EulerSolver extends StochasticSolver {
 		super();
 		_stepSize = stepSize;
 		_temperature = temperature;
-		_random = new Random(seed);
+		_generator = new RandomGaussianGenerator(seed);
 		_drift = drift;
 	}
 
@@ -0,0 +1,294 @@
+package uni.hamburg.yamms.solver;
+
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.random.RandomGaussianGenerator;
+import uni.hamburg.yamms.model.Model;
+
+/**
+ * Norm preserving integrator with support for thermal activation via a
+ * fluctuating field. Instead of adding the increment to the magnetization and
+ * renormalizing the result, the magnetization is rotated. The length of the
+ * magnetization is preserved by construction and no projection error is
+ * introduced.
+ * <p>
+ * Every tangential increment <code>dm</code> of the magnetization
+ * <code>m</code> can be written as a rotation <code>dm = w x m</code> with
+ * <code>w = m x dm / |m|^2</code>. The following schemes are available:
+ * <ul>
+ * <li><code>CAYLEY_EULER</code>: first order, the rotation of the Euler step
+ * is applied with the Cayley transform</li>
+ * <li><code>CAYLEY_HEUN</code>: second order, the mean of the rotations of
+ * predictor and corrector is applied with the Cayley transform</li>
+ * <li><code>MIDPOINT</code>: the implicit midpoint rule, solved with a
+ * fixed-point iteration</li>
+ * </ul>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class GeometricSolver extends StochasticSolver {
+	/** the maximum number of fixed-point iterations of the midpoint rule */
+	private static final int MAX_ITERATIONS = 50;
+
+	/**
+	 * The available integration schemes
+	 */
+	public enum Scheme {
+		/** first order Cayley transform scheme */
+		CAYLEY_EULER,
+		/** second order Cayley transform scheme (Heun type) */
+		CAYLEY_HEUN,
+		/** implicit midpoint rule */
+		MIDPOINT
+	}
+
+	/** the integration scheme */
+	protected Scheme _scheme;
+	/**
+	 * the tolerance of the fixed-point iteration of the midpoint rule relative
+	 * to the saturation magnetization
+	 */
+	protected double _iterationTolerance;
+	/** the maximum saturation magnetization */
+	protected double _msMax;
+	/** the number of steps whose midpoint iteration did not converge */
+	protected int _unconvergedSteps;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param stepSize
+	 *            the step size used for integration
+	 * @param seed
+	 *            the seed for the random generation of the fluctuating field
+	 * @param temperature
+	 *            the temperature in K
+	 * @param scheme
+	 *            the integration scheme
+	 */
+	public GeometricSolver(double stepSize, long seed, double temperature, Scheme scheme) {
+		super();
+		_stepSize = stepSize;
+		_temperature = temperature;
+		_generator = new RandomGaussianGenerator(seed);
+		_scheme = scheme;
+		_iterationTolerance = 1e-12;
+	}
+
+	/**
+	 * Alternative constructor. The second order Cayley scheme is used.
+	 * 
+	 * @param stepSize
+	 *            the step size used for integration
+	 * @param seed
+	 *            the seed for the random generation of the fluctuating field
+	 * @param temperature
+	 *            the temperature in K
+	 */
+	public GeometricSolver(double stepSize, long seed, double temperature) {
+		this(stepSize, seed, temperature, Scheme.CAYLEY_HEUN);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#integrate(uni.hamburg.yamms
+	 * .model.Model, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	synchronized public RealVectorField integrate(Model model, RealVectorField m0) {
+		_msMax = model.getMs().getMax();
+		_unconvergedSteps = 0;
+		// the norm is only set once, all steps preserve it
+		return super.integrate(model, m0.normTo(model.getMs()));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#integrate(uni.hamburg.yamms
+	 * .model.Model, uni.hamburg.yamms.solver.Checkpoint)
+	 */
+	synchronized public RealVectorField integrate(Model model, Checkpoint checkpoint) {
+		_msMax = model.getMs().getMax();
+		_unconvergedSteps = 0;
+		return super.integrate(model, checkpoint);
+	}
+
+	/**
+	 * Returns the number of steps of the last integration whose midpoint
+	 * iteration did not converge
+	 * 
+	 * @return the number of steps
+	 */
+	public int getUnconvergedSteps() {
+		return _unconvergedSteps;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#step(uni.hamburg.yamms.math
+	 * .RealVectorField, double)
+	 */
+	protected RealVectorField step(RealVectorField m, double t) {
+		// the fluctuating field vanishes at zero temperature
+		RealVectorField dW = (_temperature > 0) ? generateDW() : null;
+
+		RealVectorField dm1 = increment(m, t, dW);
+		RealVectorField mNew;
+		RealVectorField mDot;
+
+		switch (_scheme) {
+		case CAYLEY_EULER:
+			mNew = cayley(m, rotation(m, dm1));
+			mDot = dm1.times(1 / _stepSize);
+			break;
+		case CAYLEY_HEUN:
+			// the rotation of the corrector is calculated at the predicted
+			// magnetization and applied to the initial magnetization
+			RealVectorField w1 = rotation(m, dm1);
+			RealVectorField m1 = cayley(m, w1);
+			RealVectorField dm2 = increment(m1, t + _stepSize, dW);
+			mNew = cayley(m, w1.add(rotation(m1, dm2)).times(0.5));
+			mDot = dm1.add(dm2).times(0.5 / _stepSize);
+			break;
+		default:
+			mNew = midpoint(m, t, dW, dm1);
+			mDot = mNew.add(m.times(-1)).times(1 / _stepSize);
+		}
+
+		_currentState.step(m, mDot, t);
+		callHandlers();
+
+		return mNew;
+	}
+
+	/**
+	 * Calculates the increment of the magnetization for a full step
+	 * 
+	 * @param m
+	 *            the magnetization
+	 * @param t
+	 *            the time
+	 * @param dW
+	 *            the wiener increment (<code>null</code> at zero temperature)
+	 * @return the increment
+	 */
+	protected RealVectorField increment(RealVectorField m, double t, RealVectorField dW) {
+		RealVectorField dm = _model.calculateDerivative(_currentState.derive(m, null, t)).times(_stepSize);
+		if (dW != null) dm = dm.add(wienerIncrement(m, dW));
+		return dm;
+	}
+
+	/**
+	 * Calculates the rotation vector <code>w = m x dm / |m|^2</code> that
+	 * belongs to a tangential increment <code>dm = w x m</code>
+	 * 
+	 * @param m
+	 *            the magnetization
+	 * @param dm
+	 *            the increment
+	 * @return the rotation vector
+	 */
+	protected RealVectorField rotation(RealVectorField m, RealVectorField dm) {
+		double[][] mv = m.getValues();
+		double[][] dv = dm.getValues();
+		double[][] result = new double[3][m.topology.totalCellCount];
+
+		for (int i = 0; i < m.topology.totalCellCount; i++) {
+			double mx = mv[0][i], my = mv[1][i], mz = mv[2][i];
+			double norm2 = mx * mx + my * my + mz * mz;
+			if (norm2 == 0) continue;
+
+			result[0][i] = (my * dv[2][i] - mz * dv[1][i]) / norm2;
+			result[1][i] = (mz * dv[0][i] - mx * dv[2][i]) / norm2;
+			result[2][i] = (mx * dv[1][i] - my * dv[0][i]) / norm2;
+		}
+		return new RealVectorField(m.topology, result);
+	}
+
+	/**
+	 * Rotates the magnetization with the Cayley transform. For
+	 * <code>a = w / 2</code> the rotated magnetization reads
+	 * 
+	 * <pre>
+	 * m' = m + 2 / (1 + |a|^2) (a x m + a x (a x m))
+	 * </pre>
+	 * 
+	 * @param m
+	 *            the magnetization
+	 * @param w
+	 *            the rotation vector
+	 * @return the rotated magnetization
+	 */
+	protected RealVectorField cayley(RealVectorField m, RealVectorField w) {
+		double[][] mv = m.getValues();
+		double[][] wv = w.getValues();
+		double[][] result = new double[3][m.topology.totalCellCount];
+
+		for (int i = 0; i < m.topology.totalCellCount; i++) {
+			double mx = mv[0][i], my = mv[1][i], mz = mv[2][i];
+			double ax = 0.5 * wv[0][i], ay = 0.5 * wv[1][i], az = 0.5 * wv[2][i];
+
+			// a x m and a x (a x m)
+			double bx = ay * mz - az * my;
+			double by = az * mx - ax * mz;
+			double bz = ax * my - ay * mx;
+			double cx = ay * bz - az * by;
+			double cy = az * bx - ax * bz;
+			double cz = ax * by - ay * bx;
+
+			double factor = 2 / (1 + ax * ax + ay * ay + az * az);
+			result[0][i] = mx + factor * (bx + cx);
+			result[1][i] = my + factor * (by + cy);
+			result[2][i] = mz + factor * (bz + cz);
+		}
+		return new RealVectorField(m.topology, result);
+	}
+
+	/**
+	 * Performs a step with the implicit midpoint rule
+	 * <code>m' = m + h f((m + m') / 2)</code>. Since the increment is
+	 * perpendicular to the midpoint, the norm is preserved. The equation is
+	 * solved with a fixed-point iteration. If the iteration does not converge
+	 * within <code>MAX_ITERATIONS</code> iterations (step size too large), an
+	 * error is reported and the last iterate is used (see
+	 * <code>getUnconvergedSteps</code>). The new magnetization is
+	 * normalized to M_s, since the norm is only preserved for the exact
+	 * solution of the equation.
+	 * 
+	 * @param m
+	 *            the magnetization
+	 * @param t
+	 *            the time
+	 * @param dW
+	 *            the wiener increment (<code>null</code> at zero temperature)
+	 * @param dm
+	 *            the increment at the start of the step (initial guess)
+	 * @return the new magnetization
+	 */
+	protected RealVectorField midpoint(RealVectorField m, double t, RealVectorField dW,
+			RealVectorField dm) {
+		double change = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < MAX_ITERATIONS && change > _iterationTolerance * _msMax; i++) {
+			RealVectorField mid = m.add(dm.times(0.5));
+			RealVectorField dmNew = increment(mid, t + _stepSize / 2, dW);
+			change = dmNew.add(dm.times(-1)).getMaxNorm();
+			dm = dmNew;
+		}
+		// a diverging iteration ends with infinite or NaN values (ignored by
+		// getMaxNorm)
+		boolean converged = change <= _iterationTolerance * _msMax
+				&& dm.innerProduct(dm) < Double.POSITIVE_INFINITY;
+		if (!converged && _unconvergedSteps++ == 0) {
+			// reported once per integration
+			System.err.println("Error: Midpoint iteration did not converge at t = " + t
+					+ " (change " + change / _msMax + " M_s after " + MAX_ITERATIONS
+					+ " iterations), reduce the step size.");
+		}
+		return m.add(dm).normTo(_model.getMs());
+	}
+}
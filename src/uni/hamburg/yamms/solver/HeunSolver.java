@@ -1,10 +1,75 @@
 package uni.hamburg.yamms.solver;
 
-import java.util.Random;
+import java.io.Serializable;
+import java.util.Stack;
 
 import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.random.RandomGaussianGenerator;
+import uni.hamburg.yamms.model.Model;
 
+/**
+ * Implementation of the Heun integration scheme with support for thermal
+ * activation via a fluctuating field.
+ * <p>
+ * The integrator can be used with a fixed step size or in an adaptive mode.
+ * In the adaptive mode the difference of predictor and corrector serves as an
+ * error estimate for the step size control. Rejected steps at finite
+ * temperature are bisected with a brownian bridge, so every sampled Wiener
+ * increment is used and the statistics of the fluctuating field are kept.
+ * 
+ * @author Claas Abert
+ * 
+ */
 public class HeunSolver extends StochasticSolver {
+	/** safety factor for the step size control */
+	private static final double SAFETY = 0.9;
+	/** maximum growth of the step size from one step to the next */
+	private static final double MAX_GROWTH = 2.0;
+	/** maximum reduction of the step size for a rejected step */
+	private static final double MAX_SHRINK = 0.2;
+
+	/**
+	 * A Wiener increment that was sampled for a time interval, but not used
+	 * yet. (Node of the brownian tree of a rejected step)
+	 */
+	protected static class PendingIncrement implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+
+		/** the time interval of the increment */
+		final double interval;
+		/** the increment */
+		final RealVectorField dW;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param interval
+		 *            the time interval of the increment
+		 * @param dW
+		 *            the increment
+		 */
+		PendingIncrement(double interval, RealVectorField dW) {
+			this.interval = interval;
+			this.dW = dW;
+		}
+	}
+
+	/** the error tolerance of the adaptive mode (0 for fixed step size) */
+	protected double _tolerance;
+	/** the minimum step size in adaptive mode */
+	protected double _minStepSize;
+	/** the maximum step size in adaptive mode */
+	protected double _maxStepSize;
+	/** the step size the integration is started with */
+	protected double _initialStepSize;
+	/** the step size proposed for the next step in adaptive mode */
+	protected double _nextStepSize;
+	/** the increments of rejected steps that still have to be integrated */
+	protected Stack<PendingIncrement> _pending;
+	/** the maximum saturation magnetization (used to scale the error) */
+	protected double _msMax;
+
 	/**
 	 * The standard constructor
 	 * 
@@ -16,10 +81,91 @@ public class HeunSolver extends StochasticSolver {
 	 *            the temperature in K
 	 */
 	public HeunSolver(double stepSize, long seed, double temperature) {
+		this(stepSize, seed, temperature, 0, stepSize, stepSize);
+	}
+
+	/**
+	 * Constructor for the adaptive mode
+	 * 
+	 * @param stepSize
+	 *            the initial step size
+	 * @param seed
+	 *            the seed for the random generation of the fluctuating field
+	 * @param temperature
+	 *            the temperature in K
+	 * @param tolerance
+	 *            the tolerated error per step relative to the saturation
+	 *            magnetization (0 for fixed step size)
+	 * @param minStepSize
+	 *            the minimum step size
+	 * @param maxStepSize
+	 *            the maximum step size
+	 */
+	public HeunSolver(double stepSize, long seed, double temperature, double tolerance,
+			double minStepSize, double maxStepSize) {
 		super();
 		_stepSize = stepSize;
+		_initialStepSize = stepSize;
 		_temperature = temperature;
-		_random = new Random(seed);
+		_generator = new RandomGaussianGenerator(seed);
+		_tolerance = tolerance;
+		_minStepSize = minStepSize;
+		_maxStepSize = maxStepSize;
+		_pending = new Stack<PendingIncrement>();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#integrate(uni.hamburg.yamms
+	 * .model.Model, uni.hamburg.yamms.math.RealVectorField)
+	 */
+	synchronized public RealVectorField integrate(Model model, RealVectorField m0) {
+		_stepSize = _initialStepSize;
+		_nextStepSize = _initialStepSize;
+		_pending.clear();
+		_msMax = model.getMs().getMax();
+		return super.integrate(model, m0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#integrate(uni.hamburg.yamms
+	 * .model.Model, uni.hamburg.yamms.solver.Checkpoint)
+	 */
+	synchronized public RealVectorField integrate(Model model, Checkpoint checkpoint) {
+		_msMax = model.getMs().getMax();
+		return super.integrate(model, checkpoint);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#save(uni.hamburg.yamms.solver
+	 * .Checkpoint)
+	 */
+	protected void save(Checkpoint checkpoint) {
+		super.save(checkpoint);
+		checkpoint.setData("nextStepSize", _nextStepSize);
+		checkpoint.setSnapshot("pending", _pending);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#restore(uni.hamburg.yamms.solver
+	 * .Checkpoint)
+	 */
+	@SuppressWarnings("unchecked")
+	protected void restore(Checkpoint checkpoint) {
+		super.restore(checkpoint);
+		_nextStepSize = (Double) checkpoint.getData("nextStepSize");
+		_pending = (Stack<PendingIncrement>) checkpoint.getSnapshot("pending");
 	}
 
 	/*
@@ -30,24 +176,98 @@ public class HeunSolver extends StochasticSolver {
 	 * .math.RealVectorField, double, int)
 	 */
 	protected RealVectorField step(RealVectorField m, double t) {
-		RealVectorField dW = generateDW();
+		if (_tolerance > 0) return adaptiveStep(m, t);
+
+		// the fluctuating field vanishes at zero temperature
+		RealVectorField dW = (_temperature > 0) ? generateDW() : null;
 
 		// predictor
 		RealVectorField dm1 = _model.calculateDerivative(_currentState.derive(m, null, t)).times(_stepSize);
-		dm1 = dm1.add(wienerIncrement(m, dW));
+		if (dW != null) dm1 = dm1.add(wienerIncrement(m, dW));
 
 		// corrector
 		RealVectorField m1 = m.add(dm1);
 		RealVectorField dm2 = _model.calculateDerivative(_currentState.derive(m1, null, t + _stepSize)).times(_stepSize);
-		dm2 = dm2.add(wienerIncrement(m1, dW));
+		if (dW != null) dm2 = dm2.add(wienerIncrement(m1, dW));
 
 		// mean derivative
 		RealVectorField dm = dm1.add(dm2).times(0.5);
 		RealVectorField mDot = dm.times(1/_stepSize); // TODO lazy initialization?
-		
+
 		_currentState.step(m, mDot, t);
 		callHandlers();
 
 		return m.add(dm).normTo(_model.getMs());
 	}
+
+	/**
+	 * Performs a step with adaptive step size. The step is repeated with a
+	 * smaller step size until the error estimate meets the tolerance. The
+	 * accepted step size is stored in <code>_stepSize</code>.
+	 * 
+	 * @param m
+	 *            the current magnetization
+	 * @param t
+	 *            the current integration time
+	 * @return the new magnetization
+	 */
+	protected RealVectorField adaptiveStep(RealVectorField m, double t) {
+		// the derivative at the start of the step does not depend on the step
+		// size and is reused for repeated attempts
+		RealVectorField mDot0 = _model.calculateDerivative(_currentState.derive(m, null, t));
+
+		while (true) {
+			// take the next node of the brownian tree or sample a new increment
+			double h;
+			RealVectorField dW = null;
+			if (!_pending.isEmpty()) {
+				PendingIncrement increment = _pending.pop();
+				h = increment.interval;
+				dW = increment.dW;
+			} else {
+				h = _nextStepSize;
+				if (_temperature > 0) dW = generateDW(h);
+			}
+
+			// predictor
+			RealVectorField dm1 = mDot0.times(h);
+			if (dW != null) dm1 = dm1.add(wienerIncrement(m, dW));
+
+			// corrector
+			RealVectorField m1 = m.add(dm1);
+			RealVectorField dm2 = _model.calculateDerivative(_currentState.derive(m1, null, t + h)).times(h);
+			if (dW != null) dm2 = dm2.add(wienerIncrement(m1, dW));
+
+			// error estimate from the difference of predictor and corrector
+			double error = 0.5 * dm2.add(dm1.times(-1)).getMaxNorm() / _msMax;
+			double factor = (error == 0) ? MAX_GROWTH : SAFETY * Math.sqrt(_tolerance / error);
+			factor = Math.min(MAX_GROWTH, Math.max(MAX_SHRINK, factor));
+
+			boolean reducible = (dW != null) ? h / 2 >= _minStepSize : h > _minStepSize;
+			if (error > _tolerance && reducible) {
+				if (dW != null) {
+					// bisect the interval with a brownian bridge
+					RealVectorField dW1 = dW.times(0.5).add(generateDW(h / 4));
+					_pending.push(new PendingIncrement(h / 2, dW.add(dW1.times(-1))));
+					_pending.push(new PendingIncrement(h / 2, dW1));
+				} else {
+					_nextStepSize = Math.max(_minStepSize, h * factor);
+				}
+				continue;
+			}
+
+			// accept step, the step size is dictated by the brownian tree as
+			// long as there are pending increments
+			_stepSize = h;
+			if (_pending.isEmpty()) {
+				_nextStepSize = Math.min(_maxStepSize, Math.max(_minStepSize, h * factor));
+			}
+
+			RealVectorField dm = dm1.add(dm2).times(0.5);
+			_currentState.step(m, dm.times(1 / h), t);
+			callHandlers();
+
+			return m.add(dm).normTo(_model.getMs());
+		}
+	}
 }
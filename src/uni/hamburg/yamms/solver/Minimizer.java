@@ -0,0 +1,128 @@
+package uni.hamburg.yamms.solver;
+
+import java.util.HashMap;
+
+import uni.hamburg.yamms.fieldTerms.FieldTerm;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.model.Model;
+
+/**
+ * Energy minimizer for the calculation of ground states. Instead of
+ * integrating the LLG equation the magnetization is moved along the steepest
+ * descent direction <code>-m x (m x H)</code> on the sphere. The step length
+ * is chosen with the Barzilai-Borwein method, alternating between both
+ * variants of the step length.
+ * <p>
+ * Only the effective field and the saturation magnetization of the model are
+ * used. The derivative passed to the handlers is the LLG derivative of the
+ * current state, so conditions like <code>Condition.mDotMaxNormLess</code> can
+ * be used to stop the minimization. The time of the state is not a physical
+ * time and stays 0.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class Minimizer extends Solver {
+	/** the ode used */
+	protected Model _model;
+	/** continue flag */
+	protected boolean _continue;
+	/** the maximum rotation of the magnetization in a single step (in rad) */
+	protected double _maxAngle;
+	/** the rotation of the magnetization in the first step (in rad) */
+	protected double _initialAngle;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param initialAngle
+	 *            the maximum rotation of the magnetization in the first step
+	 *            (in rad)
+	 * @param maxAngle
+	 *            the maximum rotation of the magnetization in a single step
+	 *            (in rad)
+	 */
+	public Minimizer(double initialAngle, double maxAngle) {
+		super();
+		_initialAngle = initialAngle;
+		_maxAngle = maxAngle;
+	}
+
+	/**
+	 * Alternative constructor. The first step rotates the magnetization by
+	 * at most 0.01 rad, further steps by at most 0.5 rad.
+	 */
+	public Minimizer() {
+		this(0.01, 0.5);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.Solver#integrate(uni.hamburg.yamms.model.Model,
+	 * uni.hamburg.yamms.math.RealVectorField)
+	 */
+	synchronized public RealVectorField integrate(Model model, RealVectorField m0) {
+		_currentState = new State(new HashMap<String, Object>(_startParams));
+		_model = model;
+
+		FieldTerm field = model.getField();
+		RealScalarField ms = model.getMs();
+		RealScalarField msInverse = ms.pow(-1);
+		RealScalarField dampingFactor = msInverse.times(-model.getGammaPrime() * model.getAlpha());
+		double msMax = ms.getMax();
+
+		_continue = true;
+
+		RealVectorField m = m0.normTo(ms);
+		RealVectorField heff = field.calculateField(_currentState.derive(m, null, 0));
+		RealVectorField g = m.cross(m.cross(heff)).times(msInverse);
+		RealVectorField mDot = m.cross(heff).times(-model.getGammaPrime()).add(
+				g.times(-model.getGammaPrime() * model.getAlpha()));
+		double gMax = g.getMaxNorm();
+		double tau = (gMax == 0) ? 0 : _initialAngle * msMax / gMax;
+
+		while (_continue) {
+			_currentState.step(m, mDot, 0);
+			callHandlers();
+			if (!_continue || gMax == 0) break;
+
+			// descent step on the sphere
+			RealVectorField mNew = m.add(g.times(-tau)).normTo(ms);
+
+			heff = field.calculateField(_currentState.derive(mNew, null, 0));
+			RealVectorField mxh = mNew.cross(heff);
+			RealVectorField gNew = mNew.cross(mxh).times(msInverse);
+
+			// Barzilai-Borwein step length
+			RealVectorField s = mNew.add(m.times(-1));
+			RealVectorField y = gNew.add(g.times(-1));
+			double sy = s.innerProduct(y);
+			if (sy > 0) {
+				tau = (_currentState.getStep() % 2 == 0) ? s.innerProduct(s) / sy : sy
+						/ y.innerProduct(y);
+			}
+
+			m = mNew;
+			g = gNew;
+			gMax = g.getMaxNorm();
+			if (gMax > 0) tau = Math.min(tau, _maxAngle * msMax / gMax);
+
+			mDot = mxh.times(-model.getGammaPrime()).add(mNew.cross(mxh).times(dampingFactor));
+		}
+
+		flushHandlers();
+		return m;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.Solver#stop()
+	 */
+	public void stop() {
+		_continue = false;
+	}
+}
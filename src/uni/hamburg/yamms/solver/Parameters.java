@@ -0,0 +1,552 @@
+package uni.hamburg.yamms.solver;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The additional parameters of a <code>State</code>. Parameters are
+ * identified by typed keys that are resolved once, e.g.
+ * 
+ * <pre>
+ * private static final Parameters.DoubleKey CURRENT = Parameters.doubleKey(&quot;current&quot;);
+ * ...
+ * double current = state.getDouble(CURRENT);
+ * </pre>
+ * 
+ * Every name owns a slot in the arrays of the parameters, so reading a
+ * parameter by key costs an array access without hashing and boxing. The slot
+ * does not depend on the type: the type of a parameter is the type of its
+ * current value and may differ between instances, so keys of different types
+ * with the same name refer to the same parameter.
+ * <p>
+ * Derived states share the parameters of their origin. A shared instance is
+ * copied before it is modified (see <code>State</code>), so changes are
+ * never visible in states derived earlier.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class Parameters {
+	/**
+	 * Base class of the keys
+	 */
+	public static abstract class Key {
+		/** the name of the parameter */
+		private final String _name;
+		/** the slot of the parameter */
+		final int slot;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the parameter
+		 * @param slot
+		 *            the slot of the parameter
+		 */
+		private Key(String name, int slot) {
+			_name = name;
+			this.slot = slot;
+		}
+
+		/**
+		 * Returns the name of the parameter
+		 * 
+		 * @return the name
+		 */
+		public String getName() {
+			return _name;
+		}
+	}
+
+	/**
+	 * Key of an <code>int</code> parameter
+	 */
+	public static final class IntKey extends Key {
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the parameter
+		 * @param slot
+		 *            the slot of the parameter
+		 */
+		private IntKey(String name, int slot) {
+			super(name, slot);
+		}
+	}
+
+	/**
+	 * Key of a <code>double</code> parameter
+	 */
+	public static final class DoubleKey extends Key {
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the parameter
+		 * @param slot
+		 *            the slot of the parameter
+		 */
+		private DoubleKey(String name, int slot) {
+			super(name, slot);
+		}
+	}
+
+	/**
+	 * Key of a parameter of any other type
+	 * 
+	 * @param <T>
+	 *            the type of the parameter
+	 */
+	public static final class ObjectKey<T> extends Key {
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the parameter
+		 * @param slot
+		 *            the slot of the parameter
+		 */
+		private ObjectKey(String name, int slot) {
+			super(name, slot);
+		}
+	}
+
+	/** the type of a slot that is not set */
+	private static final byte UNSET = 0;
+	/** the type of an <code>int</code> value */
+	private static final byte INT = 1;
+	/** the type of a <code>double</code> value */
+	private static final byte DOUBLE = 2;
+	/** the type of an object value */
+	private static final byte OBJECT = 3;
+
+	/** the slots by name */
+	private static final Map<String, Integer> SLOTS = new ConcurrentHashMap<String, Integer>();
+	/** the names of the slots */
+	private static volatile String[] _names = new String[0];
+	/** the <code>int</code> keys by name */
+	private static final Map<String, Key> INT_KEYS = new ConcurrentHashMap<String, Key>();
+	/** the <code>double</code> keys by name */
+	private static final Map<String, Key> DOUBLE_KEYS = new ConcurrentHashMap<String, Key>();
+	/** the object keys by name */
+	private static final Map<String, Key> OBJECT_KEYS = new ConcurrentHashMap<String, Key>();
+
+	/** the types of the values */
+	private byte[] _types;
+	/** the <code>int</code> and <code>double</code> values (as bits) */
+	private long[] _bits;
+	/** the object values */
+	private Object[] _objects;
+
+	/**
+	 * Standard constructor. Creates empty parameters.
+	 */
+	public Parameters() {
+		_types = new byte[0];
+		_bits = new long[0];
+		_objects = new Object[0];
+	}
+
+	/**
+	 * Creates parameters from a map. Integers and doubles are stored as
+	 * <code>int</code> and <code>double</code> parameters.
+	 * 
+	 * @param map
+	 *            the values by name
+	 * @return the parameters
+	 */
+	public static Parameters fromMap(Map<String, Object> map) {
+		Parameters result = new Parameters();
+		for (Map.Entry<String, Object> entry : map.entrySet()) {
+			result.set(entry.getKey(), entry.getValue());
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the key of an <code>int</code> parameter, the key is created if
+	 * necessary
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the key
+	 */
+	public static IntKey intKey(String name) {
+		Key key = INT_KEYS.get(name);
+		return (IntKey) ((key != null) ? key : register(name, INT));
+	}
+
+	/**
+	 * Returns the key of a <code>double</code> parameter, the key is created
+	 * if necessary
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the key
+	 */
+	public static DoubleKey doubleKey(String name) {
+		Key key = DOUBLE_KEYS.get(name);
+		return (DoubleKey) ((key != null) ? key : register(name, DOUBLE));
+	}
+
+	/**
+	 * Returns the key of an object parameter, the key is created if necessary
+	 * 
+	 * @param <T>
+	 *            the type of the parameter
+	 * @param name
+	 *            the name of the parameter
+	 * @return the key
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> ObjectKey<T> objectKey(String name) {
+		Key key = OBJECT_KEYS.get(name);
+		return (ObjectKey<T>) ((key != null) ? key : register(name, OBJECT));
+	}
+
+	/**
+	 * Registers a key. The slot of the name is created if necessary.
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @param type
+	 *            the type of the key
+	 * @return the key (an existing key if registered concurrently)
+	 */
+	private static synchronized Key register(String name, byte type) {
+		Map<String, Key> keys = (type == INT) ? INT_KEYS : (type == DOUBLE) ? DOUBLE_KEYS
+				: OBJECT_KEYS;
+		Key key = keys.get(name);
+		if (key != null) return key;
+
+		Integer slot = SLOTS.get(name);
+		if (slot == null) {
+			slot = _names.length;
+			String[] names = new String[slot + 1];
+			System.arraycopy(_names, 0, names, 0, slot);
+			names[slot] = name;
+			// publish the name before the slot, see toMap
+			_names = names;
+			SLOTS.put(name, slot);
+		}
+
+		if (type == INT) {
+			key = new IntKey(name, slot);
+		} else if (type == DOUBLE) {
+			key = new DoubleKey(name, slot);
+		} else {
+			key = new ObjectKey<Object>(name, slot);
+		}
+		keys.put(name, key);
+		return key;
+	}
+
+	/**
+	 * Returns a copy of the parameters
+	 * 
+	 * @return the copy
+	 */
+	public Parameters copy() {
+		Parameters result = new Parameters();
+		result._types = _types.clone();
+		result._bits = _bits.clone();
+		result._objects = _objects.clone();
+		return result;
+	}
+
+	/**
+	 * Returns the type of the value of a slot
+	 * 
+	 * @param slot
+	 *            the slot
+	 * @return the type
+	 */
+	private byte typeOf(int slot) {
+		return (slot < _types.length) ? _types[slot] : UNSET;
+	}
+
+	/**
+	 * Returns the type of the value of a parameter
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the type
+	 */
+	private byte typeOf(String name) {
+		Integer slot = SLOTS.get(name);
+		return (slot == null) ? UNSET : typeOf(slot);
+	}
+
+	/**
+	 * Returns whether a parameter is set with the type of the key
+	 * 
+	 * @param key
+	 *            the key
+	 * @return <code>true</code> if the parameter is set
+	 */
+	public boolean isSet(Key key) {
+		byte type = (key instanceof IntKey) ? INT : (key instanceof DoubleKey) ? DOUBLE : OBJECT;
+		return typeOf(key.slot) == type;
+	}
+
+	/**
+	 * Returns an <code>int</code> parameter
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the value
+	 * @throws IllegalStateException
+	 *             if the parameter is not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is not an <code>int</code>
+	 */
+	public int getInt(IntKey key) throws IllegalStateException, IllegalArgumentException {
+		byte type = typeOf(key.slot);
+		if (type != INT) throw wrongType(key.getName(), type, "an int");
+		return (int) _bits[key.slot];
+	}
+
+	/**
+	 * Returns an <code>int</code> parameter by name. Unlike
+	 * <code>intKey</code> no key is created.
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the value
+	 * @throws IllegalStateException
+	 *             if the parameter is not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is not an <code>int</code>
+	 */
+	public int getInt(String name) throws IllegalStateException, IllegalArgumentException {
+		byte type = typeOf(name);
+		if (type != INT) throw wrongType(name, type, "an int");
+		return (int) _bits[SLOTS.get(name)];
+	}
+
+	/**
+	 * Returns a <code>double</code> parameter. <code>int</code> values are
+	 * converted.
+	 * 
+	 * @param key
+	 *            the key
+	 * @return the value
+	 * @throws IllegalStateException
+	 *             if the parameter is not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is not a number
+	 */
+	public double getDouble(DoubleKey key) throws IllegalStateException,
+			IllegalArgumentException {
+		return getDouble(key.getName(), key.slot);
+	}
+
+	/**
+	 * Returns a <code>double</code> parameter by name. <code>int</code> values
+	 * are converted. Unlike <code>doubleKey</code> no key is created.
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the value
+	 * @throws IllegalStateException
+	 *             if the parameter is not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is not a number
+	 */
+	public double getDouble(String name) throws IllegalStateException, IllegalArgumentException {
+		Integer slot = SLOTS.get(name);
+		return getDouble(name, (slot == null) ? Integer.MAX_VALUE : slot);
+	}
+
+	/**
+	 * Returns the <code>double</code> value of a slot
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @param slot
+	 *            the slot
+	 * @return the value
+	 */
+	private double getDouble(String name, int slot) {
+		byte type = typeOf(slot);
+		if (type == DOUBLE) return Double.longBitsToDouble(_bits[slot]);
+		if (type == INT) return (int) _bits[slot];
+		throw wrongType(name, type, "a double");
+	}
+
+	/**
+	 * Returns an object parameter
+	 * 
+	 * @param <T>
+	 *            the type of the parameter
+	 * @param key
+	 *            the key
+	 * @return the value, <code>null</code> if not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is a number
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(ObjectKey<T> key) throws IllegalArgumentException {
+		byte type = typeOf(key.slot);
+		if (type == UNSET) return null;
+		if (type != OBJECT) throw wrongType(key.getName(), type, "an object");
+		return (T) _objects[key.slot];
+	}
+
+	/**
+	 * Returns a parameter by name, numbers are boxed
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the value, <code>null</code> if not set
+	 */
+	public Object get(String name) {
+		Integer slot = SLOTS.get(name);
+		return (slot == null) ? null : get(slot);
+	}
+
+	/**
+	 * Returns the value of a slot, numbers are boxed
+	 * 
+	 * @param slot
+	 *            the slot
+	 * @return the value, <code>null</code> if not set
+	 */
+	private Object get(int slot) {
+		switch (typeOf(slot)) {
+		case INT:
+			return (int) _bits[slot];
+		case DOUBLE:
+			return Double.longBitsToDouble(_bits[slot]);
+		case OBJECT:
+			return _objects[slot];
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Creates the exception for a parameter that is not set or has another
+	 * type
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @param type
+	 *            the type of the value
+	 * @param expected
+	 *            the description of the expected type
+	 * @return the exception
+	 */
+	private RuntimeException wrongType(String name, byte type, String expected) {
+		if (type == UNSET) return new IllegalStateException("Parameter " + name + " is not set.");
+		return new IllegalArgumentException("Parameter " + name + " is not " + expected + " but "
+				+ get(SLOTS.get(name)).getClass().getSimpleName() + ".");
+	}
+
+	/**
+	 * Stores a value in a slot, the arrays are enlarged if necessary
+	 * 
+	 * @param slot
+	 *            the slot
+	 * @param type
+	 *            the type of the value
+	 * @param bits
+	 *            the bits of a number
+	 * @param object
+	 *            the object
+	 */
+	private void put(int slot, byte type, long bits, Object object) {
+		if (slot >= _types.length) {
+			int length = Math.max(slot + 1, 2 * _types.length);
+			byte[] types = new byte[length];
+			long[] allBits = new long[length];
+			Object[] objects = new Object[length];
+			System.arraycopy(_types, 0, types, 0, _types.length);
+			System.arraycopy(_bits, 0, allBits, 0, _bits.length);
+			System.arraycopy(_objects, 0, objects, 0, _objects.length);
+			_types = types;
+			_bits = allBits;
+			_objects = objects;
+		}
+		_types[slot] = type;
+		_bits[slot] = bits;
+		_objects[slot] = object;
+	}
+
+	/**
+	 * Sets an <code>int</code> parameter. A value of another type is
+	 * replaced.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 */
+	public void setInt(IntKey key, int value) {
+		put(key.slot, INT, value, null);
+	}
+
+	/**
+	 * Sets a <code>double</code> parameter. A value of another type is
+	 * replaced.
+	 * 
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value
+	 */
+	public void setDouble(DoubleKey key, double value) {
+		put(key.slot, DOUBLE, Double.doubleToLongBits(value), null);
+	}
+
+	/**
+	 * Sets an object parameter. A value of another type is replaced.
+	 * 
+	 * @param <T>
+	 *            the type of the parameter
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the value (<code>null</code> removes the parameter)
+	 */
+	public <T> void set(ObjectKey<T> key, T value) {
+		put(key.slot, (value == null) ? UNSET : OBJECT, 0, value);
+	}
+
+	/**
+	 * Sets a parameter by name. Integers and doubles are stored as
+	 * <code>int</code> and <code>double</code> parameters.
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @param value
+	 *            the value
+	 */
+	public void set(String name, Object value) {
+		if (value instanceof Integer) {
+			setInt(intKey(name), (Integer) value);
+		} else if (value instanceof Double) {
+			setDouble(doubleKey(name), (Double) value);
+		} else {
+			set(Parameters.<Object> objectKey(name), value);
+		}
+	}
+
+	/**
+	 * Returns all parameters that are set as map
+	 * 
+	 * @return the values by name
+	 */
+	public HashMap<String, Object> toMap() {
+		HashMap<String, Object> result = new HashMap<String, Object>();
+		String[] names = _names;
+		for (int slot = 0; slot < _types.length; slot++) {
+			Object value = get(slot);
+			if (value != null) result.put(names[slot], value);
+		}
+		return result;
+	}
+}
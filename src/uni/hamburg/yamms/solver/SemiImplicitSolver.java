@@ -0,0 +1,178 @@
+package uni.hamburg.yamms.solver;
+
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.random.RandomGaussianGenerator;
+
+/**
+ * Linearly implicit integrator for stiff, exchange dominated problems. The
+ * exchange field is treated implicitly, all other terms of the model
+ * explicitly. With the LLG operator <code>L(m)</code> frozen at the beginning
+ * of the step the increment <code>dm</code> solves the linear system
+ * 
+ * <pre>
+ * dm - h theta L(m) H_ex(dm) = h f(m)
+ * </pre>
+ * 
+ * where <code>f</code> is the derivative of the model. The system is solved
+ * matrix free with the BiCGSTAB method. Since the exchange field is linear in
+ * the magnetization, the step size is limited by accuracy and not by the
+ * stiffness of the exchange term.
+ * <p>
+ * The exchange field term passed to the constructor has to be part of the
+ * effective field of the model.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class SemiImplicitSolver extends StochasticSolver {
+	/** the exchange field term that is treated implicitly */
+	protected ExchangeField _exchange;
+	/** the weight of the implicit part (0.5: Crank-Nicolson, 1: backward Euler) */
+	protected double _theta;
+	/** the relative tolerance of the linear solver */
+	protected double _linearTolerance;
+	/** the maximum number of iterations of the linear solver */
+	protected int _maxIterations;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param stepSize
+	 *            the step size used for integration
+	 * @param seed
+	 *            the seed for the random generation of the fluctuating field
+	 * @param temperature
+	 *            the temperature in K
+	 * @param exchange
+	 *            the exchange field term of the model
+	 * @param theta
+	 *            the weight of the implicit part (0.5: Crank-Nicolson, 1:
+	 *            backward Euler)
+	 * @param linearTolerance
+	 *            the relative residual at which the linear solver stops
+	 */
+	public SemiImplicitSolver(double stepSize, long seed, double temperature,
+			ExchangeField exchange, double theta, double linearTolerance) {
+		super();
+		_stepSize = stepSize;
+		_temperature = temperature;
+		_generator = new RandomGaussianGenerator(seed);
+		_exchange = exchange;
+		_theta = theta;
+		_linearTolerance = linearTolerance;
+		_maxIterations = 200;
+	}
+
+	/**
+	 * Alternative constructor. The Crank-Nicolson weight (0.5) is used and
+	 * the linear solver stops at a relative residual of 1e-8.
+	 * 
+	 * @param stepSize
+	 *            the step size used for integration
+	 * @param seed
+	 *            the seed for the random generation of the fluctuating field
+	 * @param temperature
+	 *            the temperature in K
+	 * @param exchange
+	 *            the exchange field term of the model
+	 */
+	public SemiImplicitSolver(double stepSize, long seed, double temperature,
+			ExchangeField exchange) {
+		this(stepSize, seed, temperature, exchange, 0.5, 1e-8);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.StochasticSolver#step(uni.hamburg.yamms.math
+	 * .RealVectorField, double)
+	 */
+	protected RealVectorField step(RealVectorField m, double t) {
+		// explicit increment
+		RealVectorField rhs = _model.calculateDerivative(_currentState.derive(m, null, t)).times(_stepSize);
+		if (_temperature > 0) rhs = rhs.add(wienerIncrement(m, generateDW()));
+
+		// implicit correction of the exchange term
+		RealVectorField dm = solve(m, rhs);
+		RealVectorField mDot = dm.times(1 / _stepSize);
+
+		_currentState.step(m, mDot, t);
+		callHandlers();
+
+		return m.add(dm).normTo(_model.getMs());
+	}
+
+	/**
+	 * Applies the operator <code>v - h theta L(m) H_ex(v)</code> of the
+	 * linear system
+	 * 
+	 * @param m
+	 *            the magnetization the LLG operator is linearized at
+	 * @param v
+	 *            the vector field the operator is applied to
+	 * @return the result
+	 */
+	protected RealVectorField apply(RealVectorField m, RealVectorField v) {
+		RealVectorField h = _exchange.calculateField(State.getStub(v));
+		RealVectorField mxh = m.cross(h);
+		RealVectorField lh = mxh.times(-_model.getGammaPrime()).add(m.cross(mxh).times(_dampingFactor));
+		return v.add(lh.times(-_stepSize * _theta));
+	}
+
+	/**
+	 * Solves the linear system for the increment with the BiCGSTAB method. The
+	 * explicit increment is used as initial guess.
+	 * 
+	 * @param m
+	 *            the magnetization at the beginning of the step
+	 * @param b
+	 *            the explicit increment (right hand side)
+	 * @return the increment
+	 */
+	protected RealVectorField solve(RealVectorField m, RealVectorField b) {
+		double bNorm = Math.sqrt(b.innerProduct(b));
+		if (bNorm == 0) return b;
+		double tolerance = _linearTolerance * bNorm;
+
+		RealVectorField x = b;
+		RealVectorField r = b.add(apply(m, x).times(-1));
+		RealVectorField r0 = r;
+		RealVectorField p = null;
+		RealVectorField v = null;
+		double rho = 1, alpha = 1, omega = 1;
+
+		for (int i = 0; i < _maxIterations; i++) {
+			if (Math.sqrt(r.innerProduct(r)) < tolerance) break;
+
+			double rhoNew = r0.innerProduct(r);
+			if (rhoNew == 0) break; // breakdown
+
+			if (p == null) {
+				p = r;
+			} else {
+				double beta = (rhoNew / rho) * (alpha / omega);
+				p = r.add(p.add(v.times(-omega)).times(beta));
+			}
+			v = apply(m, p);
+			alpha = rhoNew / r0.innerProduct(v);
+
+			RealVectorField s = r.add(v.times(-alpha));
+			if (Math.sqrt(s.innerProduct(s)) < tolerance) {
+				x = x.add(p.times(alpha));
+				break;
+			}
+
+			RealVectorField t = apply(m, s);
+			double tt = t.innerProduct(t);
+			omega = (tt == 0) ? 0 : t.innerProduct(s) / tt;
+
+			x = x.add(p.times(alpha)).add(s.times(omega));
+			r = s.add(t.times(-omega));
+			rho = rhoNew;
+			if (omega == 0) break;
+		}
+		return x;
+	}
+}
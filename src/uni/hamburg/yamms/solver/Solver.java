@@ -5,11 +5,17 @@ import java.util.HashMap;
 import java.util.Iterator;
 
 import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.metrics.Counter;
+import uni.hamburg.yamms.metrics.MetricsRegistry;
 import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.profiling.Profiler;
+import uni.hamburg.yamms.solver.stepHandlers.FlushableHandler;
 import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
 
 /**
- * Integrator to solve the ODE of the micromagnetic problem
+ * Integrator to solve the ODE of the micromagnetic problem. The steps of all
+ * solvers are counted in the metric <code>yamms_solver_steps_total</code> of
+ * the <code>MetricsRegistry</code>.
  * 
  * @author Claas Abert
  * 
@@ -22,14 +28,24 @@ public abstract class Solver {
 	protected static class HandlerEntry {
 		StepHandler h;
 		Condition c;
+		/** the profiler probe of the handler */
+		int probe;
 	}
 
+	/** the profiler probe of the handler calls */
+	private static final int PROBE_HANDLERS = Profiler.getInstance().register("Handlers");
+	/** the number of steps of all solvers */
+	private static final Counter STEPS = MetricsRegistry.getInstance().getCounter(
+			"yamms_solver_steps_total", "Number of integration steps");
+
 	/** The step handlers */
 	protected ArrayList<HandlerEntry> _eventHandlers;
 	/** the current simulation state */
 	protected State _currentState;
 	/** the initial values of the additional state parameters */
 	protected HashMap<String, Object> _startParams;
+	/** the path of a requested checkpoint (<code>null</code> if none) */
+	protected String _checkpointPath;
 
 	/**
 	 * Standard constructor
@@ -50,6 +66,39 @@ public abstract class Solver {
 	 */
 	public abstract RealVectorField integrate(final Model model, final RealVectorField m0);
 
+	/**
+	 * Resumes an integration from a checkpoint. The checkpoint has to be
+	 * created by a solver of the same class and configuration. Not reentrant!
+	 * 
+	 * @param model
+	 *            the ODE
+	 * @param checkpoint
+	 *            the checkpoint
+	 * @return the resulting magnetization
+	 * @throws UnsupportedOperationException
+	 *             if the solver does not support checkpoints
+	 */
+	public RealVectorField integrate(final Model model, final Checkpoint checkpoint)
+			throws UnsupportedOperationException {
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " does not support checkpoints.");
+	}
+
+	/**
+	 * Requests a checkpoint. The checkpoint is written to the given path as
+	 * soon as the solver reaches a consistent state (usually before the next
+	 * step).
+	 * 
+	 * @param path
+	 *            the path of the checkpoint file
+	 * @throws UnsupportedOperationException
+	 *             if the solver does not support checkpoints
+	 */
+	public void requestCheckpoint(String path) throws UnsupportedOperationException {
+		throw new UnsupportedOperationException(getClass().getSimpleName()
+				+ " does not support checkpoints.");
+	}
+
 	/**
 	 * Add a handler that is called when the condition evaluates to true.
 	 * 
@@ -63,6 +112,8 @@ public abstract class Solver {
 			{
 				this.h = handler;
 				this.c = condition;
+				this.probe = Profiler.getInstance().register(
+						Profiler.getSimpleClassName(handler));
 			}
 		});
 	}
@@ -109,10 +160,40 @@ public abstract class Solver {
 	 * conditions are fullfilled.
 	 */
 	protected void callHandlers() {
+		countSteps();
+		Profiler.getInstance().tic(PROBE_HANDLERS);
+		Iterator<HandlerEntry> it = _eventHandlers.iterator();
+		while (it.hasNext()) {
+			HandlerEntry entry = it.next();
+			if (entry.c.evaluate(_currentState)) {
+				Profiler.getInstance().tic(entry.probe);
+				entry.h.handleStep(this, _currentState);
+				Profiler.getInstance().toc(entry.probe);
+			}
+		}
+		Profiler.getInstance().toc(PROBE_HANDLERS);
+	}
+
+	/**
+	 * Adds the steps of the current state since its last call to the step
+	 * counter. The last counted step is kept by the state, so solvers that
+	 * switch between several states (e.g. <code>EnsembleSolver</code>) count
+	 * the steps of every state.
+	 */
+	private void countSteps() {
+		int steps = _currentState.countSteps();
+		if (steps > 0) STEPS.inc(steps);
+	}
+
+	/**
+	 * Flushes all handlers that implement <code>FlushableHandler</code>. Has to
+	 * be called at the end of every integration.
+	 */
+	protected void flushHandlers() {
 		Iterator<HandlerEntry> it = _eventHandlers.iterator();
 		while (it.hasNext()) {
 			HandlerEntry entry = it.next();
-			if (entry.c.execute(_currentState)) entry.h.handleStep(this, _currentState);
+			if (entry.h instanceof FlushableHandler) ((FlushableHandler) entry.h).flush();
 		}
 	}
 
@@ -128,9 +209,10 @@ public abstract class Solver {
 	 *            the stop condition
 	 */
 	public void stopWhen(final Condition condition) {
+		// the handler is only called if the condition holds
 		addHandler(new StepHandler() {
 			public void handleStep(Solver solver, State state) {
-				if (condition.execute(state)) stop();
+				stop();
 			}
 		}, condition);
 	}
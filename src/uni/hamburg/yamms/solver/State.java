@@ -1,7 +1,9 @@
 package uni.hamburg.yamms.solver;
 
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import uni.hamburg.yamms.math.FieldReduction;
 import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.math.Topology;
 import uni.hamburg.yamms.model.Model;
@@ -13,9 +15,16 @@ import uni.hamburg.yamms.model.Model;
  * <li>the derivative of the magnetization
  * <li>the simulation time
  * <li>the simulation step
- * <li>a hash map of additional parameters that can be set and altered by event
- * handlers and read by field terms.
+ * <li>additional parameters that can be set and altered by event handlers and
+ * read by field terms (see <code>Parameters</code>).
  * </ul>
+ * Derived states share the parameters with copy-on-write semantics: changes
+ * of the parameters of a state are not visible in states derived before.
+ * The reductions of the magnetization and its derivative (averages, maximum
+ * norm) are cached, so conditions and handlers of the same step share a
+ * single pass over the fields. Every step and every change of the parameters
+ * assigns a new revision to the state, which is used by the conditions to
+ * cache their results.
  * 
  * @author Claas Abert
  * 
@@ -30,9 +39,12 @@ public class State {
 	 * @return return state stub
 	 */
 	public static State getStub(RealVectorField m) {
-		return new State(m, null, 0, 0, new HashMap<String, Object>());
+		return new State(m, null, 0, 0, new Parameters());
 	}
 
+	/** the source of the revisions of all states */
+	private static final AtomicLong REVISIONS = new AtomicLong();
+
 	// state attributes
 	/** the magnetization */
 	protected RealVectorField _m;
@@ -42,8 +54,10 @@ public class State {
 	protected double _t;
 	/** the number of the current integration step */
 	protected int _step;
-	/** a hash map of additional parameters */
-	protected HashMap<String, Object> _params;
+	/** the additional parameters */
+	protected Parameters _params;
+	/** <code>true</code> if the parameters are shared with other states */
+	protected boolean _paramsShared;
 
 	// attributes for lazy initialization
 	/** the topology of the magnetization */
@@ -58,6 +72,16 @@ public class State {
 	 * dormand prince integrator)
 	 */
 	protected double[] _valuesMDot;
+	/** the cached reduction of the magnetization */
+	protected FieldReduction _mReduction;
+	/** the cached reduction of the derivative */
+	protected FieldReduction _mDotReduction;
+	/** the revision, unique among all states and changes */
+	private long _revision;
+	/** <code>true</code> if the steps of the state were counted before */
+	private boolean _counted;
+	/** the number of the last counted step */
+	private int _countedStep;
 
 	/**
 	 * Standard constructor
@@ -67,7 +91,8 @@ public class State {
 	 */
 	public State(HashMap<String, Object> params) {
 		_step = -1;
-		_params = params;
+		_params = Parameters.fromMap(params);
+		changed();
 	}
 
 	/**
@@ -85,12 +110,14 @@ public class State {
 	 *            the additional parameters
 	 */
 	protected State(RealVectorField m, RealVectorField mDot, double t, int step,
-			HashMap<String, Object> params) {
+			Parameters params) {
 		_m = m;
 		_mDot = mDot;
 		_t = t;
 		_step = step;
 		_params = params;
+		_paramsShared = true;
+		changed();
 	}
 
 	/**
@@ -110,7 +137,7 @@ public class State {
 	 *            the additional parameters
 	 */
 	protected State(Topology topology, double[] m, double[] mDot, double t, int step,
-			HashMap<String, Object> params) {
+			Parameters params) {
 		this(null, null, t, step, params);
 		_topology = topology;
 		_valuesM = m;
@@ -130,6 +157,7 @@ public class State {
 	 * @return the derived state
 	 */
 	public State derive(double[] m, double[] mDot, double t) {
+		_paramsShared = true;
 		return new State(_topology, m, mDot, t, _step, _params);
 	}
 
@@ -147,6 +175,7 @@ public class State {
 	 * @return the derived state
 	 */
 	public State derive(RealVectorField m, RealVectorField mDot, double t) {
+		_paramsShared = true;
 		return new State(m, mDot, t, _step, _params);
 	}
 
@@ -174,15 +203,52 @@ public class State {
 		return _mDot;
 	}
 
+	/**
+	 * Returns the reductions of the magnetization (average, maximum norm
+	 * etc.). The reductions are computed once per step.
+	 * 
+	 * @return the reductions
+	 */
+	public FieldReduction getMReduction() {
+		if (_mReduction == null) _mReduction = new FieldReduction(getM());
+		return _mReduction;
+	}
+
+	/**
+	 * Returns the reductions of the derivative of the magnetization (average,
+	 * maximum norm etc.). The reductions are computed once per step.
+	 * 
+	 * @return the reductions
+	 */
+	public FieldReduction getMDotReduction() {
+		if (_mDotReduction == null) _mDotReduction = new FieldReduction(getMDot());
+		return _mDotReduction;
+	}
+
 	/**
 	 * Returns an additional parameter casted to int
 	 * 
 	 * @param key
 	 *            the key (name) of the parameter
 	 * @return the value of the parameter
+	 * @throws IllegalStateException
+	 *             if the parameter is not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is not an <code>int</code>
+	 */
+	public int getInt(String key) throws IllegalStateException, IllegalArgumentException {
+		return _params.getInt(key);
+	}
+
+	/**
+	 * Returns an additional <code>int</code> parameter
+	 * 
+	 * @param key
+	 *            the key of the parameter
+	 * @return the value of the parameter
 	 */
-	public int getInt(String key) {
-		return (Integer) _params.get(key);
+	public int getInt(Parameters.IntKey key) {
+		return _params.getInt(key);
 	}
 
 	/**
@@ -202,9 +268,52 @@ public class State {
 	 * @param key
 	 *            the key (name) of the parameter
 	 * @return the value of the parameter
+	 * @throws IllegalStateException
+	 *             if the parameter is not set
+	 * @throws IllegalArgumentException
+	 *             if the parameter is not a number
+	 */
+	public double getDouble(String key) throws IllegalStateException, IllegalArgumentException {
+		return _params.getDouble(key);
+	}
+
+	/**
+	 * Returns an additional <code>double</code> parameter
+	 * 
+	 * @param key
+	 *            the key of the parameter
+	 * @return the value of the parameter
 	 */
-	public double getDouble(String key) {
-		return (Double) _params.get(key);
+	public double getDouble(Parameters.DoubleKey key) {
+		return _params.getDouble(key);
+	}
+
+	/**
+	 * Returns an additional parameter of another type
+	 * 
+	 * @param <T>
+	 *            the type of the parameter
+	 * @param key
+	 *            the key of the parameter
+	 * @return the value of the parameter (<code>null</code> if not set)
+	 */
+	public <T> T get(Parameters.ObjectKey<T> key) {
+		return _params.get(key);
+	}
+
+	/**
+	 * Returns the additional parameters for modification. Shared parameters
+	 * are copied first.
+	 * 
+	 * @return the parameters
+	 */
+	private Parameters getWritableParams() {
+		changed();
+		if (_paramsShared) {
+			_params = _params.copy();
+			_paramsShared = false;
+		}
+		return _params;
 	}
 
 	/**
@@ -256,7 +365,17 @@ public class State {
 	 *            the key (name) of the parameter
 	 */
 	public void incInt(String key) {
-		_params.put(key, getInt(key) + 1);
+		incInt(Parameters.intKey(key));
+	}
+
+	/**
+	 * Increases an additional <code>int</code> parameter
+	 * 
+	 * @param key
+	 *            the key of the parameter
+	 */
+	public void incInt(Parameters.IntKey key) {
+		getWritableParams().setInt(key, _params.getInt(key) + 1);
 	}
 
 	/**
@@ -268,7 +387,19 @@ public class State {
 	 *            the value
 	 */
 	public void setInt(String key, int value) {
-		_params.put(key, value);
+		setInt(Parameters.intKey(key), value);
+	}
+
+	/**
+	 * Sets an additional <code>int</code> parameter
+	 * 
+	 * @param key
+	 *            the key of the parameter
+	 * @param value
+	 *            the value
+	 */
+	public void setInt(Parameters.IntKey key, int value) {
+		getWritableParams().setInt(key, value);
 	}
 
 	/**
@@ -280,7 +411,21 @@ public class State {
 	 *            the value
 	 */
 	public void setString(String key, String value) {
-		_params.put(key, value);
+		set(Parameters.<String> objectKey(key), value);
+	}
+
+	/**
+	 * Sets an additional parameter of another type
+	 * 
+	 * @param <T>
+	 *            the type of the parameter
+	 * @param key
+	 *            the key of the parameter
+	 * @param value
+	 *            the value
+	 */
+	public <T> void set(Parameters.ObjectKey<T> key, T value) {
+		getWritableParams().set(key, value);
 	}
 
 	/**
@@ -292,7 +437,19 @@ public class State {
 	 *            the value
 	 */
 	public void setDouble(String key, double value) {
-		_params.put(key, value);
+		setDouble(Parameters.doubleKey(key), value);
+	}
+
+	/**
+	 * Sets an additional <code>double</code> parameter
+	 * 
+	 * @param key
+	 *            the key of the parameter
+	 * @param value
+	 *            the value
+	 */
+	public void setDouble(Parameters.DoubleKey key, double value) {
+		getWritableParams().setDouble(key, value);
 	}
 
 	/**
@@ -325,7 +482,10 @@ public class State {
 		_t = t;
 		_m = null;
 		_mDot = null;
+		_mReduction = null;
+		_mDotReduction = null;
 		_step++;
+		changed();
 	}
 
 	/**
@@ -343,7 +503,10 @@ public class State {
 		_t = t;
 		_m = m;
 		_mDot = mDot;
+		_mReduction = null;
+		_mDotReduction = null;
 		_step++;
+		changed();
 	}
 
 	/**
@@ -361,5 +524,38 @@ public class State {
 		_m = m0;
 		_topology = _m.topology;
 		_mDot = model.calculateDerivative(this);
+		_mReduction = null;
+		_mDotReduction = null;
+		changed();
+	}
+
+	/**
+	 * Returns the revision of the state. The revision changes with every step
+	 * and every change of the parameters and is never shared by two states.
+	 * 
+	 * @return the revision
+	 */
+	long getRevision() {
+		return _revision;
+	}
+
+	/**
+	 * Returns the number of steps since the last call and remembers the
+	 * current step. The first call only remembers the step.
+	 * 
+	 * @return the number of steps
+	 */
+	int countSteps() {
+		int result = (_counted && _step > _countedStep) ? _step - _countedStep : 0;
+		_counted = true;
+		_countedStep = _step;
+		return result;
+	}
+
+	/**
+	 * Assigns a new revision to the state
+	 */
+	private void changed() {
+		_revision = REVISIONS.incrementAndGet();
 	}
 }
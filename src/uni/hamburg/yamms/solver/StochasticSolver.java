@@ -1,13 +1,14 @@
 package uni.hamburg.yamms.solver;
 
 import java.util.HashMap;
-import java.util.Random;
 
 import uni.hamburg.yamms.math.RealScalarField;
 import uni.hamburg.yamms.math.RealVectorField;
 import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.math.random.GaussianGenerator;
 import uni.hamburg.yamms.model.Model;
 import uni.hamburg.yamms.physics.Constants;
+import uni.hamburg.yamms.profiling.Profiler;
 
 /**
  * A stochastic integrator. The class provides methods needed for thermal
@@ -24,8 +25,8 @@ abstract public class StochasticSolver extends Solver {
 	protected double _stepSize;
 	/** the temperature in K */
 	protected double _temperature;
-	/** the random generator */
-	protected Random _random;
+	/** the generator for the fluctuating field */
+	protected GaussianGenerator _generator;
 	/** the ode used */
 	protected Model _model;
 	/** the topology of the problem */
@@ -38,6 +39,8 @@ abstract public class StochasticSolver extends Solver {
 	// Cached values
 	/** the deviation of the fluctuating field */
 	protected RealScalarField _deviation;
+	/** the deviation of the fluctuating field for a time interval of 1 s */
+	protected RealScalarField _unitDeviation;
 	/** cached factor for wiener increment */
 	protected RealScalarField _dampingFactor;
 
@@ -47,15 +50,67 @@ abstract public class StochasticSolver extends Solver {
 	 * @return the increment
 	 */
 	protected RealVectorField generateDW() {
+		return generateDW(_deviation);
+	}
+
+	/**
+	 * Generates the random Wiener increment dW for a time interval that
+	 * differs from the step size (used for adaptive step sizes)
+	 * 
+	 * @param interval
+	 *            the time interval
+	 * @return the increment
+	 */
+	protected RealVectorField generateDW(double interval) {
+		return generateDW(_unitDeviation.times(Math.sqrt(interval)));
+	}
+
+	/**
+	 * Generates a random Wiener increment with a given deviation
+	 * 
+	 * @param deviation
+	 *            the deviation of the increment
+	 * @return the increment
+	 */
+	private RealVectorField generateDW(RealScalarField deviation) {
+		return generateDW(_generator, deviation);
+	}
+
+	/**
+	 * Generates a random Wiener increment with a given generator and
+	 * deviation
+	 * 
+	 * @param generator
+	 *            the random generator
+	 * @param deviation
+	 *            the deviation of the increment
+	 * @return the increment
+	 */
+	protected RealVectorField generateDW(GaussianGenerator generator, RealScalarField deviation) {
 		double[][] values = new double[_dimension][_topology.totalCellCount];
+		generator.nextGaussians(values);
 		for (int i = 0; i < _dimension; i++) {
 			for (int j = 0; j < _topology.totalCellCount; j++) {
-				values[i][j] = _random.nextGaussian() * _deviation.getValue(j);
+				values[i][j] *= deviation.getValue(j);
 			}
 		}
 		return new RealVectorField(_topology, values);
 	}
 
+	/**
+	 * Sets the generator for the fluctuating field. The solvers use a
+	 * {@link uni.hamburg.yamms.math.random.RandomGaussianGenerator} by default.
+	 * For large meshes the parallel
+	 * {@link uni.hamburg.yamms.math.random.CounterGaussianGenerator} is much
+	 * faster.
+	 * 
+	 * @param generator
+	 *            the generator
+	 */
+	public void setGaussianGenerator(GaussianGenerator generator) {
+		_generator = generator;
+	}
+
 	/**
 	 * Calculates the deviation of the fluctuating field from the temperature,
 	 * topology,...
@@ -77,25 +132,108 @@ abstract public class StochasticSolver extends Solver {
 	 */
 	synchronized public RealVectorField integrate(Model model, RealVectorField m0) {
 		_currentState = new State(new HashMap<String, Object>(_startParams));
+		init(model, m0);
+		return run(m0, 0);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.Solver#integrate(uni.hamburg.yamms.model.Model,
+	 * uni.hamburg.yamms.solver.Checkpoint)
+	 */
+	synchronized public RealVectorField integrate(Model model, Checkpoint checkpoint) {
+		checkpoint.checkSolver(this);
+		_currentState = checkpoint.createState();
+		// the cached deviation depends on the restored step size
+		restore(checkpoint);
+		init(model, checkpoint.getM());
+		return run(checkpoint.getM(), checkpoint.getTime());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.Solver#requestCheckpoint(java.lang.String)
+	 */
+	public void requestCheckpoint(String path) {
+		_checkpointPath = path;
+	}
+
+	/**
+	 * Initializes the cached values for an integration
+	 * 
+	 * @param model
+	 *            the model
+	 * @param m0
+	 *            the initial magnetization
+	 */
+	protected void init(Model model, RealVectorField m0) {
 		_model = model;
 		_topology = m0.topology;
 		_dimension = m0.dimension;
-		_deviation = getDeviation(model).times(Math.sqrt(_stepSize));
+		_unitDeviation = getDeviation(model);
+		_deviation = _unitDeviation.times(Math.sqrt(_stepSize));
 		_dampingFactor = _model.getMs().pow(-1).times(-_model.getGammaPrime() * _model.getAlpha());
+	}
 
+	/**
+	 * Runs the integration loop until the solver is stopped. Requested
+	 * checkpoints are written before the next step.
+	 * 
+	 * @param m
+	 *            the initial magnetization
+	 * @param t
+	 *            the initial time
+	 * @return the resulting magnetization
+	 */
+	protected RealVectorField run(RealVectorField m, double t) {
 		// stop and stage handling
 		_continue = true;
-
-		double t = 0;
-		RealVectorField m = m0;
+		int probe = Profiler.getInstance().register(Profiler.getSimpleClassName(this));
 
 		while (_continue) {
+			if (_checkpointPath != null) {
+				Checkpoint checkpoint = new Checkpoint(this, m, t, _currentState);
+				save(checkpoint);
+				checkpoint.write(_checkpointPath);
+				_checkpointPath = null;
+			}
+			Profiler.getInstance().tic(probe);
 			m = step(m, t);
+			Profiler.getInstance().toc(probe);
 			t += _stepSize;
 		}
+
+		flushHandlers();
 		return m;
 	}
 
+	/**
+	 * Stores the internal data of the solver in a checkpoint. Subclasses with
+	 * additional data have to extend this method.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint
+	 */
+	protected void save(Checkpoint checkpoint) {
+		checkpoint.setSnapshot("generator", _generator);
+		checkpoint.setData("stepSize", _stepSize);
+	}
+
+	/**
+	 * Restores the internal data of the solver from a checkpoint. Subclasses
+	 * with additional data have to extend this method.
+	 * 
+	 * @param checkpoint
+	 *            the checkpoint
+	 */
+	protected void restore(Checkpoint checkpoint) {
+		_generator = (GaussianGenerator) checkpoint.getSnapshot("generator");
+		_stepSize = (Double) checkpoint.getData("stepSize");
+	}
+
 	/**
 	 * The step method used by the <code>integrate</code> method. Returns the
 	 * next calculated magnetization for a given current magnetization
@@ -0,0 +1,49 @@
+package uni.hamburg.yamms.solver.stepHandlers;
+
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * Handler for periodic checkpoints. The handler requests a checkpoint from
+ * the solver, which is written before the next step. The file is replaced
+ * atomically, so there is always a complete checkpoint. The interval is
+ * defined by the condition of the handler, e.g.
+ * 
+ * <pre>
+ * solver.addHandler(new CheckpointHandler(&quot;sp5.checkpoint&quot;), Condition.everyNthStep(10000));
+ * </pre>
+ * 
+ * The integration is resumed with
+ * 
+ * <pre>
+ * solver.integrate(model, Checkpoint.read(&quot;sp5.checkpoint&quot;));
+ * </pre>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class CheckpointHandler implements StepHandler {
+	/** the path of the checkpoint file */
+	private String _path;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param path
+	 *            the path of the checkpoint file
+	 */
+	public CheckpointHandler(String path) {
+		_path = path;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.stepHandlers.StepHandler#handleStep(uni.hamburg
+	 * .yamms.solver.Solver, uni.hamburg.yamms.solver.State)
+	 */
+	public void handleStep(Solver solver, State state) {
+		solver.requestCheckpoint(_path);
+	}
+}
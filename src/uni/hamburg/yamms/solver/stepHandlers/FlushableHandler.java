@@ -0,0 +1,18 @@
+package uni.hamburg.yamms.solver.stepHandlers;
+
+/**
+ * A step handler that does not finish its work within
+ * <code>handleStep</code>, e.g. a handler that writes data in a background
+ * thread. The solvers flush these handlers at the end of every integration.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public interface FlushableHandler extends StepHandler {
+
+	/**
+	 * Blocks until all steps passed to the handler are processed completely
+	 */
+	void flush();
+
+}
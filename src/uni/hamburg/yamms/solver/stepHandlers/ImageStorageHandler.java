@@ -0,0 +1,129 @@
+package uni.hamburg.yamms.solver.stepHandlers;
+
+import java.io.IOException;
+
+import uni.hamburg.yamms.io.IOConfig;
+import uni.hamburg.yamms.io.ImageService;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.solver.AsyncStorageHandler;
+
+/**
+ * Storage handler for images of a slice of the magnetization (see
+ * <code>ImageService.renderSlice</code> for the color scheme). The images
+ * are written as PNG files in a defined directory, numbered consecutively
+ * with a configurable prefix. Rendering and encoding is done in a background
+ * thread (see <code>AsyncStorageHandler</code>).
+ * <p>
+ * Meshes larger than the maximum image size are decimated, i.e. a pixel shows
+ * the average of several cells.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class ImageStorageHandler extends AsyncStorageHandler {
+
+	/** the directory the images are written to */
+	private String _directory;
+	/** the prefix for the files */
+	private String _prefix;
+	/** the axis normal to the slice */
+	private int _normal;
+	/** the index of the slice (-1 for the center slice) */
+	private int _slice;
+	/** the maximum width and height of the images in pixels */
+	private int _maxSize;
+	/**
+	 * if <code>false</code> a litte status is written to stdout at every
+	 * invocation
+	 */
+	private boolean _quiet;
+	/** the counter for the naming of the files */
+	private int _counter;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param directory
+	 *            the directory the files are stored to
+	 * @param prefix
+	 *            the prefix of the files
+	 * @param normal
+	 *            the axis normal to the slice (0, 1 or 2)
+	 * @param slice
+	 *            the index of the slice along the normal axis, -1 for the
+	 *            center slice
+	 * @param maxSize
+	 *            the maximum width and height of the images in pixels
+	 * @param quiet
+	 *            if <code>false</code> a litte status is written to stdout at
+	 *            every invocation
+	 */
+	public ImageStorageHandler(String directory, String prefix, int normal, int slice,
+			int maxSize, boolean quiet) {
+		super(false);
+		_directory = directory;
+		// add separator at the end if necessary
+		if (_directory.charAt(_directory.length() - 1) != IOConfig.SEPARATOR)
+			_directory += IOConfig.SEPARATOR;
+
+		createDirectory(_directory);
+
+		_prefix = prefix;
+		_normal = normal;
+		_slice = slice;
+		_maxSize = maxSize;
+		_quiet = quiet;
+		_counter = 0;
+	}
+
+	/**
+	 * Alternative constructor. The center slice normal to the z axis is
+	 * written with a maximum size of 1024 pixels.
+	 * 
+	 * @param directory
+	 *            the directory the files are stored to
+	 * @param prefix
+	 *            the prefix of the files
+	 */
+	public ImageStorageHandler(String directory, String prefix) {
+		this(directory, prefix, 2, -1, 1024, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.AsyncStorageHandler#write(uni.hamburg.yamms.solver
+	 * .AsyncStorageHandler.Snapshot)
+	 */
+	protected void write(Snapshot snapshot) throws IOException {
+		// print message
+		if (!_quiet) {
+			System.out.println(String.format("Write image (thread id: %d; t: %1.4f ns).", Thread
+					.currentThread().getId(), snapshot.getTime() * 1e9));
+		}
+
+		RealVectorField m = snapshot.getM();
+		Topology topology = m.topology;
+		int slice = (_slice < 0) ? topology.getCellCount(_normal) / 2 : _slice;
+		int size = 0;
+		for (int i = 0; i < 3; i++) {
+			if (i != _normal) size = Math.max(size, topology.getCellCount(i));
+		}
+		int decimation = Math.max(1, (size + _maxSize - 1) / _maxSize);
+
+		_counter++;
+		ImageService.writePng(ImageService.renderSlice(m, _normal, slice, decimation),
+				getPathForStep());
+	}
+
+	/**
+	 * Composes the path of the image from directory, prefix and counter
+	 * 
+	 * @return the path to the image to write
+	 */
+	private String getPathForStep() {
+		return _directory + _prefix + String.format("%06d", _counter) + ".png";
+	}
+}
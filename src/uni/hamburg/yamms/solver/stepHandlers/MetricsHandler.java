@@ -0,0 +1,109 @@
+package uni.hamburg.yamms.solver.stepHandlers;
+
+import uni.hamburg.yamms.metrics.Gauge;
+import uni.hamburg.yamms.metrics.Histogram;
+import uni.hamburg.yamms.metrics.MetricsRegistry;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+
+/**
+ * Handler that publishes the progress of the solver to the
+ * <code>MetricsRegistry</code>, e.g.
+ * 
+ * <pre>
+ * solver.addHandler(new MetricsHandler(), Condition.everyNthStep(100));
+ * new MetricsServer(9404);
+ * </pre>
+ * 
+ * The following metrics are updated at every invocation:
+ * <ul>
+ * <li><code>yamms_solver_time_seconds</code>: the simulation time</li>
+ * <li><code>yamms_solver_dt_seconds</code>: the average time step since the
+ * last invocation</li>
+ * <li><code>yamms_solver_mdot_max</code>: the maximum norm of dm/dt</li>
+ * <li><code>yamms_solver_last_step_timestamp_seconds</code>: the wall clock
+ * time of the invocation (e.g. for the detection of stalled simulations)</li>
+ * <li><code>yamms_solver_step_wall_seconds</code>: a histogram of the wall
+ * time per step, averaged since the last invocation</li>
+ * </ul>
+ * The number of steps (<code>yamms_solver_steps_total</code>) is counted by
+ * the solvers themselves, so it includes the steps before the first
+ * invocation of the handler.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class MetricsHandler implements StepHandler {
+	/** the upper bounds of the buckets of the wall time histogram */
+	private static final double[] WALL_TIME_BOUNDS = { 1e-4, 3e-4, 1e-3, 3e-3, 1e-2, 3e-2,
+			1e-1, 3e-1, 1, 3, 10 };
+
+	/** the simulation time */
+	private Gauge _time;
+	/** the average time step */
+	private Gauge _dt;
+	/** the maximum norm of dm/dt */
+	private Gauge _mDotMax;
+	/** the wall clock time of the last invocation */
+	private Gauge _timestamp;
+	/** the wall time per step */
+	private Histogram _wallTime;
+
+	/** the step of the last invocation (-1 before the first invocation) */
+	private int _lastStep;
+	/** the simulation time of the last invocation */
+	private double _lastTime;
+	/** the wall clock time of the last invocation in ns */
+	private long _lastNanos;
+
+	/**
+	 * Standard constructor. Uses the singleton registry.
+	 */
+	public MetricsHandler() {
+		this(MetricsRegistry.getInstance());
+	}
+
+	/**
+	 * Alternative constructor
+	 * 
+	 * @param registry
+	 *            the registry
+	 */
+	public MetricsHandler(MetricsRegistry registry) {
+		_time = registry.getGauge("yamms_solver_time_seconds", "Simulation time");
+		_dt = registry.getGauge("yamms_solver_dt_seconds",
+				"Average time step since the last update");
+		_mDotMax = registry.getGauge("yamms_solver_mdot_max", "Maximum norm of dm/dt");
+		_timestamp = registry.getGauge("yamms_solver_last_step_timestamp_seconds",
+				"Wall clock time of the last update (unix time)");
+		_wallTime = registry.getHistogram("yamms_solver_step_wall_seconds",
+				"Wall time per step, averaged between updates", WALL_TIME_BOUNDS);
+		_lastStep = -1;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.stepHandlers.StepHandler#handleStep(uni.hamburg
+	 * .yamms.solver.Solver, uni.hamburg.yamms.solver.State)
+	 */
+	public void handleStep(Solver solver, State state) {
+		long nanos = System.nanoTime();
+		int step = state.getStep();
+		double time = state.getTime();
+
+		if (_lastStep >= 0 && step > _lastStep) {
+			int steps = step - _lastStep;
+			_dt.set((time - _lastTime) / steps);
+			_wallTime.observe(1e-9 * (nanos - _lastNanos) / steps);
+		}
+		_time.set(time);
+		_mDotMax.set(state.getMDotReduction().getMaxNorm());
+		_timestamp.set(1e-3 * System.currentTimeMillis());
+
+		_lastStep = step;
+		_lastTime = time;
+		_lastNanos = nanos;
+	}
+}
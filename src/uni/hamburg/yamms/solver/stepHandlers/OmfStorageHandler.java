@@ -2,21 +2,22 @@ package uni.hamburg.yamms.solver.stepHandlers;
 
 import uni.hamburg.yamms.io.IOConfig;
 import uni.hamburg.yamms.io.OmfFileService;
-import uni.hamburg.yamms.solver.Solver;
-import uni.hamburg.yamms.solver.State;
-import uni.hamburg.yamms.solver.StorageHandler;
+import uni.hamburg.yamms.solver.AsyncStorageHandler;
 
 /**
  * Standard storage handler for magnetization snapshots in the OMF format (the
  * format used by the OOMMF micromagnetic solver)
  * <p>
  * The files are written in a defined directory. They are numbered consecutively
- * and have a configurable prefix. By now only the ASCII format is supported
+ * and have a configurable prefix. The data is written as ASCII text (OMF 1.0)
+ * or binary (OVF 2.0).
+ * The files are written in a background thread (see
+ * <code>AsyncStorageHandler</code>).
  * 
  * @author Claas Abert
  * 
  */
-public class OmfStorageHandler extends StorageHandler {
+public class OmfStorageHandler extends AsyncStorageHandler {
 
 	/** the directory the handler writer the OMF file to */
 	private String _directory;
@@ -29,6 +30,8 @@ public class OmfStorageHandler extends StorageHandler {
 	private boolean _quiet;
 	/** the counter for the naming of the files */
 	private int _counter;
+	/** the data format of the files */
+	private OmfFileService.Format _format;
 
 	/**
 	 * Standard constructor
@@ -40,8 +43,12 @@ public class OmfStorageHandler extends StorageHandler {
 	 * @param quiet
 	 *            if <code>false</code> a litte status is written to stdout at
 	 *            every invocation
+	 * @param format
+	 *            the data format of the files
 	 */
-	public OmfStorageHandler(String directory, String prefix, boolean quiet) {
+	public OmfStorageHandler(String directory, String prefix, boolean quiet,
+			OmfFileService.Format format) {
+		super(false);
 		_directory = directory;
 		// add separator at the end if necessary
 		if (_directory.charAt(_directory.length() - 1) != IOConfig.SEPARATOR)
@@ -52,6 +59,22 @@ public class OmfStorageHandler extends StorageHandler {
 		_prefix = prefix;
 		_quiet = quiet;
 		_counter = 0;
+		_format = format;
+	}
+
+	/**
+	 * Alternative constructor. The files are written in the ASCII format.
+	 * 
+	 * @param directory
+	 *            the directory the files are stored to
+	 * @param prefix
+	 *            the prefix of the OMF files
+	 * @param quiet
+	 *            if <code>false</code> a litte status is written to stdout at
+	 *            every invocation
+	 */
+	public OmfStorageHandler(String directory, String prefix, boolean quiet) {
+		this(directory, prefix, quiet, OmfFileService.Format.TEXT);
 	}
 
 	/**
@@ -72,23 +95,23 @@ public class OmfStorageHandler extends StorageHandler {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * uni.hamburg.m3sc.integrator.StepHandler#handleStep(uni.hamburg.m3sc.math
-	 * .RealVectorField, uni.hamburg.m3sc.math.RealVectorField, double)
+	 * uni.hamburg.yamms.solver.AsyncStorageHandler#write(uni.hamburg.yamms.solver
+	 * .AsyncStorageHandler.Snapshot)
 	 */
-	public void handleStep(Solver solver, State state) {
+	protected void write(Snapshot snapshot) {
 		// print message
 		if (!_quiet) {
 			System.out.println(String.format("Write Omf file (thread id: %d; t: %1.4f ns).", 
-					Thread.currentThread().getId(), state.getTime() * 1e9));
+					Thread.currentThread().getId(), snapshot.getTime() * 1e9));
 		}
 
 		// write file
 		_counter++;
 		String title = "Yamms Omf Storage Handler";
 		String[] desc = new String[]{
-			String.format(" Total simulation time: %e s", state.getTime())
+			String.format(" Total simulation time: %e s", snapshot.getTime())
 		};
-		OmfFileService.writeFile(state.getM(), getPathForStep(), title, desc);
+		OmfFileService.writeFile(snapshot.getM(), getPathForStep(), title, desc, _format);
 	}
 
 	/**
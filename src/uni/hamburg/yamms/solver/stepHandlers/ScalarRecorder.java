@@ -0,0 +1,616 @@
+package uni.hamburg.yamms.solver.stepHandlers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.hamburg.yamms.fieldTerms.FieldTerm;
+import uni.hamburg.yamms.io.IOConfig;
+import uni.hamburg.yamms.math.FieldReduction;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.physics.Constants;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.StorageHandler;
+
+/**
+ * Recorder for scalar values of the simulation with configurable columns,
+ * e.g.
+ * 
+ * <pre>
+ * solver.addHandler(new ScalarRecorder(&quot;m.dat&quot;, ScalarRecorder.Format.CSV,
+ * 		ScalarRecorder.Column.time(), ScalarRecorder.Column.average(0),
+ * 		ScalarRecorder.Column.energy(&quot;E_ex&quot;, exchange, 0.5)), Condition.everyNthStep(10));
+ * </pre>
+ * 
+ * All columns are computed from a single pass over the magnetization (and a
+ * single pass over the derivative, if required). The file is kept open and
+ * written through a buffer. It is forced to the storage device periodically
+ * (see <code>setSyncInterval</code>) and when the handler is closed.
+ * <p>
+ * The following formats are available:
+ * <ul>
+ * <li><code>CSV</code>: a header line with the column names and one comma
+ * separated row per step</li>
+ * <li><code>BINARY</code>: a header (int magic, int column count, the column
+ * names) followed by blocks of rows (int row count, then the values of each
+ * column as doubles). All numbers are big endian. The file can be read with
+ * <code>ScalarRecorder.read</code>.</li>
+ * </ul>
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class ScalarRecorder implements FlushableHandler {
+	/**
+	 * The formats of the file
+	 */
+	public static enum Format {
+		/** comma separated text */
+		CSV,
+		/** blocks of binary columns */
+		BINARY
+	}
+
+	/**
+	 * The reductions of the current step, passed to the columns
+	 */
+	public static class Reductions {
+		/** the state */
+		private State _state;
+		/** the reduction of the magnetization */
+		private FieldReduction _m;
+		/** the reduction of the derivative (<code>null</code> if not needed) */
+		private FieldReduction _mDot;
+
+		/**
+		 * Returns the state
+		 * 
+		 * @return the state
+		 */
+		public State getState() {
+			return _state;
+		}
+
+		/**
+		 * Returns the reduction of the magnetization. The inner products are
+		 * taken with the fields of the energy columns.
+		 * 
+		 * @return the reduction
+		 */
+		public FieldReduction getM() {
+			return _m;
+		}
+
+		/**
+		 * Returns the reduction of the derivative of the magnetization
+		 * 
+		 * @return the reduction, <code>null</code> if no column requires the
+		 *         derivative
+		 */
+		public FieldReduction getMDot() {
+			return _mDot;
+		}
+	}
+
+	/**
+	 * A column of the table. Custom columns override <code>getValue</code>.
+	 */
+	public static abstract class Column {
+		/** the name of the column */
+		private final String _name;
+		/** the field term of an energy column */
+		private FieldTerm _fieldTerm;
+		/** the index of the field of an energy column */
+		private int _fieldIndex;
+		/** <code>true</code> if the column requires the derivative */
+		private boolean _needsMDot;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param name
+		 *            the name of the column
+		 */
+		protected Column(String name) {
+			_name = name;
+			_fieldIndex = -1;
+		}
+
+		/**
+		 * Returns the name of the column
+		 * 
+		 * @return the name
+		 */
+		public String getName() {
+			return _name;
+		}
+
+		/**
+		 * Returns the index of the field of an energy column, i.e. the index of
+		 * its inner product with the magnetization
+		 * 
+		 * @return the index of the field, -1 for other columns
+		 */
+		protected int getFieldIndex() {
+			return _fieldIndex;
+		}
+
+		/**
+		 * Computes the value of the column
+		 * 
+		 * @param reductions
+		 *            the reductions of the current step
+		 * @return the value
+		 */
+		protected abstract double getValue(Reductions reductions);
+
+		/**
+		 * The step number ("step")
+		 * 
+		 * @return the column
+		 */
+		public static Column step() {
+			return new Column("step") {
+				protected double getValue(Reductions reductions) {
+					return reductions.getState().getStep();
+				}
+			};
+		}
+
+		/**
+		 * The simulation time ("t")
+		 * 
+		 * @return the column
+		 */
+		public static Column time() {
+			return new Column("t") {
+				protected double getValue(Reductions reductions) {
+					return reductions.getState().getTime();
+				}
+			};
+		}
+
+		/**
+		 * A component of the average magnetization ("Mx", "My" or "Mz")
+		 * 
+		 * @param component
+		 *            the component
+		 * @return the column
+		 */
+		public static Column average(final int component) {
+			return new Column("M" + (char) ('x' + component)) {
+				protected double getValue(Reductions reductions) {
+					return reductions.getM().getAverage(component);
+				}
+			};
+		}
+
+		/**
+		 * The norm of the average magnetization ("|M|")
+		 * 
+		 * @return the column
+		 */
+		public static Column averageNorm() {
+			return new Column("|M|") {
+				protected double getValue(Reductions reductions) {
+					return reductions.getM().getAverageNorm();
+				}
+			};
+		}
+
+		/**
+		 * The maximum norm of the derivative of the magnetization
+		 * ("dM_dt_max")
+		 * 
+		 * @return the column
+		 */
+		public static Column mDotMaxNorm() {
+			Column result = new Column("dM_dt_max") {
+				protected double getValue(Reductions reductions) {
+					return reductions.getMDot().getMaxNorm();
+				}
+			};
+			result._needsMDot = true;
+			return result;
+		}
+
+		/**
+		 * The energy of a field term
+		 * <code>E = -factor * mu0 * sum(M * H) * V_cell</code>. The factor is
+		 * 1 for external fields and 0.5 for fields that depend linearly on the
+		 * magnetization (exchange, demagnetization, anisotropy).
+		 * 
+		 * @param name
+		 *            the name of the column
+		 * @param fieldTerm
+		 *            the field term
+		 * @param factor
+		 *            the factor of the energy
+		 * @return the column
+		 */
+		public static Column energy(String name, FieldTerm fieldTerm, final double factor) {
+			Column result = new Column(name) {
+				protected double getValue(Reductions reductions) {
+					double volume = reductions.getState().getTopology().getCellVolume();
+					return -factor * Constants.MU0 * volume
+							* reductions.getM().getInnerProduct(getFieldIndex());
+				}
+			};
+			result._fieldTerm = fieldTerm;
+			return result;
+		}
+
+		/**
+		 * An additional parameter of the state. The parameter has to be a
+		 * number.
+		 * 
+		 * @param key
+		 *            the key (name) of the parameter
+		 * @return the column
+		 */
+		public static Column param(final String key) {
+			return new Column(key) {
+				protected double getValue(Reductions reductions) {
+					Object value = reductions.getState().get(key);
+					return (value == null) ? Double.NaN : ((Number) value).doubleValue();
+				}
+			};
+		}
+	}
+
+	/**
+	 * A table read from a binary file
+	 */
+	public static class Table {
+		/** the names of the columns */
+		private String[] _names;
+		/** the values of the columns */
+		private double[][] _columns;
+
+		/**
+		 * Standard constructor
+		 * 
+		 * @param names
+		 *            the names of the columns
+		 * @param columns
+		 *            the values of the columns
+		 */
+		private Table(String[] names, double[][] columns) {
+			_names = names;
+			_columns = columns;
+		}
+
+		/**
+		 * Returns the names of the columns
+		 * 
+		 * @return the names
+		 */
+		public String[] getNames() {
+			return _names.clone();
+		}
+
+		/**
+		 * Returns the number of rows
+		 * 
+		 * @return the number of rows
+		 */
+		public int getRowCount() {
+			return _columns.length == 0 ? 0 : _columns[0].length;
+		}
+
+		/**
+		 * Returns the values of a column
+		 * 
+		 * @param index
+		 *            the index of the column
+		 * @return the values
+		 */
+		public double[] getColumn(int index) {
+			return _columns[index];
+		}
+
+		/**
+		 * Returns the values of a column
+		 * 
+		 * @param name
+		 *            the name of the column
+		 * @return the values, <code>null</code> if there is no such column
+		 */
+		public double[] getColumn(String name) {
+			for (int i = 0; i < _names.length; i++) {
+				if (_names[i].equals(name)) return _columns[i];
+			}
+			return null;
+		}
+	}
+
+	/** the magic number of binary files ("YSR1") */
+	private static final int MAGIC = 0x59535231;
+	/** the number of rows of a block in binary files */
+	private static final int BLOCK_SIZE = 1024;
+
+	/** the columns */
+	private Column[] _columns;
+	/** the field terms of the energy columns */
+	private FieldTerm[] _fieldTerms;
+	/** <code>true</code> if a column requires the derivative */
+	private boolean _needsMDot;
+	/** the format of the file */
+	private Format _format;
+
+	/** the file */
+	private FileOutputStream _file;
+	/** the buffered output */
+	private DataOutputStream _out;
+	/** the rows of the current block (binary format) */
+	private double[][] _block;
+	/** the number of rows in the current block */
+	private int _blockRows;
+	/** the row of the CSV file */
+	private StringBuilder _row;
+
+	/** the interval between two syncs in milliseconds */
+	private long _syncInterval;
+	/** the time of the last sync */
+	private long _lastSync;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @param format
+	 *            the format of the file
+	 * @param columns
+	 *            the columns
+	 */
+	public ScalarRecorder(String path, Format format, Column... columns) {
+		_columns = columns;
+		_format = format;
+		_syncInterval = 10000;
+
+		// collect the fields of the energy columns
+		List<FieldTerm> fieldTerms = new ArrayList<FieldTerm>();
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i]._fieldTerm != null) {
+				columns[i]._fieldIndex = fieldTerms.size();
+				fieldTerms.add(columns[i]._fieldTerm);
+			}
+			_needsMDot |= columns[i]._needsMDot;
+		}
+		_fieldTerms = fieldTerms.toArray(new FieldTerm[fieldTerms.size()]);
+
+		StorageHandler.createDirectory(path);
+		try {
+			_file = new FileOutputStream(IOConfig.getInstance().getPathFor(path), false);
+			_out = new DataOutputStream(new BufferedOutputStream(_file, 1 << 16));
+			if (format == Format.BINARY) {
+				_out.writeInt(MAGIC);
+				_out.writeInt(columns.length);
+				for (int i = 0; i < columns.length; i++) {
+					_out.writeUTF(columns[i].getName());
+				}
+				_block = new double[columns.length][BLOCK_SIZE];
+			} else {
+				_row = new StringBuilder();
+				for (int i = 0; i < columns.length; i++) {
+					if (i > 0) _row.append(',');
+					_row.append(columns[i].getName());
+				}
+				_row.append('\n');
+				_out.writeBytes(_row.toString());
+			}
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+		_lastSync = System.currentTimeMillis();
+	}
+
+	/**
+	 * Alternative constructor. The columns of the
+	 * <code>ScalarStorageHandler</code> are recorded (step, t, Mx, My, Mz,
+	 * |M|, dM_dt_max).
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @param format
+	 *            the format of the file
+	 */
+	public ScalarRecorder(String path, Format format) {
+		this(path, format, Column.step(), Column.time(), Column.average(0), Column.average(1),
+				Column.average(2), Column.averageNorm(), Column.mDotMaxNorm());
+	}
+
+	/**
+	 * Sets the interval between two syncs of the file with the storage device.
+	 * The default is 10 s.
+	 * 
+	 * @param millis
+	 *            the interval in milliseconds, 0 to sync every row, negative
+	 *            values to sync only when the recorder is closed
+	 */
+	public void setSyncInterval(long millis) {
+		_syncInterval = millis;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.stepHandlers.StepHandler#handleStep(uni.hamburg
+	 * .yamms.solver.Solver, uni.hamburg.yamms.solver.State)
+	 */
+	public synchronized void handleStep(Solver solver, State state) {
+		if (_out == null) return;
+
+		// reductions
+		RealVectorField[] fields = new RealVectorField[_fieldTerms.length];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i] = _fieldTerms[i].calculateField(state);
+		}
+		Reductions reductions = new Reductions();
+		reductions._state = state;
+		reductions._m = (fields.length == 0) ? state.getMReduction() : new FieldReduction(state
+				.getM(), fields);
+		if (_needsMDot) reductions._mDot = state.getMDotReduction();
+
+		try {
+			if (_format == Format.BINARY) {
+				for (int i = 0; i < _columns.length; i++) {
+					_block[i][_blockRows] = _columns[i].getValue(reductions);
+				}
+				_blockRows++;
+				if (_blockRows == BLOCK_SIZE) writeBlock();
+			} else {
+				_row.setLength(0);
+				for (int i = 0; i < _columns.length; i++) {
+					if (i > 0) _row.append(',');
+					_row.append(_columns[i].getValue(reductions));
+				}
+				_row.append('\n');
+				_out.writeBytes(_row.toString());
+			}
+
+			if (_syncInterval >= 0 && System.currentTimeMillis() - _lastSync >= _syncInterval) {
+				sync();
+			}
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the rows of the current block
+	 * 
+	 * @throws IOException
+	 */
+	private void writeBlock() throws IOException {
+		if (_blockRows == 0) return;
+		_out.writeInt(_blockRows);
+		for (int i = 0; i < _columns.length; i++) {
+			for (int j = 0; j < _blockRows; j++) {
+				_out.writeDouble(_block[i][j]);
+			}
+		}
+		_blockRows = 0;
+	}
+
+	/**
+	 * Writes the buffered rows and forces them to the storage device
+	 * 
+	 * @throws IOException
+	 */
+	private void sync() throws IOException {
+		if (_format == Format.BINARY) writeBlock();
+		_out.flush();
+		_file.getChannel().force(false);
+		_lastSync = System.currentTimeMillis();
+	}
+
+	/**
+	 * Writes the buffered rows to the file
+	 * 
+	 * @see uni.hamburg.yamms.solver.stepHandlers.FlushableHandler#flush()
+	 */
+	public synchronized void flush() {
+		if (_out == null) return;
+		try {
+			if (_format == Format.BINARY) writeBlock();
+			_out.flush();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Writes the buffered rows, forces them to the storage device and closes
+	 * the file
+	 */
+	public synchronized void close() {
+		if (_out == null) return;
+		try {
+			sync();
+			_out.close();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+		_out = null;
+	}
+
+	/**
+	 * Reads a binary file. An incomplete block at the end of the file is
+	 * ignored.
+	 * 
+	 * @param path
+	 *            the path of the file
+	 * @return the table, <code>null</code> if the file cannot be read
+	 */
+	public static Table read(String path) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(
+					IOConfig.getInstance().getPathFor(path))));
+			try {
+				if (in.readInt() != MAGIC) throw new IOException("No binary scalar file.");
+				String[] names = new String[in.readInt()];
+				for (int i = 0; i < names.length; i++) {
+					names[i] = in.readUTF();
+				}
+
+				double[][] columns = new double[names.length][BLOCK_SIZE];
+				int capacity = BLOCK_SIZE;
+				int rows = 0;
+				while (true) {
+					int blockRows;
+					try {
+						blockRows = in.readInt();
+					} catch (EOFException e) {
+						break;
+					}
+					double[][] block = new double[names.length][blockRows];
+					try {
+						for (int i = 0; i < names.length; i++) {
+							for (int j = 0; j < blockRows; j++) {
+								block[i][j] = in.readDouble();
+							}
+						}
+					} catch (EOFException e) {
+						break;
+					}
+
+					if (rows + blockRows > capacity) {
+						capacity = Math.max(2 * capacity, rows + blockRows);
+						for (int i = 0; i < names.length; i++) {
+							double[] larger = new double[capacity];
+							System.arraycopy(columns[i], 0, larger, 0, rows);
+							columns[i] = larger;
+						}
+					}
+					for (int i = 0; i < names.length; i++) {
+						System.arraycopy(block[i], 0, columns[i], rows, blockRows);
+					}
+					rows += blockRows;
+				}
+
+				for (int i = 0; i < names.length; i++) {
+					double[] exact = new double[rows];
+					System.arraycopy(columns[i], 0, exact, 0, rows);
+					columns[i] = exact;
+				}
+				return new Table(names, columns);
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			return null;
+		}
+	}
+}
@@ -5,9 +5,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 
 import uni.hamburg.yamms.io.IOConfig;
-import uni.hamburg.yamms.solver.Solver;
-import uni.hamburg.yamms.solver.State;
-import uni.hamburg.yamms.solver.StorageHandler;
+import uni.hamburg.yamms.math.FieldReduction;
+import uni.hamburg.yamms.solver.AsyncStorageHandler;
 
 /**
  * Standard storage handler for scalar parameters of the simulation. The values
@@ -21,14 +20,19 @@ import uni.hamburg.yamms.solver.StorageHandler;
  * <li><strong>dM_max</strong>: the maximum derivation of the magnetization at
  * the last step
  * </ul>
+ * The file is kept open during an integration and the rows are written in a
+ * background thread (see <code>AsyncStorageHandler</code>). Further
+ * integrations append to the file.
  * 
  * @author Claas Abert
  * 
  */
-public class ScalarStorageHandler extends StorageHandler {
+public class ScalarStorageHandler extends AsyncStorageHandler {
 
 	/** the path to the file */
 	private String _path;
+	/** the writer of the open file (<code>null</code> between integrations) */
+	private BufferedWriter _out;
 	/**
 	 * if <code>false</code> a litte status is written to stdout at every
 	 * invocation
@@ -45,6 +49,7 @@ public class ScalarStorageHandler extends StorageHandler {
 	 *            every invocation
 	 */
 	public ScalarStorageHandler(String path, boolean quiet) {
+		super(true);
 		_path = path;
 
 		createDirectory(path);
@@ -75,44 +80,55 @@ public class ScalarStorageHandler extends StorageHandler {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * uni.hamburg.m3sc.integrator.StepHandler#handleStep(uni.hamburg.m3sc.math
-	 * .RealVectorField, uni.hamburg.m3sc.math.RealVectorField, double)
+	 * uni.hamburg.yamms.solver.AsyncStorageHandler#write(uni.hamburg.yamms.solver
+	 * .AsyncStorageHandler.Snapshot)
 	 */
-	public void handleStep(Solver solver, State state) {
+	protected void write(Snapshot snapshot) throws IOException {
 		// print message
 		if (!_quiet) {
 			System.out.println(String.format("Write Scalar data (thread id: %d; t: %1.4f ns).",
-					Thread.currentThread().getId(), state.getTime() * 1e9));
+					Thread.currentThread().getId(), snapshot.getTime() * 1e9));
 		}
 
 		// write
-		try {
-			BufferedWriter out = new BufferedWriter(new FileWriter(IOConfig.getInstance()
-					.getPathFor(_path), true));
-			out.write(getRow(state));
-			out.close();
-		} catch (IOException e) {
-			System.err.println("Error: " + e.getMessage());
-		}
+		if (_out == null) throw new IOException("Scalar file " + _path + " is not open.");
+		_out.write(getRow(snapshot));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.AsyncStorageHandler#openOutput()
+	 */
+	protected void openOutput() throws IOException {
+		_out = new BufferedWriter(new FileWriter(IOConfig.getInstance().getPathFor(_path), true));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.AsyncStorageHandler#closeOutput()
+	 */
+	protected void closeOutput() throws IOException {
+		if (_out != null) _out.close();
+		_out = null;
 	}
 
 	/**
 	 * Returns the row to be written in the ASCII file
 	 * 
-	 * @param m
-	 *            the current magnetization
-	 * @param dm
-	 *            the current derivative of the magnetization
-	 * @param t
-	 *            the current integration time
+	 * @param snapshot
+	 *            the copy of the current state
 	 * @return the row to be written
 	 */
-	private String getRow(State state) {
-
-		double[] avgM = state.getM().getAverage();
-		String result = "" + state.getStep() + " " + state.getTime() + " " + avgM[0] + " "
-				+ avgM[1] + " " + avgM[2] + " " + state.getM().getAverageNorm() + " "
-				+ state.getMDot().getMaxNorm() + "\n";
+	private String getRow(Snapshot snapshot) {
+		// a single pass over each field
+		FieldReduction m = new FieldReduction(snapshot.getM());
+		FieldReduction mDot = new FieldReduction(snapshot.getMDot());
+		double[] avgM = m.getAverage();
+		String result = "" + snapshot.getStep() + " " + snapshot.getTime() + " " + avgM[0] + " "
+				+ avgM[1] + " " + avgM[2] + " " + m.getAverageNorm() + " " + mDot.getMaxNorm()
+				+ "\n";
 
 		return result;
 	}
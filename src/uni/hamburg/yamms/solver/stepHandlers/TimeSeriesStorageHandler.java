@@ -0,0 +1,122 @@
+package uni.hamburg.yamms.solver.stepHandlers;
+
+import java.io.IOException;
+
+import uni.hamburg.yamms.io.TimeSeriesWriter;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.solver.AsyncStorageHandler;
+
+/**
+ * Storage handler for magnetization snapshots in a single compressed time
+ * series file (see <code>TimeSeriesWriter</code>). The frames are written in
+ * a background thread (see <code>AsyncStorageHandler</code>), the index is
+ * written at the end of the integration. Since the file cannot be extended
+ * afterwards, a handler can only be used for a single integration.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class TimeSeriesStorageHandler extends AsyncStorageHandler {
+
+	/** the path to the file */
+	private String _path;
+	/** the saturation magnetization */
+	private RealScalarField _ms;
+	/** the encoding of the frames */
+	private TimeSeriesWriter.Encoding _encoding;
+	/** the number of frames between two complete frames */
+	private int _keyframeInterval;
+	/** the writer of the open file */
+	private TimeSeriesWriter _writer;
+	/** <code>true</code> if the file was written and closed */
+	private boolean _closed;
+	/**
+	 * if <code>false</code> a litte status is written to stdout at every
+	 * invocation
+	 */
+	private boolean _quiet;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param path
+	 *            the path to the time series file
+	 * @param ms
+	 *            the saturation magnetization
+	 * @param encoding
+	 *            the encoding of the frames
+	 * @param keyframeInterval
+	 *            the number of frames between two complete frames
+	 * @param quiet
+	 *            if <code>false</code> a litte status is written to stdout at
+	 *            every invocation
+	 */
+	public TimeSeriesStorageHandler(String path, RealScalarField ms,
+			TimeSeriesWriter.Encoding encoding, int keyframeInterval, boolean quiet) {
+		super(false);
+		createDirectory(path);
+
+		_path = path;
+		_ms = ms;
+		_encoding = encoding;
+		_keyframeInterval = keyframeInterval;
+		_quiet = quiet;
+	}
+
+	/**
+	 * Alternative constructor. The frames are quantized, every 16th frame is a
+	 * keyframe.
+	 * 
+	 * @param path
+	 *            the path to the time series file
+	 * @param ms
+	 *            the saturation magnetization
+	 */
+	public TimeSeriesStorageHandler(String path, RealScalarField ms) {
+		this(path, ms, TimeSeriesWriter.Encoding.QUANTIZED, 16, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * uni.hamburg.yamms.solver.AsyncStorageHandler#write(uni.hamburg.yamms.solver
+	 * .AsyncStorageHandler.Snapshot)
+	 */
+	protected void write(Snapshot snapshot) throws IOException {
+		if (_writer == null) throw new IOException("Time series file is not open.");
+
+		// print message
+		if (!_quiet) {
+			System.out.println(String.format("Write time series frame (thread id: %d; t: %1.4f ns).",
+					Thread.currentThread().getId(), snapshot.getTime() * 1e9));
+		}
+
+		_writer.writeFrame(snapshot.getM(), snapshot.getTime(), snapshot.getStep());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.AsyncStorageHandler#openOutput()
+	 */
+	protected void openOutput() throws IOException {
+		if (_closed) {
+			throw new IOException("Time series " + _path
+					+ " is already complete, use a new handler for every integration.");
+		}
+		_writer = new TimeSeriesWriter(_path, _ms, _encoding, _keyframeInterval);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see uni.hamburg.yamms.solver.AsyncStorageHandler#closeOutput()
+	 */
+	protected void closeOutput() throws IOException {
+		if (_writer == null) return;
+		_writer.close();
+		_writer = null;
+		_closed = true;
+	}
+}
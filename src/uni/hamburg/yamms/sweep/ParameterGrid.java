@@ -0,0 +1,108 @@
+package uni.hamburg.yamms.sweep;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Cartesian grid of parameter values for a parameter sweep. The points are
+ * ordered like nested loops, the parameter that was added last changes
+ * fastest.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class ParameterGrid {
+	/** the names of the parameters */
+	private ArrayList<String> _names;
+	/** the values of the parameters */
+	private ArrayList<double[]> _values;
+
+	/**
+	 * Standard constructor. Creates an empty grid.
+	 */
+	public ParameterGrid() {
+		_names = new ArrayList<String>();
+		_values = new ArrayList<double[]>();
+	}
+
+	/**
+	 * Adds a parameter to the grid
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @param values
+	 *            the values of the parameter
+	 * @return the grid itself
+	 */
+	public ParameterGrid add(String name, double[] values) {
+		if (_names.contains(name)) {
+			throw new IllegalArgumentException("Parameter " + name + " already defined.");
+		}
+		_names.add(name);
+		_values.add(values.clone());
+		return this;
+	}
+
+	/**
+	 * Adds a parameter with equidistant values to the grid
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @param start
+	 *            the first value
+	 * @param end
+	 *            the last value
+	 * @param count
+	 *            the number of values
+	 * @return the grid itself
+	 */
+	public ParameterGrid add(String name, double start, double end, int count) {
+		double[] values = new double[count];
+		for (int i = 0; i < count; i++) {
+			values[i] = (count == 1) ? start : start + (end - start) * i / (count - 1);
+		}
+		return add(name, values);
+	}
+
+	/**
+	 * Returns the number of points of the grid
+	 * 
+	 * @return the number of points
+	 */
+	public int size() {
+		if (_values.isEmpty()) return 0;
+		int result = 1;
+		for (double[] values : _values) {
+			result *= values.length;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns all points of the grid
+	 * 
+	 * @return the points
+	 */
+	public List<SweepPoint> getPoints() {
+		int size = size();
+		List<SweepPoint> result = new ArrayList<SweepPoint>(size);
+		for (int index = 0; index < size; index++) {
+			// the last parameter changes fastest
+			double[] chosen = new double[_names.size()];
+			int rest = index;
+			for (int i = _names.size() - 1; i >= 0; i--) {
+				double[] values = _values.get(i);
+				chosen[i] = values[rest % values.length];
+				rest /= values.length;
+			}
+
+			LinkedHashMap<String, Double> point = new LinkedHashMap<String, Double>();
+			for (int i = 0; i < _names.size(); i++) {
+				point.put(_names.get(i), chosen[i]);
+			}
+			result.add(new SweepPoint(index, point));
+		}
+		return result;
+	}
+}
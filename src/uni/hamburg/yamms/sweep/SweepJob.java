@@ -0,0 +1,25 @@
+package uni.hamburg.yamms.sweep;
+
+/**
+ * The simulation of a single point of a parameter sweep. Jobs are executed
+ * concurrently by the <code>SweepRunner</code>.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public interface SweepJob {
+	/**
+	 * Runs the simulation for a single sweep point. All files of the job
+	 * should be written to the given directory (e.g. by passing it to the
+	 * storage handlers).
+	 * 
+	 * @param point
+	 *            the parameters of the sweep point
+	 * @param directory
+	 *            the directory of the job (relative to the base path of the
+	 *            <code>IOConfig</code>, ends with a separator)
+	 * @throws Exception
+	 *             if the simulation fails, the point is not marked as done
+	 */
+	public void run(SweepPoint point, String directory) throws Exception;
+}
@@ -0,0 +1,84 @@
+package uni.hamburg.yamms.sweep;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single point of a parameter sweep. Assigns a value to every parameter of
+ * the grid.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class SweepPoint {
+	/** the index of the point in the grid */
+	private final int _index;
+	/** the parameter values */
+	private final LinkedHashMap<String, Double> _values;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param index
+	 *            the index of the point in the grid
+	 * @param values
+	 *            the parameter values
+	 */
+	public SweepPoint(int index, LinkedHashMap<String, Double> values) {
+		_index = index;
+		_values = new LinkedHashMap<String, Double>(values);
+	}
+
+	/**
+	 * Returns the index of the point in the grid
+	 * 
+	 * @return the index
+	 */
+	public int getIndex() {
+		return _index;
+	}
+
+	/**
+	 * Returns the name of the point. The name is used as the directory of the
+	 * job and in the progress file. Since the name only depends on the index,
+	 * the progress file records the parameter values as well (see
+	 * {@link #toString()}).
+	 * 
+	 * @return the name
+	 */
+	public String getName() {
+		return String.format("p%05d", _index);
+	}
+
+	/**
+	 * Returns the value of a parameter
+	 * 
+	 * @param name
+	 *            the name of the parameter
+	 * @return the value
+	 */
+	public double getDouble(String name) {
+		Double value = _values.get(name);
+		if (value == null) throw new IllegalArgumentException("Unknown parameter " + name + ".");
+		return value;
+	}
+
+	/**
+	 * Returns a textual representation of the parameters, e.g.
+	 * <code>alpha=0.01 h=10000.0</code>. The values are written exactly, so
+	 * two points with equal representations have equal values.
+	 * 
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		StringBuffer result = new StringBuffer();
+		Iterator<Map.Entry<String, Double>> it = _values.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, Double> entry = it.next();
+			result.append(entry.getKey()).append('=').append(entry.getValue());
+			if (it.hasNext()) result.append(' ');
+		}
+		return result.toString();
+	}
+}
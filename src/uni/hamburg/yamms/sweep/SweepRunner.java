@@ -0,0 +1,212 @@
+package uni.hamburg.yamms.sweep;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import uni.hamburg.yamms.io.IOConfig;
+import uni.hamburg.yamms.solver.StorageHandler;
+
+/**
+ * Runs a parameter sweep on a pool of threads within a single JVM. Expensive,
+ * read-only setup like the <code>DemagField</code> or the
+ * <code>ExchangeField</code> is created once and shared by all jobs, only the
+ * parameter dependent parts are created per job. For example
+ * 
+ * <pre>
+ * final CompositeFieldTerm base = new CompositeFieldTerm();
+ * base.addFieldTerm(new ExchangeField(13e-12, ms));
+ * base.addFieldTerm(new DemagField(topology));
+ * 
+ * ParameterGrid grid = new ParameterGrid().add(&quot;alpha&quot;, 0.01, 0.1, 10);
+ * new SweepRunner(&quot;sweep&quot;, grid, 4).run(new SweepJob() {
+ * 	public void run(SweepPoint point, String directory) {
+ * 		CompositeFieldTerm field = new CompositeFieldTerm();
+ * 		field.addFieldTerm(base);
+ * 		field.addFieldTerm(new StaticZeemanField(new double[] { 1e4, 0, 0 }));
+ * 		Model model = new BasicModel(2.211e5, point.getDouble(&quot;alpha&quot;), ms, field);
+ * 
+ * 		Solver solver = new HeunSolver(1e-13, 0, 0);
+ * 		solver.addHandler(new ScalarStorageHandler(directory + &quot;m.dat&quot;, true));
+ * 		...
+ * 	}
+ * });
+ * </pre>
+ * 
+ * Shared field terms are evaluated concurrently and must not keep state
+ * between calls.
+ * <p>
+ * Every job writes to its own directory <code>&lt;directory&gt;/pNNNNN/</code>.
+ * Finished points are recorded with their parameter values in the file
+ * <code>progress.txt</code> of the sweep directory. If the sweep is run again,
+ * the recorded points are skipped, so an interrupted sweep can be resumed.
+ * Resuming with a grid that assigns different values to a recorded point
+ * fails, since the results in the directory belong to the old grid. Jobs
+ * that throw an exception or an error are reported, recorded as failed (see
+ * <code>getFailedPoints</code>) and run again when the sweep is resumed.
+ * 
+ * @author Claas Abert
+ * 
+ */
+public class SweepRunner {
+	/** the name of the progress file */
+	public static final String PROGRESS_FILE = "progress.txt";
+
+	/** the directory of the sweep (relative to the base path) */
+	private String _directory;
+	/** the parameter grid */
+	private ParameterGrid _grid;
+	/** the number of threads */
+	private int _threads;
+	/** the points that failed in the last run */
+	private List<SweepPoint> _failed;
+
+	/**
+	 * Standard constructor
+	 * 
+	 * @param directory
+	 *            the directory of the sweep
+	 * @param grid
+	 *            the parameter grid
+	 * @param threads
+	 *            the number of jobs that run concurrently
+	 */
+	public SweepRunner(String directory, ParameterGrid grid, int threads) {
+		_directory = directory;
+		// add separator at the end if necessary
+		if (_directory.charAt(_directory.length() - 1) != IOConfig.SEPARATOR)
+			_directory += IOConfig.SEPARATOR;
+
+		_grid = grid;
+		_threads = threads;
+		_failed = new ArrayList<SweepPoint>();
+	}
+
+	/**
+	 * Runs the job for every point of the grid that is not recorded as done
+	 * in the progress file. Blocks until all jobs are finished.
+	 * 
+	 * @param job
+	 *            the job
+	 * @return the number of jobs that were run successfully
+	 * @throws IllegalStateException
+	 *             if the progress file records different parameter values for
+	 *             a point of the grid
+	 */
+	public int run(final SweepJob job) {
+		StorageHandler.createDirectory(_directory);
+		Map<String, String> done = readProgress();
+
+		// check the recorded points before any job is started
+		for (SweepPoint point : _grid.getPoints()) {
+			String values = done.get(point.getName());
+			if (values != null && !values.equals(point.toString())) {
+				throw new IllegalStateException("Sweep point " + point.getName() + " in "
+						+ _directory + " was run with " + values + " but the grid assigns "
+						+ point + ". Use a new sweep directory for a changed grid.");
+			}
+		}
+
+		final List<SweepPoint> failed = Collections.synchronizedList(new ArrayList<SweepPoint>());
+		final int[] succeeded = new int[1];
+
+		ExecutorService executor = Executors.newFixedThreadPool(_threads);
+		for (final SweepPoint point : _grid.getPoints()) {
+			if (done.containsKey(point.getName())) continue;
+
+			executor.execute(new Runnable() {
+				public void run() {
+					String directory = _directory + point.getName() + IOConfig.SEPARATOR;
+					StorageHandler.createDirectory(directory);
+					try {
+						job.run(point, directory);
+					} catch (Throwable e) {
+						// errors (e.g. failed assertions) must not end the task silently
+						System.err.println("Error in sweep point " + point.getName() + " ("
+								+ point + "): " + e);
+						failed.add(point);
+						return;
+					}
+					markDone(point);
+					synchronized (succeeded) {
+						succeeded[0]++;
+					}
+				}
+			});
+		}
+
+		executor.shutdown();
+		try {
+			while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+				// wait for the running jobs
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+
+		_failed = new ArrayList<SweepPoint>(failed);
+		return succeeded[0];
+	}
+
+	/**
+	 * Returns the points that failed in the last run
+	 * 
+	 * @return the failed points
+	 */
+	public List<SweepPoint> getFailedPoints() {
+		return _failed;
+	}
+
+	/**
+	 * Reads the finished points from the progress file
+	 * 
+	 * @return the parameter values of the finished points by name
+	 */
+	private Map<String, String> readProgress() {
+		Map<String, String> result = new HashMap<String, String>();
+		File file = new File(IOConfig.getInstance().getPathFor(_directory + PROGRESS_FILE));
+		if (!file.exists()) return result;
+
+		try {
+			BufferedReader in = new BufferedReader(new FileReader(file));
+			String line;
+			while ((line = in.readLine()) != null) {
+				int i = line.indexOf(' ');
+				if (i > 0) result.put(line.substring(0, i), line.substring(i + 1));
+			}
+			in.close();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+		return result;
+	}
+
+	/**
+	 * Appends a finished point to the progress file
+	 * 
+	 * @param point
+	 *            the point
+	 */
+	private synchronized void markDone(SweepPoint point) {
+		try {
+			BufferedWriter out = new BufferedWriter(new FileWriter(IOConfig.getInstance()
+					.getPathFor(_directory + PROGRESS_FILE), true));
+			out.write(point.getName() + " " + point + "\n");
+			out.close();
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package uni.hamburg.tests.fieldTerms;
+
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.fieldTerms.UniaxialAnisotropyField;
+import uni.hamburg.yamms.math.BooleanField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.physics.Constants;
+import uni.hamburg.yamms.profiling.Profiler;
+import uni.hamburg.yamms.solver.State;
+
+public class CompositeFieldTermTest extends YammsTestCase {
+	private Topology topology;
+	private RealScalarField ms;
+	private State state;
+
+	public void setUp() {
+		topology = new Topology(new int[] { 8, 6, 2 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		double[] values = new double[topology.totalCellCount];
+		double[] m = new double[3 * topology.totalCellCount];
+		for (int i = 0; i < values.length; i++) {
+			// vacuum in some cells to test the bounds
+			values[i] = (i % 7 == 3) ? 0 : 8e5;
+			m[i] = Math.cos(0.3 * i);
+			m[values.length + i] = Math.sin(0.3 * i);
+			m[2 * values.length + i] = 0.2;
+		}
+		ms = new RealScalarField(topology, values);
+		RealVectorField m0 = new RealVectorField(topology, m).normTo(ms);
+		state = new State(new HashMap<String, Object>()).derive(m0, m0, 0);
+	}
+
+	public void testExchange() {
+		ExchangeField exchange = new ExchangeField(13e-12, ms);
+		RealVectorField expected = state.getM().laplaceWithBounds(
+				BooleanField.boundsFromField(ms)).times(
+				ms.pow(-2).times(2 * 13e-12 / Constants.MU0));
+		assertApprox(expected, exchange.calculateField(state), 1e-6);
+	}
+
+	public void testAnisotropy() {
+		double[] axis = new double[] { 1, 0, 0 };
+		UniaxialAnisotropyField anisotropy = new UniaxialAnisotropyField(5e5, 1e5, ms, axis);
+		RealScalarField mDotAxis = state.getM().dot(axis);
+		RealVectorField expected = ms.pow(-2).times(2 * 5e5 / Constants.MU0).times(axis).times(
+				mDotAxis).add(
+				ms.pow(-4).times(4 * 1e5 / Constants.MU0).times(axis).times(mDotAxis.pow(3)));
+		assertApprox(expected, anisotropy.calculateField(state), 1e-6);
+	}
+
+	public void testComposite() {
+		ExchangeField exchange = new ExchangeField(13e-12, ms);
+		DemagField demag = new DemagField(topology);
+		UniaxialAnisotropyField anisotropy = new UniaxialAnisotropyField(5e5, 0, ms);
+		StaticZeemanField zeeman = new StaticZeemanField(new double[] { 1e4, 0, 0 });
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(exchange);
+		field.addFieldTerm(demag);
+		field.addFieldTerm(anisotropy);
+		field.addFieldTerm(zeeman);
+
+		// the local terms are accumulated in a single buffer
+		RealVectorField expected = exchange.calculateField(state).add(
+				demag.calculateField(state)).add(anisotropy.calculateField(state)).add(
+				zeeman.calculateField(state));
+		assertApprox(expected, field.calculateField(state), 1e-6);
+	}
+
+	private CompositeFieldTerm composite() {
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(new DemagField(topology));
+		field.addFieldTerm(new UniaxialAnisotropyField(5e5, 0, ms));
+		field.addFieldTerm(new StaticZeemanField(new double[] { 1e4, 0, 0 }));
+		return field;
+	}
+
+	public void testConcurrent() {
+		CompositeFieldTerm field = composite();
+		RealVectorField sequential = field.calculateField(state);
+		field.setConcurrent(true);
+		RealVectorField concurrent = field.calculateField(state);
+
+		// the summation order does not depend on the mode
+		assertEquals(sequential, concurrent);
+	}
+
+	public void testNested() {
+		// the calling threads run the tasks that are not started by the
+		// single thread, so the nested composite cannot deadlock
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			CompositeFieldTerm inner = composite();
+			inner.setConcurrent(true);
+			inner.setExecutor(executor);
+			CompositeFieldTerm outer = new CompositeFieldTerm();
+			outer.addFieldTerm(inner);
+			outer.addFieldTerm(new DemagField(topology));
+			outer.setConcurrent(true);
+			outer.setExecutor(executor);
+
+			RealVectorField expected = composite().calculateField(state).add(
+					new DemagField(topology).calculateField(state));
+			for (int i = 0; i < 5; i++) {
+				assertEquals(expected, outer.calculateField(state));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testProfilerPath() {
+		// runs every task on a separate thread before returning
+		Executor threads = new Executor() {
+			public void execute(Runnable task) {
+				Thread thread = new Thread(task);
+				thread.start();
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		CompositeFieldTerm field = composite();
+		field.setConcurrent(true);
+		field.setExecutor(threads);
+
+		Profiler profiler = Profiler.getInstance();
+		profiler.reset();
+		try {
+			profiler.tic("Model");
+			field.calculateField(state);
+			profiler.toc("Model");
+
+			// the demagnetization field is recorded as in the sequential mode
+			Profiler.Node root = profiler.getTree();
+			Profiler.Node model = root.getChild("Model");
+			assertEquals(1, model.getChild("DemagField").getCalls());
+			assertEquals(1, model.getChild("ExchangeField").getCalls());
+			assertNotNull(model.getChild("DemagField").getChild("FFT"));
+			assertNull(root.getChild("DemagField"));
+			assertEquals(0, profiler.getCurrentPath().length);
+		} finally {
+			profiler.reset();
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package uni.hamburg.tests.fieldTerms;
+
+import java.util.HashMap;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.MultiRateFieldTerm;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+
+public class MultiRateFieldTermTest extends YammsTestCase {
+	private static final double TIME = 1e-10;
+
+	private Topology topology;
+	private RealScalarField ms;
+	private RealVectorField m0;
+
+	public void setUp() {
+		topology = new Topology(new int[] { 40, 10, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		ms = new RealConstantScalarField(topology, 8e5);
+		m0 = RealVectorField.getUniformField(topology, new double[] { 1, 0.2, 0.1 }).normTo(ms);
+	}
+
+	private CompositeFieldTerm localField() {
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(new StaticZeemanField(new double[] { -2e4, 4e3, 0 }));
+		return field;
+	}
+
+	private RealVectorField integrate(CompositeFieldTerm field) {
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.stopWhen(Condition.timeGreater(TIME));
+		return solver.integrate(new BasicModel(2.211e5, 0.02, ms, field), m0);
+	}
+
+	public void testSlowDemag() {
+		CompositeFieldTerm full = localField();
+		full.addFieldTerm(new DemagField(topology));
+		RealVectorField expected = integrate(full);
+
+		CompositeFieldTerm multiRate = localField();
+		MultiRateFieldTerm demag = multiRate.addSlowFieldTerm(new DemagField(topology), 8, 1e-4);
+		RealVectorField actual = integrate(multiRate);
+
+		// Heun calls the field twice per step, demag is evaluated for less than
+		// half of the calls
+		assertTrue(demag.getEvaluationCount() < TIME / 1e-13);
+		assertApprox(expected.getAverage(), actual.getAverage(), 20);
+	}
+
+	public void testSameTime() {
+		DemagField demag = new DemagField(topology);
+		MultiRateFieldTerm slow = new MultiRateFieldTerm(demag, 8, 1);
+		State state = new State(new HashMap<String, Object>());
+		RealVectorField m1 = RealVectorField.getUniformField(topology,
+				new double[] { 1, 0.25, 0.1 }).normTo(ms);
+
+		slow.calculateField(state.derive(m0, null, 0));
+		slow.calculateField(state.derive(m0, null, 1e-13));
+		assertEquals(2, slow.getEvaluationCount());
+
+		// same time, different magnetization (e.g. midpoint iteration)
+		RealVectorField field = slow.calculateField(state.derive(m1, null, 1e-13));
+		assertEquals(3, slow.getEvaluationCount());
+		assertEquals(demag.calculateField(state.derive(m1, null, 1e-13)), field);
+
+		// same time and magnetization: the last evaluation is returned
+		assertSame(field, slow.calculateField(state.derive(m1, null, 1e-13)));
+		assertEquals(3, slow.getEvaluationCount());
+	}
+}
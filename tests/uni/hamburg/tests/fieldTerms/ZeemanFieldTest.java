@@ -0,0 +1,94 @@
+package uni.hamburg.tests.fieldTerms;
+
+import java.util.HashMap;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.fieldTerms.Waveform;
+import uni.hamburg.yamms.fieldTerms.ZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.solver.State;
+
+public class ZeemanFieldTest extends YammsTestCase {
+	private Topology topology;
+	private RealScalarField ms;
+	private RealVectorField m;
+
+	public void setUp() {
+		topology = new Topology(new int[] { 8, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		ms = new RealConstantScalarField(topology, 8e5);
+		m = RealVectorField.getUniformField(topology, new double[] { 1, 0.2, 0.1 }).normTo(ms);
+	}
+
+	private State state(double t) {
+		return new State(new HashMap<String, Object>()).derive(m, m, t);
+	}
+
+	public void testWaveforms() {
+		assertApprox(2.0, Waveform.constant(2).getValue(5), 1e-15);
+		assertApprox(1.0, Waveform.sine(1e9, 0).getValue(0.25e-9), 1e-12);
+		assertApprox(0.5, Waveform.pulse(1, 4, 1).getValue(1.5), 1e-15);
+		assertApprox(1.0, Waveform.pulse(1, 4, 0).getValue(3), 1e-15);
+		assertApprox(0.0, Waveform.pulse(1, 4, 1).getValue(5.5), 1e-15);
+		assertApprox(1.0, Waveform.sinc(1e-9, 20e9).getValue(1e-9), 1e-15);
+		assertApprox(0.0, Waveform.sinc(1e-9, 20e9).getValue(1.025e-9), 1e-12);
+		assertApprox(Math.exp(-0.5), Waveform.gaussian(1, 2).getValue(3), 1e-15);
+		assertApprox(0.0, Waveform.chirp(1, 3, 2).getValue(2.5), 1e-15);
+
+		Waveform table = Waveform.tabulated(new double[] { 0, 1, 3 }, new double[] { 0, 2, 6 });
+		assertApprox(0.0, table.getValue(-1), 1e-15);
+		assertApprox(1.0, table.getValue(0.5), 1e-15);
+		assertApprox(2.0, table.getValue(1), 1e-15);
+		assertApprox(5.0, table.getValue(2.5), 1e-15);
+		assertApprox(6.0, table.getValue(4), 1e-15);
+
+		assertApprox(7.0, Waveform.constant(2).times(3).plus(Waveform.constant(1)).getValue(0),
+				1e-15);
+	}
+
+	public void testUniform() {
+		ZeemanField zeeman = new ZeemanField(new double[] { 0, 1e3, 0 }, Waveform.sine(1e9, 0));
+		RealVectorField field = zeeman.calculateField(state(0.25e-9));
+		assertApprox(new double[] { 0, 1e3, 0 }, field.getVector(5), 1e-9);
+
+		RealVectorField target = RealVectorField.getUniformField(topology, new double[] { 1, 2, 3 });
+		zeeman.addFieldTo(state(0.75e-9), target);
+		assertApprox(new double[] { 1, 2 - 1e3, 3 }, target.getVector(7), 1e-9);
+	}
+
+	public void testProfile() {
+		double[] values = new double[3 * topology.totalCellCount];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = i;
+		}
+		RealVectorField profile = new RealVectorField(topology, values);
+		ZeemanField zeeman = new ZeemanField(profile, Waveform.constant(0.5));
+		assertTrue(profile.times(0.5).approx(zeeman.calculateField(state(0)), 1e-12));
+
+		RealVectorField target = RealVectorField.getEmptyField(topology, 3);
+		zeeman.addFieldTo(state(0), target);
+		assertTrue(profile.times(0.5).approx(target, 1e-12));
+	}
+
+	public void testComposite() {
+		ExchangeField exchange = new ExchangeField(13e-12, ms);
+		StaticZeemanField bias = new StaticZeemanField(new double[] { 2e4, 0, 0 });
+		ZeemanField pulse = new ZeemanField(new double[] { 0, 0, 5e3 }, Waveform.gaussian(1e-9,
+				1e-10));
+
+		CompositeFieldTerm composite = new CompositeFieldTerm();
+		composite.addFieldTerm(exchange);
+		composite.addFieldTerm(bias);
+		composite.addFieldTerm(pulse);
+
+		State state = state(1.1e-9);
+		RealVectorField expected = exchange.calculateField(state).add(bias.calculateField(state))
+				.add(pulse.calculateField(state));
+		assertTrue(expected.approx(composite.calculateField(state), 1e-9));
+	}
+}
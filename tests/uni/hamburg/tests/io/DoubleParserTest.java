@@ -0,0 +1,88 @@
+package uni.hamburg.tests.io;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import uni.hamburg.yamms.io.DoubleParser;
+
+public class DoubleParserTest extends TestCase {
+
+	private double[] parse(String text, int count) throws Exception {
+		ByteBuffer buffer = ByteBuffer.wrap(text.getBytes("US-ASCII"));
+		DoubleParser parser = new DoubleParser(buffer, 0, buffer.limit());
+		double[] result = new double[count];
+		for (int i = 0; i < count; i++) {
+			result[i] = parser.nextDouble();
+		}
+		return result;
+	}
+
+	public void testFormats() throws Exception {
+		String[] numbers = new String[] { "0", "-0.0", "1", "+2.5", "1e5", "1E-3", ".5", "5.",
+				"123456789012345678901234", "0.000000000000000000000000001", "1.7976931348623157E308",
+				"4.9E-324", "NaN", "-Infinity", "440149.9536869979", "1.0000000000000001E-7" };
+		StringBuilder text = new StringBuilder();
+		for (String number : numbers) {
+			text.append(number).append(" \t");
+		}
+		double[] result = parse(text.toString(), numbers.length);
+		for (int i = 0; i < numbers.length; i++) {
+			assertEquals(numbers[i], Double.doubleToLongBits(Double.parseDouble(numbers[i])),
+					Double.doubleToLongBits(result[i]));
+		}
+	}
+
+	public void testRandom() throws Exception {
+		Random random = new Random(42);
+		double[] values = new double[10000];
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < values.length; i++) {
+			values[i] = random.nextGaussian() * Math.pow(10, random.nextInt(30) - 15);
+			text.append(values[i]).append((i % 3 == 2) ? "\n" : " ");
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes("US-ASCII"));
+		DoubleParser parser = new DoubleParser(buffer, 0, buffer.limit());
+		for (int i = 0; i < values.length; i++) {
+			if (i % 3 == 0 && i > 0) assertTrue(parser.nextLine());
+			assertEquals(values[i], parser.nextDouble());
+		}
+	}
+
+	public void testDigits() throws Exception {
+		// random significands with up to 18 digits and random exponents
+		Random random = new Random(42);
+		String[] numbers = new String[10000];
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < numbers.length; i++) {
+			StringBuilder number = new StringBuilder();
+			int digits = 1 + random.nextInt(18);
+			for (int j = 0; j < digits; j++) {
+				number.append((char) ('0' + random.nextInt(10)));
+			}
+			number.append('e').append(random.nextInt(660) - 345);
+			numbers[i] = number.toString();
+			text.append(numbers[i]).append(' ');
+		}
+
+		double[] result = parse(text.toString(), numbers.length);
+		for (int i = 0; i < numbers.length; i++) {
+			assertEquals(numbers[i], Double.doubleToLongBits(Double.parseDouble(numbers[i])),
+					Double.doubleToLongBits(result[i]));
+		}
+	}
+
+	public void testInvalid() throws Exception {
+		try {
+			parse("1.5 abc", 2);
+			fail();
+		} catch (NumberFormatException e) {
+		}
+		try {
+			parse("1.5\n2.5", 2);
+			fail();
+		} catch (NumberFormatException e) {
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package uni.hamburg.tests.io;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.io.ImageService;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+public class ImageServiceTest extends YammsTestCase {
+	private RealVectorField field(Topology t, double[] vector) {
+		return RealVectorField.getUniformField(t, vector);
+	}
+
+	private int color(double[] vector) {
+		Topology t = new Topology(new int[] { 1, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		return ImageService.renderSlice(field(t, vector), 2, 0, 1).getRGB(0, 0);
+	}
+
+	public void testColors() {
+		assertEquals(0xFFFF0000, color(new double[] { 8e5, 0, 0 }));
+		assertEquals(0xFF00FFFF, color(new double[] { -8e5, 0, 0 }));
+		assertEquals(0xFF80FF00, color(new double[] { 0, 1, 0 }));
+		assertEquals(0xFFFFFFFF, color(new double[] { 0, 0, 1 }));
+		assertEquals(0xFF000000, color(new double[] { 0, 0, -1 }));
+		assertEquals(0, color(new double[] { 0, 0, 0 }) >>> 24);
+	}
+
+	public void testSlice() {
+		// +x in the lower left corner, +y elsewhere
+		Topology t = new Topology(new int[] { 5, 4, 3 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		double[][] values = new double[3][t.totalCellCount];
+		for (int i = 0; i < t.totalCellCount; i++) {
+			int[] cidx = t.getCompIdx(i);
+			if (cidx[0] < 2 && cidx[1] < 2) {
+				values[0][i] = 1;
+			} else {
+				values[1][i] = 1;
+			}
+		}
+		RealVectorField m = new RealVectorField(t, values);
+
+		BufferedImage img = ImageService.renderSlice(m, 2, 1, 1);
+		assertEquals(5, img.getWidth());
+		assertEquals(4, img.getHeight());
+		assertEquals(0xFFFF0000, img.getRGB(0, 3));
+		assertEquals(0xFFFF0000, img.getRGB(1, 2));
+		assertEquals(0xFF80FF00, img.getRGB(2, 3));
+		assertEquals(0xFF80FF00, img.getRGB(0, 1));
+
+		// decimation averages blocks of 2 x 2 cells
+		img = ImageService.renderSlice(m, 2, 1, 2);
+		assertEquals(3, img.getWidth());
+		assertEquals(2, img.getHeight());
+		assertEquals(0xFFFF0000, img.getRGB(0, 1));
+		assertEquals(0xFF80FF00, img.getRGB(1, 1));
+
+		// slice normal to x shows (y, z)
+		img = ImageService.renderSlice(m, 0, 0, 1);
+		assertEquals(4, img.getWidth());
+		assertEquals(3, img.getHeight());
+	}
+
+	public void testWritePng() throws IOException {
+		Topology t = new Topology(new int[] { 6, 3, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		BufferedImage img = ImageService.renderSlice(field(t, new double[] { 1, 1, 0.5 }), 2, 0,
+				1);
+		File file = File.createTempFile("slice", ".png");
+		try {
+			ImageService.writePng(img, file.getAbsolutePath());
+			BufferedImage result = ImageIO.read(file);
+			assertEquals(6, result.getWidth());
+			assertEquals(img.getRGB(2, 1), result.getRGB(2, 1));
+		} finally {
+			file.delete();
+		}
+	}
+}
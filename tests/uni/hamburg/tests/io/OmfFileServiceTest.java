@@ -0,0 +1,186 @@
+package uni.hamburg.tests.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.io.OmfFileService;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+public class OmfFileServiceTest extends YammsTestCase {
+	private File file;
+	private RealVectorField field;
+
+	public void setUp() throws Exception {
+		file = File.createTempFile("field", ".omf");
+
+		Topology t = new Topology(new int[] { 7, 5, 3 }, new double[] { 2e-9, 3e-9, 4e-9 });
+		double[][] values = new double[3][t.totalCellCount];
+		for (int i = 0; i < t.totalCellCount; i++) {
+			values[0][i] = 8e5 * Math.sin(0.1 * i);
+			values[1][i] = 8e5 * Math.cos(0.1 * i);
+			values[2][i] = i / 3.0;
+		}
+		field = new RealVectorField(t, values);
+	}
+
+	public void tearDown() {
+		file.delete();
+	}
+
+	private void assertTopology(RealVectorField expected, RealVectorField actual) {
+		for (int i = 0; i < 3; i++) {
+			assertEquals(expected.topology.getCellCount(i), actual.topology.getCellCount(i));
+			assertEquals(expected.topology.getCellSize(i), actual.topology.getCellSize(i));
+		}
+	}
+
+	public void testText() {
+		OmfFileService.writeFile(field, file.getAbsolutePath(), OmfFileService.Format.TEXT);
+		RealVectorField result = OmfFileService.readFile(file.getAbsolutePath());
+
+		assertTopology(field, result);
+		assertApprox(field, result, 0);
+	}
+
+	public void testBinary8() {
+		OmfFileService.writeFile(field, file.getAbsolutePath(), OmfFileService.Format.BINARY_8);
+		assertEquals(field.topology.totalCellCount * 24 + 8, dataLength());
+		RealVectorField result = OmfFileService.readFile(file.getAbsolutePath());
+
+		assertTopology(field, result);
+		assertApprox(field, result, 0);
+	}
+
+	public void testBinary4() {
+		OmfFileService.writeFile(field, file.getAbsolutePath(), OmfFileService.Format.BINARY_4);
+		assertEquals(field.topology.totalCellCount * 12 + 4, dataLength());
+		RealVectorField result = OmfFileService.readFile(file.getAbsolutePath());
+
+		assertTopology(field, result);
+		assertApprox(field, result, 0.1);
+	}
+
+	/**
+	 * Length of the binary data section of the file
+	 */
+	private long dataLength() {
+		String start = "# Begin: Data Binary";
+		String end = "\n# End: Data Binary";
+		String content = readAscii();
+		int begin = content.indexOf('\n', content.indexOf(start)) + 1;
+		return content.indexOf(end) - begin;
+	}
+
+	private String readAscii() {
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			FileInputStream in = new FileInputStream(file);
+			int offset = 0;
+			while (offset < bytes.length) {
+				offset += in.read(bytes, offset, bytes.length - offset);
+			}
+			in.close();
+			return new String(bytes, "ISO-8859-1");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void testBigEndianOvf1() throws IOException {
+		// OVF 1.0 binary data is big endian
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeBytes("# OOMMF: rectangular mesh v1.0\n# Segment count: 1\n# Begin: Segment\n"
+				+ "# Begin: Header\n# xnodes: 2\n# ynodes: 1\n# znodes: 1\n"
+				+ "# xstepsize: 1e-9\n# ystepsize: 1e-9\n# zstepsize: 1e-9\n"
+				+ "# End: Header\n# Begin: data binary 8\n");
+		out.writeDouble(123456789012345.0);
+		for (int i = 0; i < 6; i++) {
+			out.writeDouble(i + 0.5);
+		}
+		out.writeBytes("\n# End: data binary 8\n# End: Segment\n");
+
+		RealVectorField result = OmfFileService.readFile(new ByteArrayInputStream(bytes
+				.toByteArray()));
+		assertApprox(new double[] { 0.5, 3.5 }, result.getValues()[0], 0);
+		assertApprox(new double[] { 1.5, 4.5 }, result.getValues()[1], 0);
+		assertApprox(new double[] { 2.5, 5.5 }, result.getValues()[2], 0);
+	}
+
+	public void testInvalidCheckValue() {
+		OmfFileService.writeFile(field, file.getAbsolutePath(), OmfFileService.Format.BINARY_8);
+		String content = readAscii().replace("# OOMMF OVF 2.0", "# OOMMF OVF 1.0");
+		RealVectorField result;
+		try {
+			result = OmfFileService.readFile(new ByteArrayInputStream(content
+					.getBytes("ISO-8859-1")));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		assertNull(result);
+	}
+
+	public void testLargeText() {
+		// more than one chunk of text data
+		Topology t = new Topology(new int[] { 200, 200, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		double[][] values = new double[3][t.totalCellCount];
+		for (int i = 0; i < t.totalCellCount; i++) {
+			values[0][i] = 8e5 * Math.sin(0.01 * i);
+			values[1][i] = -1.0 / (i + 1);
+			values[2][i] = i * 1e-20;
+		}
+		RealVectorField large = new RealVectorField(t, values);
+		OmfFileService.writeFile(large, file.getAbsolutePath());
+		assertTrue(file.length() > 2 << 20);
+
+		assertApprox(large, OmfFileService.readFile(file.getAbsolutePath()), 0);
+	}
+
+	public void testSegments() throws IOException {
+		StringBuilder content = new StringBuilder("# OOMMF: rectangular mesh v1.0\n# Segment count: 2\n");
+		for (int segment = 0; segment < 2; segment++) {
+			content.append("# Begin: Segment\n# Begin: Header\n# xnodes: 2\n# ynodes: 1\n"
+					+ "# znodes: 1\n# xstepsize: 1e-9\n# ystepsize: 1e-9\n# zstepsize: 1e-9\n"
+					+ "# End: Header\n# Begin: Data Text\n");
+			content.append("  " + segment + " 1.5\t-2e3\r\n\n" + (segment + 10) + " 0 1E-3\n");
+			content.append("# End: Data Text\n# End: Segment\n");
+		}
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.toString().getBytes("US-ASCII"));
+		out.close();
+
+		RealVectorField[] segments = OmfFileService.readSegments(file.getAbsolutePath());
+		RealVectorField[] streamed = OmfFileService.readSegments(new FileInputStream(file));
+		assertEquals(2, segments.length);
+		assertEquals(2, streamed.length);
+		for (int segment = 0; segment < 2; segment++) {
+			assertApprox(new double[] { segment, segment + 10 }, segments[segment].getValues()[0], 0);
+			assertApprox(new double[] { 1.5, 0 }, segments[segment].getValues()[1], 0);
+			assertApprox(new double[] { -2e3, 1e-3 }, segments[segment].getValues()[2], 0);
+			assertApprox(segments[segment], streamed[segment], 0);
+		}
+
+		// a single field cannot represent the file
+		assertNull(OmfFileService.readFile(file.getAbsolutePath()));
+		assertNull(OmfFileService.readFile(new FileInputStream(file)));
+	}
+
+	public void testMissingRows() throws IOException {
+		OmfFileService.writeFile(field, file.getAbsolutePath());
+		String content = readAscii();
+		int end = content.indexOf("# End: Data Text");
+		content = content.substring(0, content.lastIndexOf('\n', end - 2) + 1) + content.substring(end);
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content.getBytes("US-ASCII"));
+		out.close();
+
+		assertNull(OmfFileService.readFile(file.getAbsolutePath()));
+	}
+}
@@ -0,0 +1,106 @@
+package uni.hamburg.tests.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.io.TimeSeriesReader;
+import uni.hamburg.yamms.io.TimeSeriesWriter;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+public class TimeSeriesTest extends YammsTestCase {
+	private static final double MS = 8e5;
+	private static final int FRAMES = 20;
+
+	private File file;
+	private RealScalarField ms;
+	private RealVectorField[] frames;
+
+	public void setUp() throws Exception {
+		file = File.createTempFile("series", ".yts");
+
+		Topology t = new Topology(new int[] { 20, 10, 2 }, new double[] { 2e-9, 3e-9, 4e-9 });
+		ms = new RealConstantScalarField(t, MS);
+		Random random = new Random(42);
+		double[] phase = new double[t.totalCellCount];
+		for (int i = 0; i < phase.length; i++) {
+			phase[i] = random.nextDouble();
+		}
+
+		// a slowly precessing magnetization
+		frames = new RealVectorField[FRAMES];
+		for (int f = 0; f < FRAMES; f++) {
+			double[][] values = new double[3][t.totalCellCount];
+			for (int i = 0; i < t.totalCellCount; i++) {
+				double theta = 0.3 + 2.5 * phase[i] + 0.01 * f;
+				double phi = 0.1 * i + 0.05 * f;
+				values[0][i] = MS * Math.sin(theta) * Math.cos(phi);
+				values[1][i] = MS * Math.sin(theta) * Math.sin(phi);
+				values[2][i] = MS * Math.cos(theta);
+			}
+			frames[f] = new RealVectorField(t, values);
+		}
+	}
+
+	public void tearDown() {
+		file.delete();
+	}
+
+	private TimeSeriesWriter write(TimeSeriesWriter.Encoding encoding) throws IOException {
+		TimeSeriesWriter writer = new TimeSeriesWriter(file.getAbsolutePath(), ms, encoding, 8);
+		for (int f = 0; f < FRAMES; f++) {
+			writer.writeFrame(frames[f], f * 1e-12, 10 * f);
+		}
+		return writer;
+	}
+
+	public void testLossless() throws IOException {
+		write(TimeSeriesWriter.Encoding.LOSSLESS).close();
+		assertTrue(file.length() < FRAMES * 24 * ms.topology.totalCellCount);
+
+		TimeSeriesReader reader = new TimeSeriesReader(file.getAbsolutePath());
+		assertEquals(FRAMES, reader.getFrameCount());
+		assertEquals(20, reader.getTopology().getCellCount(0));
+		assertEquals(3e-9, reader.getTopology().getCellSize(1));
+
+		// random access
+		int[] order = new int[] { 13, 2, 3, 19, 0, 9, 8, 15 };
+		for (int k = 0; k < order.length; k++) {
+			int f = order[k];
+			assertEquals(10 * f, reader.getStep(f));
+			assertEquals(f * 1e-12, reader.getTime(f));
+			assertApprox(frames[f], reader.readFrame(f), 0);
+		}
+		reader.close();
+	}
+
+	public void testQuantized() throws IOException {
+		write(TimeSeriesWriter.Encoding.QUANTIZED).close();
+		assertTrue(file.length() < FRAMES * 4 * ms.topology.totalCellCount);
+
+		TimeSeriesReader reader = new TimeSeriesReader(file.getAbsolutePath());
+		assertEquals(FRAMES, reader.getFrameCount());
+		for (int f = 0; f < FRAMES; f++) {
+			assertApprox(frames[f], reader.readFrame(f), 1e-4 * MS);
+		}
+		assertApprox(frames[5], reader.readFrame(5), 1e-4 * MS);
+		reader.close();
+	}
+
+	public void testWithoutIndex() throws IOException {
+		// the index is missing if the writer is not closed
+		TimeSeriesWriter writer = write(TimeSeriesWriter.Encoding.LOSSLESS);
+		writer.sync();
+
+		TimeSeriesReader reader = new TimeSeriesReader(file.getAbsolutePath());
+		assertEquals(FRAMES, reader.getFrameCount());
+		assertEquals(170, reader.getStep(17));
+		assertApprox(frames[17], reader.readFrame(17), 0);
+		reader.close();
+		writer.close();
+	}
+}
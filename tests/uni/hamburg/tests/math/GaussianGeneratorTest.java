@@ -0,0 +1,68 @@
+package uni.hamburg.tests.math;
+
+import java.util.Random;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.math.random.CounterGaussianGenerator;
+import uni.hamburg.yamms.math.random.RandomGaussianGenerator;
+
+public class GaussianGeneratorTest extends YammsTestCase {
+
+	public void testRandomCompatibility() {
+		double[][] values = new double[3][100];
+		new RandomGaussianGenerator(42).nextGaussians(values);
+
+		Random random = new Random(42);
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < 100; j++) {
+				assertEquals(random.nextGaussian(), values[i][j]);
+			}
+		}
+	}
+
+	public void testThreadIndependence() {
+		CounterGaussianGenerator serial = new CounterGaussianGenerator(42, 1);
+		CounterGaussianGenerator parallel = new CounterGaussianGenerator(42, 4);
+
+		for (int call = 0; call < 3; call++) {
+			double[][] expected = new double[3][10000];
+			double[][] actual = new double[3][10000];
+			serial.nextGaussians(expected);
+			parallel.nextGaussians(actual);
+			for (int i = 0; i < 3; i++) {
+				for (int j = 0; j < 10000; j++) {
+					assertEquals(expected[i][j], actual[i][j]);
+				}
+			}
+		}
+	}
+
+	public void testDistribution() {
+		CounterGaussianGenerator generator = new CounterGaussianGenerator(7);
+		double[][] values = new double[3][1000000];
+		generator.nextGaussians(values);
+
+		double sum = 0, sum2 = 0, sum4 = 0;
+		int tail = 0;
+		for (int i = 0; i < 3; i++) {
+			for (int j = 0; j < values[i].length; j++) {
+				double x = values[i][j];
+				sum += x;
+				sum2 += x * x;
+				sum4 += x * x * x * x;
+				if (Math.abs(x) > 3) tail++;
+			}
+		}
+		int n = 3 * values[0].length;
+		assertApprox(0, sum / n, 5e-3);
+		assertApprox(1, sum2 / n, 5e-3);
+		assertApprox(3, sum4 / n, 3e-2);
+		// P(|x| > 3) = 0.0027
+		assertApprox(0.0027, (double) tail / n, 2e-4);
+
+		// successive calls continue the sequence
+		double first = values[0][0];
+		generator.nextGaussians(values);
+		assertTrue(first != values[0][0]);
+	}
+}
@@ -0,0 +1,95 @@
+package uni.hamburg.tests.math;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.math.BooleanConstantField;
+import uni.hamburg.yamms.math.BooleanField;
+import uni.hamburg.yamms.math.FieldReduction;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealUniformVectorField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+
+public class RealUniformVectorFieldTest extends YammsTestCase {
+	private Topology topology;
+	private RealVectorField uniform;
+	private RealVectorField dense;
+	private RealVectorField other;
+	private RealScalarField constant;
+	private RealScalarField scalar;
+
+	public void setUp() {
+		topology = new Topology(new double[] { 1, 1, 1 }, new int[] { 2, 2, 1 });
+		uniform = new RealUniformVectorField(topology, new double[] { 1, -2, 3 });
+		dense = RealVectorField.getUniformField(topology, new double[] { 1, -2, 3 });
+		other = new RealVectorField(topology, new double[][] {
+				new double[] { 1, 2, 3, 4 },
+				new double[] { 5, 6, 7, 8 },
+				new double[] { 3, 4, 5, 6 } });
+		constant = new RealConstantScalarField(topology, 2);
+		scalar = new RealScalarField(topology, new double[] { 1, 2, 3, 4 });
+	}
+
+	public void testValues() {
+		assertApprox(dense, uniform);
+		assertApprox(dense.getLinearValues(), uniform.getLinearValues());
+		assertApprox(dense.getComponent(1), uniform.getComponent(1));
+		assertApprox(dense, uniform.clone());
+		assertEquals(4, constant.getValues()[0].length);
+		assertApprox(new double[] { 2, 2, 2, 2 }, constant.getComponent(0));
+	}
+
+	public void testUniformResults() {
+		RealVectorField uniform2 = new RealUniformVectorField(topology, new double[] { 0, 1, 1 });
+		assertTrue(uniform.add(uniform2) instanceof RealUniformVectorField);
+		assertTrue(uniform.cross(uniform2) instanceof RealUniformVectorField);
+		assertTrue(uniform.times(2) instanceof RealUniformVectorField);
+		assertTrue(uniform.times(constant) instanceof RealUniformVectorField);
+		assertTrue(constant.times(new double[] { 1, 0, 0 }) instanceof RealUniformVectorField);
+		assertTrue(uniform.dot(new double[] { 1, 0, 0 }) instanceof RealConstantScalarField);
+		assertTrue(constant.times(constant) instanceof RealConstantScalarField);
+
+		RealVectorField dense2 = RealVectorField.getUniformField(topology, new double[] { 0, 1, 1 });
+		assertApprox(dense.add(dense2), uniform.add(uniform2));
+		assertApprox(dense.cross(dense2), uniform.cross(uniform2));
+		assertApprox(dense.times(constant), uniform.times(constant));
+		assertApprox(dense.normTo(constant), uniform.normTo(constant));
+		assertApprox(dense.laplace(), uniform.laplace());
+		assertApprox(dense.firstDerivative(0), uniform.firstDerivative(0));
+		assertApprox(dense.getMaxNorm(), uniform.getMaxNorm());
+		assertApprox(dense.getAverage(), uniform.getAverage());
+	}
+
+	public void testMixed() {
+		assertApprox(dense.add(other), uniform.add(other));
+		assertApprox(other.add(dense), other.add(uniform));
+		assertApprox(dense.cross(other), uniform.cross(other));
+		assertApprox(other.cross(dense), other.cross(uniform));
+		assertApprox(dense.times(scalar), uniform.times(scalar));
+		assertApprox(other.times(2), other.times(constant));
+		assertApprox(other.times(2), constant.times(other));
+		assertApprox(dense.normTo(scalar), uniform.normTo(scalar));
+		assertApprox(scalar.times(2), constant.times(scalar));
+		assertApprox(scalar.add(scalar.times(0).add(constant)), constant.add(scalar));
+	}
+
+	public void testReduction() {
+		RealVectorField[] fields = new RealVectorField[] { other, uniform };
+		FieldReduction expected = new FieldReduction(dense, new RealVectorField[] { other, dense });
+		FieldReduction[] reductions = new FieldReduction[] { new FieldReduction(uniform, fields),
+				new FieldReduction(dense, fields) };
+		for (FieldReduction reduction : reductions) {
+			assertApprox(expected.getSum(), reduction.getSum());
+			assertApprox(expected.getMinNorm(), reduction.getMinNorm());
+			assertApprox(expected.getMaxNorm(), reduction.getMaxNorm());
+			assertApprox(expected.getInnerProduct(0), reduction.getInnerProduct(0));
+			assertApprox(expected.getInnerProduct(1), reduction.getInnerProduct(1));
+		}
+	}
+
+	public void testBounds() {
+		BooleanField bounds = BooleanField.boundsFromField(constant);
+		assertTrue(bounds instanceof BooleanConstantField);
+		assertTrue(bounds.getValue(3));
+	}
+}
@@ -0,0 +1,210 @@
+package uni.hamburg.tests.metrics;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.metrics.Collector;
+import uni.hamburg.yamms.metrics.Histogram;
+import uni.hamburg.yamms.metrics.MetricsRegistry;
+import uni.hamburg.yamms.metrics.MetricsServer;
+import uni.hamburg.yamms.metrics.ProfilerCollector;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.profiling.Profiler;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.EnsembleSolver;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.MetricsHandler;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class MetricsTest extends YammsTestCase {
+	// the registry is a singleton, so every test uses its own metric names
+	private MetricsRegistry registry = MetricsRegistry.getInstance();
+
+	public void testPrometheus() {
+		registry.getCounter("test_prom_total", "a counter").inc(3);
+		registry.getGauge("test_prom_gauge", "kind=\"a\"", "a gauge").set(0.5);
+		registry.getGauge("test_prom_gauge", "kind=\"b\"", "a gauge").set(2);
+		Histogram histogram = registry.getHistogram("test_prom_hist", "a histogram",
+				new double[] { 1, 10 });
+		histogram.observe(0.5);
+		histogram.observe(5);
+		histogram.observe(50);
+
+		String text = registry.toPrometheus();
+		assertTrue(text.contains("# TYPE test_prom_total counter\ntest_prom_total 3\n"));
+		assertTrue(text.contains("# TYPE test_prom_gauge gauge\n"
+				+ "test_prom_gauge{kind=\"a\"} 0.5\ntest_prom_gauge{kind=\"b\"} 2\n"));
+		assertTrue(text.contains("test_prom_hist_bucket{le=\"1.0\"} 1\n"
+				+ "test_prom_hist_bucket{le=\"10.0\"} 2\n"
+				+ "test_prom_hist_bucket{le=\"+Inf\"} 3\n" + "test_prom_hist_sum 55.5\n"
+				+ "test_prom_hist_count 3\n"));
+
+		// same name and labels return the same metric
+		registry.getCounter("test_prom_total", "a counter").inc();
+		assertEquals(4, registry.getCounter("test_prom_total", "a counter").get());
+		try {
+			registry.getGauge("test_prom_total", "a gauge");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	public void testCollector() {
+		Collector collector = new Collector() {
+			public void collect(MetricsRegistry registry) {
+				registry.getGauge("test_collector", "collected").set(42);
+			}
+		};
+		registry.addCollector(collector);
+		assertTrue(registry.toPrometheus().contains("test_collector 42\n"));
+		registry.removeCollector(collector);
+	}
+
+	public void testProfilerCollector() {
+		Profiler profiler = Profiler.getInstance();
+		profiler.reset();
+		int outer = profiler.register("TestOuter");
+		int inner = profiler.register("TestInner");
+		for (int i = 0; i < 2; i++) {
+			profiler.tic(outer);
+			profiler.tic(inner);
+			profiler.toc(inner);
+			profiler.toc(outer);
+		}
+
+		ProfilerCollector collector = new ProfilerCollector();
+		registry.addCollector(collector);
+		String text = registry.toPrometheus();
+		registry.removeCollector(collector);
+		profiler.reset();
+
+		assertTrue(text.contains("# TYPE yamms_profiler_calls counter\n"));
+		assertTrue(text.contains("yamms_profiler_calls{path=\"TestOuter\"} 2\n"));
+		assertTrue(text.contains("yamms_profiler_calls{path=\"TestOuter/TestInner\"} 2\n"));
+		assertTrue(text.contains("yamms_profiler_seconds{path=\"TestOuter/TestInner\"} "));
+	}
+
+	public void testMBean() throws Exception {
+		registry.getGauge("test_mbean_gauge", "a gauge").set(1.5);
+		registry.registerMBean();
+		registry.registerMBean();
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(MetricsRegistry.MBEAN_NAME);
+		assertEquals(1.5, (Double) server.getAttribute(name, "test_mbean_gauge"));
+		registry.getGauge("test_mbean_gauge", "a gauge").set(2.5);
+		assertEquals(2.5, (Double) server.getAttribute(name, "test_mbean_gauge"));
+	}
+
+	public void testServer() throws Exception {
+		registry.getCounter("test_http_total", "a counter").inc(7);
+		MetricsServer server = new MetricsServer(0);
+		try {
+			URL url = new URL("http://127.0.0.1:" + server.getPort() + "/metrics");
+			HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+			assertEquals(200, connection.getResponseCode());
+			assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+			BufferedReader in = new BufferedReader(new InputStreamReader(connection
+					.getInputStream(), "UTF-8"));
+			boolean found = false;
+			for (String line = in.readLine(); line != null; line = in.readLine()) {
+				if (line.equals("test_http_total 7")) found = true;
+			}
+			in.close();
+			assertTrue(found);
+		} finally {
+			server.stop();
+		}
+	}
+
+	public void testHandler() {
+		Topology t = new Topology(new int[] { 4, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		RealVectorField m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.3, 0 })
+				.normTo(ms);
+
+		long steps = registry.getCounter("yamms_solver_steps_total", "").get();
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(new MetricsHandler(), Condition.everyNthStep(10));
+		solver.stopWhen(Condition.timeGreater(5e-12));
+		solver.integrate(new BasicModel(2.211e5, 0.1, ms, field), m0);
+
+		// first invocation at step 0, last at step 50, the solver counts the
+		// step after the last invocation as well
+		assertEquals(steps + 51, registry.getCounter("yamms_solver_steps_total", "").get());
+		assertApprox(1e-13, registry.getGauge("yamms_solver_dt_seconds", "").getValue());
+		assertApprox(5e-12, registry.getGauge("yamms_solver_time_seconds", "").getValue());
+		assertEquals(5, registry.getHistogram("yamms_solver_step_wall_seconds", "", null)
+				.getCount());
+		assertTrue(Math.abs(1e-3 * System.currentTimeMillis()
+				- registry.getGauge("yamms_solver_last_step_timestamp_seconds", "").getValue()) < 60);
+	}
+
+	public void testSolverSteps() {
+		Topology t = new Topology(new int[] { 4, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		RealVectorField m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.3, 0 })
+				.normTo(ms);
+
+		// the steps are counted without a metrics handler
+		final int[] lastStep = new int[1];
+		long steps = registry.getCounter("yamms_solver_steps_total", "").get();
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				lastStep[0] = state.getStep();
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(2e-12));
+		solver.integrate(new BasicModel(2.211e5, 0.1, ms, field), m0);
+
+		assertTrue(lastStep[0] > 0);
+		assertEquals(steps + lastStep[0], registry.getCounter("yamms_solver_steps_total", "")
+				.get());
+	}
+
+	public void testEnsembleSteps() {
+		Topology t = new Topology(new int[] { 4, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		RealVectorField m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.3, 0 })
+				.normTo(ms);
+
+		// the solver switches between the states of the replicas
+		final int[] lastSteps = new int[2];
+		long steps = registry.getCounter("yamms_solver_steps_total", "").get();
+		EnsembleSolver solver = new EnsembleSolver(1e-13, new long[] { 1, 2 }, 0, 1);
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				lastSteps[state.getInt("replica")] = state.getStep();
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(2e-12));
+		solver.integrate(new BasicModel(2.211e5, 0.1, ms, field), m0);
+
+		assertTrue(lastSteps[0] > 0);
+		assertEquals(lastSteps[0], lastSteps[1]);
+		assertEquals(steps + lastSteps[0] + lastSteps[1], registry.getCounter(
+				"yamms_solver_steps_total", "").get());
+	}
+}
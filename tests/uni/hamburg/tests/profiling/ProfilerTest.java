@@ -0,0 +1,162 @@
+package uni.hamburg.tests.profiling;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.math.parfor;
+import uni.hamburg.yamms.profiling.Profiler;
+
+public class ProfilerTest extends YammsTestCase {
+	private Profiler profiler;
+	private int outer;
+	private int inner;
+
+	public void setUp() {
+		profiler = Profiler.getInstance();
+		profiler.reset();
+		profiler.setEnabled(true);
+		outer = profiler.register("Outer");
+		inner = profiler.register("Inner");
+	}
+
+	public void tearDown() {
+		profiler.setAllocationTracking(false);
+		profiler.setEnabled(true);
+		profiler.reset();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	public void testRegister() {
+		assertEquals(outer, profiler.register("Outer"));
+		assertTrue(outer != inner);
+	}
+
+	public void testTree() {
+		for (int i = 0; i < 3; i++) {
+			profiler.tic(outer);
+			profiler.tic(inner);
+			sleep(2);
+			profiler.toc(inner);
+			profiler.toc(outer);
+		}
+		// the same probe outside of the outer measurement is a separate node
+		profiler.tic(inner);
+		profiler.toc(inner);
+
+		Profiler.Node root = profiler.getTree();
+		assertEquals(2, root.getChildren().size());
+		Profiler.Node outerNode = root.getChild("Outer");
+		Profiler.Node innerNode = outerNode.getChild("Inner");
+		assertEquals(3, outerNode.getCalls());
+		assertEquals(3, innerNode.getCalls());
+		assertEquals(1, root.getChild("Inner").getCalls());
+		assertSame(outerNode, innerNode.getParent());
+
+		assertTrue(innerNode.getMin() >= 2);
+		assertTrue(outerNode.getTotal() >= innerNode.getTotal());
+		assertTrue(innerNode.getMin() <= innerNode.getPercentile(50));
+		assertTrue(innerNode.getPercentile(50) <= innerNode.getMax());
+		assertTrue(profiler.getSummary().contains("  Inner"));
+	}
+
+	public void testUnbalanced() {
+		// the running inner measurement is discarded
+		profiler.tic(outer);
+		profiler.tic(inner);
+		profiler.toc(outer);
+		profiler.toc(inner);
+		profiler.tic(outer);
+		profiler.toc(outer);
+
+		Profiler.Node root = profiler.getTree();
+		assertEquals(2, root.getChild("Outer").getCalls());
+		assertEquals(0, root.getChild("Outer").getChild("Inner").getCalls());
+	}
+
+	public void testThreads() {
+		// threads of a parfor loop terminate before the tree is read
+		new parfor(4) {
+			public void iter(int thread_idx, int i) {
+				profiler.tic(outer);
+				profiler.tic(inner);
+				profiler.toc(inner);
+				profiler.toc(outer);
+			}
+		}.execute(0, 1000);
+
+		Profiler.Node node = profiler.getTree().getChild("Outer");
+		assertEquals(1000, node.getCalls());
+		assertEquals(1000, node.getChild("Inner").getCalls());
+	}
+
+	public void testNames() {
+		// names are registered concurrently by the first calls
+		new parfor(4) {
+			public void iter(int thread_idx, int i) {
+				profiler.tic("Name" + (i % 8));
+				profiler.toc("Name" + (i % 8));
+			}
+		}.execute(0, 1000);
+
+		Profiler.Node root = profiler.getTree();
+		long calls = 0;
+		for (int i = 0; i < 8; i++) {
+			calls += root.getChild("Name" + i).getCalls();
+		}
+		assertEquals(1000, calls);
+		assertEquals(profiler.register("Name3"), profiler.register("Name3"));
+	}
+
+	public void testPercentile() {
+		profiler.tic(outer);
+		profiler.toc(outer);
+		for (int i = 0; i < 9; i++) {
+			profiler.tic(outer);
+			sleep(5);
+			profiler.toc(outer);
+		}
+		Profiler.Node node = profiler.getTree().getChild("Outer");
+		assertTrue(node.getPercentile(10) < 1);
+		assertTrue(node.getPercentile(50) >= 0.93 * 5);
+		assertApprox(node.getMax(), node.getPercentile(100), 0.07 * node.getMax());
+	}
+
+	public void testDisabled() {
+		profiler.setEnabled(false);
+		profiler.tic(outer);
+		profiler.toc(outer);
+		assertNull(profiler.getTree().getChild("Outer"));
+	}
+
+	public void testAllocationTracking() {
+		profiler.setAllocationTracking(true);
+		long[][] arrays = new long[3][];
+		for (int i = 0; i < 3; i++) {
+			profiler.tic(outer);
+			arrays[i] = new long[100000];
+			profiler.tic(inner);
+			arrays[i] = new long[200000];
+			profiler.toc(inner);
+			profiler.toc(outer);
+		}
+		profiler.setAllocationTracking(false);
+		profiler.tic(outer);
+		arrays[0] = new long[100000];
+		profiler.toc(outer);
+
+		Profiler.Node outerNode = profiler.getTree().getChild("Outer");
+		Profiler.Node innerNode = outerNode.getChild("Inner");
+		assertApprox(3 * 2.4e6, outerNode.getAllocatedBytes(), 1e4);
+		assertApprox(3 * 0.8e6, outerNode.getSelfAllocatedBytes(), 1e4);
+		assertApprox(3 * 1.6e6, innerNode.getAllocatedBytes(), 1e4);
+		assertEquals("Outer/Inner", innerNode.getPath());
+
+		// the inner probe allocates most
+		String report = profiler.getAllocationReport();
+		assertTrue(report.indexOf("Outer/Inner") < report.indexOf("Outer "));
+	}
+}
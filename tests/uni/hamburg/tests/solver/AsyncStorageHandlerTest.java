@@ -0,0 +1,160 @@
+package uni.hamburg.tests.solver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.AsyncStorageHandler;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.ScalarStorageHandler;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class AsyncStorageHandlerTest extends YammsTestCase {
+	private File file;
+	private Model model;
+	private RealVectorField m0;
+
+	public void setUp() throws Exception {
+		file = File.createTempFile("scalar", ".dat");
+
+		Topology t = new Topology(new int[] { 8, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(new StaticZeemanField(new double[] { -2e4, 4e3, 0 }));
+		model = new BasicModel(2.211e5, 0.1, ms, field);
+		m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.1, 0 }).normTo(ms);
+	}
+
+	public void tearDown() {
+		file.delete();
+	}
+
+	private List<String> readRows() throws IOException {
+		List<String> rows = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		String line;
+		while ((line = in.readLine()) != null) {
+			if (!line.startsWith("#")) rows.add(line);
+		}
+		in.close();
+		return rows;
+	}
+
+	public void testScalarStorage() throws IOException {
+		final List<double[]> expected = new ArrayList<double[]>();
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		ScalarStorageHandler handler = new ScalarStorageHandler(file.getAbsolutePath(), true);
+		handler.setCapacity(2);
+		solver.addHandler(handler);
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				double[] avg = state.getM().getAverage();
+				expected.add(new double[] { state.getTime(), avg[0], avg[1], avg[2] });
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(1e-11));
+		solver.integrate(model, m0);
+
+		// all rows are written when integrate returns
+		List<String> rows = readRows();
+		assertEquals(expected.size(), rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			String[] columns = rows.get(i).split(" ");
+			assertEquals(i, Integer.parseInt(columns[0]));
+			for (int j = 0; j < 4; j++) {
+				assertEquals(expected.get(i)[j], Double.parseDouble(columns[j + 1]));
+			}
+		}
+		handler.close();
+	}
+
+	public void testEndOfIntegration() throws IOException {
+		final int[] calls = new int[1];
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(new ScalarStorageHandler(file.getAbsolutePath(), true));
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				calls[0]++;
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(1e-12));
+
+		// the writer thread is stopped at the end of every integration and
+		// the second integration appends to the file
+		for (int i = 0; i < 2; i++) {
+			solver.integrate(model, m0);
+			for (Thread thread : Thread.getAllStackTraces().keySet()) {
+				assertFalse(thread.getName().equals("ScalarStorageHandler writer"));
+			}
+		}
+		assertEquals(calls[0], readRows().size());
+	}
+
+	public void testDrop() {
+		final List<Integer> written = new ArrayList<Integer>();
+		AsyncStorageHandler handler = new AsyncStorageHandler(false) {
+			protected void write(Snapshot snapshot) {
+				try {
+					Thread.sleep(5);
+				} catch (InterruptedException e) {
+				}
+				written.add(snapshot.getStep());
+			}
+		};
+		handler.setCapacity(1);
+		handler.setBackpressure(AsyncStorageHandler.Backpressure.DROP);
+
+		final int[] calls = new int[1];
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(handler);
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				calls[0]++;
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(2e-11));
+		solver.integrate(model, m0);
+
+		assertTrue(handler.getDroppedCount() > 0);
+		assertEquals(calls[0], written.size() + handler.getDroppedCount());
+		for (int i = 1; i < written.size(); i++) {
+			assertTrue(written.get(i) > written.get(i - 1));
+		}
+		handler.close();
+	}
+
+	public void testError() {
+		AsyncStorageHandler handler = new AsyncStorageHandler(false) {
+			protected void write(Snapshot snapshot) throws IOException {
+				throw new IOException("disk full");
+			}
+		};
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(handler);
+		solver.stopWhen(Condition.timeGreater(1e-12));
+		try {
+			solver.integrate(model, m0);
+			fail();
+		} catch (RuntimeException e) {
+			assertTrue(e.getMessage().contains("disk full"));
+		}
+		handler.close();
+	}
+}
@@ -0,0 +1,136 @@
+package uni.hamburg.tests.solver;
+
+import java.io.File;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.io.IOConfig;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.Checkpoint;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.DormandPrinceSolver;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.CheckpointHandler;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class CheckpointTest extends YammsTestCase {
+	private static final double TIME = 5e-11;
+
+	private File directory;
+	private Model model;
+	private RealVectorField m0;
+
+	public void setUp() throws Exception {
+		directory = File.createTempFile("checkpoint", "");
+		directory.delete();
+
+		Topology t = new Topology(new int[] { 16, 8, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(new DemagField(t));
+		field.addFieldTerm(new StaticZeemanField(new double[] { -2e4, 4e3, 0 }));
+		model = new BasicModel(2.211e5, 0.02, ms, field);
+		m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.1, 0 }).normTo(ms);
+	}
+
+	public void tearDown() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Adds a checkpoint handler (every 150 steps, the last checkpoint is
+	 * written before step 451) and a handler that records the handled steps
+	 */
+	private void setupHandlers(Solver solver, String checkpoint, final StringBuffer steps) {
+		if (checkpoint != null) {
+			solver.addHandler(new CheckpointHandler(checkpoint), Condition.everyNthStep(150));
+		}
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				steps.append(state.getStep()).append(' ');
+			}
+		}, Condition.everyNthStep(50));
+		solver.stopWhen(Condition.timeGreater(TIME));
+	}
+
+	private String path(String name) {
+		return directory.getAbsolutePath() + File.separator + name;
+	}
+
+	public void testThermalHeun() {
+		// uninterrupted run
+		StringBuffer expectedSteps = new StringBuffer();
+		Solver solver = new HeunSolver(1e-13, 42, 300);
+		setupHandlers(solver, path("heun.checkpoint"), expectedSteps);
+		RealVectorField expected = solver.integrate(model, m0);
+
+		// resumed run, the random generator is restored from the checkpoint
+		StringBuffer resumedSteps = new StringBuffer();
+		solver = new HeunSolver(1e-13, 7, 300);
+		setupHandlers(solver, null, resumedSteps);
+		RealVectorField resumed = solver.integrate(model, Checkpoint.read(path("heun.checkpoint")));
+
+		assertApprox(expected, resumed, 0);
+		assertEquals("500 ", resumedSteps.toString());
+		assertTrue(expectedSteps.toString().endsWith(" 450 500 "));
+	}
+
+	public void testChangedStepSize() {
+		Solver solver = new HeunSolver(1e-13, 42, 300);
+		setupHandlers(solver, path("heun.checkpoint"), new StringBuffer());
+		RealVectorField expected = solver.integrate(model, m0);
+
+		// the step size and the deviation of the fluctuating field are
+		// restored from the checkpoint
+		solver = new HeunSolver(2e-13, 7, 300);
+		setupHandlers(solver, null, new StringBuffer());
+		RealVectorField resumed = solver.integrate(model, Checkpoint.read(path("heun.checkpoint")));
+
+		assertApprox(expected, resumed, 0);
+	}
+
+	public void testAdaptiveThermalHeun() {
+		Solver solver = new HeunSolver(1e-13, 42, 300, 1e-4, 1e-15, 1e-12);
+		setupHandlers(solver, path("adaptive.checkpoint"), new StringBuffer());
+		RealVectorField expected = solver.integrate(model, m0);
+
+		solver = new HeunSolver(1e-13, 42, 300, 1e-4, 1e-15, 1e-12);
+		setupHandlers(solver, null, new StringBuffer());
+		RealVectorField resumed = solver.integrate(model, Checkpoint.read(path("adaptive.checkpoint")));
+
+		assertApprox(expected, resumed, 0);
+	}
+
+	public void testDormandPrince() {
+		Solver solver = new DormandPrinceSolver(0, 1e-11, 1, 1e-6);
+		setupHandlers(solver, path("dp.checkpoint"), new StringBuffer());
+		RealVectorField expected = solver.integrate(model, m0);
+
+		Checkpoint checkpoint = Checkpoint.read(path("dp.checkpoint"));
+		assertTrue(checkpoint.getTime() > 0);
+
+		// not bit-for-bit, since the step size control is restarted (the steps
+		// and therefore the stop time differ slightly)
+		solver = new DormandPrinceSolver(0, 1e-11, 1, 1e-6);
+		setupHandlers(solver, null, new StringBuffer());
+		RealVectorField resumed = solver.integrate(model, checkpoint);
+		assertApprox(expected.getAverage(), resumed.getAverage(), 1e2);
+	}
+}
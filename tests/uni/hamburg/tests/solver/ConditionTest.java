@@ -0,0 +1,89 @@
+package uni.hamburg.tests.solver;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class ConditionTest extends YammsTestCase {
+	private int executions;
+	private int calls;
+
+	public void testEvaluatedOncePerStep() {
+		Topology t = new Topology(new int[] { 4, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		RealVectorField m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.3, 0 })
+				.normTo(ms);
+
+		final Condition condition = new Condition() {
+			public boolean execute(State state) {
+				executions++;
+				return state.getStep() >= 20;
+			}
+		};
+		StepHandler handler = new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				calls++;
+			}
+		};
+
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(handler, condition);
+		solver.addHandler(handler, condition.not());
+		solver.stopWhen(condition.or(Condition.timeGreater(1)));
+		solver.integrate(new BasicModel(2.211e5, 0.1, ms, field), m0);
+
+		// steps 0 to 20, each handler condition holds once per step
+		assertEquals(21, executions);
+		assertEquals(21, calls);
+	}
+
+	public void testReductionCache() {
+		Topology t = new Topology(new int[] { 3, 2, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		RealVectorField m = RealVectorField.getUniformField(t, new double[] { 3, 4, 0 });
+		State state = State.getStub(m);
+		assertSame(state.getMReduction(), state.getMReduction());
+		assertApprox(5, state.getMReduction().getMaxNorm());
+
+		state.step(m.times(2), m, 1e-12);
+		assertApprox(10, state.getMReduction().getMaxNorm());
+		assertApprox(5, state.getMDotReduction().getMaxNorm());
+		assertTrue(Condition.mDotMaxNormLess(6).evaluate(state));
+		assertFalse(Condition.mDotMaxNormLess(4).evaluate(state));
+	}
+
+	public void testParameterChange() {
+		Topology t = new Topology(new int[] { 1, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		State state = State.getStub(RealVectorField.getUniformField(t, new double[] { 1, 0, 0 }));
+		state.setInt("stage", 0);
+		Condition condition = new Condition() {
+			public boolean execute(State state) {
+				executions++;
+				return state.getInt("stage") == 1;
+			}
+		};
+
+		// a handler changes the parameter within the step
+		assertFalse(condition.evaluate(state));
+		assertFalse(condition.evaluate(state));
+		state.setInt("stage", 1);
+		assertTrue(condition.evaluate(state));
+		assertEquals(2, executions);
+
+		// derived states have their own revision
+		State derived = state.derive(state.getM(), null, 0);
+		assertTrue(condition.evaluate(derived));
+		assertEquals(3, executions);
+	}
+}
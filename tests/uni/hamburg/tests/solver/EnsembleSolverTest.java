@@ -0,0 +1,90 @@
+package uni.hamburg.tests.solver;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.math.fft.FFT_fftw3Impl;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.EnsembleSolver;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class EnsembleSolverTest extends YammsTestCase {
+	private static final long[] SEEDS = new long[] { 1, 2, 3 };
+
+	private Model model;
+	private RealVectorField m0;
+
+	public void setUp() {
+		model = createModel();
+		m0 = RealVectorField.getUniformField(model.getMs().topology, new double[] { 1, 0.1, 0 })
+				.normTo(model.getMs());
+	}
+
+	private static Model createModel() {
+		Topology t = new Topology(new int[] { 16, 8, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(new DemagField(t));
+		field.addFieldTerm(new StaticZeemanField(new double[] { -2e4, 4e3, 0 }));
+		return new BasicModel(2.211e5, 0.02, ms, field);
+	}
+
+	public void testReplicasMatchHeun() {
+		EnsembleSolver ensemble = new EnsembleSolver(1e-13, SEEDS, 300, 2);
+
+		// stop the replicas at different times
+		final int[] steps = new int[SEEDS.length];
+		ensemble.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				steps[state.getInt("replica")] = state.getStep();
+			}
+		});
+		ensemble.stopWhen(new Condition() {
+			public boolean execute(State state) {
+				return state.getStep() >= 100 * (state.getInt("replica") + 1);
+			}
+		});
+		ensemble.integrate(model, m0);
+		RealVectorField[] results = ensemble.getResults();
+
+		for (int i = 0; i < SEEDS.length; i++) {
+			assertEquals(100 * (i + 1), steps[i]);
+
+			Solver heun = new HeunSolver(1e-13, SEEDS[i], 300);
+			heun.stopWhen(Condition.everyNthStep(100 * (i + 1)).and(
+					Condition.timeGreater(1e-14)));
+			RealVectorField expected = heun.integrate(model, m0);
+			assertApprox(expected.getAverage(), results[i].getAverage(), 0);
+		}
+	}
+
+	public void testFFTW() {
+		if (!FFT_fftw3Impl.isAvailable()) return; // nothing to check
+
+		// the replicas create the FFTW plans of a fresh model concurrently
+		long[] seeds = new long[] { 1, 2, 3, 4 };
+		EnsembleSolver ensemble = new EnsembleSolver(1e-13, seeds, 300, seeds.length);
+		ensemble.stopWhen(Condition.everyNthStep(20).and(Condition.timeGreater(1e-14)));
+		ensemble.integrate(createModel(), m0);
+		RealVectorField[] results = ensemble.getResults();
+
+		for (int i = 0; i < seeds.length; i++) {
+			Solver heun = new HeunSolver(1e-13, seeds[i], 300);
+			heun.stopWhen(Condition.everyNthStep(20).and(Condition.timeGreater(1e-14)));
+			RealVectorField expected = heun.integrate(model, m0);
+			assertApprox(expected.getAverage(), results[i].getAverage(), 0);
+		}
+	}
+}
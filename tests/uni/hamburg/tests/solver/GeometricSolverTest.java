@@ -0,0 +1,105 @@
+package uni.hamburg.tests.solver;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.GeometricSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.GeometricSolver.Scheme;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class GeometricSolverTest extends YammsTestCase {
+	private static final double GAMMA = 2.211e5;
+	private static final double ALPHA = 0.1;
+	private static final double MS = 8e5;
+	private static final double H = 1e5;
+	private static final double THETA0 = 3.0;
+	private static final double TIME = 5e-10;
+
+	private Model model;
+	private RealVectorField m0;
+
+	public void setUp() {
+		Topology t = new Topology(new int[] { 1, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, MS);
+		model = new BasicModel(GAMMA, ALPHA, ms, new StaticZeemanField(new double[] { 0, 0, H }));
+		m0 = RealVectorField.getUniformField(t, new double[] { MS * Math.sin(THETA0), 0,
+				MS * Math.cos(THETA0) });
+	}
+
+	/**
+	 * Damped precession of a macro spin in a static field. The polar angle is
+	 * given by tan(theta/2) = tan(theta0/2) exp(-alpha gamma' H t)
+	 */
+	private double analyticMz(double t) {
+		double gammaPrime = GAMMA / (1 + ALPHA * ALPHA);
+		double theta = 2 * Math.atan(Math.tan(THETA0 / 2) * Math.exp(-ALPHA * gammaPrime * H * t));
+		return MS * Math.cos(theta);
+	}
+
+	private double error(Scheme scheme, double stepSize) {
+		final double[] maxNormError = new double[1];
+		Solver solver = new GeometricSolver(stepSize, 0, 0, scheme);
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				double normError = Math.abs(state.getM().getNorm(0) - MS);
+				maxNormError[0] = Math.max(maxNormError[0], normError);
+			}
+		});
+		final State[] last = new State[1];
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				last[0] = state;
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(TIME - stepSize / 2));
+		solver.integrate(model, m0);
+
+		// the norm is preserved without renormalization
+		assertTrue(maxNormError[0] < 1e-8 * MS);
+		return Math.abs(analyticMz(last[0].getTime()) - last[0].getM().getValue(2, 0));
+	}
+
+	public void testCayleyEuler() {
+		double coarse = error(Scheme.CAYLEY_EULER, 2e-13);
+		double fine = error(Scheme.CAYLEY_EULER, 1e-13);
+		assertTrue(fine < 1e-2 * MS);
+		assertApprox(2, coarse / fine, 0.2);
+	}
+
+	public void testCayleyHeun() {
+		double coarse = error(Scheme.CAYLEY_HEUN, 2e-13);
+		double fine = error(Scheme.CAYLEY_HEUN, 1e-13);
+		assertTrue(fine < 1e-3 * MS);
+		assertApprox(4, coarse / fine, 0.4);
+	}
+
+	public void testMidpoint() {
+		double coarse = error(Scheme.MIDPOINT, 2e-13);
+		double fine = error(Scheme.MIDPOINT, 1e-13);
+		assertTrue(fine < 1e-3 * MS);
+		assertApprox(4, coarse / fine, 0.4);
+	}
+
+	public void testMidpointNotConverged() {
+		// the fixed-point iteration diverges for too large steps
+		GeometricSolver solver = new GeometricSolver(2e-10, 0, 0, Scheme.MIDPOINT);
+		solver.stopWhen(Condition.timeGreater(1e-9));
+		solver.integrate(model, m0);
+		assertTrue(solver.getUnconvergedSteps() > 0);
+	}
+
+	public void testThermal() {
+		Solver solver = new GeometricSolver(1e-13, 42, 300);
+		solver.stopWhen(Condition.timeGreater(1e-10));
+		RealVectorField m = solver.integrate(model, m0);
+		assertApprox(MS, m.getNorm(0), 1e-8 * MS);
+	}
+}
@@ -0,0 +1,109 @@
+package uni.hamburg.tests.solver;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class HeunSolverTest extends YammsTestCase {
+	private static final double GAMMA = 2.211e5;
+	private static final double ALPHA = 0.1;
+	private static final double MS = 8e5;
+	private static final double H = 1e5;
+	private static final double THETA0 = 3.0;
+
+	private Model model;
+	private RealVectorField m0;
+
+	public void setUp() {
+		Topology t = new Topology(new int[] { 1, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, MS);
+		model = new BasicModel(GAMMA, ALPHA, ms, new StaticZeemanField(new double[] { 0, 0, H }));
+		m0 = RealVectorField.getUniformField(t, new double[] { MS * Math.sin(THETA0), 0,
+				MS * Math.cos(THETA0) });
+	}
+
+	/**
+	 * Damped precession of a macro spin in a static field. The polar angle is
+	 * given by tan(theta/2) = tan(theta0/2) exp(-alpha gamma' H t)
+	 */
+	private double analyticMz(double t) {
+		double gammaPrime = GAMMA / (1 + ALPHA * ALPHA);
+		double theta = 2 * Math.atan(Math.tan(THETA0 / 2) * Math.exp(-ALPHA * gammaPrime * H * t));
+		return MS * Math.cos(theta);
+	}
+
+	private State run(Solver solver, double time) {
+		final State[] last = new State[1];
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				last[0] = state;
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(time));
+		solver.integrate(model, m0);
+		return last[0];
+	}
+
+	public void testAdaptive() {
+		State fixed = run(new HeunSolver(1e-13, 0, 0), 5e-10);
+		State adaptive = run(new HeunSolver(1e-13, 0, 0, 1e-5, 1e-15, 1e-11), 5e-10);
+
+		assertApprox(analyticMz(fixed.getTime()), fixed.getM().getValue(2, 0), 1e-3 * MS);
+		assertApprox(analyticMz(adaptive.getTime()), adaptive.getM().getValue(2, 0), 1e-3 * MS);
+		assertTrue(adaptive.getStep() < fixed.getStep() / 2);
+	}
+
+	/**
+	 * Time average of m_z / M_s of a strongly damped macro spin in a field of
+	 * 1e7 A/m at 300 K
+	 */
+	private double averageMz(Solver solver, double time) {
+		Topology t = new Topology(new int[] { 1, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, MS);
+		Model thermal = new BasicModel(GAMMA, 1.0, ms, new StaticZeemanField(new double[] { 0, 0,
+				1e7 }));
+		RealVectorField m = RealVectorField.getUniformField(t, new double[] { 0, 0, MS });
+
+		final double[] sum = new double[2];
+		solver.addHandler(new StepHandler() {
+			private double _t;
+
+			public void handleStep(Solver solver, State state) {
+				double dt = state.getTime() - _t;
+				_t = state.getTime();
+				if (_t < 2e-11) return;
+				sum[0] += dt * state.getM().getValue(2, 0) / MS;
+				sum[1] += dt;
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(time));
+		solver.integrate(thermal, m);
+		return sum[0] / sum[1];
+	}
+
+	public void testAdaptiveThermal() {
+		State adaptive = run(new HeunSolver(1e-13, 42, 300, 1e-4, 1e-15, 1e-11), 1e-10);
+		assertApprox(MS, adaptive.getM().getNorm(0), 1e-6 * MS);
+
+		// the thermal equilibrium of the adaptive mode matches the fixed step
+		// size (about 400 correlation times, standard error about 0.015)
+		double fixedMz = averageMz(new HeunSolver(1e-14, 42, 300), 4e-10);
+		double adaptiveMz = averageMz(new HeunSolver(1e-14, 42, 300, 1e-2, 5e-16, 5e-13), 4e-10);
+		assertApprox(fixedMz, adaptiveMz, 0.05);
+
+		// the fluctuations are significant (1 without noise, 0 for an
+		// isotropic distribution)
+		assertTrue(adaptiveMz < 0.9);
+		assertTrue(adaptiveMz > 0.5);
+	}
+}
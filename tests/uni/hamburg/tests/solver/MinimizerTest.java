@@ -0,0 +1,58 @@
+package uni.hamburg.tests.solver;
+
+import java.io.InputStream;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.io.OmfFileService;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.Minimizer;
+import uni.hamburg.yamms.solver.Solver;
+
+public class MinimizerTest extends YammsTestCase {
+
+	public void testMacroSpin() {
+		Topology t = new Topology(new int[] { 1, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		Model model = new BasicModel(2.211e5, 0.02, ms, new StaticZeemanField(new double[] { 0,
+				0, 1e5 }));
+		RealVectorField m0 = RealVectorField.getUniformField(t, new double[] { 1, 0, -0.1 });
+
+		Solver solver = new Minimizer();
+		solver.stopWhen(Condition.mDotMaxNormLess(1));
+		RealVectorField m = solver.integrate(model, m0);
+
+		assertApprox(new double[] { 0, 0, 8e5 }, m.getVector(0), 1e-3);
+	}
+
+	public void testSP4GroundState() {
+		// load expected ground state
+		InputStream fstream = getClass().getResourceAsStream("sp4-groundstate.omf");
+		RealVectorField expected = OmfFileService.readFile(fstream);
+		RealScalarField ms = new RealConstantScalarField(expected.topology, 8e5);
+
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(new DemagField(expected.topology));
+		Model model = new BasicModel(2.211e5, 0.02, ms, field);
+
+		// start from the saturated state
+		RealVectorField m0 = RealVectorField.getUniformField(expected.topology, new double[] { 1,
+				1, 1 });
+
+		Solver solver = new Minimizer();
+		solver.stopWhen(Condition.mDotMaxNormLess(1e7));
+		RealVectorField m = solver.integrate(model, m0);
+
+		assertApprox(expected.getAverage(), m.getAverage(), 10);
+	}
+}
@@ -0,0 +1,111 @@
+package uni.hamburg.tests.solver;
+
+import java.util.HashMap;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.solver.Parameters;
+import uni.hamburg.yamms.solver.State;
+
+public class ParametersTest extends YammsTestCase {
+	private static final Parameters.DoubleKey CURRENT = Parameters.doubleKey("test_current");
+	private static final Parameters.IntKey COUNTER = Parameters.intKey("test_counter");
+	private static final Parameters.ObjectKey<String> LABEL = Parameters.objectKey("test_label");
+
+	private State state() {
+		Topology t = new Topology(new int[] { 2, 1, 1 }, new double[] { 1e-9, 1e-9, 1e-9 });
+		return State.getStub(RealVectorField.getUniformField(t, new double[] { 1, 0, 0 }));
+	}
+
+	public void testKeys() {
+		assertSame(CURRENT, Parameters.doubleKey("test_current"));
+		assertSame(COUNTER, Parameters.intKey("test_counter"));
+		assertEquals("test_current", Parameters.intKey("test_current").getName());
+	}
+
+	public void testTypes() {
+		// the type belongs to the value, not to the name
+		State state = state();
+		state.setInt("test_mode", 1);
+		assertEquals(1.0, state.getDouble("test_mode"));
+		state.setDouble("test_mode", 0.5);
+		assertEquals(0.5, state.getDouble("test_mode"));
+		try {
+			state.getInt("test_mode");
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+
+		State other = state();
+		other.setString("test_mode", "fast");
+		assertEquals("fast", other.getString("test_mode"));
+		assertEquals(0.5, state.getDouble("test_mode"));
+
+		// reading a missing parameter does not fix its type
+		try {
+			other.getInt("test_unused");
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		other.setDouble("test_unused", 2);
+		assertEquals(2.0, other.getDouble("test_unused"));
+	}
+
+	public void testTypedAccess() {
+		State state = state();
+		state.setDouble(CURRENT, 1e12);
+		state.setInt(COUNTER, 3);
+		state.incInt(COUNTER);
+		state.set(LABEL, "a");
+
+		assertEquals(1e12, state.getDouble(CURRENT));
+		assertEquals(4, state.getInt(COUNTER));
+		assertEquals("a", state.get(LABEL));
+
+		// the string based access uses the same slots
+		assertEquals(1e12, state.getDouble("test_current"));
+		assertEquals(4, state.getInt("test_counter"));
+		assertEquals("a", state.getString("test_label"));
+		assertEquals(Integer.valueOf(4), state.get("test_counter"));
+		assertNull(state.get("test_unknown"));
+
+		try {
+			state().getDouble(CURRENT);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	public void testCopyOnWrite() {
+		State state = state();
+		state.setDouble(CURRENT, 1);
+		State derived = state.derive(state.getM(), null, 0);
+		assertEquals(1.0, derived.getDouble(CURRENT));
+
+		// changes are not visible in states derived before
+		state.setDouble(CURRENT, 2);
+		derived.setInt(COUNTER, 5);
+		assertEquals(1.0, derived.getDouble(CURRENT));
+		assertEquals(2.0, state.getDouble(CURRENT));
+		assertNull(state.get("test_counter"));
+		assertEquals(2.0, state.derive(state.getM(), null, 0).getDouble(CURRENT));
+	}
+
+	public void testMap() {
+		HashMap<String, Object> map = new HashMap<String, Object>();
+		map.put("test_current", 3);
+		map.put("test_counter", 7);
+		map.put("test_label", "b");
+		State state = new State(map);
+		// the int value is converted when read as double
+		assertEquals(3.0, state.getDouble(CURRENT));
+		assertEquals(7, state.getInt(COUNTER));
+		assertEquals("b", state.get(LABEL));
+
+		HashMap<String, Object> result = Parameters.fromMap(map).toMap();
+		assertEquals(Integer.valueOf(3), result.get("test_current"));
+		assertEquals(Integer.valueOf(7), result.get("test_counter"));
+		assertEquals("b", result.get("test_label"));
+	}
+}
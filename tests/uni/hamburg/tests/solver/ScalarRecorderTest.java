@@ -0,0 +1,137 @@
+package uni.hamburg.tests.solver;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.FieldReduction;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.physics.Constants;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.ScalarRecorder;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class ScalarRecorderTest extends YammsTestCase {
+	private static final double[] H = new double[] { -2e4, 4e3, 0 };
+
+	private File file;
+	private Model model;
+	private StaticZeemanField zeeman;
+	private RealVectorField m0;
+
+	public void setUp() throws Exception {
+		file = File.createTempFile("scalar", ".dat");
+
+		Topology t = new Topology(new int[] { 8, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		zeeman = new StaticZeemanField(H);
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(new ExchangeField(13e-12, ms));
+		field.addFieldTerm(zeeman);
+		model = new BasicModel(2.211e5, 0.1, ms, field);
+		m0 = RealVectorField.getUniformField(t, new double[] { 1, 0.1, 0 }).normTo(ms);
+	}
+
+	public void tearDown() {
+		file.delete();
+	}
+
+	/**
+	 * Integrates the model and returns the expected rows (step, t, Mx, Zeeman
+	 * energy, dM_dt_max, counter)
+	 */
+	private List<double[]> integrate(ScalarRecorder recorder) {
+		final List<double[]> expected = new ArrayList<double[]>();
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				state.setInt("counter", 2 * state.getStep());
+				RealVectorField m = state.getM();
+				double energy = -Constants.MU0 * m.topology.getCellVolume()
+						* m.innerProduct(zeeman.calculateField(state));
+				expected.add(new double[] { state.getStep(), state.getTime(), m.getAverage()[0],
+						energy, state.getMDot().getMaxNorm(), 2 * state.getStep() });
+			}
+		});
+		solver.addHandler(recorder);
+		solver.stopWhen(Condition.timeGreater(1e-11));
+		solver.integrate(model, m0);
+		return expected;
+	}
+
+	private ScalarRecorder.Column[] columns() {
+		return new ScalarRecorder.Column[] { ScalarRecorder.Column.step(),
+				ScalarRecorder.Column.time(), ScalarRecorder.Column.average(0),
+				ScalarRecorder.Column.energy("E_zeeman", zeeman, 1),
+				ScalarRecorder.Column.mDotMaxNorm(), ScalarRecorder.Column.param("counter") };
+	}
+
+	public void testCsv() throws IOException {
+		ScalarRecorder recorder = new ScalarRecorder(file.getAbsolutePath(),
+				ScalarRecorder.Format.CSV, columns());
+		List<double[]> expected = integrate(recorder);
+
+		// all rows are written when integrate returns
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		assertEquals("step,t,Mx,E_zeeman,dM_dt_max,counter", in.readLine());
+		for (int i = 0; i < expected.size(); i++) {
+			String[] values = in.readLine().split(",");
+			assertEquals(6, values.length);
+			for (int j = 0; j < 6; j++) {
+				assertApprox(expected.get(i)[j], Double.parseDouble(values[j]),
+						1e-12 * Math.abs(expected.get(i)[j]));
+			}
+		}
+		assertNull(in.readLine());
+		in.close();
+		recorder.close();
+	}
+
+	public void testBinary() {
+		ScalarRecorder recorder = new ScalarRecorder(file.getAbsolutePath(),
+				ScalarRecorder.Format.BINARY, columns());
+		List<double[]> expected = integrate(recorder);
+		// a second integration appends a further block
+		expected.addAll(integrate(recorder));
+		recorder.close();
+
+		ScalarRecorder.Table table = ScalarRecorder.read(file.getAbsolutePath());
+		assertEquals(6, table.getNames().length);
+		assertEquals(expected.size(), table.getRowCount());
+		assertEquals("E_zeeman", table.getNames()[3]);
+		for (int j = 0; j < 6; j++) {
+			double[] column = table.getColumn(j);
+			for (int i = 0; i < expected.size(); i++) {
+				assertApprox(expected.get(i)[j], column[i], 1e-12 * Math.abs(expected.get(i)[j]));
+			}
+		}
+		assertSame(table.getColumn(1), table.getColumn("t"));
+	}
+
+	public void testFieldReduction() {
+		RealVectorField m = m0;
+		RealVectorField h = zeeman.calculateField(State.getStub(m));
+		FieldReduction reduction = new FieldReduction(m, new RealVectorField[] { h });
+
+		assertApprox(m.getAverage(), reduction.getAverage());
+		assertApprox(m.getAverageNorm(), reduction.getAverageNorm());
+		assertApprox(m.getMaxNorm(), reduction.getMaxNorm());
+		assertApprox(8e5, reduction.getMinNorm(), 1e-9);
+		assertApprox(m.innerProduct(h), reduction.getInnerProduct(0), 1e-12 * Math.abs(m.innerProduct(h)));
+	}
+}
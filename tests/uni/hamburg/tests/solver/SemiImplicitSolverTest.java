@@ -0,0 +1,79 @@
+package uni.hamburg.tests.solver;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.model.Model;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.SemiImplicitSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.solver.State;
+import uni.hamburg.yamms.solver.stepHandlers.StepHandler;
+
+public class SemiImplicitSolverTest extends YammsTestCase {
+	private static final double TIME = 2e-11;
+
+	private ExchangeField exchange;
+	private Model model;
+	private RealVectorField m0;
+
+	public void setUp() {
+		// fine discretized chain, the exchange term is very stiff
+		Topology t = new Topology(new int[] { 64, 1, 1 }, new double[] { 0.5e-9, 0.5e-9, 0.5e-9 });
+		RealScalarField ms = new RealConstantScalarField(t, 8e5);
+		exchange = new ExchangeField(13e-12, ms);
+
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(exchange);
+		field.addFieldTerm(new StaticZeemanField(new double[] { 0, 0, 1e5 }));
+		model = new BasicModel(2.211e5, 0.1, ms, field);
+
+		double[][] values = new double[3][t.totalCellCount];
+		for (int i = 0; i < t.totalCellCount; i++) {
+			values[0][i] = Math.sin(2 * Math.PI * i / 32.0);
+			values[1][i] = 0.5;
+			values[2][i] = 1;
+		}
+		m0 = new RealVectorField(t, values).normTo(ms);
+	}
+
+	private State run(Solver solver, double stepSize) {
+		final State[] last = new State[1];
+		solver.addHandler(new StepHandler() {
+			public void handleStep(Solver solver, State state) {
+				last[0] = state;
+			}
+		});
+		solver.stopWhen(Condition.timeGreater(TIME - stepSize / 2));
+		solver.integrate(model, m0);
+		return last[0];
+	}
+
+	public void testStiffExchange() {
+		State reference = run(new HeunSolver(2e-15, 0, 0), 2e-15);
+		State implicit = run(new SemiImplicitSolver(1e-13, 0, 0, exchange), 1e-13);
+
+		assertApprox(reference.getTime(), implicit.getTime(), 1e-15);
+		assertApprox(reference.getM().getAverage(), implicit.getM().getAverage(), 1e3);
+	}
+
+	public void testStiffExchangeCells() {
+		RealVectorField reference = run(new HeunSolver(2e-15, 0, 0), 2e-15).getM();
+
+		// explicit Heun is unstable at this step size
+		RealVectorField heun = run(new HeunSolver(1e-13, 0, 0), 1e-13).getM();
+		assertTrue(heun.add(reference.times(-1)).getMaxNorm() > 1e5);
+
+		// the implicit solver stays within about 1% of Ms in every cell
+		RealVectorField implicit = run(new SemiImplicitSolver(1e-13, 0, 0, exchange), 1e-13)
+				.getM();
+		assertTrue(implicit.add(reference.times(-1)).getMaxNorm() < 1e4);
+	}
+}
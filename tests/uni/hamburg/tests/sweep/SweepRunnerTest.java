@@ -0,0 +1,163 @@
+package uni.hamburg.tests.sweep;
+
+import java.io.File;
+import java.util.List;
+
+import uni.hamburg.tests.YammsTestCase;
+import uni.hamburg.yamms.fieldTerms.CompositeFieldTerm;
+import uni.hamburg.yamms.fieldTerms.DemagField;
+import uni.hamburg.yamms.fieldTerms.ExchangeField;
+import uni.hamburg.yamms.fieldTerms.StaticZeemanField;
+import uni.hamburg.yamms.io.IOConfig;
+import uni.hamburg.yamms.math.RealConstantScalarField;
+import uni.hamburg.yamms.math.RealScalarField;
+import uni.hamburg.yamms.math.RealVectorField;
+import uni.hamburg.yamms.math.Topology;
+import uni.hamburg.yamms.model.BasicModel;
+import uni.hamburg.yamms.solver.Condition;
+import uni.hamburg.yamms.solver.HeunSolver;
+import uni.hamburg.yamms.solver.Solver;
+import uni.hamburg.yamms.sweep.ParameterGrid;
+import uni.hamburg.yamms.sweep.SweepJob;
+import uni.hamburg.yamms.sweep.SweepPoint;
+import uni.hamburg.yamms.sweep.SweepRunner;
+
+public class SweepRunnerTest extends YammsTestCase {
+	private String oldBasePath;
+	private File baseDirectory;
+
+	private Topology topology;
+	private RealScalarField ms;
+	private CompositeFieldTerm base;
+
+	public void setUp() throws Exception {
+		oldBasePath = IOConfig.getInstance().getBasePath();
+		baseDirectory = File.createTempFile("sweep", "");
+		baseDirectory.delete();
+		baseDirectory.mkdirs();
+		IOConfig.getInstance().setBasePath(baseDirectory.getAbsolutePath());
+
+		topology = new Topology(new int[] { 8, 4, 1 }, new double[] { 5e-9, 5e-9, 3e-9 });
+		ms = new RealConstantScalarField(topology, 8e5);
+		base = new CompositeFieldTerm();
+		base.addFieldTerm(new ExchangeField(13e-12, ms));
+		base.addFieldTerm(new DemagField(topology));
+	}
+
+	public void tearDown() {
+		IOConfig.getInstance().setBasePath(oldBasePath);
+		delete(baseDirectory);
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	private RealVectorField simulate(SweepPoint point) {
+		CompositeFieldTerm field = new CompositeFieldTerm();
+		field.addFieldTerm(base);
+		field.addFieldTerm(new StaticZeemanField(new double[] { point.getDouble("h"), 0, 0 }));
+		Solver solver = new HeunSolver(1e-13, 0, 0);
+		solver.stopWhen(Condition.timeGreater(2e-11));
+		return solver.integrate(new BasicModel(2.211e5, point.getDouble("alpha"), ms, field),
+				RealVectorField.getUniformField(topology, new double[] { 0, 1, 0.1 }).normTo(ms));
+	}
+
+	public void testGrid() {
+		ParameterGrid grid = new ParameterGrid().add("alpha", new double[] { 0.01, 0.1 }).add("h",
+				0, 2e4, 3);
+		List<SweepPoint> points = grid.getPoints();
+		assertEquals(6, points.size());
+		assertApprox(0.01, points.get(2).getDouble("alpha"));
+		assertApprox(2e4, points.get(2).getDouble("h"));
+		assertApprox(0.1, points.get(3).getDouble("alpha"));
+		assertApprox(0, points.get(3).getDouble("h"));
+	}
+
+	public void testRunAndResume() {
+		ParameterGrid grid = new ParameterGrid().add("alpha", new double[] { 0.01, 0.1 }).add("h",
+				0, 2e4, 3);
+		final RealVectorField[] results = new RealVectorField[grid.size()];
+
+		// the last point fails in the first run
+		final boolean[] fail = new boolean[] { true };
+		SweepJob job = new SweepJob() {
+			public void run(SweepPoint point, String directory) throws Exception {
+				if (point.getIndex() == 5 && fail[0]) throw new Exception("failed");
+				assertTrue(new File(IOConfig.getInstance().getPathFor(directory)).isDirectory());
+				results[point.getIndex()] = simulate(point);
+			}
+		};
+
+		SweepRunner runner = new SweepRunner("sweep", grid, 3);
+		assertEquals(5, runner.run(job));
+		assertEquals(1, runner.getFailedPoints().size());
+
+		// concurrent jobs with shared field terms give the same results
+		for (SweepPoint point : grid.getPoints()) {
+			if (point.getIndex() == 5) continue;
+			assertApprox(simulate(point).getAverage(), results[point.getIndex()].getAverage(), 0);
+		}
+
+		// only the failed point is run again
+		fail[0] = false;
+		results[0] = null;
+		assertEquals(1, new SweepRunner("sweep", grid, 3).run(job));
+		assertNull(results[0]);
+		assertNotNull(results[5]);
+		assertEquals(0, new SweepRunner("sweep", grid, 3).run(job));
+	}
+
+	public void testResumeWithChangedGrid() {
+		SweepJob job = new SweepJob() {
+			public void run(SweepPoint point, String directory) {
+			}
+		};
+		assertEquals(2, new SweepRunner("sweep", new ParameterGrid().add("h", 0, 1e4, 2), 1)
+				.run(job));
+
+		// same indices, different values
+		final boolean[] ran = new boolean[1];
+		try {
+			new SweepRunner("sweep", new ParameterGrid().add("h", 0, 2e4, 2), 1)
+					.run(new SweepJob() {
+						public void run(SweepPoint point, String directory) {
+							ran[0] = true;
+						}
+					});
+			fail("Changed grid not detected");
+		} catch (IllegalStateException e) {
+			assertFalse(ran[0]);
+		}
+
+		// additional points of an extended grid are run
+		assertEquals(1, new SweepRunner("sweep", new ParameterGrid().add("h", 0, 2e4, 3), 1)
+				.run(job));
+	}
+
+	public void testError() {
+		final boolean[] fail = new boolean[] { true };
+		SweepJob job = new SweepJob() {
+			public void run(SweepPoint point, String directory) {
+				if (point.getIndex() == 1 && fail[0]) throw new AssertionError("failed");
+			}
+		};
+		ParameterGrid grid = new ParameterGrid().add("h", 0, 2e4, 3);
+
+		// errors are recorded like exceptions
+		SweepRunner runner = new SweepRunner("sweep", grid, 2);
+		assertEquals(2, runner.run(job));
+		assertEquals(1, runner.getFailedPoints().size());
+		assertEquals(1, runner.getFailedPoints().get(0).getIndex());
+
+		// the failed point is run again
+		fail[0] = false;
+		assertEquals(1, new SweepRunner("sweep", grid, 2).run(job));
+	}
+}